@@ -0,0 +1,357 @@
+package pets.database.cache;
+
+import static java.util.Collections.singletonList;
+import static pets.database.utils.Constants.COLLECTION_NAME_ACCOUNT_DETAILS;
+import static pets.database.utils.Constants.COLLECTION_NAME_REF_ACCOUNT_TYPE_DETAILS;
+import static pets.database.utils.Constants.COLLECTION_NAME_REF_BANK_DETAILS;
+import static pets.database.utils.Constants.COLLECTION_NAME_REF_CATEGORY_DETAILS;
+import static pets.database.utils.Constants.COLLECTION_NAME_REF_CATEGORY_TYPE_DETAILS;
+import static pets.database.utils.Constants.COLLECTION_NAME_REF_MERCHANT_DETAILS;
+import static pets.database.utils.Constants.COLLECTION_NAME_REF_TRANSACTION_TYPE_DETAILS;
+import static pets.database.utils.Constants.COLLECTION_NAME_USER_DETAILS;
+import static pets.database.utils.Constants.FIELD_NAME_USAGE_COUNT;
+import static pets.database.utils.Constants.FIELD_NAME_USAGE_VERSION;
+import static pets.database.utils.Constants.FIELD_NAME_USERNAME;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Watches the collections behind the in-process caches and invalidates the cached entries on every
+ * change, so writes served by another instance, or made directly in the database, are seen right
+ * away. Events only carry the id of the document and, for inserts and replaces, its owner, updates
+ * are not looked up: cached lists are invalidated by the ids they hold. Updates that only move
+ * usage counts come with every transaction write and are dropped on the server, the cached counts
+ * are refreshed by the ttl. Transactions are not watched, the services drop the summaries they
+ * change and the ttl of {@link TransactionSummaryCache} covers changes made on other instances. The
+ * resume token of the last event is kept to pick up where the stream left off after a reconnect.
+ * Change streams need a replica set, without one the caches rely on their ttl.
+ */
+@Component
+public class CacheInvalidationListener {
+  private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationListener.class);
+
+  // change streams are only supported on replica sets
+  private static final int CHANGE_STREAM_NOT_SUPPORTED = 40573;
+  // the oplog no longer has the resume point
+  private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+  // the stream cannot be resumed from the token, retrying with it fails the same way
+  private static final int CHANGE_STREAM_FATAL_ERROR = 280;
+  private static final List<String> USAGE_COUNT_FIELDS =
+      List.of(FIELD_NAME_USAGE_COUNT, FIELD_NAME_USAGE_VERSION, "usedInUserTransaction");
+  private static final List<String> COLLECTION_NAMES =
+      List.of(
+          COLLECTION_NAME_REF_ACCOUNT_TYPE_DETAILS,
+          COLLECTION_NAME_REF_BANK_DETAILS,
+          COLLECTION_NAME_REF_CATEGORY_TYPE_DETAILS,
+          COLLECTION_NAME_REF_CATEGORY_DETAILS,
+          COLLECTION_NAME_REF_TRANSACTION_TYPE_DETAILS,
+          COLLECTION_NAME_REF_MERCHANT_DETAILS,
+          COLLECTION_NAME_ACCOUNT_DETAILS,
+          COLLECTION_NAME_USER_DETAILS);
+
+  private final MongoTemplate mongoTemplate;
+  private final ReferenceDataCache referenceDataCache;
+  private final UserDataCache userDataCache;
+  private final MerchantPrefixIndex merchantPrefixIndex;
+  private final UserETagCache userETagCache;
+  private final TransactionSummaryCache transactionSummaryCache;
+  private final boolean enabled;
+  private final Duration retryDelay;
+  private final Map<String, Runnable> referenceTableInvalidations;
+
+  private final ExecutorService executorService =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private volatile boolean running;
+  private BsonDocument resumeToken;
+
+  public CacheInvalidationListener(
+      MongoTemplate mongoTemplate,
+      ReferenceDataCache referenceDataCache,
+      UserDataCache userDataCache,
+      MerchantPrefixIndex merchantPrefixIndex,
+      UserETagCache userETagCache,
+      TransactionSummaryCache transactionSummaryCache,
+      @Value("${pets.cache-invalidation.enabled:true}") boolean enabled,
+      @Value("${pets.cache-invalidation.retry-delay:PT5S}") Duration retryDelay) {
+    this.mongoTemplate = mongoTemplate;
+    this.referenceDataCache = referenceDataCache;
+    this.userDataCache = userDataCache;
+    this.merchantPrefixIndex = merchantPrefixIndex;
+    this.userETagCache = userETagCache;
+    this.transactionSummaryCache = transactionSummaryCache;
+    this.enabled = enabled;
+    this.retryDelay = retryDelay;
+    this.referenceTableInvalidations =
+        Map.of(
+            COLLECTION_NAME_REF_ACCOUNT_TYPE_DETAILS,
+            () -> referenceDataCache.refAccountTypes().invalidate(),
+            COLLECTION_NAME_REF_BANK_DETAILS,
+            () -> referenceDataCache.refBanks().invalidate(),
+            COLLECTION_NAME_REF_CATEGORY_TYPE_DETAILS,
+            () -> referenceDataCache.refCategoryTypes().invalidate(),
+            COLLECTION_NAME_REF_CATEGORY_DETAILS,
+            () -> referenceDataCache.refCategories().invalidate(),
+            COLLECTION_NAME_REF_TRANSACTION_TYPE_DETAILS,
+            () -> referenceDataCache.refTransactionTypes().invalidate());
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (enabled) {
+      running = true;
+      executorService.submit(this::watch);
+    } else {
+      logger.info("Cache Invalidation Listener Disabled, Caches Expire By Ttl");
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    running = false;
+    executorService.shutdownNow();
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void watch() {
+    while (running) {
+      try {
+        ChangeStreamIterable<Document> changeStream =
+            mongoTemplate.getDb().watch(pipeline()).maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null) {
+          changeStream = changeStream.resumeAfter(resumeToken);
+        }
+
+        logger.info("Cache Invalidation Listener Watching: {} | {}", COLLECTION_NAMES, resumeToken);
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor =
+            changeStream.cursor()) {
+          while (running) {
+            ChangeStreamDocument<Document> change = cursor.tryNext();
+            if (change != null) {
+              invalidate(change);
+            }
+            // also moves past events of unwatched collections while the stream is idle
+            if (cursor.getResumeToken() != null) {
+              resumeToken = cursor.getResumeToken();
+            }
+          }
+        }
+      } catch (MongoCommandException ex) {
+        if (ex.getErrorCode() == CHANGE_STREAM_NOT_SUPPORTED) {
+          logger.warn(
+              "Change Streams Not Supported, Caches Expire By Ttl: {}", ex.getErrorMessage());
+          running = false;
+        } else if (ex.getErrorCode() == CHANGE_STREAM_HISTORY_LOST
+            || ex.getErrorCode() == CHANGE_STREAM_FATAL_ERROR) {
+          // events since the token are gone, anything cached may be stale
+          logger.warn(
+              "Change Stream Not Resumable, Invalidating All Caches: {} | {}",
+              ex.getErrorCode(),
+              resumeToken);
+          resumeToken = null;
+          invalidateAll();
+        } else {
+          retry(ex);
+        }
+      } catch (Exception ex) {
+        retry(ex);
+      }
+    }
+  }
+
+  private void retry(Exception ex) {
+    if (!running) {
+      return;
+    }
+
+    logger.error("Cache Invalidation Listener, Retrying In: {}", retryDelay, ex);
+    try {
+      Thread.sleep(retryDelay.toMillis());
+    } catch (InterruptedException interruptedException) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+
+    if (resumeToken == null) {
+      // without a token the new stream starts from now, changes in between are not seen
+      invalidateAll();
+    }
+  }
+
+  /**
+   * Drops the updates that only move usage counts and keeps the fields {@link #invalidate} reads,
+   * so inserts do not ship their whole document.
+   */
+  static List<Bson> pipeline() {
+    Document updatedFieldNames =
+        new Document(
+            "$map",
+            new Document(
+                    "input",
+                    new Document(
+                        "$objectToArray",
+                        new Document(
+                            "$ifNull",
+                            List.of("$updateDescription.updatedFields", new Document()))))
+                .append("in", "$$this.k"));
+    Document usageCountOnly =
+        new Document(
+            "$and",
+            List.of(
+                new Document("$eq", List.of("$operationType", "update")),
+                new Document(
+                    "$eq",
+                    List.of(
+                        new Document(
+                            "$size",
+                            new Document(
+                                "$ifNull", List.of("$updateDescription.removedFields", List.of()))),
+                        0)),
+                new Document("$setIsSubset", List.of(updatedFieldNames, USAGE_COUNT_FIELDS))));
+
+    return List.of(
+        Aggregates.match(
+            Filters.and(
+                Filters.in("ns.coll", COLLECTION_NAMES),
+                Filters.expr(new Document("$not", List.of(usageCountOnly))))),
+        Aggregates.project(
+            Projections.include(
+                "operationType",
+                "ns",
+                "documentKey",
+                "updateDescription",
+                "fullDocument.user." + FIELD_NAME_USERNAME)));
+  }
+
+  void invalidate(ChangeStreamDocument<Document> change) {
+    String collectionName =
+        change.getNamespace() == null ? null : change.getNamespace().getCollectionName();
+    if (collectionName == null) {
+      // drop and rename of the whole database or collection
+      invalidateAll();
+      return;
+    }
+    // the pipeline already drops these on the server
+    if (isUsageCountOnly(change)) {
+      return;
+    }
+
+    Runnable referenceTableInvalidation = referenceTableInvalidations.get(collectionName);
+    if (referenceTableInvalidation != null) {
+      referenceTableInvalidation.run();
+      return;
+    }
+
+    String id = getId(change);
+    String username = getUsername(change);
+    switch (collectionName) {
+      case COLLECTION_NAME_REF_MERCHANT_DETAILS -> {
+        if (id != null) {
+          userDataCache.refMerchants().invalidateIds(singletonList(id));
+          merchantPrefixIndex.invalidateId(id);
+        }
+        if (username != null) {
+          userDataCache.refMerchants().invalidate(username);
+          merchantPrefixIndex.invalidate(username);
+        }
+      }
+      case COLLECTION_NAME_ACCOUNT_DETAILS -> {
+        if (id != null) {
+          userDataCache.accounts().invalidateIds(singletonList(id));
+        }
+        if (username != null) {
+          userDataCache.accounts().invalidate(username);
+        }
+      }
+      case COLLECTION_NAME_USER_DETAILS -> {
+        if (id != null) {
+          userETagCache.invalidate(id);
+        }
+      }
+      default ->
+          logger.debug("Cache Invalidation Listener, Unwatched Collection: {}", collectionName);
+    }
+  }
+
+  private static boolean isUsageCountOnly(ChangeStreamDocument<Document> change) {
+    UpdateDescription updateDescription = change.getUpdateDescription();
+    return change.getOperationType() == OperationType.UPDATE
+        && updateDescription != null
+        && updateDescription.getUpdatedFields() != null
+        && (updateDescription.getRemovedFields() == null
+            || updateDescription.getRemovedFields().isEmpty())
+        && USAGE_COUNT_FIELDS.containsAll(updateDescription.getUpdatedFields().keySet());
+  }
+
+  private void invalidateAll() {
+    referenceDataCache.invalidateAll();
+    userDataCache.refMerchants().invalidateAll();
+    userDataCache.accounts().invalidateAll();
+    merchantPrefixIndex.invalidateAll();
+    userETagCache.invalidateAll();
+    transactionSummaryCache.invalidateAll();
+  }
+
+  private String getId(ChangeStreamDocument<Document> change) {
+    if (change.getDocumentKey() == null) {
+      return null;
+    }
+
+    BsonValue id = change.getDocumentKey().get("_id");
+    if (id == null) {
+      return null;
+    } else if (id.isObjectId()) {
+      return id.asObjectId().getValue().toHexString();
+    } else if (id.isString()) {
+      return id.asString().getValue();
+    } else {
+      return id.toString();
+    }
+  }
+
+  /**
+   * @return username of the owner for inserts and replaces, which carry the full document
+   */
+  private String getUsername(ChangeStreamDocument<Document> change) {
+    Document fullDocument = change.getFullDocument();
+    if (fullDocument == null) {
+      return null;
+    }
+    Document user = fullDocument.get("user", Document.class);
+    return user == null ? null : user.getString(FIELD_NAME_USERNAME);
+  }
+}
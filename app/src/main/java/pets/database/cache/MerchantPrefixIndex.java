@@ -0,0 +1,265 @@
+package pets.database.cache;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pets.database.model.RefMerchant;
+import pets.database.repository.RefMerchantDao;
+
+/**
+ * Merchants of each user as a sorted list of search keys, so a prefix lookup is a binary search
+ * followed by a scan over the matches. The full description and every word in it is a key, and keys
+ * are lower case without accents. Merchant writes insert and remove their keys in place, the ttl
+ * picks up changed usage counts and changes made directly in the database, and expired indexes are
+ * dropped whenever an index is loaded.
+ */
+@Component
+public class MerchantPrefixIndex {
+
+  private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+  private static final Comparator<RefMerchant> BY_USAGE =
+      Comparator.comparingLong(
+              (RefMerchant refMerchant) ->
+                  refMerchant.getUsageCount() == null ? 0L : refMerchant.getUsageCount())
+          .reversed()
+          .thenComparing(
+              refMerchant -> String.valueOf(refMerchant.getDescription()),
+              String.CASE_INSENSITIVE_ORDER);
+
+  private record Key(String key, RefMerchant refMerchant) {}
+
+  private static final class UserIndex {
+    private final Map<String, RefMerchant> refMerchantsById = new HashMap<>();
+    private final List<String> keys = new ArrayList<>();
+    private final List<RefMerchant> keyMerchants = new ArrayList<>();
+    private final Instant loadedAt;
+
+    private UserIndex(Instant loadedAt) {
+      this.loadedAt = loadedAt;
+    }
+
+    /** Indexes the merchants with one sort, writes later insert and remove keys in place. */
+    private static UserIndex of(List<RefMerchant> refMerchants, Instant loadedAt) {
+      UserIndex userIndex = new UserIndex(loadedAt);
+      List<Key> keys = new ArrayList<>();
+      for (RefMerchant refMerchant : refMerchants) {
+        userIndex.refMerchantsById.put(refMerchant.getId(), refMerchant);
+        keys(refMerchant).forEach(key -> keys.add(new Key(key, refMerchant)));
+      }
+      keys.sort(Comparator.comparing(Key::key));
+
+      keys.forEach(
+          key -> {
+            userIndex.keys.add(key.key());
+            userIndex.keyMerchants.add(key.refMerchant());
+          });
+      return userIndex;
+    }
+
+    private void add(RefMerchant refMerchant) {
+      remove(refMerchant.getId());
+      refMerchantsById.put(refMerchant.getId(), refMerchant);
+      for (String key : keys(refMerchant)) {
+        int i = lowerBound(keys, key);
+        keys.add(i, key);
+        keyMerchants.add(i, refMerchant);
+      }
+    }
+
+    private void remove(String id) {
+      RefMerchant refMerchant = refMerchantsById.remove(id);
+      if (refMerchant == null) {
+        return;
+      }
+      for (String key : keys(refMerchant)) {
+        for (int i = lowerBound(keys, key); i < keys.size() && keys.get(i).equals(key); i++) {
+          if (keyMerchants.get(i) == refMerchant) {
+            keys.remove(i);
+            keyMerchants.remove(i);
+            break;
+          }
+        }
+      }
+    }
+
+    private static List<String> keys(RefMerchant refMerchant) {
+      List<String> keys = new ArrayList<>();
+      String normalized = normalize(refMerchant.getDescription());
+      for (int i = 0; i < normalized.length(); i++) {
+        if (Character.isLetterOrDigit(normalized.charAt(i))
+            && (i == 0 || !Character.isLetterOrDigit(normalized.charAt(i - 1)))) {
+          keys.add(normalized.substring(i));
+        }
+      }
+      return keys;
+    }
+  }
+
+  private final RefMerchantDao refMerchantDao;
+  private final Duration ttl;
+  private final Map<String, UserIndex> indexesByUser = new HashMap<>();
+  private final Map<String, String> usernamesById = new HashMap<>();
+  // bumped by every write, a load that started before one is not indexed
+  private long generation;
+
+  public MerchantPrefixIndex(
+      RefMerchantDao refMerchantDao, @Value("${pets.merchant-search.ttl:PT15M}") Duration ttl) {
+    this.refMerchantDao = refMerchantDao;
+    this.ttl = ttl;
+  }
+
+  /**
+   * @return merchants of the user with a word starting with the prefix, most used first
+   */
+  public List<RefMerchant> search(String username, String prefix, int limit) {
+    String normalizedPrefix = normalize(prefix);
+    long loadGeneration;
+    synchronized (this) {
+      UserIndex userIndex = indexesByUser.get(username);
+      if (userIndex != null && !isExpired(userIndex)) {
+        return match(userIndex, normalizedPrefix, limit);
+      }
+      loadGeneration = generation;
+    }
+
+    // the database is read without holding the lock, writes meanwhile discard what it returns
+    UserIndex userIndex =
+        UserIndex.of(refMerchantDao.getAllRefMerchantsByUsername(username), Instant.now());
+
+    synchronized (this) {
+      dropExpired();
+      if (loadGeneration == generation) {
+        drop(username);
+        indexesByUser.put(username, userIndex);
+        userIndex.refMerchantsById.keySet().forEach(id -> usernamesById.put(id, username));
+      }
+      return match(userIndex, normalizedPrefix, limit);
+    }
+  }
+
+  /**
+   * @apiNote adds or replaces the merchant if its user is indexed, otherwise the next search loads
+   *     it from the database
+   */
+  public synchronized void put(RefMerchant refMerchant) {
+    if (refMerchant == null || refMerchant.getUser() == null) {
+      return;
+    }
+
+    generation++;
+    String username = refMerchant.getUser().getUsername();
+    String previousUsername = usernamesById.get(refMerchant.getId());
+    if (previousUsername != null && !previousUsername.equals(username)) {
+      remove(refMerchant.getId());
+    }
+
+    UserIndex userIndex = indexesByUser.get(username);
+    if (userIndex != null) {
+      userIndex.add(refMerchant);
+      usernamesById.put(refMerchant.getId(), username);
+    }
+  }
+
+  public synchronized void remove(String id) {
+    generation++;
+    String username = usernamesById.remove(id);
+    UserIndex userIndex = username == null ? null : indexesByUser.get(username);
+    if (userIndex != null) {
+      userIndex.remove(id);
+    }
+  }
+
+  /**
+   * @apiNote drops the index of the user of the merchant, for writes that only know its id
+   */
+  public synchronized void invalidateId(String id) {
+    generation++;
+    String username = usernamesById.get(id);
+    if (username != null) {
+      drop(username);
+    }
+  }
+
+  public synchronized void invalidate(String username) {
+    generation++;
+    drop(username);
+  }
+
+  public synchronized void invalidateAll() {
+    generation++;
+    indexesByUser.clear();
+    usernamesById.clear();
+  }
+
+  synchronized int size() {
+    return indexesByUser.size();
+  }
+
+  private static List<RefMerchant> match(UserIndex userIndex, String prefix, int limit) {
+    // a merchant matches once per matching word, keep the first of them
+    Map<String, RefMerchant> matches = new LinkedHashMap<>();
+    List<String> keys = userIndex.keys;
+    for (int i = lowerBound(keys, prefix); i < keys.size() && keys.get(i).startsWith(prefix); i++) {
+      RefMerchant refMerchant = userIndex.keyMerchants.get(i);
+      matches.putIfAbsent(refMerchant.getId(), refMerchant);
+    }
+
+    return matches.values().stream().sorted(BY_USAGE).limit(limit).toList();
+  }
+
+  /** Drops the expired indexes, so the indexes of users who stopped searching do not pile up. */
+  private void dropExpired() {
+    List<String> expired =
+        indexesByUser.entrySet().stream()
+            .filter(entry -> isExpired(entry.getValue()))
+            .map(Map.Entry::getKey)
+            .toList();
+    expired.forEach(this::drop);
+  }
+
+  private void drop(String username) {
+    UserIndex userIndex = indexesByUser.remove(username);
+    if (userIndex != null) {
+      userIndex.refMerchantsById.keySet().forEach(usernamesById::remove);
+    }
+  }
+
+  private boolean isExpired(UserIndex userIndex) {
+    return userIndex.loadedAt.plus(ttl).isBefore(Instant.now());
+  }
+
+  private static int lowerBound(List<String> keys, String prefix) {
+    int low = 0;
+    int high = keys.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (keys.get(mid).compareTo(prefix) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  static String normalize(String value) {
+    if (value == null) {
+      return "";
+    }
+    return DIACRITICS
+        .matcher(Normalizer.normalize(value, Normalizer.Form.NFD))
+        .replaceAll("")
+        .toLowerCase(Locale.ROOT)
+        .trim();
+  }
+}
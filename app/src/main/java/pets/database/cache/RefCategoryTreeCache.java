@@ -0,0 +1,105 @@
+package pets.database.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+import pets.database.model.RefCategory;
+import pets.database.model.RefCategoryTree;
+import pets.database.model.RefCategoryTreeResponse;
+import pets.database.model.RefCategoryType;
+import pets.database.utils.ETags;
+
+/**
+ * Categories grouped under their category type, kept as the serialized json response. The tree is
+ * rebuilt only when the cached categories or category types are reloaded, every other request
+ * writes out the same bytes.
+ */
+@Component
+public class RefCategoryTreeCache {
+
+  /**
+   * @param categoriesETag etag of the categories the tree was built from
+   * @param categoryTypesETag etag of the category types the tree was built from
+   */
+  public record SerializedTree(
+      byte[] body, String eTag, String categoriesETag, String categoryTypesETag) {}
+
+  private final ReferenceDataCache referenceDataCache;
+  private final ObjectMapper objectMapper;
+
+  private volatile SerializedTree serializedTree;
+
+  public RefCategoryTreeCache(ReferenceDataCache referenceDataCache, ObjectMapper objectMapper) {
+    this.referenceDataCache = referenceDataCache;
+    this.objectMapper = objectMapper;
+  }
+
+  public SerializedTree get() throws JsonProcessingException {
+    String categoriesETag = referenceDataCache.refCategories().getETag();
+    String categoryTypesETag = referenceDataCache.refCategoryTypes().getETag();
+
+    SerializedTree current = serializedTree;
+    if (current != null
+        && current.categoriesETag().equals(categoriesETag)
+        && current.categoryTypesETag().equals(categoryTypesETag)) {
+      return current;
+    }
+
+    synchronized (this) {
+      current = serializedTree;
+      if (current == null
+          || !current.categoriesETag().equals(categoriesETag)
+          || !current.categoryTypesETag().equals(categoryTypesETag)) {
+        current = build(categoriesETag, categoryTypesETag);
+        serializedTree = current;
+      }
+      return current;
+    }
+  }
+
+  /** The tree is rebuilt on the next read even if the etags of both tables are unchanged. */
+  public void invalidate() {
+    serializedTree = null;
+  }
+
+  private SerializedTree build(String categoriesETag, String categoryTypesETag)
+      throws JsonProcessingException {
+    // the types are sorted by description, categories keep the order of the cached table
+    Map<String, RefCategoryTree> treesByTypeId = new LinkedHashMap<>();
+    for (RefCategoryType refCategoryType : referenceDataCache.refCategoryTypes().getAll()) {
+      treesByTypeId.put(
+          refCategoryType.getId(),
+          RefCategoryTree.builder()
+              .refCategoryType(refCategoryType)
+              .refCategories(new ArrayList<>())
+              .build());
+    }
+
+    for (RefCategory refCategory : referenceDataCache.refCategories().getAll()) {
+      RefCategoryType refCategoryType = refCategory.getRefCategoryType();
+      String typeId = refCategoryType == null ? null : refCategoryType.getId();
+      treesByTypeId
+          .computeIfAbsent(
+              typeId,
+              key ->
+                  RefCategoryTree.builder()
+                      .refCategoryType(refCategoryType)
+                      .refCategories(new ArrayList<>())
+                      .build())
+          .getRefCategories()
+          .add(refCategory);
+    }
+
+    List<RefCategoryTree> refCategoryTrees = List.copyOf(treesByTypeId.values());
+    return new SerializedTree(
+        objectMapper.writeValueAsBytes(
+            RefCategoryTreeResponse.builder().refCategoryTrees(refCategoryTrees).build()),
+        ETags.of(refCategoryTrees),
+        categoriesETag,
+        categoryTypesETag);
+  }
+}
@@ -0,0 +1,90 @@
+package pets.database.cache;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pets.database.model.RefAccountType;
+import pets.database.model.RefBank;
+import pets.database.model.RefCategory;
+import pets.database.model.RefCategoryType;
+import pets.database.model.RefTransactionType;
+import pets.database.repository.RefAccountTypeDao;
+import pets.database.repository.RefBankDao;
+import pets.database.repository.RefCategoryDao;
+import pets.database.repository.RefCategoryTypeDao;
+import pets.database.repository.RefTransactionTypeDao;
+
+/**
+ * Reference tables that change a few times a year and hold a few dozen rows each. Their services
+ * invalidate the table on every write, and the ttl picks up changes made directly in the database.
+ */
+@Component
+public class ReferenceDataCache {
+
+  private final ReferenceTableCache<RefAccountType> refAccountTypes;
+  private final ReferenceTableCache<RefBank> refBanks;
+  private final ReferenceTableCache<RefCategoryType> refCategoryTypes;
+  private final ReferenceTableCache<RefCategory> refCategories;
+  private final ReferenceTableCache<RefTransactionType> refTransactionTypes;
+
+  public ReferenceDataCache(
+      RefAccountTypeDao refAccountTypeDao,
+      RefBankDao refBankDao,
+      RefCategoryTypeDao refCategoryTypeDao,
+      RefCategoryDao refCategoryDao,
+      RefTransactionTypeDao refTransactionTypeDao,
+      @Value("${pets.reference-cache.ttl:PT15M}") Duration ttl) {
+    this.refAccountTypes =
+        new ReferenceTableCache<>(
+            "refAccountTypes",
+            refAccountTypeDao::getAllRefAccountTypes,
+            RefAccountType::getId,
+            ttl);
+    this.refBanks =
+        new ReferenceTableCache<>("refBanks", refBankDao::getAllRefBanks, RefBank::getId, ttl);
+    this.refCategoryTypes =
+        new ReferenceTableCache<>(
+            "refCategoryTypes",
+            refCategoryTypeDao::getAllRefCategoryTypes,
+            RefCategoryType::getId,
+            ttl);
+    this.refCategories =
+        new ReferenceTableCache<>(
+            "refCategories", refCategoryDao::getAllRefCategories, RefCategory::getId, ttl);
+    this.refTransactionTypes =
+        new ReferenceTableCache<>(
+            "refTransactionTypes",
+            refTransactionTypeDao::getAllRefTransactionTypes,
+            RefTransactionType::getId,
+            ttl);
+  }
+
+  public ReferenceTableCache<RefAccountType> refAccountTypes() {
+    return refAccountTypes;
+  }
+
+  public ReferenceTableCache<RefBank> refBanks() {
+    return refBanks;
+  }
+
+  public ReferenceTableCache<RefCategoryType> refCategoryTypes() {
+    return refCategoryTypes;
+  }
+
+  public ReferenceTableCache<RefCategory> refCategories() {
+    return refCategories;
+  }
+
+  public ReferenceTableCache<RefTransactionType> refTransactionTypes() {
+    return refTransactionTypes;
+  }
+
+  public List<ReferenceTableCache<?>> getAll() {
+    return List.of(refAccountTypes, refBanks, refCategoryTypes, refCategories, refTransactionTypes);
+  }
+
+  public void invalidateAll() {
+    getAll().forEach(ReferenceTableCache::invalidate);
+  }
+}
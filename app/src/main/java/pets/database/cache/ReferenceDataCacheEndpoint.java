@@ -0,0 +1,32 @@
+package pets.database.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/** /actuator/referencecache reports the stats of each reference table, DELETE reloads them. */
+@Component
+@Endpoint(id = "referencecache")
+public class ReferenceDataCacheEndpoint {
+
+  private final ReferenceDataCache referenceDataCache;
+
+  public ReferenceDataCacheEndpoint(ReferenceDataCache referenceDataCache) {
+    this.referenceDataCache = referenceDataCache;
+  }
+
+  @ReadOperation
+  public Map<String, ReferenceTableCache.Stats> stats() {
+    Map<String, ReferenceTableCache.Stats> stats = new LinkedHashMap<>();
+    referenceDataCache.getAll().forEach(cache -> stats.put(cache.getName(), cache.getStats()));
+    return stats;
+  }
+
+  @DeleteOperation
+  public void invalidateAll() {
+    referenceDataCache.invalidateAll();
+  }
+}
@@ -0,0 +1,121 @@
+package pets.database.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import pets.database.utils.ETags;
+
+/**
+ * All rows of a small reference table held as an immutable snapshot. Reads only dereference the
+ * current snapshot and never lock, the table is loaded again when the snapshot is invalidated or is
+ * older than the ttl.
+ *
+ * <p>Cached rows are shared between callers and must not be modified.
+ */
+public class ReferenceTableCache<T> {
+
+  public record Stats(
+      int size, long hits, long loads, long invalidations, String loadedAt, String expiresAt) {}
+
+  private record Snapshot<T>(
+      List<T> rows, Map<String, T> rowsById, String eTag, Instant loadedAt) {}
+
+  private final String name;
+  private final Supplier<List<T>> loader;
+  private final Function<T, String> idFunction;
+  private final Duration ttl;
+
+  private final Object loadLock = new Object();
+  private volatile Snapshot<T> snapshot;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong loads = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+
+  public ReferenceTableCache(
+      String name, Supplier<List<T>> loader, Function<T, String> idFunction, Duration ttl) {
+    this.name = name;
+    this.loader = loader;
+    this.idFunction = idFunction;
+    this.ttl = ttl;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return all rows in the order the loader returned them
+   */
+  public List<T> getAll() {
+    return current().rows();
+  }
+
+  /**
+   * @return the row, or null if there is no row with the id
+   */
+  public T getById(String id) {
+    return id == null ? null : current().rowsById().get(id);
+  }
+
+  /**
+   * @return etag of all rows, also used for single rows since a row only changes with its table
+   */
+  public String getETag() {
+    return current().eTag();
+  }
+
+  /** Drops the snapshot, the next read loads the table again. Call after every write. */
+  public void invalidate() {
+    // waits for a load in progress, so a snapshot read before the write is never installed
+    synchronized (loadLock) {
+      snapshot = null;
+      invalidations.incrementAndGet();
+    }
+  }
+
+  public Stats getStats() {
+    Snapshot<T> current = snapshot;
+    return new Stats(
+        current == null ? 0 : current.rows().size(),
+        hits.get(),
+        loads.get(),
+        invalidations.get(),
+        current == null ? null : current.loadedAt().toString(),
+        current == null ? null : current.loadedAt().plus(ttl).toString());
+  }
+
+  private Snapshot<T> current() {
+    Snapshot<T> current = snapshot;
+    if (isFresh(current)) {
+      hits.incrementAndGet();
+      return current;
+    }
+
+    synchronized (loadLock) {
+      current = snapshot;
+      if (!isFresh(current)) {
+        current = load();
+        snapshot = current;
+      }
+      return current;
+    }
+  }
+
+  private boolean isFresh(Snapshot<T> current) {
+    return current != null && Instant.now().isBefore(current.loadedAt().plus(ttl));
+  }
+
+  private Snapshot<T> load() {
+    List<T> rows = List.copyOf(loader.get());
+    Map<String, T> rowsById = new HashMap<>();
+    rows.forEach(row -> rowsById.put(idFunction.apply(row), row));
+    loads.incrementAndGet();
+    return new Snapshot<>(rows, Map.copyOf(rowsById), ETags.of(rows), Instant.now());
+  }
+}
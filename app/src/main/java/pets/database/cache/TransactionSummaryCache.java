@@ -0,0 +1,70 @@
+package pets.database.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pets.database.model.SummaryDimension;
+import pets.database.model.SummaryPeriod;
+import pets.database.model.TransactionSummary;
+
+/**
+ * Transaction summaries of each user by (period, dimension). All summaries of a user are dropped
+ * together whenever this instance changes any of the user's transactions, the ttl bounds how stale
+ * they get after a change on another instance.
+ */
+@Component
+public class TransactionSummaryCache {
+
+  private record SummaryKey(SummaryPeriod period, SummaryDimension dimension) {}
+
+  private record UserSummaries(
+      Map<SummaryKey, List<TransactionSummary>> summaries, Instant loadedAt) {}
+
+  private final Duration ttl;
+  private final Map<String, UserSummaries> summariesByUser = new ConcurrentHashMap<>();
+
+  public TransactionSummaryCache(@Value("${pets.transaction-summary.ttl:PT15M}") Duration ttl) {
+    this.ttl = ttl;
+  }
+
+  public List<TransactionSummary> get(
+      String username,
+      SummaryPeriod period,
+      SummaryDimension dimension,
+      Supplier<List<TransactionSummary>> loader) {
+    Map<SummaryKey, List<TransactionSummary>> userSummaries =
+        summariesByUser
+            .compute(
+                username,
+                (key, current) ->
+                    current == null || current.loadedAt().plus(ttl).isBefore(Instant.now())
+                        ? new UserSummaries(new ConcurrentHashMap<>(), Instant.now())
+                        : current)
+            .summaries();
+    SummaryKey summaryKey = new SummaryKey(period, dimension);
+
+    List<TransactionSummary> transactionSummaries = userSummaries.get(summaryKey);
+    if (transactionSummaries == null) {
+      // if the user is invalidated while loading, this map is already detached and the stale
+      // result is never served
+      transactionSummaries = List.copyOf(loader.get());
+      userSummaries.put(summaryKey, transactionSummaries);
+    }
+    return transactionSummaries;
+  }
+
+  public void invalidate(String username) {
+    if (username != null) {
+      summariesByUser.remove(username);
+    }
+  }
+
+  public void invalidateAll() {
+    summariesByUser.clear();
+  }
+}
@@ -0,0 +1,45 @@
+package pets.database.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import pets.database.model.Account;
+import pets.database.model.RefMerchant;
+
+/**
+ * Merchants and accounts of each user, read on nearly every page load. Each list is bounded by its
+ * own size limit so the cache fits in the heap of the smallest instance the app runs on.
+ */
+@Component
+public class UserDataCache {
+
+  private final UserListCache<RefMerchant> refMerchants;
+  private final UserListCache<Account> accounts;
+
+  public UserDataCache(
+      MeterRegistry meterRegistry,
+      @Value("${pets.user-cache.ref-merchants.max-size:8MB}") DataSize refMerchantsMaxSize,
+      @Value("${pets.user-cache.accounts.max-size:8MB}") DataSize accountsMaxSize,
+      @Value("${pets.user-cache.ttl:PT5M}") Duration ttl) {
+    this.refMerchants =
+        new UserListCache<>(
+            "refMerchantsByUser",
+            RefMerchant::getId,
+            refMerchantsMaxSize.toBytes(),
+            ttl,
+            meterRegistry);
+    this.accounts =
+        new UserListCache<>(
+            "accountsByUser", Account::getId, accountsMaxSize.toBytes(), ttl, meterRegistry);
+  }
+
+  public UserListCache<RefMerchant> refMerchants() {
+    return refMerchants;
+  }
+
+  public UserListCache<Account> accounts() {
+    return accounts;
+  }
+}
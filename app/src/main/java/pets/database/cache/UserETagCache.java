@@ -0,0 +1,55 @@
+package pets.database.cache;
+
+import static java.util.Collections.singletonList;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pets.database.model.User;
+import pets.database.utils.ETags;
+
+/**
+ * ETag of the last user profile read by username, so a conditional GET for an unchanged profile is
+ * answered without reading the database. Writes by id drop the entry of that user, {@link
+ * CacheInvalidationListener} drops it for writes through another instance or in the database, and
+ * the ttl bounds how long a change goes unnoticed without change streams.
+ */
+@Component
+public class UserETagCache {
+
+  public record UserETag(String userId, String eTag, Instant cachedAt) {}
+
+  private final Map<String, UserETag> eTagsByUsername = new ConcurrentHashMap<>();
+  private final Duration ttl;
+
+  public UserETagCache(@Value("${pets.user-etag-cache.ttl:PT5M}") Duration ttl) {
+    this.ttl = ttl;
+  }
+
+  /**
+   * @return the etag, or null if the user has not been read since the last write
+   */
+  public UserETag get(String username) {
+    UserETag userETag = eTagsByUsername.get(username);
+    return userETag == null || userETag.cachedAt().plus(ttl).isBefore(Instant.now())
+        ? null
+        : userETag;
+  }
+
+  public String put(User user) {
+    String eTag = ETags.of(singletonList(user));
+    eTagsByUsername.put(user.getUsername(), new UserETag(user.getId(), eTag, Instant.now()));
+    return eTag;
+  }
+
+  public void invalidate(String userId) {
+    eTagsByUsername.values().removeIf(userETag -> userETag.userId().equals(userId));
+  }
+
+  public void invalidateAll() {
+    eTagsByUsername.clear();
+  }
+}
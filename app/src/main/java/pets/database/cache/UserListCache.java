@@ -0,0 +1,173 @@
+package pets.database.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import pets.database.utils.ETags;
+
+/**
+ * The list of one collection that belongs to each user, evicted least recently used first once the
+ * approximate size of all lists goes over the limit. Rows are indexed by id so writes that only
+ * know the id of the row still invalidate the list of its user. The ttl bounds how stale a list can
+ * get when a write on another instance is missed. The etag of each list is computed once, when it
+ * is loaded.
+ */
+public class UserListCache<T> {
+
+  // string fields dominate the size of the models, two bytes per char of toString plus headers
+  private static final long ROW_OVERHEAD_BYTES = 64;
+  private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+  private record Entry<T>(List<T> rows, String eTag, long weight, Instant loadedAt) {}
+
+  private final Function<T, String> idFunction;
+  private final long maxWeight;
+  private final Duration ttl;
+  private final LinkedHashMap<String, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, String> usernamesById = new HashMap<>();
+  private long weight;
+  // bumped by every invalidation, a load that started before one is not cached
+  private long generation;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  public UserListCache(
+      String name,
+      Function<T, String> idFunction,
+      long maxWeight,
+      Duration ttl,
+      MeterRegistry meterRegistry) {
+    this.idFunction = idFunction;
+    this.maxWeight = maxWeight;
+    this.ttl = ttl;
+
+    this.hits =
+        Counter.builder("cache.gets")
+            .tag("cache", name)
+            .tag("result", "hit")
+            .register(meterRegistry);
+    this.misses =
+        Counter.builder("cache.gets")
+            .tag("cache", name)
+            .tag("result", "miss")
+            .register(meterRegistry);
+    this.evictions = Counter.builder("cache.evictions").tag("cache", name).register(meterRegistry);
+    Gauge.builder("cache.size", this, UserListCache::size)
+        .tag("cache", name)
+        .register(meterRegistry);
+    Gauge.builder("cache.weight", this, UserListCache::weight)
+        .tag("cache", name)
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  public List<T> get(String username, Supplier<List<T>> loader) {
+    return entry(username, loader).rows();
+  }
+
+  /**
+   * @return etag of the list of the user, without hashing the rows again while the list is cached
+   */
+  public String getETag(String username, Supplier<List<T>> loader) {
+    return entry(username, loader).eTag();
+  }
+
+  private Entry<T> entry(String username, Supplier<List<T>> loader) {
+    long loadGeneration;
+    synchronized (this) {
+      Entry<T> entry = entries.get(username);
+      if (entry != null && entry.loadedAt().plus(ttl).isAfter(Instant.now())) {
+        hits.increment();
+        return entry;
+      }
+      loadGeneration = generation;
+    }
+
+    misses.increment();
+    List<T> rows = List.copyOf(loader.get());
+    Entry<T> entry = new Entry<>(rows, ETags.of(rows), weigh(rows), Instant.now());
+
+    synchronized (this) {
+      if (loadGeneration == generation && entry.weight() <= maxWeight) {
+        remove(username);
+        entries.put(username, entry);
+        rows.forEach(row -> usernamesById.put(idFunction.apply(row), username));
+        weight += entry.weight();
+        evict();
+      }
+    }
+    return entry;
+  }
+
+  public synchronized void invalidate(String username) {
+    generation++;
+    remove(username);
+  }
+
+  /**
+   * @apiNote invalidates the lists that contain any of the rows, ids not in the cache are ignored
+   */
+  public synchronized void invalidateIds(Collection<String> ids) {
+    generation++;
+    for (String id : ids) {
+      String username = usernamesById.get(id);
+      if (username != null) {
+        remove(username);
+      }
+    }
+  }
+
+  public synchronized void invalidateAll() {
+    generation++;
+    entries.clear();
+    usernamesById.clear();
+    weight = 0;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized long weight() {
+    return weight;
+  }
+
+  private void remove(String username) {
+    Entry<T> entry = entries.remove(username);
+    if (entry != null) {
+      entry.rows().forEach(row -> usernamesById.remove(idFunction.apply(row)));
+      weight -= entry.weight();
+    }
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<String, Entry<T>>> eldest = entries.entrySet().iterator();
+    while (weight > maxWeight && eldest.hasNext()) {
+      Map.Entry<String, Entry<T>> entry = eldest.next();
+      eldest.remove();
+      entry.getValue().rows().forEach(row -> usernamesById.remove(idFunction.apply(row)));
+      weight -= entry.getValue().weight();
+      evictions.increment();
+    }
+  }
+
+  private long weigh(List<T> rows) {
+    long rowsWeight = ENTRY_OVERHEAD_BYTES;
+    for (T row : rows) {
+      rowsWeight += ROW_OVERHEAD_BYTES + 2L * String.valueOf(row).length();
+    }
+    return rowsWeight;
+  }
+}
@@ -6,11 +6,15 @@ import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
 import org.springframework.stereotype.Component;
+import pets.database.repository.TransactionDates;
 
 @Component
 public class MongoDbConfig extends AbstractMongoClientConfiguration {
@@ -23,6 +27,26 @@ public class MongoDbConfig extends AbstractMongoClientConfiguration {
     return database;
   }
 
+  @Override
+  protected Collection<String> getMappingBasePackages() {
+    // entities are in the model package
+    return Set.of("pets.database.model");
+  }
+
+  @Override
+  protected boolean autoIndexCreation() {
+    // indexes are declared in IndexRegistry and created after startup, off the startup path
+    return false;
+  }
+
+  @Override
+  protected void configureConverters(
+      MongoCustomConversions.MongoConverterConfigurationAdapter converterConfigurationAdapter) {
+    // java.time values are stored as UTC dates, not in the zone of whichever instance wrote them
+    converterConfigurationAdapter.useNativeDriverJavaTimeCodecs();
+    converterConfigurationAdapter.registerConverters(TransactionDates.readingConverters());
+  }
+
   @Override
   public MongoClient mongoClient() {
     Map<String, String> mongoConfig = getMongodbConfig();
@@ -51,7 +51,9 @@ public class SpringSecurityConfig {
                     "/v3/api-docs",
                     "/v3/api-docs/**",
                     "/swagger-ui/**",
-                    "/tests/ping"))
+                    "/tests/ping",
+                    "/actuator/health/liveness",
+                    "/actuator/health/readiness"))
         .authorizeHttpRequests((authorize) -> authorize.anyRequest().permitAll());
     return httpSecurity.build();
   }
@@ -67,7 +69,7 @@ public class SpringSecurityConfig {
     return new InMemoryUserDetailsManager(user);
   }
 
-  private Map<String, String> getAuthConfig() {
+  static Map<String, String> getAuthConfig() {
     Map<String, String> authConfigMap = new HashMap<>();
 
     if (System.getProperty(BASIC_AUTH_USR) != null) {
@@ -0,0 +1,175 @@
+package pets.database.config;
+
+import static pets.database.utils.Constants.BASIC_AUTH_PWD;
+import static pets.database.utils.Constants.BASIC_AUTH_USR;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import pets.database.cache.ReferenceDataCache;
+import pets.database.cache.ReferenceTableCache;
+
+/**
+ * Runs once after startup, before the instance reports ready: opens and pings the mongo
+ * connections, loads the reference tables, and calls the main read paths a few times so the first
+ * real requests do not pay for cold connections, empty caches and interpreted code. The warm up
+ * user owns no data, the calls exercise the queries and the serialization of empty responses.
+ *
+ * <p>It runs in the application ready listener, the server is listening by then and readiness only
+ * turns to accepting traffic after the listeners return. The health indicator is a member of the
+ * readiness group only, see {@link WarmUpHealthGroups}, so overall health does not go out of
+ * service while warming up.
+ */
+@Component
+public class WarmUp implements HealthIndicator {
+  private static final Logger logger = LoggerFactory.getLogger(WarmUp.class);
+
+  static final String HEALTH_INDICATOR_NAME = "warmUp";
+
+  private static final String WARM_UP_USERNAME = "pets-database-warm-up";
+  private static final List<String> WARM_UP_PATHS =
+      List.of(
+          "/refaccounttypes/refaccounttype",
+          "/refbanks/refbank",
+          "/refcategorytypes/refcategorytype",
+          "/refcategories/refcategory",
+          "/reftransactiontypes/reftransactiontype",
+          "/refmerchants/refmerchant/user/" + WARM_UP_USERNAME,
+          "/refmerchants/refmerchant/user/" + WARM_UP_USERNAME + "/search?prefix=a",
+          "/accounts/account/user/" + WARM_UP_USERNAME,
+          "/transactions/transaction/user/" + WARM_UP_USERNAME,
+          "/transactions/transaction/user/" + WARM_UP_USERNAME + "/summary",
+          "/bootstrap/" + WARM_UP_USERNAME);
+
+  private final MongoTemplate mongoTemplate;
+  private final ReferenceDataCache referenceDataCache;
+  private final Environment environment;
+  private final boolean enabled;
+  private final int connections;
+  private final int iterations;
+
+  private volatile Instant completedAt;
+  private volatile Duration took;
+
+  public WarmUp(
+      MongoTemplate mongoTemplate,
+      ReferenceDataCache referenceDataCache,
+      Environment environment,
+      @Value("${pets.warm-up.enabled:true}") boolean enabled,
+      @Value("${pets.warm-up.connections:4}") int connections,
+      @Value("${pets.warm-up.iterations:10}") int iterations) {
+    this.mongoTemplate = mongoTemplate;
+    this.referenceDataCache = referenceDataCache;
+    this.environment = environment;
+    this.enabled = enabled;
+    this.connections = connections;
+    this.iterations = iterations;
+  }
+
+  /**
+   * @apiNote failures are logged and do not keep the instance out of service, warm up only makes
+   *     the first requests faster
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    Instant startedAt = Instant.now();
+    logger.info("Before Warm Up: {} | {} | {}", enabled, connections, iterations);
+
+    if (enabled) {
+      warmUpConnections();
+
+      try {
+        referenceDataCache.getAll().forEach(ReferenceTableCache::getAll);
+      } catch (Exception ex) {
+        logger.error("Warm Up Reference Tables", ex);
+      }
+
+      warmUpPaths();
+    }
+
+    took = Duration.between(startedAt, Instant.now());
+    completedAt = Instant.now();
+    logger.info("After Warm Up: {}", took);
+  }
+
+  @Override
+  public Health health() {
+    if (completedAt == null) {
+      return Health.outOfService().withDetail("warmUp", "in progress").build();
+    }
+    return Health.up().withDetail("completedAt", completedAt).withDetail("took", took).build();
+  }
+
+  private void warmUpConnections() {
+    // concurrent pings make the driver open that many pooled connections
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(
+            connections,
+            runnable -> {
+              Thread thread = new Thread(runnable, "warm-up");
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    try {
+      List<Future<Document>> pings =
+          executorService.invokeAll(
+              Collections.nCopies(
+                  connections, () -> mongoTemplate.executeCommand(new Document("ping", 1))));
+      for (Future<Document> ping : pings) {
+        ping.get();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (Exception ex) {
+      logger.error("Warm Up Mongo Connections", ex);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private void warmUpPaths() {
+    Map<String, String> authConfig = SpringSecurityConfig.getAuthConfig();
+    String port = environment.getProperty("local.server.port");
+    if (port == null || authConfig.get(BASIC_AUTH_USR) == null) {
+      logger.warn("Warm Up Paths Skipped, Server Port Or Credentials Not Available");
+      return;
+    }
+
+    RestClient restClient =
+        RestClient.builder()
+            .baseUrl("http://localhost:" + port)
+            .defaultHeaders(
+                headers ->
+                    headers.setBasicAuth(
+                        authConfig.get(BASIC_AUTH_USR), authConfig.get(BASIC_AUTH_PWD)))
+            .build();
+
+    for (String path : WARM_UP_PATHS) {
+      try {
+        for (int i = 0; i < iterations; i++) {
+          restClient.get().uri(path).retrieve().toBodilessEntity();
+        }
+      } catch (Exception ex) {
+        logger.error("Warm Up Path: {}", path, ex);
+      }
+    }
+  }
+}
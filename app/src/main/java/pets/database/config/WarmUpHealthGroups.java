@@ -0,0 +1,61 @@
+package pets.database.config;
+
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.boot.actuate.endpoint.SecurityContext;
+import org.springframework.boot.actuate.health.AdditionalHealthEndpointPath;
+import org.springframework.boot.actuate.health.HealthEndpointGroup;
+import org.springframework.boot.actuate.health.HealthEndpointGroups;
+import org.springframework.boot.actuate.health.HealthEndpointGroupsPostProcessor;
+import org.springframework.boot.actuate.health.HttpCodeStatusMapper;
+import org.springframework.boot.actuate.health.StatusAggregator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Leaves the {@link WarmUp} indicator out of overall health, every health indicator is a member of
+ * it otherwise. Warming up is only a reason to hold back traffic, it is included in the readiness
+ * group by configuration and overall health stays up meanwhile.
+ */
+@Component
+public class WarmUpHealthGroups implements HealthEndpointGroupsPostProcessor {
+
+  @Override
+  public HealthEndpointGroups postProcessHealthEndpointGroups(HealthEndpointGroups groups) {
+    return HealthEndpointGroups.of(
+        new WithoutWarmUp(groups.getPrimary()),
+        groups.getNames().stream().collect(Collectors.toMap(Function.identity(), groups::get)));
+  }
+
+  private record WithoutWarmUp(HealthEndpointGroup group) implements HealthEndpointGroup {
+
+    @Override
+    public boolean isMember(String name) {
+      return !WarmUp.HEALTH_INDICATOR_NAME.equals(name) && group.isMember(name);
+    }
+
+    @Override
+    public boolean showComponents(SecurityContext securityContext) {
+      return group.showComponents(securityContext);
+    }
+
+    @Override
+    public boolean showDetails(SecurityContext securityContext) {
+      return group.showDetails(securityContext);
+    }
+
+    @Override
+    public StatusAggregator getStatusAggregator() {
+      return group.getStatusAggregator();
+    }
+
+    @Override
+    public HttpCodeStatusMapper getHttpCodeStatusMapper() {
+      return group.getHttpCodeStatusMapper();
+    }
+
+    @Override
+    public AdditionalHealthEndpointPath getAdditionalPath() {
+      return group.getAdditionalPath();
+    }
+  }
+}
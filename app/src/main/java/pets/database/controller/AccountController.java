@@ -4,8 +4,12 @@ import static java.lang.String.format;
 import static java.util.Collections.emptyList;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 import static org.springframework.util.StringUtils.hasText;
+import static pets.database.utils.Constants.LISTING_PAGE_LIMIT_DEFAULT;
+import static pets.database.utils.Constants.LISTING_PAGE_LIMIT_MAX;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Hidden;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -15,25 +19,71 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pets.database.model.Account;
+import pets.database.model.AccountDeletionJobResponse;
 import pets.database.model.AccountRequest;
 import pets.database.model.AccountResponse;
 import pets.database.model.Status;
+import pets.database.service.AccountDeletionService;
 import pets.database.service.AccountService;
+import pets.database.utils.CursorUtils;
+import pets.database.utils.FieldSets;
 
 @RestController
 @RequestMapping("/accounts")
 public class AccountController {
   private final AccountService accountService;
+  private final AccountDeletionService accountDeletionService;
+  private final ObjectMapper objectMapper;
 
-  public AccountController(AccountService accountService) {
+  public AccountController(
+      AccountService accountService,
+      AccountDeletionService accountDeletionService,
+      ObjectMapper objectMapper) {
     this.accountService = accountService;
+    this.accountDeletionService = accountDeletionService;
+    this.objectMapper = objectMapper;
   }
 
+  /**
+   * @param limit page size, at most 1000 accounts are returned in one page
+   * @param after nextCursor of the previous page
+   * @param view summary for id, description, type and bank ids, balance and status only, full by
+   *     default
+   * @param fields comma separated properties to return instead of a view, like description,refBank
+   * @return accounts in the order they were created, with the cursor of the next page if there is
+   *     one
+   */
   @Hidden
   @GetMapping(value = "/account", produces = APPLICATION_JSON_VALUE)
-  public ResponseEntity<AccountResponse> getAllAccounts() {
-    return response(accountService.getAllAccounts());
+  public ResponseEntity<AccountResponse> getAllAccounts(
+      @RequestParam(value = "limit", defaultValue = "" + LISTING_PAGE_LIMIT_DEFAULT) int limit,
+      @RequestParam(value = "after", required = false) String after,
+      @RequestParam(value = "view", required = false) String view,
+      @RequestParam(value = "fields", required = false) String fields) {
+    if (limit < 1 || limit > LISTING_PAGE_LIMIT_MAX) {
+      return response(format("Error Retrieving All Accounts by Invalid Limit: %s", limit));
+    } else if (hasText(after) && !CursorUtils.isValid(after, 1)) {
+      return response(format("Error Retrieving All Accounts by Invalid Cursor: %s", after));
+    } else if (!FieldSets.isValid(Account.class, view, fields)) {
+      return response(
+          format("Error Retrieving All Accounts by Invalid View / Fields: %s | %s", view, fields));
+    } else {
+      return response(
+          accountService.getAllAccounts(limit, after, FieldSets.resolveAccount(view, fields)));
+    }
+  }
+
+  /**
+   * @return accounts in the order they were created, one json document per line
+   */
+  @Hidden
+  @GetMapping(value = "/account/export", produces = APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportAllAccounts() {
+    return NdjsonResponses.ndjson(objectMapper, accountService::streamAllAccounts);
   }
 
   @GetMapping(value = "/account/id/{id}", produces = APPLICATION_JSON_VALUE)
@@ -45,14 +95,27 @@ public class AccountController {
     }
   }
 
+  /**
+   * @param username username of the user whose accounts are retrieved
+   * @param view summary for id, description, type and bank ids, balance and status only, full by
+   *     default
+   * @param fields comma separated properties to return instead of a view, like description,refBank
+   * @return accounts of the user sorted by description
+   */
   @Hidden
   @GetMapping(value = "/account/user/{username}", produces = APPLICATION_JSON_VALUE)
   public ResponseEntity<AccountResponse> getAccountsByUsername(
-      @PathVariable("username") String username) {
+      @PathVariable("username") String username,
+      @RequestParam(value = "view", required = false) String view,
+      @RequestParam(value = "fields", required = false) String fields) {
     if (!hasText(username)) {
       return response(format("Error Retrieving Account by Invalid Username: %s", username));
+    } else if (!FieldSets.isValid(Account.class, view, fields)) {
+      return response(
+          format("Error Retrieving Account by Invalid View / Fields: %s | %s", view, fields));
     } else {
-      return response(accountService.getAccountsByUsername(username));
+      return response(
+          accountService.getAccountsByUsername(username, FieldSets.resolveAccount(view, fields)));
     }
   }
 
@@ -86,19 +149,67 @@ public class AccountController {
 
   /**
    * @param id id of the account object in db
-   * @return number of rows deleted
+   * @return job deleting the transactions of the account and then the account, its progress is
+   *     available at /account/deletion/{jobId}
    * @apiNote account should not be deleted, the status should be changed to INACTIVE
    */
   @Hidden
   @DeleteMapping(value = "/account/id/{id}", produces = APPLICATION_JSON_VALUE)
-  public ResponseEntity<AccountResponse> deleteAccount(@PathVariable("id") String id) {
+  public ResponseEntity<AccountDeletionJobResponse> deleteAccount(@PathVariable("id") String id) {
     if (!hasText(id)) {
-      return response(format("Error Deleting Account by Invalid id: %s", id));
+      return deletionJobResponse(format("Error Deleting Account by Invalid id: %s", id));
+    } else {
+      return deletionJobResponse(accountDeletionService.startDeletion(id, true));
+    }
+  }
+
+  /**
+   * @param jobId id of the job returned when the deletion was started
+   * @return state of the job and the number of transactions deleted so far
+   */
+  @Hidden
+  @GetMapping(value = "/account/deletion/{jobId}", produces = APPLICATION_JSON_VALUE)
+  public ResponseEntity<AccountDeletionJobResponse> getDeletionJob(
+      @PathVariable("jobId") String jobId) {
+    AccountDeletionJobResponse accountDeletionJobResponse =
+        accountDeletionService.getDeletionJob(jobId);
+
+    if (accountDeletionJobResponse.getAccountDeletionJobs().isEmpty()) {
+      return new ResponseEntity<>(accountDeletionJobResponse, NOT_FOUND);
     } else {
-      return response(accountService.deleteAccountById(id));
+      return new ResponseEntity<>(accountDeletionJobResponse, OK);
     }
   }
 
+  /**
+   * @return Account objects whose current balance was corrected
+   * @apiNote recomputes current balances from opening balances and transactions, the same job also
+   *     runs on a schedule
+   */
+  @Hidden
+  @PostMapping(value = "/account/balance/reconcile", produces = APPLICATION_JSON_VALUE)
+  public ResponseEntity<AccountResponse> reconcileBalances() {
+    return response(accountService.reconcileBalances());
+  }
+
+  private ResponseEntity<AccountDeletionJobResponse> deletionJobResponse(
+      AccountDeletionJobResponse accountDeletionJobResponse) {
+    if (accountDeletionJobResponse.getStatus() == null) {
+      return new ResponseEntity<>(accountDeletionJobResponse, ACCEPTED);
+    } else {
+      return new ResponseEntity<>(accountDeletionJobResponse, INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  private ResponseEntity<AccountDeletionJobResponse> deletionJobResponse(String errMsg) {
+    return new ResponseEntity<>(
+        AccountDeletionJobResponse.builder()
+            .accountDeletionJobs(emptyList())
+            .status(Status.builder().errMsg(errMsg).build())
+            .build(),
+        BAD_REQUEST);
+  }
+
   private ResponseEntity<AccountResponse> response(AccountResponse accountResponse) {
     if (accountResponse.getStatus() == null) {
       return new ResponseEntity<>(accountResponse, OK);
@@ -0,0 +1,60 @@
+package pets.database.controller;
+
+import static java.lang.String.format;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.http.HttpStatus.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.util.StringUtils.hasText;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import pets.database.model.BootstrapResponse;
+import pets.database.model.Status;
+import pets.database.service.BootstrapService;
+
+@RestController
+@RequestMapping("/bootstrap")
+public class BootstrapController {
+  private final BootstrapService bootstrapService;
+
+  public BootstrapController(BootstrapService bootstrapService) {
+    this.bootstrapService = bootstrapService;
+  }
+
+  /**
+   * @param username username of the user whose merchants and accounts are included
+   * @param ifNoneMatch etag of the bundle the client has, answered with 304 if nothing changed
+   * @return all reference tables, and the merchants and accounts of the user, with one etag
+   */
+  @GetMapping(value = "/{username}", produces = APPLICATION_JSON_VALUE)
+  public ResponseEntity<BootstrapResponse> getBootstrapByUsername(
+      @PathVariable("username") String username,
+      @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    if (!hasText(username)) {
+      return response(format("Error Retrieving Bootstrap by Invalid Username: %s", username));
+    } else {
+      return ConditionalResponses.conditional(
+          ifNoneMatch,
+          bootstrapService.getBootstrapETag(username),
+          () -> response(bootstrapService.getBootstrapByUsername(username)));
+    }
+  }
+
+  private ResponseEntity<BootstrapResponse> response(BootstrapResponse bootstrapResponse) {
+    if (bootstrapResponse.getStatus() == null) {
+      return new ResponseEntity<>(bootstrapResponse, OK);
+    } else {
+      return new ResponseEntity<>(bootstrapResponse, INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  private ResponseEntity<BootstrapResponse> response(String errMsg) {
+    return new ResponseEntity<>(
+        BootstrapResponse.builder().status(Status.builder().errMsg(errMsg).build()).build(),
+        BAD_REQUEST);
+  }
+}
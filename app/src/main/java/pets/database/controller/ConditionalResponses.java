@@ -0,0 +1,48 @@
+package pets.database.controller;
+
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+
+import java.util.function.Supplier;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import pets.database.utils.ETags;
+
+/** Answers a GET with 304 when the client already has the current version of the response. */
+final class ConditionalResponses {
+
+  private ConditionalResponses() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * @param eTag current etag, read before the response so it is never newer than the body, null if
+   *     it is not known
+   * @param response builds the response, only called when the client copy is stale
+   */
+  static <T> ResponseEntity<T> conditional(
+      String ifNoneMatch, String eTag, Supplier<ResponseEntity<T>> response) {
+    if (ETags.matches(ifNoneMatch, eTag)) {
+      return notModified(eTag);
+    }
+    return withETag(response.get(), eTag);
+  }
+
+  static <T> ResponseEntity<T> notModified(String eTag) {
+    return ResponseEntity.status(NOT_MODIFIED)
+        .eTag(eTag)
+        .cacheControl(CacheControl.noCache())
+        .build();
+  }
+
+  static <T> ResponseEntity<T> withETag(ResponseEntity<T> response, String eTag) {
+    if (eTag == null || !response.getStatusCode().is2xxSuccessful()) {
+      return response;
+    }
+
+    // no-cache lets clients keep the response as long as they revalidate it
+    return ResponseEntity.status(response.getStatusCode())
+        .eTag(eTag)
+        .cacheControl(CacheControl.noCache())
+        .body(response.getBody());
+  }
+}
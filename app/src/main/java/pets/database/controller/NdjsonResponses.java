@@ -0,0 +1,50 @@
+package pets.database.controller;
+
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/** Writes documents as newline delimited json while they are read from a database cursor. */
+final class NdjsonResponses {
+
+  private NdjsonResponses() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * @param source hands every document to the consumer it is given, typically a service stream
+   *     method
+   */
+  static <T> ResponseEntity<StreamingResponseBody> ndjson(
+      ObjectMapper objectMapper, Consumer<Consumer<T>> source) {
+    ObjectWriter objectWriter = objectMapper.writer();
+    StreamingResponseBody streamingResponseBody =
+        outputStream -> {
+          AtomicLong written = new AtomicLong();
+          source.accept(
+              document -> {
+                try {
+                  outputStream.write(objectWriter.writeValueAsBytes(document));
+                  outputStream.write('\n');
+
+                  // send the first line right away, the rest goes out as the buffer fills up
+                  if (written.incrementAndGet() == 1) {
+                    outputStream.flush();
+                  }
+                } catch (IOException ex) {
+                  throw new UncheckedIOException(ex);
+                }
+              });
+          outputStream.flush();
+        };
+
+    return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(streamingResponseBody);
+  }
+}
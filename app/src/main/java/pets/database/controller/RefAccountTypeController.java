@@ -2,6 +2,7 @@ package pets.database.controller;
 
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.util.StringUtils.hasText;
@@ -14,6 +15,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import pets.database.model.RefAccountTypeRequest;
@@ -31,17 +33,25 @@ public class RefAccountTypeController {
   }
 
   @GetMapping(value = "/refaccounttype", produces = APPLICATION_JSON_VALUE)
-  public ResponseEntity<RefAccountTypeResponse> getAllRefAccountTypes() {
-    return response(refAccountTypeService.getAllRefAccountTypes());
+  public ResponseEntity<RefAccountTypeResponse> getAllRefAccountTypes(
+      @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    return ConditionalResponses.conditional(
+        ifNoneMatch,
+        refAccountTypeService.getRefAccountTypesETag(),
+        () -> response(refAccountTypeService.getAllRefAccountTypes()));
   }
 
   @GetMapping(value = "/refaccounttype/id/{id}", produces = APPLICATION_JSON_VALUE)
   public ResponseEntity<RefAccountTypeResponse> getRefAccountTypeById(
-      @PathVariable("id") String id) {
+      @PathVariable("id") String id,
+      @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch) {
     if (!hasText(id)) {
       return response(format("Error Retrieving Account Type by Invalid id: %s", id));
     } else {
-      return response(refAccountTypeService.getRefAccountTypeById(id));
+      return ConditionalResponses.conditional(
+          ifNoneMatch,
+          refAccountTypeService.getRefAccountTypesETag(),
+          () -> response(refAccountTypeService.getRefAccountTypeById(id)));
     }
   }
 
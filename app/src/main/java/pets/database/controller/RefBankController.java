@@ -2,6 +2,7 @@ package pets.database.controller;
 
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.util.StringUtils.hasText;
@@ -14,6 +15,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import pets.database.model.RefBankRequest;
@@ -31,16 +33,25 @@ public class RefBankController {
   }
 
   @GetMapping(value = "/refbank", produces = APPLICATION_JSON_VALUE)
-  public ResponseEntity<RefBankResponse> getAllRefBanks() {
-    return response(refBankService.getAllRefBanks());
+  public ResponseEntity<RefBankResponse> getAllRefBanks(
+      @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    return ConditionalResponses.conditional(
+        ifNoneMatch,
+        refBankService.getRefBanksETag(),
+        () -> response(refBankService.getAllRefBanks()));
   }
 
   @GetMapping(value = "/refbank/id/{id}", produces = APPLICATION_JSON_VALUE)
-  public ResponseEntity<RefBankResponse> getRefBankById(@PathVariable("id") String id) {
+  public ResponseEntity<RefBankResponse> getRefBankById(
+      @PathVariable("id") String id,
+      @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch) {
     if (!hasText(id)) {
       return response(format("Error Retrieving Bank by Invalid id: %s", id));
     } else {
-      return response(refBankService.getRefBankById(id));
+      return ConditionalResponses.conditional(
+          ifNoneMatch,
+          refBankService.getRefBanksETag(),
+          () -> response(refBankService.getRefBankById(id)));
     }
   }
 
@@ -2,6 +2,7 @@ package pets.database.controller;
 
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.util.StringUtils.hasText;
@@ -14,8 +15,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import pets.database.cache.RefCategoryTreeCache.SerializedTree;
 import pets.database.model.RefCategoryRequest;
 import pets.database.model.RefCategoryResponse;
 import pets.database.model.Status;
@@ -31,16 +34,42 @@ public class RefCategoryController {
   }
 
   @GetMapping(value = "/refcategory", produces = APPLICATION_JSON_VALUE)
-  public ResponseEntity<RefCategoryResponse> getAllRefCategories() {
-    return response(refCategoryService.getAllRefCategories());
+  public ResponseEntity<RefCategoryResponse> getAllRefCategories(
+      @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    return ConditionalResponses.conditional(
+        ifNoneMatch,
+        refCategoryService.getRefCategoriesETag(),
+        () -> response(refCategoryService.getAllRefCategories()));
+  }
+
+  /**
+   * @return category types sorted by description, each with its categories
+   * @apiNote the response is serialized once and rebuilt only when categories or category types
+   *     change
+   */
+  @GetMapping(value = "/refcategory/tree", produces = APPLICATION_JSON_VALUE)
+  public ResponseEntity<byte[]> getRefCategoryTree(
+      @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    SerializedTree serializedTree = refCategoryService.getRefCategoryTree();
+
+    if (serializedTree.eTag() == null) {
+      return new ResponseEntity<>(serializedTree.body(), INTERNAL_SERVER_ERROR);
+    }
+    return ConditionalResponses.conditional(
+        ifNoneMatch, serializedTree.eTag(), () -> new ResponseEntity<>(serializedTree.body(), OK));
   }
 
   @GetMapping(value = "/refcategory/id/{id}", produces = APPLICATION_JSON_VALUE)
-  public ResponseEntity<RefCategoryResponse> getRefCategoryById(@PathVariable("id") String id) {
+  public ResponseEntity<RefCategoryResponse> getRefCategoryById(
+      @PathVariable("id") String id,
+      @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch) {
     if (!hasText(id)) {
       return response(format("Error Retrieving Category by Invalid id: %s", id));
     } else {
-      return response(refCategoryService.getRefCategoryById(id));
+      return ConditionalResponses.conditional(
+          ifNoneMatch,
+          refCategoryService.getRefCategoriesETag(),
+          () -> response(refCategoryService.getRefCategoryById(id)));
     }
   }
 
@@ -66,13 +95,24 @@ public class RefCategoryController {
     }
   }
 
+  /**
+   * @param id id of the category object in db
+   * @return number of rows deleted, or 409 with the category when transactions still use it
+   */
   @Hidden
   @DeleteMapping(value = "/refcategory/id/{id}", produces = APPLICATION_JSON_VALUE)
   public ResponseEntity<RefCategoryResponse> deleteRefCategory(@PathVariable("id") String id) {
     if (!hasText(id)) {
       return response(format("Error Deleting Category by Invalid id: %s", id));
     } else {
-      return response(refCategoryService.deleteRefCategoryById(id));
+      RefCategoryResponse refCategoryResponse = refCategoryService.deleteRefCategoryById(id);
+
+      if (refCategoryResponse.getStatus() != null
+          && !refCategoryResponse.getRefCategories().isEmpty()) {
+        return new ResponseEntity<>(refCategoryResponse, CONFLICT);
+      } else {
+        return response(refCategoryResponse);
+      }
     }
   }
 
@@ -4,8 +4,14 @@ import static java.lang.String.format;
 import static java.util.Collections.emptyList;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 import static org.springframework.util.StringUtils.hasText;
+import static pets.database.utils.Constants.LISTING_PAGE_LIMIT_DEFAULT;
+import static pets.database.utils.Constants.LISTING_PAGE_LIMIT_MAX;
+import static pets.database.utils.Constants.MERCHANT_SEARCH_LIMIT_DEFAULT;
+import static pets.database.utils.Constants.MERCHANT_SEARCH_LIMIT_MAX;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Hidden;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -15,32 +21,53 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import pets.database.model.RefMerchantRequest;
 import pets.database.model.RefMerchantResponse;
 import pets.database.model.Status;
 import pets.database.service.RefMerchantService;
+import pets.database.utils.CursorUtils;
 
 @RestController
 @RequestMapping("/refmerchants")
 public class RefMerchantController {
   private final RefMerchantService refMerchantService;
+  private final ObjectMapper objectMapper;
 
-  public RefMerchantController(RefMerchantService refMerchantService) {
+  public RefMerchantController(RefMerchantService refMerchantService, ObjectMapper objectMapper) {
     this.refMerchantService = refMerchantService;
+    this.objectMapper = objectMapper;
   }
 
+  /**
+   * @param limit page size, at most 1000 merchants are returned in one page
+   * @param after nextCursor of the previous page
+   * @return merchants in the order they were created, with the cursor of the next page if there is
+   *     one
+   */
   @GetMapping(value = "/refmerchant", produces = APPLICATION_JSON_VALUE)
-  public ResponseEntity<RefMerchantResponse> getAllRefMerchants() {
-    RefMerchantResponse refMerchantResponse = refMerchantService.getAllRefMerchants();
-
-    if (refMerchantResponse.getStatus() == null) {
-      return new ResponseEntity<>(refMerchantResponse, OK);
+  public ResponseEntity<RefMerchantResponse> getAllRefMerchants(
+      @RequestParam(value = "limit", defaultValue = "" + LISTING_PAGE_LIMIT_DEFAULT) int limit,
+      @RequestParam(value = "after", required = false) String after) {
+    if (limit < 1 || limit > LISTING_PAGE_LIMIT_MAX) {
+      return response(format("Error Retrieving All Merchants by Invalid Limit: %s", limit));
+    } else if (hasText(after) && !CursorUtils.isValid(after, 1)) {
+      return response(format("Error Retrieving All Merchants by Invalid Cursor: %s", after));
     } else {
-      return new ResponseEntity<>(refMerchantResponse, INTERNAL_SERVER_ERROR);
+      return response(refMerchantService.getAllRefMerchants(limit, after));
     }
   }
 
+  /**
+   * @return merchants in the order they were created, one json document per line
+   */
+  @GetMapping(value = "/refmerchant/export", produces = APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportAllRefMerchants() {
+    return NdjsonResponses.ndjson(objectMapper, refMerchantService::streamAllRefMerchants);
+  }
+
   @GetMapping(value = "/refmerchant/user/{username}", produces = APPLICATION_JSON_VALUE)
   public ResponseEntity<RefMerchantResponse> getAllRefMerchantsByUsername(
       @PathVariable("username") String username) {
@@ -51,6 +78,26 @@ public class RefMerchantController {
     }
   }
 
+  /**
+   * @param prefix start of any word of the merchant description, case and accents are ignored
+   * @param limit at most 100 merchants are returned
+   * @return matching merchants of the user, most used in transactions first
+   */
+  @GetMapping(value = "/refmerchant/user/{username}/search", produces = APPLICATION_JSON_VALUE)
+  public ResponseEntity<RefMerchantResponse> searchRefMerchantsByUsername(
+      @PathVariable("username") String username,
+      @RequestParam(value = "prefix") String prefix,
+      @RequestParam(value = "limit", defaultValue = "" + MERCHANT_SEARCH_LIMIT_DEFAULT) int limit) {
+    if (!hasText(username) || !hasText(prefix)) {
+      return response(
+          format("Error Searching Merchants by Invalid Username / Prefix: %s", username));
+    } else if (limit < 1 || limit > MERCHANT_SEARCH_LIMIT_MAX) {
+      return response(format("Error Searching Merchants by Invalid Limit: %s", limit));
+    } else {
+      return response(refMerchantService.searchRefMerchantsByUsername(username, prefix, limit));
+    }
+  }
+
   @GetMapping(value = "/refmerchant/id/{id}", produces = APPLICATION_JSON_VALUE)
   public ResponseEntity<RefMerchantResponse> getRefMerchantById(@PathVariable("id") String id) {
     if (!hasText(id)) {
@@ -82,13 +129,24 @@ public class RefMerchantController {
     }
   }
 
+  /**
+   * @param id id of the merchant object in db
+   * @return number of rows deleted, or 409 with the merchant when transactions still use it
+   */
   @Hidden
   @DeleteMapping(value = "/refmerchant/id/{id}", produces = APPLICATION_JSON_VALUE)
   public ResponseEntity<RefMerchantResponse> deleteRefMerchant(@PathVariable("id") String id) {
     if (!hasText(id)) {
       return response(format("Error Deleting Merchant by Invalid id: %s", id));
     } else {
-      return response(refMerchantService.deleteRefMerchantById(id));
+      RefMerchantResponse refMerchantResponse = refMerchantService.deleteRefMerchantById(id);
+
+      if (refMerchantResponse.getStatus() != null
+          && !refMerchantResponse.getRefMerchants().isEmpty()) {
+        return new ResponseEntity<>(refMerchantResponse, CONFLICT);
+      } else {
+        return response(refMerchantResponse);
+      }
     }
   }
 
@@ -4,27 +4,103 @@ import static java.lang.String.format;
 import static java.util.Collections.emptyList;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 import static org.springframework.util.StringUtils.hasText;
+import static pets.database.utils.Constants.LISTING_PAGE_LIMIT_DEFAULT;
+import static pets.database.utils.Constants.LISTING_PAGE_LIMIT_MAX;
+import static pets.database.utils.Constants.TRANSACTIONS_BULK_LIMIT_MAX;
+import static pets.database.utils.Constants.TRANSACTIONS_PAGE_LIMIT_DEFAULT;
+import static pets.database.utils.Constants.TRANSACTIONS_PAGE_LIMIT_MAX;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pets.database.model.AccountDeletionJobResponse;
 import pets.database.model.Status;
+import pets.database.model.SummaryDimension;
+import pets.database.model.SummaryPeriod;
+import pets.database.model.Transaction;
+import pets.database.model.TransactionBulkResponse;
+import pets.database.model.TransactionBulkUpdateRequest;
+import pets.database.model.TransactionFilter;
 import pets.database.model.TransactionRequest;
 import pets.database.model.TransactionResponse;
+import pets.database.model.TransactionSummaryResponse;
+import pets.database.model.UsageCountResponse;
+import pets.database.service.AccountDeletionService;
 import pets.database.service.TransactionService;
+import pets.database.service.TransactionSummaryService;
+import pets.database.service.UsageCountService;
+import pets.database.utils.CursorUtils;
+import pets.database.utils.FieldSets;
 
 @RestController
 @RequestMapping("/transactions")
 public class TransactionController {
   private final TransactionService transactionService;
+  private final TransactionSummaryService transactionSummaryService;
+  private final AccountDeletionService accountDeletionService;
+  private final UsageCountService usageCountService;
+  private final ObjectMapper objectMapper;
 
-  public TransactionController(TransactionService transactionService) {
+  public TransactionController(
+      TransactionService transactionService,
+      TransactionSummaryService transactionSummaryService,
+      AccountDeletionService accountDeletionService,
+      UsageCountService usageCountService,
+      ObjectMapper objectMapper) {
     this.transactionService = transactionService;
+    this.transactionSummaryService = transactionSummaryService;
+    this.accountDeletionService = accountDeletionService;
+    this.usageCountService = usageCountService;
+    this.objectMapper = objectMapper;
   }
 
+  /**
+   * @param limit page size, at most 1000 transactions are returned in one page
+   * @param after nextCursor of the previous page
+   * @param view summary for id, date, amount, description and the ref ids only, full by default
+   * @param fields comma separated properties to return instead of a view, like
+   *     date,amount,refMerchant
+   * @return transactions of all users, newest first, with the cursor of the next page if there is
+   *     one
+   */
   @GetMapping(value = "/transaction", produces = APPLICATION_JSON_VALUE)
-  public ResponseEntity<TransactionResponse> getAllTransactions() {
-    return response(transactionService.getAllTransactions());
+  public ResponseEntity<TransactionResponse> getAllTransactions(
+      @RequestParam(value = "limit", defaultValue = "" + LISTING_PAGE_LIMIT_DEFAULT) int limit,
+      @RequestParam(value = "after", required = false) String after,
+      @RequestParam(value = "view", required = false) String view,
+      @RequestParam(value = "fields", required = false) String fields) {
+    if (limit < 1 || limit > LISTING_PAGE_LIMIT_MAX) {
+      return response(format("Error Retrieving All Transactions by Invalid Limit: %s", limit));
+    } else if (hasText(after) && !CursorUtils.isValid(after, 1)) {
+      return response(format("Error Retrieving All Transactions by Invalid Cursor: %s", after));
+    } else if (!FieldSets.isValid(Transaction.class, view, fields)) {
+      return response(
+          format(
+              "Error Retrieving All Transactions by Invalid View / Fields: %s | %s", view, fields));
+    } else {
+      return response(
+          transactionService.getAllTransactions(
+              limit, after, FieldSets.resolveTransaction(view, fields)));
+    }
+  }
+
+  /**
+   * @return transactions of all users, newest first, one json document per line
+   */
+  @GetMapping(value = "/transaction/export", produces = APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportAllTransactions() {
+    return NdjsonResponses.ndjson(objectMapper, transactionService::streamAllTransactions);
   }
 
   @GetMapping(value = "/transaction/id/{id}", produces = APPLICATION_JSON_VALUE)
@@ -36,16 +112,163 @@ public class TransactionController {
     }
   }
 
+  /**
+   * @param username username of the user whose transactions are retrieved
+   * @param limit page size, at most 500 transactions are returned in one page
+   * @param after nextCursor of the previous page
+   * @param view summary for id, date, amount, description and the ref ids only, full by default
+   * @param fields comma separated properties to return instead of a view, like
+   *     date,amount,refMerchant
+   * @param hydrate when true the account, transfer account, category, merchant and transaction type
+   *     are returned in full instead of as ids
+   * @return transactions sorted by date descending, one page at a time when limit or after is
+   *     provided, with the cursor of the next page if there is one
+   * @apiNote without limit and after all transactions of the user are returned in one response
+   */
   @GetMapping(value = "/transaction/user/{username}", produces = APPLICATION_JSON_VALUE)
   public ResponseEntity<TransactionResponse> getTransactionsByUser(
-      @PathVariable("username") String username) {
+      @PathVariable("username") String username,
+      @RequestParam(value = "limit", required = false) Integer limit,
+      @RequestParam(value = "after", required = false) String after,
+      @RequestParam(value = "view", required = false) String view,
+      @RequestParam(value = "fields", required = false) String fields,
+      @RequestParam(value = "hydrate", defaultValue = "false") boolean hydrate) {
+    if (!hasText(username)) {
+      return response(format("Error Retrieving Transaction by Invalid Username: %s", username));
+    } else if (limit != null && (limit < 1 || limit > TRANSACTIONS_PAGE_LIMIT_MAX)) {
+      return response(format("Error Retrieving Transaction by Invalid Limit: %s", limit));
+    } else if (hasText(after) && !CursorUtils.isValid(after, 2)) {
+      return response(format("Error Retrieving Transaction by Invalid Cursor: %s", after));
+    } else if (!FieldSets.isValid(Transaction.class, view, fields)) {
+      return response(
+          format("Error Retrieving Transaction by Invalid View / Fields: %s | %s", view, fields));
+    } else if (limit == null && !hasText(after)) {
+      return response(
+          transactionService.getTransactionsByUser(
+              username, FieldSets.resolveTransaction(view, fields), hydrate));
+    } else {
+      return response(
+          transactionService.getTransactionsByUser(
+              username,
+              limit == null ? TRANSACTIONS_PAGE_LIMIT_DEFAULT : limit,
+              after,
+              FieldSets.resolveTransaction(view, fields),
+              hydrate));
+    }
+  }
+
+  /**
+   * @param username username of the user whose transactions are retrieved
+   * @param transactionFilter optional from / to dates (inclusive, yyyy-MM-dd) and accountId,
+   *     categoryId, merchantId and typeId filters, an account matches transfers to it as well
+   * @param limit page size, at most 500 transactions are returned in one page
+   * @param after nextCursor of the previous page
+   * @param explain when true the response includes the index used and the number of keys and
+   *     documents examined for the number of transactions returned
+   * @param view summary for id, date, amount, description and the ref ids only, full by default
+   * @param fields comma separated properties to return instead of a view, like
+   *     date,amount,refMerchant
+   * @param hydrate when true the account, transfer account, category, merchant and transaction type
+   *     are returned in full instead of as ids
+   * @return transactions matching all filters sorted by date descending, one page at a time
+   */
+  @GetMapping(value = "/transaction/user/{username}/query", produces = APPLICATION_JSON_VALUE)
+  public ResponseEntity<TransactionResponse> getTransactionsByFilter(
+      @PathVariable("username") String username,
+      TransactionFilter transactionFilter,
+      @RequestParam(value = "limit", required = false) Integer limit,
+      @RequestParam(value = "after", required = false) String after,
+      @RequestParam(value = "explain", defaultValue = "false") boolean explain,
+      @RequestParam(value = "view", required = false) String view,
+      @RequestParam(value = "fields", required = false) String fields,
+      @RequestParam(value = "hydrate", defaultValue = "false") boolean hydrate) {
     if (!hasText(username)) {
       return response(format("Error Retrieving Transaction by Invalid Username: %s", username));
+    } else if (!isValidDate(transactionFilter.getFrom())
+        || !isValidDate(transactionFilter.getTo())) {
+      return response(
+          format(
+              "Error Retrieving Transaction by Invalid Dates: %s | %s",
+              transactionFilter.getFrom(), transactionFilter.getTo()));
+    } else if (limit != null && (limit < 1 || limit > TRANSACTIONS_PAGE_LIMIT_MAX)) {
+      return response(format("Error Retrieving Transaction by Invalid Limit: %s", limit));
+    } else if (hasText(after) && !CursorUtils.isValid(after, 2)) {
+      return response(format("Error Retrieving Transaction by Invalid Cursor: %s", after));
+    } else if (!FieldSets.isValid(Transaction.class, view, fields)) {
+      return response(
+          format("Error Retrieving Transaction by Invalid View / Fields: %s | %s", view, fields));
     } else {
-      return response(transactionService.getTransactionsByUser(username));
+      return response(
+          transactionService.getTransactionsByFilter(
+              username,
+              transactionFilter,
+              limit == null ? TRANSACTIONS_PAGE_LIMIT_DEFAULT : limit,
+              after,
+              explain,
+              FieldSets.resolveTransaction(view, fields),
+              hydrate));
     }
   }
 
+  /**
+   * @param username username of the user whose transactions are summarized
+   * @param period one of day, week, month or year
+   * @param dimension one of category, category_type, merchant, account, type, regular or necessary
+   * @return total amount and number of transactions per period and dimension value
+   * @apiNote totals are computed in the database and cached until the user's transactions change
+   */
+  @GetMapping(value = "/transaction/user/{username}/summary", produces = APPLICATION_JSON_VALUE)
+  public ResponseEntity<TransactionSummaryResponse> getTransactionSummaries(
+      @PathVariable("username") String username,
+      @RequestParam(value = "period", defaultValue = "month") String period,
+      @RequestParam(value = "dimension", defaultValue = "category") String dimension) {
+    SummaryPeriod summaryPeriod = parse(SummaryPeriod.class, period);
+    SummaryDimension summaryDimension = parse(SummaryDimension.class, dimension);
+
+    if (!hasText(username) || summaryPeriod == null || summaryDimension == null) {
+      return new ResponseEntity<>(
+          TransactionSummaryResponse.builder()
+              .transactionSummaries(emptyList())
+              .status(
+                  Status.builder()
+                      .errMsg(
+                          format(
+                              "Error Retrieving Transaction Summaries by Invalid Username / Period"
+                                  + " / Dimension: %s | %s | %s",
+                              username, period, dimension))
+                      .build())
+              .build(),
+          BAD_REQUEST);
+    }
+
+    TransactionSummaryResponse transactionSummaryResponse =
+        transactionSummaryService.getTransactionSummaries(
+            username, summaryPeriod, summaryDimension);
+
+    if (transactionSummaryResponse.getStatus() == null) {
+      return new ResponseEntity<>(transactionSummaryResponse, OK);
+    } else {
+      return new ResponseEntity<>(transactionSummaryResponse, INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * @param username username of the user whose transactions are exported
+   * @return all transactions of the user sorted by date descending, one json document per line
+   * @apiNote transactions are written as they are read from the database, memory use does not grow
+   *     with the size of the history
+   */
+  @GetMapping(value = "/transaction/user/{username}/export", produces = APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportTransactionsByUser(
+      @PathVariable("username") String username) {
+    if (!hasText(username)) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    return NdjsonResponses.<Transaction>ndjson(
+        objectMapper, consumer -> transactionService.streamTransactionsByUser(username, consumer));
+  }
+
   @PostMapping(value = "/transaction", produces = APPLICATION_JSON_VALUE)
   public ResponseEntity<TransactionResponse> saveNewTransaction(
       @RequestBody TransactionRequest transactionRequest) {
@@ -56,16 +279,102 @@ public class TransactionController {
     }
   }
 
+  /**
+   * @param transactionRequests transactions to save, at most 10000 in one request
+   * @return id or error of every transaction in the order of the request
+   * @apiNote transactions are written in unordered bulk inserts, invalid or rejected transactions
+   *     do not stop the others from being saved
+   */
+  @PostMapping(
+      value = "/transaction/bulk",
+      consumes = APPLICATION_JSON_VALUE,
+      produces = APPLICATION_JSON_VALUE)
+  public ResponseEntity<TransactionBulkResponse> saveNewTransactions(
+      @RequestBody List<TransactionRequest> transactionRequests) {
+    return bulkResponse(transactionRequests);
+  }
+
+  /**
+   * @param inputStream transactions to save, one json document per line
+   * @return id or error of every transaction in the order of the request
+   */
+  @PostMapping(
+      value = "/transaction/bulk",
+      consumes = APPLICATION_NDJSON_VALUE,
+      produces = APPLICATION_JSON_VALUE)
+  public ResponseEntity<TransactionBulkResponse> saveNewTransactionsNdjson(
+      InputStream inputStream) {
+    List<TransactionRequest> transactionRequests = new ArrayList<>();
+
+    try (MappingIterator<TransactionRequest> iterator =
+        objectMapper.readerFor(TransactionRequest.class).readValues(inputStream)) {
+      while (iterator.hasNextValue() && transactionRequests.size() <= TRANSACTIONS_BULK_LIMIT_MAX) {
+        transactionRequests.add(iterator.nextValue());
+      }
+    } catch (IOException | RuntimeException ex) {
+      return bulkResponse(
+          format("Error Saving Transactions by Invalid Request: %s", ex.getMessage()), BAD_REQUEST);
+    }
+
+    return bulkResponse(transactionRequests);
+  }
+
   @PutMapping(value = "/transaction/id/{id}", produces = APPLICATION_JSON_VALUE)
   public ResponseEntity<TransactionResponse> updateTransaction(
       @PathVariable("id") String id, @RequestBody TransactionRequest transactionRequest) {
-    if (!hasText(id) || transactionRequest == null) {
+    if (!hasText(id) || transactionRequest == null || !isValidDate(transactionRequest.getDate())) {
       return response(format("Error Updating Transaction by Invalid id / request: %s", id));
     } else {
       return response(transactionService.updateTransactionById(id, transactionRequest));
     }
   }
 
+  /**
+   * @param username username of the user whose transactions are updated
+   * @param transactionBulkUpdateRequest filter with at least one of the /query filters, and the new
+   *     accountId, typeId, categoryId, merchantId, regular or necessary values
+   * @return number of transactions matched and modified
+   * @apiNote all matching transactions are updated with one database call, like recategorizing
+   *     every transaction of a merchant
+   */
+  @PutMapping(value = "/transaction/user/{username}/bulk", produces = APPLICATION_JSON_VALUE)
+  public ResponseEntity<TransactionResponse> updateTransactionsByFilter(
+      @PathVariable("username") String username,
+      @RequestBody TransactionBulkUpdateRequest transactionBulkUpdateRequest) {
+    if (!hasText(username)
+        || transactionBulkUpdateRequest == null
+        || !isValidBulkFilter(transactionBulkUpdateRequest.getFilter())) {
+      return response(
+          format("Error Updating Transactions by Invalid Username / Filter: %s", username));
+    } else if (!hasText(transactionBulkUpdateRequest.getAccountId())
+        && !hasText(transactionBulkUpdateRequest.getTypeId())
+        && !hasText(transactionBulkUpdateRequest.getCategoryId())
+        && !hasText(transactionBulkUpdateRequest.getMerchantId())
+        && transactionBulkUpdateRequest.getRegular() == null
+        && transactionBulkUpdateRequest.getNecessary() == null) {
+      return response(format("Error Updating Transactions by Invalid Request: %s", username));
+    } else {
+      return response(
+          transactionService.updateTransactionsByFilter(username, transactionBulkUpdateRequest));
+    }
+  }
+
+  /**
+   * @param username username of the user whose transactions are deleted
+   * @param transactionFilter at least one of the /query filters
+   * @return number of transactions deleted
+   */
+  @DeleteMapping(value = "/transaction/user/{username}/bulk", produces = APPLICATION_JSON_VALUE)
+  public ResponseEntity<TransactionResponse> deleteTransactionsByFilter(
+      @PathVariable("username") String username, TransactionFilter transactionFilter) {
+    if (!hasText(username) || !isValidBulkFilter(transactionFilter)) {
+      return response(
+          format("Error Deleting Transactions by Invalid Username / Filter: %s", username));
+    } else {
+      return response(transactionService.deleteTransactionsByFilter(username, transactionFilter));
+    }
+  }
+
   @DeleteMapping(value = "/transaction/id/{id}", produces = APPLICATION_JSON_VALUE)
   public ResponseEntity<TransactionResponse> deleteTransaction(@PathVariable("id") String id) {
     if (!hasText(id)) {
@@ -75,13 +384,119 @@ public class TransactionController {
     }
   }
 
+  /**
+   * @param accountId id of the account whose transactions are deleted
+   * @return job deleting the transactions in the background, its progress is available at
+   *     /accounts/account/deletion/{jobId}
+   */
   @DeleteMapping(value = "/transaction/accountid/{accountid}", produces = APPLICATION_JSON_VALUE)
-  public ResponseEntity<TransactionResponse> deleteTransactionsByAccountId(
+  public ResponseEntity<AccountDeletionJobResponse> deleteTransactionsByAccountId(
       @PathVariable("accountid") String accountId) {
     if (!hasText(accountId)) {
-      return response(format("Error Deleting Transactions by Invalid Account id: %s", accountId));
+      return new ResponseEntity<>(
+          AccountDeletionJobResponse.builder()
+              .accountDeletionJobs(emptyList())
+              .status(
+                  Status.builder()
+                      .errMsg(
+                          format(
+                              "Error Deleting Transactions by Invalid Account id: %s", accountId))
+                      .build())
+              .build(),
+          BAD_REQUEST);
+    }
+
+    AccountDeletionJobResponse accountDeletionJobResponse =
+        accountDeletionService.startDeletion(accountId, false);
+
+    if (accountDeletionJobResponse.getStatus() == null) {
+      return new ResponseEntity<>(accountDeletionJobResponse, ACCEPTED);
+    } else {
+      return new ResponseEntity<>(accountDeletionJobResponse, INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  private ResponseEntity<TransactionBulkResponse> bulkResponse(
+      List<TransactionRequest> transactionRequests) {
+    if (transactionRequests == null || transactionRequests.isEmpty()) {
+      return bulkResponse("Error Saving Transactions by Invalid Request!!!", BAD_REQUEST);
+    } else if (transactionRequests.size() > TRANSACTIONS_BULK_LIMIT_MAX) {
+      return bulkResponse(
+          format(
+              "Error Saving Transactions by Too Many Transactions, Maximum: %s",
+              TRANSACTIONS_BULK_LIMIT_MAX),
+          PAYLOAD_TOO_LARGE);
+    }
+
+    TransactionBulkResponse transactionBulkResponse =
+        transactionService.saveNewTransactions(transactionRequests);
+
+    if (transactionBulkResponse.getStatus() == null) {
+      return new ResponseEntity<>(transactionBulkResponse, OK);
     } else {
-      return response(transactionService.deleteTransactionsByAccountId(accountId));
+      return new ResponseEntity<>(transactionBulkResponse, INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  private ResponseEntity<TransactionBulkResponse> bulkResponse(
+      String errMsg, HttpStatus httpStatus) {
+    return new ResponseEntity<>(
+        TransactionBulkResponse.builder()
+            .transactionResults(emptyList())
+            .insertedCount(0L)
+            .failedCount(0L)
+            .status(Status.builder().errMsg(errMsg).build())
+            .build(),
+        httpStatus);
+  }
+
+  /**
+   * @return number of accounts, categories and merchants used by at least one transaction
+   * @apiNote recomputes the usage counts of all accounts, categories and merchants with one
+   *     aggregation, the same job also runs on a schedule
+   */
+  @PostMapping(value = "/transaction/usage/rebuild", produces = APPLICATION_JSON_VALUE)
+  public ResponseEntity<UsageCountResponse> rebuildUsageCounts() {
+    UsageCountResponse usageCountResponse = usageCountService.rebuildUsageCounts();
+
+    if (usageCountResponse.getStatus() == null) {
+      return new ResponseEntity<>(usageCountResponse, OK);
+    } else {
+      return new ResponseEntity<>(usageCountResponse, INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  private <E extends Enum<E>> E parse(Class<E> enumClass, String value) {
+    try {
+      return Enum.valueOf(enumClass, value.trim().toUpperCase());
+    } catch (IllegalArgumentException | NullPointerException ex) {
+      return null;
+    }
+  }
+
+  // a bulk change of all of a user's transactions is refused, it is almost always a mistake
+  private boolean isValidBulkFilter(TransactionFilter transactionFilter) {
+    return transactionFilter != null
+        && isValidDate(transactionFilter.getFrom())
+        && isValidDate(transactionFilter.getTo())
+        && (hasText(transactionFilter.getFrom())
+            || hasText(transactionFilter.getTo())
+            || hasText(transactionFilter.getAccountId())
+            || hasText(transactionFilter.getCategoryId())
+            || hasText(transactionFilter.getMerchantId())
+            || hasText(transactionFilter.getTypeId()));
+  }
+
+  private boolean isValidDate(String date) {
+    if (!hasText(date)) {
+      return true;
+    }
+
+    try {
+      LocalDate.parse(date);
+      return true;
+    } catch (DateTimeParseException ex) {
+      return false;
     }
   }
 
@@ -2,30 +2,61 @@ package pets.database.controller;
 
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 import static org.springframework.util.StringUtils.hasText;
+import static pets.database.utils.Constants.LISTING_PAGE_LIMIT_DEFAULT;
+import static pets.database.utils.Constants.LISTING_PAGE_LIMIT_MAX;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.Map;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import pets.database.model.Status;
 import pets.database.model.UserRequest;
 import pets.database.model.UserResponse;
 import pets.database.service.UserService;
+import pets.database.utils.CursorUtils;
+import pets.database.utils.ETags;
 
 @RestController
 @RequestMapping("/users")
 public class UserController {
   private final UserService userService;
+  private final ObjectMapper objectMapper;
 
-  public UserController(UserService userService) {
+  public UserController(UserService userService, ObjectMapper objectMapper) {
     this.userService = userService;
+    this.objectMapper = objectMapper;
   }
 
+  /**
+   * @param limit page size, at most 1000 users are returned in one page
+   * @param after nextCursor of the previous page
+   * @return users in the order they were created, with the cursor of the next page if there is one
+   */
   @GetMapping(value = "/user", produces = APPLICATION_JSON_VALUE)
-  public ResponseEntity<UserResponse> getAllUsers() {
-    return response(userService.getAllUsers());
+  public ResponseEntity<UserResponse> getAllUsers(
+      @RequestParam(value = "limit", defaultValue = "" + LISTING_PAGE_LIMIT_DEFAULT) int limit,
+      @RequestParam(value = "after", required = false) String after) {
+    if (limit < 1 || limit > LISTING_PAGE_LIMIT_MAX) {
+      return response(format("Error Retrieving All Users by Invalid Limit: %s", limit));
+    } else if (hasText(after) && !CursorUtils.isValid(after, 1)) {
+      return response(format("Error Retrieving All Users by Invalid Cursor: %s", after));
+    } else {
+      return response(userService.getAllUsers(limit, after));
+    }
+  }
+
+  /**
+   * @return users in the order they were created, one json document per line
+   */
+  @GetMapping(value = "/user/export", produces = APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportAllUsers() {
+    return NdjsonResponses.ndjson(objectMapper, userService::streamAllUsers);
   }
 
   @GetMapping(value = "/user/id/{id}", produces = APPLICATION_JSON_VALUE)
@@ -37,10 +68,15 @@ public class UserController {
     }
   }
 
+  /**
+   * @param ifNoneMatch etag of the profile the client has, answered with 304 if it is unchanged
+   * @return the user with its etag
+   */
   @GetMapping(value = "/user/username/{username}", produces = APPLICATION_JSON_VALUE)
   public ResponseEntity<UserResponse> getUserByUserName(
       @PathVariable("username") String username,
-      @RequestHeader(value = "user-header") String userHeader) {
+      @RequestHeader(value = "user-header") String userHeader,
+      @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch) {
     if (!hasText(username)) {
       return response(format("Error Retrieving User by Invalid Username: %s", username));
     } else if (!username.equals(userHeader)) {
@@ -49,7 +85,17 @@ public class UserController {
               "Error Retrieving User by Invalid Username and Header: %s | %s",
               username, userHeader));
     } else {
-      return response(userService.getUserByUsername(username));
+      // the cached etag is only looked up when the client sends one
+      String eTag = ifNoneMatch == null ? null : userService.getUserETag(username);
+      if (ETags.matches(ifNoneMatch, eTag)) {
+        return ConditionalResponses.notModified(eTag);
+      }
+
+      // tagged with the profile that was just read, which may be newer than the cached etag
+      UserResponse userResponse = userService.getUserByUsername(username);
+      return ConditionalResponses.withETag(
+          response(userResponse),
+          userResponse.getUsers().isEmpty() ? null : ETags.of(userResponse.getUsers()));
     }
   }
 
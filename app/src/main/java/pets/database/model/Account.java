@@ -13,6 +13,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 @Builder
 @Data
@@ -27,9 +28,21 @@ public class Account implements Serializable {
   private String description;
   private User user;
 
-  @Field(name = "opening_balance")
+  // added to the transaction totals on the server when balances are computed
+  @Field(name = "opening_balance", targetType = FieldType.DECIMAL128)
   private BigDecimal openingBalance;
 
+  // maintained with $inc on every transaction write, so it is stored as a number
+  @Field(name = "current_balance", targetType = FieldType.DECIMAL128)
+  private BigDecimal currentBalance;
+
+  // moved with every write of the current balance, the reconciler only sets a balance it has read
+  @Field(name = "balance_version")
+  private Long balanceVersion;
+
+  // number of transactions from or to the account, maintained with $inc on transaction writes
+  private Long usageCount;
+
   private String status;
   private String creationDate;
   private String lastModified;
@@ -0,0 +1,32 @@
+package pets.database.model;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of deleting the transactions of an account, and the account itself when deleteAccount is
+ * true. State is one of QUEUED, RUNNING, COMPLETED or FAILED.
+ */
+@Builder(toBuilder = true)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(NON_NULL)
+public class AccountDeletionJob implements Serializable {
+  private String id;
+  private String accountId;
+  private Boolean deleteAccount;
+  private String state;
+  private Long batches;
+  private Long deletedTransactions;
+  private Boolean accountDeleted;
+  private String startTime;
+  private String endTime;
+  private Status status;
+}
@@ -0,0 +1,21 @@
+package pets.database.model;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(NON_NULL)
+public class AccountDeletionJobResponse implements Serializable {
+  private List<AccountDeletionJob> accountDeletionJobs;
+  private Status status;
+}
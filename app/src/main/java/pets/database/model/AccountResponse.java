@@ -17,6 +17,7 @@ import lombok.NoArgsConstructor;
 @JsonInclude(NON_NULL)
 public class AccountResponse implements Serializable {
   private List<Account> accounts;
+  private String nextCursor;
   private Long deleteCount;
   private Status status;
 }
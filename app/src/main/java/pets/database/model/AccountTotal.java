@@ -0,0 +1,24 @@
+package pets.database.model;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Sum of the amounts of transactions with the same account, transfer account and type. */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(NON_NULL)
+public class AccountTotal implements Serializable {
+  private String accountId;
+  private String trfAccountId;
+  private String typeId;
+  private BigDecimal total;
+}
@@ -0,0 +1,27 @@
+package pets.database.model;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(NON_NULL)
+public class BootstrapResponse implements Serializable {
+  private List<RefAccountType> refAccountTypes;
+  private List<RefBank> refBanks;
+  private List<RefCategoryType> refCategoryTypes;
+  private List<RefCategory> refCategories;
+  private List<RefTransactionType> refTransactionTypes;
+  private List<RefMerchant> refMerchants;
+  private List<Account> accounts;
+  private Status status;
+}
@@ -0,0 +1,23 @@
+package pets.database.model;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(NON_NULL)
+public class QueryStats implements Serializable {
+  private String indexName;
+  private Boolean collectionScan;
+  private Long keysExamined;
+  private Long docsExamined;
+  private Long returned;
+}
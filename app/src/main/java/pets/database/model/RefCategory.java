@@ -22,6 +22,8 @@ public class RefCategory implements Serializable {
   @Id private String id;
   private String description;
   private RefCategoryType refCategoryType;
+  // number of transactions in the category, as of the last reference data cache load
+  private Long usageCount;
   private String creationDate;
   private String lastModified;
 }
@@ -23,6 +23,8 @@ public class RefMerchant implements Serializable {
   private String description;
   private User user;
   private Boolean usedInUserTransaction;
+  // number of transactions with the merchant, maintained with $inc on transaction writes
+  private Long usageCount;
   private String creationDate;
   private String lastModified;
 }
@@ -17,6 +17,7 @@ import lombok.NoArgsConstructor;
 @JsonInclude(NON_NULL)
 public class RefMerchantResponse implements Serializable {
   private List<RefMerchant> refMerchants;
+  private String nextCursor;
   private Long deleteCount;
   private Status status;
 }
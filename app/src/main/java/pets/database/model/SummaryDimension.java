@@ -0,0 +1,22 @@
+package pets.database.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * What transaction summaries are grouped by within a period. Category type is not stored on the
+ * transaction, it is summarized by category and rolled up using the category reference data.
+ */
+@Getter
+@AllArgsConstructor
+public enum SummaryDimension {
+  CATEGORY("categoryId"),
+  CATEGORY_TYPE("categoryId"),
+  MERCHANT("merchantId"),
+  ACCOUNT("accountId"),
+  TYPE("typeId"),
+  REGULAR("regular"),
+  NECESSARY("necessary");
+
+  private final String field;
+}
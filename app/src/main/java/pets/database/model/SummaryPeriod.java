@@ -0,0 +1,16 @@
+package pets.database.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Time buckets of transaction summaries, as $dateToString formats of the transaction date. */
+@Getter
+@AllArgsConstructor
+public enum SummaryPeriod {
+  DAY("%Y-%m-%d"),
+  WEEK("%G-W%V"),
+  MONTH("%Y-%m"),
+  YEAR("%Y");
+
+  private final String format;
+}
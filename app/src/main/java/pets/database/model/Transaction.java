@@ -1,26 +1,24 @@
 package pets.database.model;
 
 import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
-import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_DETAILS;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.Document;
 
 @Builder(toBuilder = true)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @JsonInclude(NON_NULL)
-@Document(collection = COLLECTION_NAME_TRANSACTION_DETAILS)
 public class Transaction implements Serializable {
-  @Id private String id;
+  private String id;
   private String description;
   private Account account;
   private Account trfAccount;
@@ -28,10 +26,10 @@ public class Transaction implements Serializable {
   private RefCategory refCategory;
   private RefMerchant refMerchant;
   private User user;
-  private String date;
+  private LocalDate date;
   private BigDecimal amount;
   private Boolean regular;
   private Boolean necessary;
-  private String creationDate;
-  private String lastModified;
+  private LocalDate creationDate;
+  private LocalDateTime lastModified;
 }
@@ -0,0 +1,26 @@
+package pets.database.model;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** New values for all transactions matching the filter, null values are left unchanged. */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(NON_NULL)
+public class TransactionBulkUpdateRequest implements Serializable {
+  private TransactionFilter filter;
+  private String accountId;
+  private String typeId;
+  private String categoryId;
+  private String merchantId;
+  private Boolean regular;
+  private Boolean necessary;
+}
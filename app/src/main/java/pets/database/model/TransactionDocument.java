@@ -0,0 +1,75 @@
+package pets.database.model;
+
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_DETAILS;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+/**
+ * How a transaction is stored: the user, accounts and reference data it points to are kept as ids
+ * under short field names, not as embedded documents. {@link Transaction} is the shape the api
+ * returns, the repository maps between the two.
+ */
+@Builder(toBuilder = true)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = COLLECTION_NAME_TRANSACTION_DETAILS)
+public class TransactionDocument {
+  @Id private String id;
+
+  @Field("u")
+  private String username;
+
+  @Field(name = "a", targetType = FieldType.OBJECT_ID)
+  private String accountId;
+
+  @Field(name = "ta", targetType = FieldType.OBJECT_ID)
+  private String trfAccountId;
+
+  @Field(name = "t", targetType = FieldType.OBJECT_ID)
+  private String typeId;
+
+  @Field(name = "c", targetType = FieldType.OBJECT_ID)
+  private String categoryId;
+
+  @Field(name = "m", targetType = FieldType.OBJECT_ID)
+  private String merchantId;
+
+  private String description;
+  private LocalDate date;
+
+  // summed with $sum on the server, so it is stored as a number
+  @Field(targetType = FieldType.DECIMAL128)
+  private BigDecimal amount;
+
+  private Boolean regular;
+  private Boolean necessary;
+  private LocalDate creationDate;
+  private LocalDateTime lastModified;
+
+  // the embedded layout, read until TransactionLayoutMigration has rewritten it, never written
+  @ReadOnlyProperty private Reference user;
+  @ReadOnlyProperty private Reference account;
+  @ReadOnlyProperty private Reference trfAccount;
+  @ReadOnlyProperty private Reference refTransactionType;
+  @ReadOnlyProperty private Reference refCategory;
+  @ReadOnlyProperty private Reference refMerchant;
+
+  @Data
+  @NoArgsConstructor
+  public static class Reference {
+    @Id private String id;
+    private String username;
+  }
+}
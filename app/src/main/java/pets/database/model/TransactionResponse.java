@@ -18,5 +18,9 @@ import lombok.NoArgsConstructor;
 public class TransactionResponse implements Serializable {
   private List<Transaction> transactions;
   private Long deleteCount;
+  private Long matchedCount;
+  private Long modifiedCount;
+  private String nextCursor;
+  private QueryStats queryStats;
   private Status status;
 }
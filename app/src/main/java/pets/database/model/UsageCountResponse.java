@@ -0,0 +1,23 @@
+package pets.database.model;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Number of accounts, categories and merchants used by at least one transaction. */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(NON_NULL)
+public class UsageCountResponse implements Serializable {
+  private Integer usedAccounts;
+  private Integer usedRefCategories;
+  private Integer usedRefMerchants;
+  private Status status;
+}
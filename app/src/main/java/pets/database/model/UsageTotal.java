@@ -0,0 +1,24 @@
+package pets.database.model;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Number of transactions with the same account, transfer account, category and merchant. */
+@Builder(toBuilder = true)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(NON_NULL)
+public class UsageTotal implements Serializable {
+  private String accountId;
+  private String trfAccountId;
+  private String categoryId;
+  private String merchantId;
+  private Long count;
+}
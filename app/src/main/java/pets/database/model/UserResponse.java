@@ -17,6 +17,7 @@ import lombok.NoArgsConstructor;
 @JsonInclude(NON_NULL)
 public class UserResponse implements Serializable {
   private List<User> users;
+  private String nextCursor;
   private Long deleteCount;
   private Status status;
 }
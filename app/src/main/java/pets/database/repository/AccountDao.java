@@ -2,7 +2,13 @@ package pets.database.repository;
 
 import static pets.database.utils.Constants.*;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.bson.types.Decimal128;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -19,10 +25,20 @@ public class AccountDao {
     this.mongoTemplate = mongoTemplate;
   }
 
-  public List<Account> getAllAccounts() {
-    Query query = new Query();
-    query.with(Sort.by(Sort.Direction.ASC, FIELD_NAME_DESCRIPTION));
-    return mongoTemplate.find(query, Account.class, COLLECTION_NAME_ACCOUNT_DETAILS);
+  public List<Account> getAllAccounts(String afterId, int limit, List<String> fields) {
+    return Listings.page(
+        mongoTemplate,
+        Sort.Direction.ASC,
+        afterId,
+        limit,
+        fields,
+        Account.class,
+        COLLECTION_NAME_ACCOUNT_DETAILS);
+  }
+
+  public Stream<Account> streamAllAccounts() {
+    return Listings.stream(
+        mongoTemplate, Sort.Direction.ASC, Account.class, COLLECTION_NAME_ACCOUNT_DETAILS);
   }
 
   public Account getAccountById(String id) {
@@ -32,14 +48,57 @@ public class AccountDao {
         COLLECTION_NAME_ACCOUNT_DETAILS);
   }
 
-  public List<Account> getAllAccountsByUsername(String username) {
+  public List<Account> getAllAccountsByUsername(String username, List<String> fields) {
     return mongoTemplate.find(
-        Query.query(Criteria.where("user." + FIELD_NAME_USERNAME).is(username))
-            .with(Sort.by(Sort.Direction.ASC, FIELD_NAME_DESCRIPTION)),
+        Projections.include(
+            Query.query(
+                    Criteria.where("user." + FIELD_NAME_USERNAME)
+                        .is(username)
+                        .and(FIELD_NAME_STATUS)
+                        .ne(ACCOUNT_STATUS_DELETING))
+                .with(Sort.by(Sort.Direction.ASC, FIELD_NAME_DESCRIPTION)),
+            fields),
         Account.class,
         COLLECTION_NAME_ACCOUNT_DETAILS);
   }
 
+  public List<Account> getAccountsByIds(Collection<String> ids) {
+    return mongoTemplate.find(
+        Query.query(Criteria.where(FIELD_NAME_ID).in(ids)),
+        Account.class,
+        COLLECTION_NAME_ACCOUNT_DETAILS);
+  }
+
+  /**
+   * Moves the current balance by delta with $inc, which is atomic on the server. Accounts whose
+   * balance has never been computed are left untouched, 0 is returned for them.
+   */
+  public long incrementBalance(String id, BigDecimal delta) {
+    return mongoTemplate
+        .updateFirst(
+            Query.query(Criteria.where(FIELD_NAME_ID).is(id).and("currentBalance").exists(true)),
+            new Update().inc("currentBalance", new Decimal128(delta)).inc("balanceVersion", 1),
+            Account.class,
+            COLLECTION_NAME_ACCOUNT_DETAILS)
+        .getModifiedCount();
+  }
+
+  /**
+   * Sets the current balance only if its version is still the one read with it. Every $inc moves
+   * the version, so a concurrent $inc is never overwritten, even one that is undone by another
+   * before the set.
+   */
+  public long updateBalance(String id, Long expectedVersion, BigDecimal newBalance) {
+    return mongoTemplate
+        .updateFirst(
+            Query.query(
+                Criteria.where(FIELD_NAME_ID).is(id).and("balanceVersion").is(expectedVersion)),
+            new Update().set("currentBalance", new Decimal128(newBalance)).inc("balanceVersion", 1),
+            Account.class,
+            COLLECTION_NAME_ACCOUNT_DETAILS)
+        .getModifiedCount();
+  }
+
   public Account saveNewAccount(Account account) {
     return mongoTemplate.save(account, COLLECTION_NAME_ACCOUNT_DETAILS);
   }
@@ -54,6 +113,48 @@ public class AccountDao {
         .getModifiedCount();
   }
 
+  public List<Account> getAccountsByStatus(String status) {
+    return mongoTemplate.find(
+        Query.query(Criteria.where(FIELD_NAME_STATUS).is(status)),
+        Account.class,
+        COLLECTION_NAME_ACCOUNT_DETAILS);
+  }
+
+  public long updateAccountStatus(String id, String status) {
+    return mongoTemplate
+        .updateFirst(
+            Query.query(Criteria.where(FIELD_NAME_ID).is(id)),
+            new Update()
+                .set(FIELD_NAME_STATUS, status)
+                .set("lastModified", LocalDateTime.now().toString()),
+            Account.class,
+            COLLECTION_NAME_ACCOUNT_DETAILS)
+        .getMatchedCount();
+  }
+
+  public long incrementUsageCount(String id, long delta) {
+    Update update = new Update().inc(FIELD_NAME_USAGE_COUNT, delta);
+    return UsageCounts.increment(
+        mongoTemplate, id, update, Account.class, COLLECTION_NAME_ACCOUNT_DETAILS);
+  }
+
+  public Map<String, Long> getUsageVersions() {
+    return UsageCounts.versions(mongoTemplate, COLLECTION_NAME_ACCOUNT_DETAILS);
+  }
+
+  /**
+   * @param versions usage versions read before the usage counts were computed
+   */
+  public long replaceUsageCounts(Map<String, Long> versions, Map<String, Long> usageCounts) {
+    return UsageCounts.replace(
+        mongoTemplate,
+        versions,
+        usageCounts,
+        usageCount -> new Update().set(FIELD_NAME_USAGE_COUNT, usageCount),
+        Account.class,
+        COLLECTION_NAME_ACCOUNT_DETAILS);
+  }
+
   public long deleteAccountById(String id) {
     return mongoTemplate
         .remove(
@@ -0,0 +1,67 @@
+package pets.database.repository;
+
+import static pets.database.utils.Constants.COLLECTION_NAME_ACCOUNT_DELETION_JOBS;
+import static pets.database.utils.Constants.FIELD_NAME_ID;
+
+import java.util.List;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+import pets.database.model.AccountDeletionJob;
+
+/**
+ * Account deletion jobs in account_deletion_jobs, so any instance reports the progress of a job and
+ * an instance that takes a job over continues it under the same id. A job is unfinished until it
+ * has an end time.
+ */
+@Repository
+public class AccountDeletionJobDao {
+  private static final String FIELD_NAME_ACCOUNT_ID = "accountId";
+  private static final String FIELD_NAME_END_TIME = "endTime";
+
+  private final MongoTemplate mongoTemplate;
+
+  public AccountDeletionJobDao(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  public AccountDeletionJob getJobById(String id) {
+    return mongoTemplate.findOne(
+        Query.query(Criteria.where(FIELD_NAME_ID).is(id)),
+        AccountDeletionJob.class,
+        COLLECTION_NAME_ACCOUNT_DELETION_JOBS);
+  }
+
+  public AccountDeletionJob getUnfinishedJobByAccountId(String accountId) {
+    return mongoTemplate.findOne(
+        Query.query(
+            Criteria.where(FIELD_NAME_ACCOUNT_ID).is(accountId).and(FIELD_NAME_END_TIME).is(null)),
+        AccountDeletionJob.class,
+        COLLECTION_NAME_ACCOUNT_DELETION_JOBS);
+  }
+
+  public List<AccountDeletionJob> getUnfinishedJobs() {
+    return mongoTemplate.find(
+        Query.query(Criteria.where(FIELD_NAME_END_TIME).is(null)),
+        AccountDeletionJob.class,
+        COLLECTION_NAME_ACCOUNT_DELETION_JOBS);
+  }
+
+  /** Inserts the job, or replaces it with its new progress. */
+  public void saveJob(AccountDeletionJob accountDeletionJob) {
+    mongoTemplate.save(accountDeletionJob, COLLECTION_NAME_ACCOUNT_DELETION_JOBS);
+  }
+
+  /**
+   * @param endTime ISO date time, jobs that ended before it are removed
+   */
+  public long deleteJobsEndedBefore(String endTime) {
+    return mongoTemplate
+        .remove(
+            Query.query(Criteria.where(FIELD_NAME_END_TIME).lt(endTime)),
+            AccountDeletionJob.class,
+            COLLECTION_NAME_ACCOUNT_DELETION_JOBS)
+        .getDeletedCount();
+  }
+}
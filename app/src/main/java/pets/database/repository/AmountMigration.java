@@ -0,0 +1,145 @@
+package pets.database.repository;
+
+import static pets.database.utils.Constants.COLLECTION_NAME_ACCOUNT_DETAILS;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_DETAILS;
+import static pets.database.utils.Constants.FIELD_NAME_ID;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rewrites the amounts that were stored as strings, transaction amounts and account opening
+ * balances, as Decimal128, online, in batches of ascending _id with a pause between batches. The
+ * conversion runs on the server with $toDecimal, and only on values that are still strings, so a
+ * restart picks up where the last run stopped and a concurrent write is never overwritten.
+ *
+ * <p>Strings are read as BigDecimal all the same, and the aggregations convert the amounts with
+ * $toDecimal, so nothing waits for the migration to finish.
+ */
+@Component
+public class AmountMigration {
+  private static final Logger logger = LoggerFactory.getLogger(AmountMigration.class);
+
+  private record AmountField(String collection, String field) {}
+
+  private static final List<AmountField> AMOUNT_FIELDS =
+      List.of(
+          new AmountField(COLLECTION_NAME_TRANSACTION_DETAILS, "amount"),
+          new AmountField(COLLECTION_NAME_ACCOUNT_DETAILS, "opening_balance"));
+
+  private final MongoTemplate mongoTemplate;
+  private final boolean enabled;
+  private final int batchSize;
+  private final Duration batchPause;
+
+  private final ExecutorService executorService =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "amount-migration");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  public AmountMigration(
+      MongoTemplate mongoTemplate,
+      @Value("${pets.amount-migration.enabled:true}") boolean enabled,
+      @Value("${pets.amount-migration.batch-size:1000}") int batchSize,
+      @Value("${pets.amount-migration.batch-pause:PT0.2S}") Duration batchPause) {
+    this.mongoTemplate = mongoTemplate;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.batchPause = batchPause;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (enabled) {
+      executorService.submit(this::migrateAll);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executorService.shutdownNow();
+  }
+
+  private void migrateAll() {
+    for (AmountField amountField : AMOUNT_FIELDS) {
+      logger.info("Before Migrate Amounts: {}", amountField);
+
+      try {
+        long migrated = migrate(amountField);
+        logger.info("After Migrate Amounts: {} | {}", amountField, migrated);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception ex) {
+        logger.error("Migrate Amounts: {}", amountField, ex);
+      }
+    }
+  }
+
+  private long migrate(AmountField amountField) throws InterruptedException {
+    long migrated = 0;
+    Object lastId = null;
+
+    while (!Thread.currentThread().isInterrupted()) {
+      Criteria criteria = stringAmountCriteria(amountField);
+      if (lastId != null) {
+        criteria = criteria.and(FIELD_NAME_ID).gt(lastId);
+      }
+      Query query =
+          Query.query(criteria).with(Sort.by(Sort.Direction.ASC, FIELD_NAME_ID)).limit(batchSize);
+      query.fields().include(FIELD_NAME_ID);
+
+      List<Object> ids =
+          mongoTemplate.find(query, Document.class, amountField.collection()).stream()
+              .map(document -> document.get(FIELD_NAME_ID))
+              .toList();
+      if (ids.isEmpty()) {
+        break;
+      }
+
+      // strings that are not numbers are left as they are
+      migrated +=
+          mongoTemplate
+              .updateMulti(
+                  Query.query(stringAmountCriteria(amountField).and(FIELD_NAME_ID).in(ids)),
+                  AggregationUpdate.update()
+                      .set(amountField.field())
+                      .toValue(
+                          ConvertOperators.valueOf(amountField.field())
+                              .convertTo("decimal")
+                              .onErrorReturnValueOf(amountField.field())),
+                  amountField.collection())
+              .getModifiedCount();
+
+      lastId = ids.getLast();
+      logger.debug("Migrate Amounts Batch: {} | {} | {}", amountField, lastId, migrated);
+      Thread.sleep(batchPause.toMillis());
+    }
+
+    return migrated;
+  }
+
+  private static Criteria stringAmountCriteria(AmountField amountField) {
+    return Criteria.where(amountField.field()).type(BsonType.STRING.getValue());
+  }
+}
@@ -0,0 +1,436 @@
+package pets.database.repository;
+
+import static pets.database.utils.Constants.ACCOUNT_STATUS_DELETING;
+import static pets.database.utils.Constants.COLLECTION_NAME_ACCOUNT_DETAILS;
+import static pets.database.utils.Constants.COLLECTION_NAME_REF_MERCHANT_DETAILS;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_ARCHIVE;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_DETAILS;
+import static pets.database.utils.Constants.COLLECTION_NAME_USER_DETAILS;
+import static pets.database.utils.Constants.FIELD_NAME_DATE;
+import static pets.database.utils.Constants.FIELD_NAME_DESCRIPTION;
+import static pets.database.utils.Constants.FIELD_NAME_ID;
+import static pets.database.utils.Constants.FIELD_NAME_STATUS;
+import static pets.database.utils.Constants.FIELD_NAME_USERNAME;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import pets.database.model.Account;
+import pets.database.model.QueryStats;
+import pets.database.model.RefMerchant;
+import pets.database.model.TransactionDocument;
+import pets.database.model.User;
+
+/**
+ * The indexes every collection needs, and the query shapes they are there for. Missing indexes are
+ * created in the background once the app is ready, so a long index build never holds up startup,
+ * and an index with a declared name but other keys is dropped and created again. Indexes found in
+ * the database that are not declared are reported but never dropped.
+ *
+ * <p>Until {@link TransactionLayoutMigration} completes, queries on a reference also match its
+ * embedded path in an $or, and every branch of an $or needs an index or the whole query scans the
+ * collection. The indexes on the embedded paths are declared until then, after that they are
+ * reported as not declared and can be dropped.
+ *
+ * <p>Only the instance that holds the lease in {@link JobLeases} builds indexes, it renews the
+ * lease before every build. The other instances report what is missing.
+ */
+@Component
+public class IndexRegistry {
+  private static final Logger logger = LoggerFactory.getLogger(IndexRegistry.class);
+
+  private static final String LEASE_NAME = "index-reconcile";
+
+  private static final List<IndexSpec> INDEX_SPECS =
+      List.of(
+          new IndexSpec(
+              COLLECTION_NAME_TRANSACTION_DETAILS, "u_date_id", "{'u': 1, 'date': -1, '_id': -1}"),
+          new IndexSpec(
+              COLLECTION_NAME_TRANSACTION_DETAILS, "u_c_date", "{'u': 1, 'c': 1, 'date': -1}"),
+          new IndexSpec(
+              COLLECTION_NAME_TRANSACTION_DETAILS, "u_m_date", "{'u': 1, 'm': 1, 'date': -1}"),
+          new IndexSpec(COLLECTION_NAME_TRANSACTION_DETAILS, "a_date", "{'a': 1, 'date': -1}"),
+          new IndexSpec(COLLECTION_NAME_TRANSACTION_DETAILS, "a_id", "{'a': 1, '_id': 1}"),
+          new IndexSpec(
+              COLLECTION_NAME_TRANSACTION_DETAILS,
+              "ta_date",
+              "{'ta': 1, 'date': -1}",
+              false,
+              "{'ta': {$exists: true}}"),
+          new IndexSpec(
+              COLLECTION_NAME_TRANSACTION_ARCHIVE, "u_date_id", "{'u': 1, 'date': -1, '_id': -1}"),
+          new IndexSpec(COLLECTION_NAME_TRANSACTION_ARCHIVE, "a_id", "{'a': 1, '_id': 1}"),
+          new IndexSpec(
+              COLLECTION_NAME_TRANSACTION_ARCHIVE,
+              "ta_date",
+              "{'ta': 1, 'date': -1}",
+              false,
+              "{'ta': {$exists: true}}"),
+          new IndexSpec(COLLECTION_NAME_TRANSACTION_ARCHIVE, "date", "{'date': -1}"),
+          new IndexSpec(
+              COLLECTION_NAME_ACCOUNT_DETAILS,
+              "user_description",
+              "{'user.username': 1, 'description': 1}"),
+          new IndexSpec(COLLECTION_NAME_ACCOUNT_DETAILS, "status", "{'status': 1}"),
+          new IndexSpec(
+              COLLECTION_NAME_REF_MERCHANT_DETAILS,
+              "user_description",
+              "{'user.username': 1, 'description': 1}"),
+          new IndexSpec(COLLECTION_NAME_USER_DETAILS, "username", "{'username': 1}", true, null),
+          new IndexSpec(COLLECTION_NAME_USER_DETAILS, "email", "{'email': 1}"),
+          new IndexSpec(COLLECTION_NAME_USER_DETAILS, "phone", "{'phone': 1}"));
+
+  // the embedded paths of the references that are matched on their own
+  private static final List<IndexSpec> EMBEDDED_LAYOUT_INDEX_SPECS =
+      List.of(
+          new IndexSpec(
+              COLLECTION_NAME_TRANSACTION_DETAILS,
+              "embedded_user_date_id",
+              "{'user.username': 1, 'date': -1, '_id': -1}",
+              false,
+              "{'user': {$exists: true}}"),
+          new IndexSpec(
+              COLLECTION_NAME_TRANSACTION_DETAILS,
+              "embedded_account_id",
+              "{'account._id': 1, '_id': 1}",
+              false,
+              "{'account': {$exists: true}}"),
+          new IndexSpec(
+              COLLECTION_NAME_TRANSACTION_DETAILS,
+              "embedded_trf_account_date",
+              "{'trfAccount._id': 1, 'date': -1}",
+              false,
+              "{'trfAccount': {$exists: true}}"));
+
+  // explain only needs the shape, the value does not have to exist
+  private static final String SAMPLE_VALUE = "query-shape";
+  private static final String SAMPLE_ID = "000000000000000000000000";
+
+  private record IndexSpec(
+      String collection, String name, String keys, boolean unique, String partialFilter) {
+
+    IndexSpec(String collection, String name, String keys) {
+      this(collection, name, keys, false, null);
+    }
+
+    boolean matches(IndexInfo indexInfo) {
+      return indexInfo.isUnique() == unique
+          && indexInfo
+              .getIndexFields()
+              .equals(
+                  IndexInfo.indexInfoOf(
+                          new Document("name", name).append("key", Document.parse(keys)))
+                      .getIndexFields());
+    }
+
+    IndexDefinition toIndexDefinition() {
+      CompoundIndexDefinition indexDefinition = new CompoundIndexDefinition(Document.parse(keys));
+      indexDefinition.named(name);
+      if (unique) {
+        indexDefinition.unique();
+      }
+      if (partialFilter != null) {
+        indexDefinition.partial(PartialIndexFilter.of(Document.parse(partialFilter)));
+      }
+      return indexDefinition;
+    }
+  }
+
+  public record IndexState(
+      String collection, String name, String keys, String state, String message) {}
+
+  public record IndexUsage(
+      String collection, String name, boolean declared, Long ops, String since) {}
+
+  public record QueryShapeReport(
+      String name, String collection, String query, QueryStats queryStats) {}
+
+  private record QueryShape(String name, String collection, Class<?> entityClass, Query query) {}
+
+  private final MongoTemplate mongoTemplate;
+  private final JobLeases jobLeases;
+  private final TransactionLayoutMigration transactionLayoutMigration;
+  private final Duration leaseDuration;
+  private final List<QueryShape> queryShapes;
+  private final Map<String, IndexState> indexStates =
+      Collections.synchronizedMap(new LinkedHashMap<>());
+
+  private final ExecutorService executorService =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "index-reconcile");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  public IndexRegistry(
+      MongoTemplate mongoTemplate,
+      JobLeases jobLeases,
+      TransactionLayoutMigration transactionLayoutMigration,
+      @Value("${pets.index-registry.lease:PT1H}") Duration leaseDuration) {
+    this.mongoTemplate = mongoTemplate;
+    this.jobLeases = jobLeases;
+    this.transactionLayoutMigration = transactionLayoutMigration;
+    this.leaseDuration = leaseDuration;
+    this.queryShapes =
+        List.of(
+            shape(
+                "transactionsByUser",
+                COLLECTION_NAME_TRANSACTION_DETAILS,
+                TransactionDocument.class,
+                Query.query(Criteria.where(FIELD_NAME_USERNAME).is(SAMPLE_VALUE))
+                    .with(Sort.by(Sort.Direction.DESC, FIELD_NAME_DATE, FIELD_NAME_ID))),
+            shape(
+                "transactionsByAccount",
+                COLLECTION_NAME_TRANSACTION_DETAILS,
+                TransactionDocument.class,
+                Query.query(
+                    Criteria.where("accountId").is(SAMPLE_ID).and(FIELD_NAME_ID).lte(SAMPLE_ID))),
+            shape(
+                "accountsByUser",
+                COLLECTION_NAME_ACCOUNT_DETAILS,
+                Account.class,
+                Query.query(
+                        Criteria.where("user." + FIELD_NAME_USERNAME)
+                            .is(SAMPLE_VALUE)
+                            .and(FIELD_NAME_STATUS)
+                            .ne(ACCOUNT_STATUS_DELETING))
+                    .with(Sort.by(Sort.Direction.ASC, FIELD_NAME_DESCRIPTION))),
+            shape(
+                "refMerchantsByUser",
+                COLLECTION_NAME_REF_MERCHANT_DETAILS,
+                RefMerchant.class,
+                Query.query(Criteria.where("user." + FIELD_NAME_USERNAME).is(SAMPLE_VALUE))
+                    .with(Sort.by(Sort.Direction.ASC, FIELD_NAME_DESCRIPTION))),
+            shape(
+                "userByUsername",
+                COLLECTION_NAME_USER_DETAILS,
+                User.class,
+                Query.query(Criteria.where(FIELD_NAME_USERNAME).is(SAMPLE_VALUE))),
+            shape(
+                "userByEmail",
+                COLLECTION_NAME_USER_DETAILS,
+                User.class,
+                Query.query(Criteria.where("email").is(SAMPLE_VALUE))),
+            shape(
+                "userByPhone",
+                COLLECTION_NAME_USER_DETAILS,
+                User.class,
+                Query.query(Criteria.where("phone").is(SAMPLE_VALUE))));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    executorService.submit(this::reconcile);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executorService.shutdownNow();
+  }
+
+  /**
+   * Creates the declared indexes that are missing, one at a time, and replaces the ones whose keys
+   * differ from the declaration, then reports the indexes that are not declared. Without the lease
+   * it only reports.
+   */
+  public void reconcile() {
+    boolean leased = jobLeases.acquire(LEASE_NAME, leaseDuration);
+    List<IndexSpec> indexSpecs = indexSpecs();
+    logger.info("Before Reconcile Indexes: {} | {}", leased, indexSpecs.size());
+
+    for (IndexSpec indexSpec : indexSpecs) {
+      String key = indexSpec.collection() + "." + indexSpec.name();
+
+      try {
+        IndexOperations indexOperations = mongoTemplate.indexOps(indexSpec.collection());
+        IndexInfo existing =
+            indexOperations.getIndexInfo().stream()
+                .filter(indexInfo -> indexInfo.getName().equals(indexSpec.name()))
+                .findFirst()
+                .orElse(null);
+
+        if (existing != null && indexSpec.matches(existing)) {
+          indexStates.put(key, state(indexSpec, "PRESENT", null));
+        } else if (!leased || !jobLeases.acquire(LEASE_NAME, leaseDuration)) {
+          leased = false;
+          indexStates.put(
+              key,
+              state(
+                  indexSpec,
+                  existing == null ? "MISSING" : "DIFFERENT",
+                  "Reconciled By Another Instance"));
+        } else {
+          if (existing != null) {
+            indexStates.put(key, state(indexSpec, "DROPPING", keys(existing)));
+            indexOperations.dropIndex(indexSpec.name());
+          }
+          indexStates.put(key, state(indexSpec, "BUILDING", null));
+          indexOperations.createIndex(indexSpec.toIndexDefinition());
+          indexStates.put(key, state(indexSpec, "CREATED", null));
+        }
+      } catch (Exception ex) {
+        // usually duplicates under a unique index
+        logger.error("Reconcile Index: {}", key, ex);
+        indexStates.put(key, state(indexSpec, "FAILED", ex.getMessage()));
+      }
+    }
+
+    reportUndeclared(indexSpecs);
+    if (leased) {
+      jobLeases.release(LEASE_NAME);
+    }
+    logger.info("After Reconcile Indexes: {}", getIndexStates());
+  }
+
+  private void reportUndeclared(List<IndexSpec> indexSpecs) {
+    for (String collectionName :
+        indexSpecs.stream().map(IndexSpec::collection).distinct().toList()) {
+      try {
+        for (IndexInfo indexInfo : mongoTemplate.indexOps(collectionName).getIndexInfo()) {
+          if (!"_id_".equals(indexInfo.getName())
+              && !isDeclared(indexSpecs, collectionName, indexInfo.getName())) {
+            indexStates.put(
+                collectionName + "." + indexInfo.getName(),
+                new IndexState(
+                    collectionName, indexInfo.getName(), keys(indexInfo), "UNDECLARED", null));
+          }
+        }
+      } catch (Exception ex) {
+        logger.error("Report Undeclared Indexes: {}", collectionName, ex);
+      }
+    }
+  }
+
+  public List<IndexState> getIndexStates() {
+    synchronized (indexStates) {
+      return List.copyOf(indexStates.values());
+    }
+  }
+
+  /**
+   * @return $indexStats of every indexed collection, ops count since the server last started
+   */
+  public List<IndexUsage> getIndexUsages() {
+    List<IndexUsage> indexUsages = new ArrayList<>();
+    List<IndexSpec> indexSpecs = indexSpecs();
+
+    for (String collectionName :
+        indexSpecs.stream().map(IndexSpec::collection).distinct().toList()) {
+      for (Document indexStats :
+          mongoTemplate
+              .getCollection(collectionName)
+              .aggregate(List.of(new Document("$indexStats", new Document())))) {
+        String name = indexStats.getString("name");
+        Document accesses = indexStats.get("accesses", Document.class);
+        indexUsages.add(
+            new IndexUsage(
+                collectionName,
+                name,
+                "_id_".equals(name) || isDeclared(indexSpecs, collectionName, name),
+                accesses == null ? null : ((Number) accesses.get("ops")).longValue(),
+                accesses == null || accesses.get("since") == null
+                    ? null
+                    : accesses.get("since").toString()));
+      }
+    }
+
+    return indexUsages;
+  }
+
+  /**
+   * @return the registered query shapes with the plan the server picks for them now
+   */
+  public List<QueryShapeReport> getQueryShapes() {
+    return queryShapes.stream()
+        .map(
+            queryShape ->
+                new QueryShapeReport(
+                    queryShape.name(),
+                    queryShape.collection(),
+                    queryShape.query().toString(),
+                    QueryPlans.explain(
+                        mongoTemplate,
+                        queryShape.query(),
+                        queryShape.entityClass(),
+                        queryShape.collection())))
+        .toList();
+  }
+
+  /**
+   * @return the declared indexes, with the ones on the embedded paths until the layout migration
+   *     completes
+   */
+  private List<IndexSpec> indexSpecs() {
+    if (transactionLayoutMigration.isComplete()) {
+      return INDEX_SPECS;
+    }
+    List<IndexSpec> indexSpecs = new ArrayList<>(INDEX_SPECS);
+    indexSpecs.addAll(EMBEDDED_LAYOUT_INDEX_SPECS);
+    return indexSpecs;
+  }
+
+  private static boolean isDeclared(
+      List<IndexSpec> indexSpecs, String collectionName, String name) {
+    return indexSpecs.stream()
+        .anyMatch(
+            indexSpec ->
+                indexSpec.collection().equals(collectionName) && indexSpec.name().equals(name));
+  }
+
+  /**
+   * @return keys of the index in the form the declarations use
+   */
+  private static String keys(IndexInfo indexInfo) {
+    return indexInfo.getIndexFields().stream()
+        .map(indexField -> "'" + indexField.getKey() + "': " + keyType(indexField))
+        .collect(Collectors.joining(", ", "{", "}"));
+  }
+
+  private static String keyType(IndexField indexField) {
+    if (indexField.getDirection() != null) {
+      return indexField.getDirection() == Sort.Direction.DESC ? "-1" : "1";
+    } else if (indexField.isText()) {
+      return "'text'";
+    } else if (indexField.isHashed()) {
+      return "'hashed'";
+    } else if (indexField.isGeo()) {
+      return "'2dsphere'";
+    }
+    return "'" + indexField + "'";
+  }
+
+  private static QueryShape shape(
+      String name, String collection, Class<?> entityClass, Query query) {
+    return new QueryShape(name, collection, entityClass, query);
+  }
+
+  private static IndexState state(IndexSpec indexSpec, String state, String message) {
+    return new IndexState(
+        indexSpec.collection(), indexSpec.name(), indexSpec.keys(), state, message);
+  }
+}
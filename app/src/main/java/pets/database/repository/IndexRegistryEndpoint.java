@@ -0,0 +1,43 @@
+package pets.database.repository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * /actuator/indexes reports the declared indexes and their reconcile state, the usage of every
+ * index from $indexStats, and the plan of each registered query shape, flagging collection scans.
+ */
+@Component
+@Endpoint(id = "indexes")
+public class IndexRegistryEndpoint {
+
+  private final IndexRegistry indexRegistry;
+
+  public IndexRegistryEndpoint(IndexRegistry indexRegistry) {
+    this.indexRegistry = indexRegistry;
+  }
+
+  @ReadOperation
+  public Map<String, Object> report() {
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("declared", indexRegistry.getIndexStates());
+    report.put("usage", indexRegistry.getIndexUsages());
+
+    List<IndexRegistry.QueryShapeReport> queryShapes = indexRegistry.getQueryShapes();
+    report.put("queryShapes", queryShapes);
+    report.put(
+        "collectionScans",
+        queryShapes.stream()
+            .filter(
+                queryShape ->
+                    queryShape.queryStats() != null
+                        && Boolean.TRUE.equals(queryShape.queryStats().getCollectionScan()))
+            .map(IndexRegistry.QueryShapeReport::name)
+            .toList());
+    return report;
+  }
+}
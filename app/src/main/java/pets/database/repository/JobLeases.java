@@ -0,0 +1,71 @@
+package pets.database.repository;
+
+import static pets.database.utils.Constants.COLLECTION_NAME_JOB_LEASES;
+import static pets.database.utils.Constants.FIELD_NAME_ID;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Leases in job_leases that let one instance at a time run a background job that every instance
+ * schedules. A lease is taken with one findAndModify that only matches when the lease is free,
+ * expired or already held by this instance, so acquiring it again renews it. A job renews its lease
+ * while it runs and releases it when done, the lease of an instance that stopped midway expires.
+ *
+ * @apiNote expiry is compared with the clock of the acquiring instance, leases should be much
+ *     longer than the clocks of the instances drift apart
+ */
+@Repository
+public class JobLeases {
+  private static final String FIELD_NAME_OWNER = "owner";
+  private static final String FIELD_NAME_EXPIRES_AT = "expiresAt";
+
+  private final MongoTemplate mongoTemplate;
+  private final String owner = UUID.randomUUID().toString();
+
+  public JobLeases(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * @return true when this instance holds the lease until now plus duration
+   */
+  public boolean acquire(String name, Duration duration) {
+    Date now = new Date();
+
+    try {
+      return mongoTemplate.findAndModify(
+              Query.query(
+                  Criteria.where(FIELD_NAME_ID)
+                      .is(name)
+                      .orOperator(
+                          Criteria.where(FIELD_NAME_OWNER).is(owner),
+                          Criteria.where(FIELD_NAME_EXPIRES_AT).lt(now))),
+              new Update()
+                  .set(FIELD_NAME_OWNER, owner)
+                  .set(FIELD_NAME_EXPIRES_AT, new Date(now.getTime() + duration.toMillis())),
+              FindAndModifyOptions.options().upsert(true).returnNew(true),
+              Document.class,
+              COLLECTION_NAME_JOB_LEASES)
+          != null;
+    } catch (DuplicateKeyException ex) {
+      // the lease exists and is held by another instance, the upsert tried to insert it again
+      return false;
+    }
+  }
+
+  public void release(String name) {
+    mongoTemplate.remove(
+        Query.query(Criteria.where(FIELD_NAME_ID).is(name).and(FIELD_NAME_OWNER).is(owner)),
+        COLLECTION_NAME_JOB_LEASES);
+  }
+}
@@ -0,0 +1,93 @@
+package pets.database.repository;
+
+import static pets.database.utils.Constants.FIELD_NAME_ID;
+import static pets.database.utils.Constants.LISTING_PAGE_LIMIT_MAX;
+import static pets.database.utils.Constants.LISTING_STREAM_BATCH_SIZE;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Lists a whole collection one page at a time or as a stream. Listings are ordered by _id, the one
+ * index every collection has, so a page is always an index range scan starting after the last id of
+ * the previous page no matter how large the collection grows.
+ */
+public final class Listings {
+
+  private Listings() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * @param fields properties to read, null for the full document
+   * @apiNote limit is capped at one over the maximum page size, which leaves room for the extra row
+   *     callers read to know if there is a next page
+   */
+  static <T> List<T> page(
+      MongoTemplate mongoTemplate,
+      Sort.Direction direction,
+      String afterId,
+      int limit,
+      List<String> fields,
+      Class<T> entityClass,
+      String collectionName) {
+    Query query = Projections.include(new Query(), fields, FIELD_NAME_ID);
+
+    if (afterId != null) {
+      Criteria criteria = Criteria.where(FIELD_NAME_ID);
+      query.addCriteria(direction.isAscending() ? criteria.gt(afterId) : criteria.lt(afterId));
+    }
+
+    query
+        .with(Sort.by(direction, FIELD_NAME_ID))
+        .limit(Math.min(limit, LISTING_PAGE_LIMIT_MAX + 1));
+    return mongoTemplate.find(query, entityClass, collectionName);
+  }
+
+  /** Opens a cursor over the whole collection, the caller must close the stream. */
+  static <T> Stream<T> stream(
+      MongoTemplate mongoTemplate,
+      Sort.Direction direction,
+      Class<T> entityClass,
+      String collectionName) {
+    return mongoTemplate.stream(
+        new Query()
+            .with(Sort.by(direction, FIELD_NAME_ID))
+            .cursorBatchSize(LISTING_STREAM_BATCH_SIZE),
+        entityClass,
+        collectionName);
+  }
+
+  /**
+   * Passes every element of a stream to the consumer one at a time and closes the stream, logging
+   * the listing before and after it the way services log their other calls.
+   *
+   * @param name what is streamed, as it reads in the log
+   * @return number of elements passed to the consumer
+   */
+  public static <T> long forEach(
+      Logger logger, String name, Supplier<Stream<T>> streamSupplier, Consumer<T> consumer) {
+    logger.info("Before {}", name);
+    long count = 0;
+
+    try (Stream<T> stream = streamSupplier.get()) {
+      for (T element : (Iterable<T>) stream::iterator) {
+        consumer.accept(element);
+        count++;
+      }
+    } catch (RuntimeException ex) {
+      logger.error("{}: {}", name, count, ex);
+      throw ex;
+    }
+
+    logger.info("After {}: {}", name, count);
+    return count;
+  }
+}
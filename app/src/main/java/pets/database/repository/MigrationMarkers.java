@@ -0,0 +1,39 @@
+package pets.database.repository;
+
+import static pets.database.utils.Constants.COLLECTION_NAME_MIGRATIONS;
+import static pets.database.utils.Constants.FIELD_NAME_ID;
+
+import java.util.Date;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Markers in migrations for the online migrations that have completed, so an instance that starts
+ * later knows it from one read by id instead of scanning the collection for documents left to
+ * migrate.
+ */
+@Repository
+public class MigrationMarkers {
+  private static final String FIELD_NAME_COMPLETED_AT = "completedAt";
+
+  private final MongoTemplate mongoTemplate;
+
+  public MigrationMarkers(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  public boolean isCompleted(String name) {
+    return mongoTemplate.exists(
+        Query.query(Criteria.where(FIELD_NAME_ID).is(name)), COLLECTION_NAME_MIGRATIONS);
+  }
+
+  public void markCompleted(String name) {
+    mongoTemplate.upsert(
+        Query.query(Criteria.where(FIELD_NAME_ID).is(name)),
+        Update.update(FIELD_NAME_COMPLETED_AT, new Date()),
+        COLLECTION_NAME_MIGRATIONS);
+  }
+}
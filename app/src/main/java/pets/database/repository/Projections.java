@@ -0,0 +1,51 @@
+package pets.database.repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Limits the fields the server returns, everything not included is neither sent over the wire nor
+ * mapped to the entity.
+ */
+final class Projections {
+
+  private Projections() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * @param fields properties to include, null for the full document
+   * @param keyFields properties that are always included because the caller needs them, like the
+   *     sort keys a page cursor is built from
+   */
+  static Query include(Query query, List<String> fields, String... keyFields) {
+    if (fields != null) {
+      fields.forEach(query.fields()::include);
+      for (String keyField : keyFields) {
+        query.fields().include(keyField);
+      }
+    }
+    return query;
+  }
+
+  /**
+   * The same projection as a $project document, for aggregations that end with the documents
+   * themselves. Property names are mapped to the field names of the entity, the same as they are
+   * for a query.
+   */
+  static Document include(
+      MongoTemplate mongoTemplate, Class<?> entityClass, List<String> fields, String... keyFields) {
+    Document projection = new Document();
+    Stream.concat(fields.stream(), Stream.of(keyFields)).forEach(field -> projection.put(field, 1));
+
+    MongoConverter mongoConverter = mongoTemplate.getConverter();
+    return new QueryMapper(mongoConverter)
+        .getMappedFields(
+            projection, mongoConverter.getMappingContext().getPersistentEntity(entityClass));
+  }
+}
@@ -0,0 +1,86 @@
+package pets.database.repository;
+
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.FindIterable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import pets.database.model.QueryStats;
+
+/** Runs a query with explain to see which index served it and how selective it was. */
+final class QueryPlans {
+
+  private QueryPlans() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  static QueryStats explain(
+      MongoTemplate mongoTemplate, Query query, Class<?> entityClass, String collectionName) {
+    MongoConverter mongoConverter = mongoTemplate.getConverter();
+    MongoPersistentEntity<?> entity =
+        mongoConverter.getMappingContext().getPersistentEntity(entityClass);
+    QueryMapper queryMapper = new QueryMapper(mongoConverter);
+    Document filter = queryMapper.getMappedObject(query.getQueryObject(), entity);
+    Document sort = queryMapper.getMappedSort(query.getSortObject(), entity);
+
+    Document explain =
+        mongoTemplate.execute(
+            collectionName,
+            collection -> {
+              FindIterable<Document> findIterable = collection.find(filter).sort(sort);
+              if (query.getLimit() > 0) {
+                findIterable = findIterable.limit(query.getLimit());
+              }
+              return findIterable.explain(ExplainVerbosity.EXECUTION_STATS);
+            });
+
+    Set<String> indexNames = new LinkedHashSet<>();
+    List<String> stages = new ArrayList<>();
+    Document queryPlanner = explain == null ? null : explain.get("queryPlanner", Document.class);
+    if (queryPlanner != null) {
+      collectStages(queryPlanner.get("winningPlan"), indexNames, stages);
+    }
+
+    Document executionStats =
+        explain == null ? null : explain.get("executionStats", Document.class);
+    return QueryStats.builder()
+        .indexName(indexNames.isEmpty() ? null : String.join(",", indexNames))
+        .collectionScan(stages.contains("COLLSCAN"))
+        .keysExamined(longValue(executionStats, "totalKeysExamined"))
+        .docsExamined(longValue(executionStats, "totalDocsExamined"))
+        .returned(longValue(executionStats, "nReturned"))
+        .build();
+  }
+
+  private static void collectStages(Object plan, Set<String> indexNames, List<String> stages) {
+    if (plan instanceof Document document) {
+      String stage = document.getString("stage");
+      if (stage != null) {
+        stages.add(stage);
+      }
+      if (document.getString("indexName") != null) {
+        indexNames.add(document.getString("indexName"));
+      }
+      // classic plans nest inputStage(s), slot based execution plans nest queryPlan
+      collectStages(document.get("queryPlan"), indexNames, stages);
+      collectStages(document.get("inputStage"), indexNames, stages);
+      collectStages(document.get("inputStages"), indexNames, stages);
+    } else if (plan instanceof List<?> list) {
+      list.forEach(inputStage -> collectStages(inputStage, indexNames, stages));
+    }
+  }
+
+  private static Long longValue(Document document, String key) {
+    if (document == null || !(document.get(key) instanceof Number number)) {
+      return null;
+    }
+    return number.longValue();
+  }
+}
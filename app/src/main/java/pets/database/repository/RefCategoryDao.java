@@ -3,6 +3,7 @@ package pets.database.repository;
 import static pets.database.utils.Constants.*;
 
 import java.util.List;
+import java.util.Map;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -46,10 +47,36 @@ public class RefCategoryDao {
         .getModifiedCount();
   }
 
+  public long incrementUsageCount(String id, long delta) {
+    Update update = new Update().inc(FIELD_NAME_USAGE_COUNT, delta);
+    return UsageCounts.increment(
+        mongoTemplate, id, update, RefCategory.class, COLLECTION_NAME_REF_CATEGORY_DETAILS);
+  }
+
+  public Map<String, Long> getUsageVersions() {
+    return UsageCounts.versions(mongoTemplate, COLLECTION_NAME_REF_CATEGORY_DETAILS);
+  }
+
+  /**
+   * @param versions usage versions read before the usage counts were computed
+   */
+  public long replaceUsageCounts(Map<String, Long> versions, Map<String, Long> usageCounts) {
+    return UsageCounts.replace(
+        mongoTemplate,
+        versions,
+        usageCounts,
+        usageCount -> new Update().set(FIELD_NAME_USAGE_COUNT, usageCount),
+        RefCategory.class,
+        COLLECTION_NAME_REF_CATEGORY_DETAILS);
+  }
+
+  /** Deletes the category only if no transaction refers to it. */
   public long deleteRefCategoryById(String id) {
     return mongoTemplate
         .remove(
-            Query.query(Criteria.where(FIELD_NAME_ID).is(id)),
+            Query.query(
+                new Criteria()
+                    .andOperator(Criteria.where(FIELD_NAME_ID).is(id), UsageCounts.unused())),
             RefCategory.class,
             COLLECTION_NAME_REF_CATEGORY_DETAILS)
         .getDeletedCount();
@@ -2,7 +2,10 @@ package pets.database.repository;
 
 import static pets.database.utils.Constants.*;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -19,10 +22,20 @@ public class RefMerchantDao {
     this.mongoTemplate = mongoTemplate;
   }
 
-  public List<RefMerchant> getAllRefMerchants() {
-    Query query = new Query();
-    query.with(Sort.by(Sort.Direction.ASC, FIELD_NAME_DESCRIPTION));
-    return mongoTemplate.find(query, RefMerchant.class, COLLECTION_NAME_REF_MERCHANT_DETAILS);
+  public List<RefMerchant> getAllRefMerchants(String afterId, int limit) {
+    return Listings.page(
+        mongoTemplate,
+        Sort.Direction.ASC,
+        afterId,
+        limit,
+        null,
+        RefMerchant.class,
+        COLLECTION_NAME_REF_MERCHANT_DETAILS);
+  }
+
+  public Stream<RefMerchant> streamAllRefMerchants() {
+    return Listings.stream(
+        mongoTemplate, Sort.Direction.ASC, RefMerchant.class, COLLECTION_NAME_REF_MERCHANT_DETAILS);
   }
 
   public List<RefMerchant> getAllRefMerchantsByUsername(String username) {
@@ -40,6 +53,13 @@ public class RefMerchantDao {
         COLLECTION_NAME_REF_MERCHANT_DETAILS);
   }
 
+  public List<RefMerchant> getRefMerchantsByIds(Collection<String> ids) {
+    return mongoTemplate.find(
+        Query.query(Criteria.where(FIELD_NAME_ID).in(ids)),
+        RefMerchant.class,
+        COLLECTION_NAME_REF_MERCHANT_DETAILS);
+  }
+
   public RefMerchant saveNewRefMerchant(RefMerchant refMerchant) {
     return mongoTemplate.save(refMerchant, COLLECTION_NAME_REF_MERCHANT_DETAILS);
   }
@@ -54,10 +74,55 @@ public class RefMerchantDao {
         .getModifiedCount();
   }
 
+  public long incrementUsageCount(String id, long delta) {
+    Update update = new Update().inc(FIELD_NAME_USAGE_COUNT, delta);
+    if (delta > 0) {
+      update.set("usedInUserTransaction", true);
+    }
+    long modifiedCount =
+        UsageCounts.increment(
+            mongoTemplate, id, update, RefMerchant.class, COLLECTION_NAME_REF_MERCHANT_DETAILS);
+
+    if (delta < 0 && modifiedCount > 0) {
+      // matched on the count, so an $inc that used the merchant again in between keeps the flag
+      mongoTemplate.updateFirst(
+          Query.query(
+              new Criteria()
+                  .andOperator(Criteria.where(FIELD_NAME_ID).is(id), UsageCounts.unused())),
+          new Update().set("usedInUserTransaction", false),
+          RefMerchant.class,
+          COLLECTION_NAME_REF_MERCHANT_DETAILS);
+    }
+    return modifiedCount;
+  }
+
+  public Map<String, Long> getUsageVersions() {
+    return UsageCounts.versions(mongoTemplate, COLLECTION_NAME_REF_MERCHANT_DETAILS);
+  }
+
+  /**
+   * @param versions usage versions read before the usage counts were computed
+   */
+  public long replaceUsageCounts(Map<String, Long> versions, Map<String, Long> usageCounts) {
+    return UsageCounts.replace(
+        mongoTemplate,
+        versions,
+        usageCounts,
+        usageCount ->
+            new Update()
+                .set(FIELD_NAME_USAGE_COUNT, usageCount)
+                .set("usedInUserTransaction", usageCount > 0),
+        RefMerchant.class,
+        COLLECTION_NAME_REF_MERCHANT_DETAILS);
+  }
+
+  /** Deletes the merchant only if no transaction refers to it. */
   public long deleteRefMerchantById(String id) {
     return mongoTemplate
         .remove(
-            Query.query(Criteria.where(FIELD_NAME_ID).is(id)),
+            Query.query(
+                new Criteria()
+                    .andOperator(Criteria.where(FIELD_NAME_ID).is(id), UsageCounts.unused())),
             RefMerchant.class,
             COLLECTION_NAME_REF_MERCHANT_DETAILS)
         .getDeletedCount();
@@ -0,0 +1,324 @@
+package pets.database.repository;
+
+import static pets.database.utils.Constants.COLLECTION_NAME_JOB_STATES;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_ARCHIVE;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_DETAILS;
+import static pets.database.utils.Constants.FIELD_NAME_DATE;
+import static pets.database.utils.Constants.FIELD_NAME_ID;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pets.database.model.TransactionDocument;
+
+/**
+ * Moves transactions dated before the retention cutoff from transaction_details to
+ * transaction_archive, on a schedule, in batches of ascending _id with a pause between batches. A
+ * batch is copied on the server with $merge and then removed, except the transactions modified or
+ * deleted around the time of the copy, whose copies are removed instead. The hot collection and its
+ * indexes then only grow with the retention period, the archive carries fewer indexes.
+ *
+ * <p>{@link TransactionDao} reads the archive along with the hot collection only when the date
+ * range of a read reaches before {@link #archivedBefore()}. That date is shared by all instances in
+ * job_states, where it is only ever raised, and every instance re-reads it on a schedule. One
+ * instance at a time archives, it raises the date and waits for the other instances to read it
+ * before it moves anything. Runs wait for the date and layout migrations, so the archive only ever
+ * holds the final layout.
+ */
+@Component
+public class TransactionArchive {
+  private static final Logger logger = LoggerFactory.getLogger(TransactionArchive.class);
+
+  private static final String LEASE_NAME = "transaction-archive";
+  private static final String STATE_ID = "transaction-archive";
+  private static final String FIELD_NAME_ARCHIVED_BEFORE = "archivedBefore";
+  private static final String FIELD_NAME_LAST_MODIFIED = "lastModified";
+  // a write that started before the copy may land after it, what it changed stays hot
+  private static final Duration MODIFIED_MARGIN = Duration.ofMinutes(1);
+
+  private final MongoTemplate mongoTemplate;
+  private final JobLeases jobLeases;
+  private final TransactionDateMigration transactionDateMigration;
+  private final TransactionLayoutMigration transactionLayoutMigration;
+  private final boolean enabled;
+  private final int retentionMonths;
+  private final int batchSize;
+  private final Duration batchPause;
+  private final Duration leaseDuration;
+  private final Duration refresh;
+
+  // every archived transaction is dated before this, null when none is, unknown until checked
+  private volatile LocalDate archivedBefore = LocalDate.MAX;
+
+  public TransactionArchive(
+      MongoTemplate mongoTemplate,
+      JobLeases jobLeases,
+      TransactionDateMigration transactionDateMigration,
+      TransactionLayoutMigration transactionLayoutMigration,
+      @Value("${pets.transaction-archive.enabled:true}") boolean enabled,
+      @Value("${pets.transaction-archive.retention-months:24}") int retentionMonths,
+      @Value("${pets.transaction-archive.batch-size:1000}") int batchSize,
+      @Value("${pets.transaction-archive.batch-pause:PT0.2S}") Duration batchPause,
+      @Value("${pets.transaction-archive.lease:PT23H}") Duration leaseDuration,
+      @Value("${pets.transaction-archive.refresh:PT1M}") Duration refresh) {
+    this.mongoTemplate = mongoTemplate;
+    this.jobLeases = jobLeases;
+    this.transactionDateMigration = transactionDateMigration;
+    this.transactionLayoutMigration = transactionLayoutMigration;
+    this.enabled = enabled;
+    this.retentionMonths = retentionMonths;
+    this.batchSize = batchSize;
+    this.batchPause = batchPause;
+    this.leaseDuration = leaseDuration;
+    this.refresh = refresh;
+  }
+
+  @PostConstruct
+  public void init() {
+    refresh();
+  }
+
+  /**
+   * Reads the shared date, or the one after the latest archived transaction when no run has shared
+   * one yet. A failed read keeps the date read before, which is unknown until the first read.
+   */
+  @Scheduled(
+      initialDelayString = "${pets.transaction-archive.refresh:PT1M}",
+      fixedDelayString = "${pets.transaction-archive.refresh:PT1M}")
+  public void refresh() {
+    try {
+      Document state = mongoTemplate.findById(STATE_ID, Document.class, COLLECTION_NAME_JOB_STATES);
+      LocalDate before;
+      if (state == null) {
+        before = latestArchived();
+      } else {
+        before = TransactionDates.toLocalDate(state.getDate(FIELD_NAME_ARCHIVED_BEFORE));
+      }
+
+      if (!Objects.equals(before, archivedBefore)) {
+        logger.info("Transaction Archive: {}", before);
+      }
+      archivedBefore = before;
+    } catch (Exception ex) {
+      // reads keep looking in the archive until the date is known
+      logger.error("Transaction Archive", ex);
+    }
+  }
+
+  private LocalDate latestArchived() {
+    Query query = new Query().with(Sort.by(Sort.Direction.DESC, FIELD_NAME_DATE)).limit(1);
+    query.fields().include(FIELD_NAME_DATE);
+    TransactionDocument latest =
+        mongoTemplate.findOne(
+            query, TransactionDocument.class, COLLECTION_NAME_TRANSACTION_ARCHIVE);
+    return latest == null ? null : latest.getDate().plusDays(1);
+  }
+
+  /**
+   * @return the date every archived transaction is dated before, null when nothing is archived
+   */
+  public LocalDate archivedBefore() {
+    return archivedBefore;
+  }
+
+  /**
+   * @param from first date of a read, null for no lower bound
+   * @return true when the archive may hold transactions from that date on
+   */
+  public boolean isArchived(LocalDate from) {
+    LocalDate before = archivedBefore;
+    return before != null && (from == null || from.isBefore(before));
+  }
+
+  @Scheduled(
+      initialDelayString = "${pets.transaction-archive.initial-delay:PT10M}",
+      fixedDelayString = "${pets.transaction-archive.fixed-delay:PT24H}")
+  public void scheduledArchive() {
+    if (!enabled) {
+      return;
+    }
+    if (!transactionDateMigration.isComplete() || !transactionLayoutMigration.isComplete()) {
+      logger.info("Archive Transactions Skipped, Migrations Not Complete");
+      return;
+    }
+    if (!jobLeases.acquire(LEASE_NAME, leaseDuration)) {
+      logger.info("Archive Transactions Skipped, Running On Another Instance");
+      return;
+    }
+
+    LocalDate cutoff = LocalDate.now().minusMonths(retentionMonths);
+    logger.info("Before Archive Transactions: {}", cutoff);
+
+    try {
+      // reads of every instance look in the archive before anything is moved there
+      if (raiseArchivedBefore(cutoff)) {
+        Thread.sleep(refresh.multipliedBy(2).toMillis());
+      }
+      refresh();
+
+      long archived = archive(cutoff);
+      logger.info("After Archive Transactions: {} | {}", cutoff, archived);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (Exception ex) {
+      logger.error("Archive Transactions: {}", cutoff, ex);
+    }
+  }
+
+  /**
+   * @return true when the shared date was before the cutoff, or not shared yet
+   */
+  private boolean raiseArchivedBefore(LocalDate cutoff) {
+    Date cutoffDate = TransactionDates.toDate(cutoff);
+    Document previous =
+        mongoTemplate.findAndModify(
+            Query.query(Criteria.where(FIELD_NAME_ID).is(STATE_ID)),
+            new Update().max(FIELD_NAME_ARCHIVED_BEFORE, cutoffDate),
+            FindAndModifyOptions.options().upsert(true),
+            Document.class,
+            COLLECTION_NAME_JOB_STATES);
+    return previous == null || previous.getDate(FIELD_NAME_ARCHIVED_BEFORE).before(cutoffDate);
+  }
+
+  long archive(LocalDate cutoff) throws InterruptedException {
+    long archived = 0;
+    String lastId = null;
+
+    while (!Thread.currentThread().isInterrupted()) {
+      Criteria criteria = Criteria.where(FIELD_NAME_DATE).lt(cutoff);
+      if (lastId != null) {
+        criteria = criteria.and(FIELD_NAME_ID).gt(lastId);
+      }
+      Query query =
+          Query.query(criteria).with(Sort.by(Sort.Direction.ASC, FIELD_NAME_ID)).limit(batchSize);
+      List<String> ids = findIds(query, COLLECTION_NAME_TRANSACTION_DETAILS);
+      if (ids.isEmpty()) {
+        break;
+      }
+      if (!jobLeases.acquire(LEASE_NAME, leaseDuration)) {
+        logger.warn("Archive Transactions Stopped, Lease Lost: {}", lastId);
+        break;
+      }
+
+      LocalDateTime modifiedBefore = LocalDateTime.now().minus(MODIFIED_MARGIN);
+      copy(ids, COLLECTION_NAME_TRANSACTION_DETAILS, COLLECTION_NAME_TRANSACTION_ARCHIVE);
+      // a transaction deleted while it was copied is not found again, its copy goes below
+      List<String> movedIds =
+          findIds(
+              Query.query(unmodified(ids, cutoff, modifiedBefore)),
+              COLLECTION_NAME_TRANSACTION_DETAILS);
+      if (!movedIds.isEmpty()) {
+        archived +=
+            mongoTemplate
+                .remove(
+                    Query.query(unmodified(movedIds, cutoff, modifiedBefore)),
+                    TransactionDocument.class,
+                    COLLECTION_NAME_TRANSACTION_DETAILS)
+                .getDeletedCount();
+      }
+      removeCopiesNotMoved(ids, movedIds);
+
+      lastId = ids.getLast();
+      logger.debug("Archive Transactions Batch: {} | {}", lastId, archived);
+      Thread.sleep(batchPause.toMillis());
+    }
+
+    return archived;
+  }
+
+  /** The transactions still dated before the cutoff and not modified since the copy. */
+  private static Criteria unmodified(
+      List<String> ids, LocalDate cutoff, LocalDateTime modifiedBefore) {
+    return Criteria.where(FIELD_NAME_ID)
+        .in(ids)
+        .and(FIELD_NAME_DATE)
+        .lt(cutoff)
+        .and(FIELD_NAME_LAST_MODIFIED)
+        .not()
+        .gte(modifiedBefore);
+  }
+
+  /**
+   * Removes the copies of the transactions that were deleted, or were modified and stayed hot,
+   * around the time of the copy.
+   */
+  private void removeCopiesNotMoved(List<String> ids, List<String> movedIds) {
+    Set<String> notMovedIds = new LinkedHashSet<>(ids);
+    movedIds.forEach(notMovedIds::remove);
+    // modified after it was found again
+    notMovedIds.addAll(
+        findIds(
+            Query.query(Criteria.where(FIELD_NAME_ID).in(movedIds)),
+            COLLECTION_NAME_TRANSACTION_DETAILS));
+
+    if (!notMovedIds.isEmpty()) {
+      mongoTemplate.remove(
+          Query.query(Criteria.where(FIELD_NAME_ID).in(notMovedIds)),
+          TransactionDocument.class,
+          COLLECTION_NAME_TRANSACTION_ARCHIVE);
+    }
+  }
+
+  private List<String> findIds(Query query, String collectionName) {
+    query.fields().include(FIELD_NAME_ID);
+    return mongoTemplate.find(query, TransactionDocument.class, collectionName).stream()
+        .map(TransactionDocument::getId)
+        .toList();
+  }
+
+  /**
+   * Moves an archived transaction back to the hot collection, the next run archives it again if it
+   * is still dated before the cutoff.
+   *
+   * @return false when the transaction is not archived
+   */
+  public boolean restore(String id) {
+    if (archivedBefore == null) {
+      return false;
+    }
+
+    copy(List.of(id), COLLECTION_NAME_TRANSACTION_ARCHIVE, COLLECTION_NAME_TRANSACTION_DETAILS);
+    return mongoTemplate
+            .remove(
+                Query.query(Criteria.where(FIELD_NAME_ID).is(id)),
+                TransactionDocument.class,
+                COLLECTION_NAME_TRANSACTION_ARCHIVE)
+            .getDeletedCount()
+        > 0;
+  }
+
+  /** Copies the transactions on the server, a copy already in the target is replaced. */
+  private void copy(List<String> ids, String fromCollection, String toCollection) {
+    mongoTemplate.aggregate(
+        Aggregation.newAggregation(
+            TransactionDocument.class,
+            Aggregation.match(Criteria.where(FIELD_NAME_ID).in(ids)),
+            MergeOperation.builder()
+                .intoCollection(toCollection)
+                .whenMatched(MergeOperation.WhenDocumentsMatch.replaceDocument())
+                .whenDocumentsDontMatch(MergeOperation.WhenDocumentsDontMatch.insertNewDocument())
+                .build()),
+        fromCollection,
+        Document.class);
+  }
+}
@@ -1,74 +1,808 @@
 package pets.database.repository;
 
+import static org.springframework.util.StringUtils.hasText;
 import static pets.database.utils.Constants.*;
 
+import com.mongodb.client.result.UpdateResult;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.aggregation.GroupOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.aggregation.UnionWithOperation;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
+import pets.database.model.AccountTotal;
+import pets.database.model.QueryStats;
+import pets.database.model.SummaryPeriod;
 import pets.database.model.Transaction;
+import pets.database.model.TransactionDocument;
+import pets.database.model.TransactionFilter;
+import pets.database.model.TransactionSummary;
+import pets.database.model.UsageTotal;
+import pets.database.repository.TransactionDocuments.Reference;
 
+/**
+ * Transactions are stored as {@link TransactionDocument}, with the ids of the documents they
+ * reference under short field names, and returned as {@link Transaction} with those references as
+ * stubs. Until {@link TransactionLayoutMigration} completes, the references are matched and read in
+ * both the id and the embedded layout.
+ *
+ * <p>Reads look in the archive of {@link TransactionArchive} as well only when their date range
+ * reaches before the archived dates, writes by id follow the transaction into the archive.
+ */
 @Repository
 public class TransactionDao {
   private final MongoTemplate mongoTemplate;
+  private final TransactionDateMigration transactionDateMigration;
+  private final TransactionLayoutMigration transactionLayoutMigration;
+  private final TransactionArchive transactionArchive;
 
-  public TransactionDao(MongoTemplate mongoTemplate) {
+  private static final Comparator<Transaction> PAGE_ORDER =
+      Comparator.comparing(Transaction::getDate, Comparator.nullsLast(Comparator.reverseOrder()))
+          .thenComparing(Transaction::getId, Comparator.reverseOrder());
+
+  public TransactionDao(
+      MongoTemplate mongoTemplate,
+      TransactionDateMigration transactionDateMigration,
+      TransactionLayoutMigration transactionLayoutMigration,
+      TransactionArchive transactionArchive) {
     this.mongoTemplate = mongoTemplate;
+    this.transactionDateMigration = transactionDateMigration;
+    this.transactionLayoutMigration = transactionLayoutMigration;
+    this.transactionArchive = transactionArchive;
+  }
+
+  public List<Transaction> getAllTransactions(String afterId, int limit, List<String> fields) {
+    List<TransactionDocument> documents = new ArrayList<>();
+    for (String collectionName : collectionNames(null)) {
+      documents.addAll(
+          Listings.page(
+              mongoTemplate,
+              Sort.Direction.DESC,
+              afterId,
+              limit,
+              TransactionDocuments.toDocumentFields(fields),
+              TransactionDocument.class,
+              collectionName));
+    }
+
+    // each page is in _id order, the page of both is the first of the two merged
+    return TransactionDocuments.toTransactions(
+        documents.stream()
+            .sorted(Comparator.comparing(TransactionDocument::getId, Comparator.reverseOrder()))
+            .limit(Math.min(limit, LISTING_PAGE_LIMIT_MAX + 1))
+            .toList());
   }
 
-  public List<Transaction> getAllTransactions() {
-    Query query = new Query();
-    query.with(Sort.by(Sort.Direction.DESC, "date"));
-    return mongoTemplate.findAll(Transaction.class, COLLECTION_NAME_TRANSACTION_DETAILS);
+  /** The hot transactions in _id order, then the archived ones. */
+  public Stream<Transaction> streamAllTransactions() {
+    return collectionNames(null).stream()
+        .flatMap(
+            collectionName ->
+                Listings.stream(
+                    mongoTemplate, Sort.Direction.DESC, TransactionDocument.class, collectionName))
+        .map(TransactionDocuments::toTransaction);
   }
 
   public Transaction getTransactionById(String id) {
-    return mongoTemplate.findOne(
-        Query.query(Criteria.where(FIELD_NAME_ID).is(id)),
-        Transaction.class,
-        COLLECTION_NAME_TRANSACTION_DETAILS);
+    for (String collectionName : collectionNames(null)) {
+      TransactionDocument document =
+          mongoTemplate.findOne(
+              Query.query(Criteria.where(FIELD_NAME_ID).is(id)),
+              TransactionDocument.class,
+              collectionName);
+      if (document != null) {
+        return TransactionDocuments.toTransaction(document);
+      }
+    }
+    return null;
+  }
+
+  public List<Transaction> getTransactionsByUser(String username, List<String> fields) {
+    List<String> collectionNames = collectionNames(null);
+    List<Transaction> transactions = new ArrayList<>();
+    for (String collectionName : collectionNames) {
+      transactions.addAll(
+          TransactionDocuments.toTransactions(
+              mongoTemplate.find(
+                  Projections.include(
+                      Query.query(
+                              referenceCriteria(Reference.USER, criteria -> criteria.is(username)))
+                          .with(Sort.by(Sort.Direction.DESC, FIELD_NAME_DATE)),
+                      TransactionDocuments.toDocumentFields(fields)),
+                  TransactionDocument.class,
+                  collectionName)));
+    }
+
+    if (!transactionDateMigration.isComplete() || collectionNames.size() > 1) {
+      // the server orders string and date values apart, and each collection on its own
+      transactions.sort(PAGE_ORDER);
+    }
+    return transactions;
+  }
+
+  public List<Transaction> getTransactionsByUser(
+      String username, LocalDate afterDate, String afterId, int limit) {
+    return getTransactionsByFilter(
+        username, new TransactionFilter(), afterDate, afterId, limit, null);
+  }
+
+  /**
+   * Seeks one page of a user's transactions matching the filter, ordered by date and id both
+   * descending, starting right after the (afterDate, afterId) position when one is given. All
+   * filters go to the server as one query, which the compound indexes declared in {@link
+   * IndexRegistry} serve, so later pages cost the same as the first one. When fields are given only
+   * those are read, along with the date and id the next page is sought from.
+   *
+   * @apiNote while {@link TransactionDateMigration} runs, the page is read with an aggregation that
+   *     orders string and date values by the date they hold, which scans all of the user's matching
+   *     transactions. The archive is only read when the page is not filled with transactions newer
+   *     than the archived ones.
+   */
+  public List<Transaction> getTransactionsByFilter(
+      String username,
+      TransactionFilter filter,
+      LocalDate afterDate,
+      String afterId,
+      int limit,
+      List<String> fields) {
+    List<Transaction> transactions =
+        getTransactionsByFilter(
+            COLLECTION_NAME_TRANSACTION_DETAILS,
+            username,
+            filter,
+            afterDate,
+            afterId,
+            limit,
+            fields);
+    if (!transactionArchive.isArchived(from(filter)) || endsBeforeArchive(transactions, limit)) {
+      return transactions;
+    }
+
+    transactions.addAll(
+        getTransactionsByFilter(
+            COLLECTION_NAME_TRANSACTION_ARCHIVE,
+            username,
+            filter,
+            afterDate,
+            afterId,
+            limit,
+            fields));
+    return new ArrayList<>(transactions.stream().sorted(PAGE_ORDER).limit(limit).toList());
   }
 
-  public List<Transaction> getTransactionsByUser(String username) {
-    return mongoTemplate.find(
-        Query.query(Criteria.where("user." + FIELD_NAME_USERNAME).is(username))
-            .with(Sort.by(Sort.Direction.DESC, "date")),
-        Transaction.class,
+  /** True when the page is full and every archived transaction would come after it. */
+  private boolean endsBeforeArchive(List<Transaction> transactions, int limit) {
+    LocalDate archivedBefore = transactionArchive.archivedBefore();
+    LocalDate lastDate = transactions.isEmpty() ? null : transactions.getLast().getDate();
+    return transactions.size() >= limit
+        && lastDate != null
+        && archivedBefore != null
+        && !lastDate.isBefore(archivedBefore);
+  }
+
+  private List<Transaction> getTransactionsByFilter(
+      String collectionName,
+      String username,
+      TransactionFilter filter,
+      LocalDate afterDate,
+      String afterId,
+      int limit,
+      List<String> fields) {
+    if (!transactionDateMigration.isComplete()) {
+      return getTransactionsByFilterNormalized(
+          collectionName, username, filter, afterDate, afterId, limit, fields);
+    }
+
+    return TransactionDocuments.toTransactions(
+        mongoTemplate.find(
+            Projections.include(
+                filterQuery(username, filter, afterDate, afterId, limit),
+                TransactionDocuments.toDocumentFields(fields),
+                FIELD_NAME_DATE,
+                FIELD_NAME_ID),
+            TransactionDocument.class,
+            collectionName));
+  }
+
+  private List<Transaction> getTransactionsByFilterNormalized(
+      String collectionName,
+      String username,
+      TransactionFilter filter,
+      LocalDate afterDate,
+      String afterId,
+      int limit,
+      List<String> fields) {
+    List<AggregationOperation> operations = new ArrayList<>();
+    operations.add(Aggregation.match(filterCriteria(username, filter)));
+    operations.add(
+        Aggregation.addFields()
+            .addFieldWithValue(
+                FIELD_NAME_DATE, ConvertOperators.valueOf(FIELD_NAME_DATE).convertToDate())
+            .build());
+    if (afterDate != null) {
+      // raw values, the field mapping of typed aggregations does not reach past $addFields
+      Date date = TransactionDates.toDate(afterDate);
+      Object id = ObjectId.isValid(afterId) ? new ObjectId(afterId) : afterId;
+      operations.add(
+          context ->
+              new Document(
+                  "$match",
+                  new Document(
+                      "$or",
+                      List.of(
+                          new Document(FIELD_NAME_DATE, new Document("$lt", date)),
+                          new Document(FIELD_NAME_DATE, date)
+                              .append(FIELD_NAME_ID, new Document("$lt", id))))));
+    }
+    operations.add(Aggregation.sort(Sort.by(Sort.Direction.DESC, FIELD_NAME_DATE, FIELD_NAME_ID)));
+    operations.add(Aggregation.limit(limit));
+    if (fields != null) {
+      Document projection =
+          Projections.include(
+              mongoTemplate,
+              TransactionDocument.class,
+              TransactionDocuments.toDocumentFields(fields),
+              FIELD_NAME_DATE,
+              FIELD_NAME_ID);
+      operations.add(context -> new Document("$project", projection));
+    }
+
+    return TransactionDocuments.toTransactions(
+        mongoTemplate
+            .aggregate(
+                Aggregation.newAggregation(TransactionDocument.class, operations),
+                collectionName,
+                TransactionDocument.class)
+            .getMappedResults());
+  }
+
+  public QueryStats explainTransactionsByFilter(
+      String username, TransactionFilter filter, LocalDate afterDate, String afterId, int limit) {
+    return QueryPlans.explain(
+        mongoTemplate,
+        filterQuery(username, filter, afterDate, afterId, limit),
+        TransactionDocument.class,
         COLLECTION_NAME_TRANSACTION_DETAILS);
   }
 
-  public Transaction saveNewTransaction(Transaction transaction) {
-    return mongoTemplate.save(transaction, COLLECTION_NAME_TRANSACTION_DETAILS);
+  /**
+   * Opens a cursor over all transactions of a user, the caller must close the stream. Documents are
+   * fetched from the server in batches as the stream is consumed, the archived ones after the hot
+   * ones, which are newer.
+   */
+  public Stream<Transaction> streamTransactionsByUser(String username) {
+    return collectionNames(null).stream()
+        .flatMap(
+            collectionName ->
+                mongoTemplate.stream(
+                    Query.query(
+                            referenceCriteria(Reference.USER, criteria -> criteria.is(username)))
+                        .with(Sort.by(Sort.Direction.DESC, FIELD_NAME_DATE, FIELD_NAME_ID))
+                        .cursorBatchSize(TRANSACTIONS_STREAM_BATCH_SIZE),
+                    TransactionDocument.class,
+                    collectionName))
+        .map(TransactionDocuments::toTransaction);
   }
 
-  public long updateTransactionById(String id, Update update) {
+  /**
+   * Sums the amounts of a user's transactions per period and per value of the group field on the
+   * server, only the totals are sent back.
+   */
+  public List<TransactionSummary> getTransactionSummaries(
+      String username, SummaryPeriod period, String groupField) {
+    Reference groupReference = Reference.of(groupField);
+    List<AggregationOperation> operations =
+        match(referenceCriteria(Reference.USER, criteria -> criteria.is(username)), null);
+    operations.addAll(
+        List.of(
+            Aggregation.project()
+                .and(
+                    DateOperators.dateOf(ConvertOperators.valueOf(FIELD_NAME_DATE).convertToDate())
+                        .toString(period.getFormat()))
+                .as("period")
+                .and(
+                    groupReference == null
+                        ? ConvertOperators.valueOf(groupField).convertToString()
+                        : referenceId(groupReference))
+                .as("key")
+                .and(ConvertOperators.valueOf("amount").convertToDecimal())
+                .as("amount"),
+            Aggregation.group("period", "key").sum("amount").as("total").count().as("count"),
+            Aggregation.project("total", "count", "period", "key").andExclude("_id"),
+            Aggregation.sort(Sort.Direction.ASC, "period", "key")));
+    TypedAggregation<TransactionDocument> aggregation =
+        Aggregation.newAggregation(TransactionDocument.class, operations);
+
     return mongoTemplate
-        .updateFirst(
-            Query.query(Criteria.where(FIELD_NAME_ID).is(id)),
-            update,
-            Transaction.class,
-            COLLECTION_NAME_TRANSACTION_DETAILS)
-        .getModifiedCount();
+        .aggregate(aggregation, COLLECTION_NAME_TRANSACTION_DETAILS, TransactionSummary.class)
+        .getMappedResults();
   }
 
-  public long deleteTransactionById(String id) {
+  /**
+   * Sums the amounts of all transactions from or to the accounts, grouped by account, transfer
+   * account and transaction type, which is all that is needed to compute the account balances.
+   */
+  public List<AccountTotal> getAccountTotals(Collection<String> accountIds) {
+    List<AggregationOperation> operations =
+        match(
+            new Criteria()
+                .orOperator(
+                    referenceCriteria(Reference.ACCOUNT, criteria -> criteria.in(accountIds)),
+                    referenceCriteria(Reference.TRF_ACCOUNT, criteria -> criteria.in(accountIds))),
+            null);
+    operations.addAll(
+        List.of(
+            Aggregation.project()
+                .and(referenceId(Reference.ACCOUNT))
+                .as("accountId")
+                .and(referenceId(Reference.TRF_ACCOUNT))
+                .as("trfAccountId")
+                .and(referenceId(Reference.TYPE))
+                .as("typeId")
+                .and(ConvertOperators.valueOf("amount").convertToDecimal())
+                .as("amount"),
+            Aggregation.group("accountId", "trfAccountId", "typeId").sum("amount").as("total"),
+            Aggregation.project("total", "accountId", "trfAccountId", "typeId").andExclude("_id")));
+    TypedAggregation<TransactionDocument> aggregation =
+        Aggregation.newAggregation(TransactionDocument.class, operations);
+
     return mongoTemplate
-        .remove(
-            Query.query(Criteria.where(FIELD_NAME_ID).is(id)),
-            Transaction.class,
-            COLLECTION_NAME_TRANSACTION_DETAILS)
-        .getDeletedCount();
+        .aggregate(aggregation, COLLECTION_NAME_TRANSACTION_DETAILS, AccountTotal.class)
+        .getMappedResults();
+  }
+
+  /** Number of transactions per account, transfer account, category and merchant. */
+  public List<UsageTotal> getUsageTotals() {
+    return usageTotals(new Criteria(), null);
   }
 
-  public long deleteTransactionsByAccountId(String accountId) {
+  public List<UsageTotal> getUsageTotalsByFilter(String username, TransactionFilter filter) {
+    return getUsageTotalsByFilter(username, filter, false);
+  }
+
+  /**
+   * @param fromAccountOnly see {@link #updateTransactionsByFilter(String, TransactionFilter,
+   *     Update, boolean)}
+   */
+  public List<UsageTotal> getUsageTotalsByFilter(
+      String username, TransactionFilter filter, boolean fromAccountOnly) {
+    return usageTotals(filterCriteria(username, filter, fromAccountOnly), from(filter));
+  }
+
+  /** Usage totals of the batch of the account's transactions with _id up to and including endId. */
+  public List<UsageTotal> getUsageTotalsByAccountId(String accountId, String endId) {
+    return usageTotals(
+        new Criteria()
+            .andOperator(accountCriteria(accountId), Criteria.where(FIELD_NAME_ID).lte(endId)),
+        null);
+  }
+
+  private List<UsageTotal> usageTotals(Criteria criteria, LocalDate from) {
+    List<AggregationOperation> operations = match(criteria, from);
+    operations.addAll(
+        List.of(
+            Aggregation.project()
+                .and(referenceId(Reference.ACCOUNT))
+                .as("accountId")
+                .and(referenceId(Reference.TRF_ACCOUNT))
+                .as("trfAccountId")
+                .and(referenceId(Reference.CATEGORY))
+                .as("categoryId")
+                .and(referenceId(Reference.MERCHANT))
+                .as("merchantId"),
+            Aggregation.group("accountId", "trfAccountId", "categoryId", "merchantId")
+                .count()
+                .as("count"),
+            Aggregation.project("count", "accountId", "trfAccountId", "categoryId", "merchantId")
+                .andExclude("_id")));
+    TypedAggregation<TransactionDocument> aggregation =
+        Aggregation.newAggregation(TransactionDocument.class, operations)
+            .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
     return mongoTemplate
-        .remove(
-            Query.query(Criteria.where("account.id").is(accountId)),
-            Transaction.class,
-            COLLECTION_NAME_TRANSACTION_DETAILS)
-        .getDeletedCount();
+        .aggregate(aggregation, COLLECTION_NAME_TRANSACTION_DETAILS, UsageTotal.class)
+        .getMappedResults();
+  }
+
+  /** Ids of the accounts and transfer accounts of all transactions matching the filter. */
+  public Set<String> getAccountIdsByFilter(String username, TransactionFilter filter) {
+    return getAccountIdsByFilter(username, filter, false);
+  }
+
+  /**
+   * @param fromAccountOnly see {@link #updateTransactionsByFilter(String, TransactionFilter,
+   *     Update, boolean)}
+   */
+  public Set<String> getAccountIdsByFilter(
+      String username, TransactionFilter filter, boolean fromAccountOnly) {
+    return referenceIds(
+        filterCriteria(username, filter, fromAccountOnly),
+        from(filter),
+        Reference.ACCOUNT,
+        Reference.TRF_ACCOUNT);
+  }
+
+  /** Ids of the accounts on the other side of the transfers from or to the account. */
+  public Set<String> getLinkedAccountIds(String accountId) {
+    Set<String> accountIds =
+        referenceIds(
+            new Criteria()
+                .andOperator(
+                    accountCriteria(accountId),
+                    referenceCriteria(Reference.TRF_ACCOUNT, criteria -> criteria.exists(true))),
+            null,
+            Reference.ACCOUNT,
+            Reference.TRF_ACCOUNT);
+    accountIds.remove(accountId);
+    return accountIds;
+  }
+
+  /**
+   * Collects the distinct ids of the references of all transactions matching the criteria with one
+   * aggregation, over both layouts and the archive, instead of a distinct per field and collection.
+   */
+  private Set<String> referenceIds(Criteria criteria, LocalDate from, Reference... references) {
+    List<AggregationOperation> operations = match(criteria, from);
+    GroupOperation group = Aggregation.group();
+    for (Reference reference : references) {
+      group = group.addToSet(referenceId(reference)).as(reference.property);
+    }
+    operations.add(group);
+
+    Set<String> ids = new HashSet<>();
+    Document result =
+        mongoTemplate
+            .aggregate(
+                Aggregation.newAggregation(TransactionDocument.class, operations),
+                COLLECTION_NAME_TRANSACTION_DETAILS,
+                Document.class)
+            .getUniqueMappedResult();
+    if (result != null) {
+      for (Reference reference : references) {
+        result.getList(reference.property, String.class, List.of()).stream()
+            .filter(Objects::nonNull)
+            .forEach(ids::add);
+      }
+    }
+
+    return ids;
+  }
+
+  /** The hot collection, and the archive when it may hold transactions from the date on. */
+  private List<String> collectionNames(LocalDate from) {
+    return transactionArchive.isArchived(from)
+        ? List.of(COLLECTION_NAME_TRANSACTION_DETAILS, COLLECTION_NAME_TRANSACTION_ARCHIVE)
+        : List.of(COLLECTION_NAME_TRANSACTION_DETAILS);
+  }
+
+  /** Matches the criteria, in the archive too when it may hold transactions from the date on. */
+  private List<AggregationOperation> match(Criteria criteria, LocalDate from) {
+    List<AggregationOperation> operations = new ArrayList<>();
+    operations.add(Aggregation.match(criteria));
+    if (transactionArchive.isArchived(from)) {
+      operations.add(
+          UnionWithOperation.unionWith(COLLECTION_NAME_TRANSACTION_ARCHIVE)
+              .mapFieldsTo(TransactionDocument.class)
+              .pipeline(Aggregation.match(criteria)));
+    }
+    return operations;
+  }
+
+  private static LocalDate from(TransactionFilter filter) {
+    return hasText(filter.getFrom()) ? LocalDate.parse(filter.getFrom()) : null;
+  }
+
+  /** Transactions from the account, and transfers to it. */
+  private Criteria accountCriteria(String accountId) {
+    return new Criteria()
+        .orOperator(
+            referenceCriteria(Reference.ACCOUNT, criteria -> criteria.is(accountId)),
+            referenceCriteria(Reference.TRF_ACCOUNT, criteria -> criteria.is(accountId)));
+  }
+
+  /** Matches the reference id, in the embedded layout too while the layout migration runs. */
+  private Criteria referenceCriteria(Reference reference, UnaryOperator<Criteria> condition) {
+    Criteria criteria = condition.apply(Criteria.where(reference.property));
+    if (transactionLayoutMigration.isComplete()) {
+      return criteria;
+    }
+    return new Criteria()
+        .orOperator(criteria, condition.apply(Criteria.where(reference.embeddedPath)));
+  }
+
+  /** The reference id as a string, taken from the embedded layout when the id field is not set. */
+  private AggregationExpression referenceId(Reference reference) {
+    if (transactionLayoutMigration.isComplete()) {
+      return ConvertOperators.valueOf(reference.property).convertToString();
+    }
+    return ConvertOperators.valueOf(
+            ConditionalOperators.ifNull(reference.property).thenValueOf(reference.embeddedPath))
+        .convertToString();
+  }
+
+  private Query filterQuery(
+      String username, TransactionFilter filter, LocalDate afterDate, String afterId, int limit) {
+    List<Criteria> operands = filterOperands(username, filter);
+
+    if (afterDate != null) {
+      operands.add(
+          new Criteria()
+              .orOperator(
+                  Criteria.where(FIELD_NAME_DATE).lt(afterDate),
+                  Criteria.where(FIELD_NAME_DATE).is(afterDate).and(FIELD_NAME_ID).lt(afterId)));
+    }
+
+    return Query.query(new Criteria().andOperator(operands))
+        .with(Sort.by(Sort.Direction.DESC, FIELD_NAME_DATE, FIELD_NAME_ID))
+        .limit(limit);
+  }
+
+  private Criteria filterCriteria(String username, TransactionFilter filter) {
+    return filterCriteria(username, filter, false);
+  }
+
+  private Criteria filterCriteria(
+      String username, TransactionFilter filter, boolean fromAccountOnly) {
+    return new Criteria().andOperator(filterOperands(username, filter, fromAccountOnly));
+  }
+
+  private List<Criteria> filterOperands(String username, TransactionFilter filter) {
+    return filterOperands(username, filter, false);
+  }
+
+  private List<Criteria> filterOperands(
+      String username, TransactionFilter filter, boolean fromAccountOnly) {
+    List<Criteria> operands = new ArrayList<>();
+    operands.add(referenceCriteria(Reference.USER, criteria -> criteria.is(username)));
+
+    if (hasText(filter.getFrom()) || hasText(filter.getTo())) {
+      LocalDate from = hasText(filter.getFrom()) ? LocalDate.parse(filter.getFrom()) : null;
+      LocalDate to = hasText(filter.getTo()) ? LocalDate.parse(filter.getTo()) : null;
+
+      if (transactionDateMigration.isComplete()) {
+        operands.add(dateRange(from, to));
+      } else {
+        // a range only matches values of its own type, match the strings not migrated yet too
+        operands.add(
+            new Criteria()
+                .orOperator(
+                    dateRange(from, to),
+                    dateRange(
+                        from == null ? null : from.toString(), to == null ? null : to.toString())));
+      }
+    }
+    if (hasText(filter.getCategoryId())) {
+      operands.add(
+          referenceCriteria(Reference.CATEGORY, criteria -> criteria.is(filter.getCategoryId())));
+    }
+    if (hasText(filter.getMerchantId())) {
+      operands.add(
+          referenceCriteria(Reference.MERCHANT, criteria -> criteria.is(filter.getMerchantId())));
+    }
+    if (hasText(filter.getTypeId())) {
+      operands.add(referenceCriteria(Reference.TYPE, criteria -> criteria.is(filter.getTypeId())));
+    }
+    if (hasText(filter.getAccountId()) && fromAccountOnly) {
+      operands.add(
+          referenceCriteria(Reference.ACCOUNT, criteria -> criteria.is(filter.getAccountId())));
+    } else if (hasText(filter.getAccountId())) {
+      // transfers belong to both the account they are from and the account they are to
+      operands.add(accountCriteria(filter.getAccountId()));
+    }
+
+    return operands;
+  }
+
+  private static Criteria dateRange(Object from, Object to) {
+    Criteria dateCriteria = Criteria.where(FIELD_NAME_DATE);
+    if (from != null) {
+      dateCriteria.gte(from);
+    }
+    if (to != null) {
+      dateCriteria.lte(to);
+    }
+    return dateCriteria;
+  }
+
+  public Transaction saveNewTransaction(Transaction transaction) {
+    return TransactionDocuments.toTransaction(
+        mongoTemplate.save(
+            TransactionDocuments.toDocument(transaction), COLLECTION_NAME_TRANSACTION_DETAILS));
+  }
+
+  /**
+   * Inserts the transactions in one unordered bulk write, a failed insert does not stop the others.
+   *
+   * @return error message by position in the list for the transactions that were not inserted
+   */
+  public Map<Integer, String> insertTransactions(List<Transaction> transactions) {
+    Map<Integer, String> errors = new HashMap<>();
+    List<TransactionDocument> documents =
+        transactions.stream().map(TransactionDocuments::toDocument).toList();
+
+    try {
+      mongoTemplate
+          .bulkOps(
+              BulkOperations.BulkMode.UNORDERED,
+              TransactionDocument.class,
+              COLLECTION_NAME_TRANSACTION_DETAILS)
+          .insert(documents)
+          .execute();
+    } catch (BulkOperationException ex) {
+      ex.getErrors().forEach(error -> errors.put(error.getIndex(), error.getMessage()));
+    }
+
+    // callers report the inserted transactions by their new id
+    for (int i = 0; i < transactions.size(); i++) {
+      transactions.get(i).setId(documents.get(i).getId());
+    }
+    return errors;
+  }
+
+  /** Returns the transaction as it was before the update, null if it does not exist. */
+  public Transaction updateTransactionById(String id, Update update) {
+    Query query = Query.query(Criteria.where(FIELD_NAME_ID).is(id));
+    Update documentUpdate = withoutEmbedded(update);
+    TransactionDocument document =
+        mongoTemplate.findAndModify(
+            query, documentUpdate, TransactionDocument.class, COLLECTION_NAME_TRANSACTION_DETAILS);
+
+    if (document == null && transactionArchive.restore(id)) {
+      // an archived transaction is updated in the hot collection, the next archive run moves it
+      // back
+      document =
+          mongoTemplate.findAndModify(
+              query,
+              documentUpdate,
+              TransactionDocument.class,
+              COLLECTION_NAME_TRANSACTION_DETAILS);
+    }
+    return TransactionDocuments.toTransaction(document);
+  }
+
+  /**
+   * Returns the deleted transaction, null if it does not exist. A hot transaction is removed from
+   * the archive too, where a running archive batch may have copied it already.
+   */
+  public Transaction deleteTransactionById(String id) {
+    TransactionDocument deleted = null;
+    for (String collectionName : collectionNames(null)) {
+      TransactionDocument document =
+          mongoTemplate.findAndRemove(
+              Query.query(Criteria.where(FIELD_NAME_ID).is(id)),
+              TransactionDocument.class,
+              collectionName);
+      if (deleted == null) {
+        deleted = document;
+      }
+    }
+    return TransactionDocuments.toTransaction(deleted);
+  }
+
+  /**
+   * Applies the update to all transactions matching the filter in one updateMulti, one per
+   * collection when the archive holds some of them.
+   *
+   * @param fromAccountOnly the account of the filter only matches the transactions from it, not the
+   *     transfers to it, for updates that set another account the transactions are from
+   */
+  public UpdateResult updateTransactionsByFilter(
+      String username, TransactionFilter filter, Update update, boolean fromAccountOnly) {
+    Query query = Query.query(filterCriteria(username, filter, fromAccountOnly));
+    Update documentUpdate = withoutEmbedded(update);
+    long matchedCount = 0;
+    long modifiedCount = 0;
+
+    for (String collectionName : collectionNames(from(filter))) {
+      UpdateResult updateResult =
+          mongoTemplate.updateMulti(
+              query, documentUpdate, TransactionDocument.class, collectionName);
+      matchedCount += updateResult.getMatchedCount();
+      modifiedCount += updateResult.getModifiedCount();
+    }
+
+    return UpdateResult.acknowledged(matchedCount, modifiedCount, null);
+  }
+
+  /**
+   * Removes the embedded reference a new id replaces, a transaction not migrated yet would
+   * otherwise still match its old reference.
+   */
+  private static Update withoutEmbedded(Update update) {
+    for (Reference reference : Reference.values()) {
+      if (update.modifies(reference.property)) {
+        update.unset(reference.transactionProperty);
+      }
+    }
+    return update;
+  }
+
+  public long deleteTransactionsByFilter(String username, TransactionFilter filter) {
+    Query query = Query.query(filterCriteria(username, filter));
+    long deletedCount = 0;
+
+    for (String collectionName : collectionNames(from(filter))) {
+      deletedCount +=
+          mongoTemplate.remove(query, TransactionDocument.class, collectionName).getDeletedCount();
+    }
+    return deletedCount;
+  }
+
+  /**
+   * Returns the id of the last transaction of the first batch of the account's transactions in _id
+   * order, null when the account has no transactions left. The hot transactions are batched first,
+   * then the archived ones.
+   */
+  public String getTransactionsBatchEndId(String accountId, int batchSize) {
+    for (String collectionName : collectionNames(null)) {
+      TransactionDocument transaction =
+          findOneIdByAccountId(collectionName, accountId, Sort.Direction.ASC, batchSize - 1L);
+
+      if (transaction == null) {
+        // fewer than a full batch is left, the range ends at the last one
+        transaction = findOneIdByAccountId(collectionName, accountId, Sort.Direction.DESC, 0);
+      }
+      if (transaction != null) {
+        return transaction.getId();
+      }
+    }
+
+    return null;
+  }
+
+  private TransactionDocument findOneIdByAccountId(
+      String collectionName, String accountId, Sort.Direction direction, long skip) {
+    Query query =
+        Query.query(accountCriteria(accountId))
+            .with(Sort.by(direction, FIELD_NAME_ID))
+            .skip(skip)
+            .limit(1);
+    query.fields().include(FIELD_NAME_ID);
+    return mongoTemplate.findOne(query, TransactionDocument.class, collectionName);
+  }
+
+  /**
+   * Deletes the account's transactions with _id up to and including endId, the transfers to the
+   * account included.
+   */
+  public long deleteTransactionsByAccountId(String accountId, String endId) {
+    Query query =
+        Query.query(
+            new Criteria()
+                .andOperator(accountCriteria(accountId), Criteria.where(FIELD_NAME_ID).lte(endId)));
+    long deletedCount = 0;
+
+    for (String collectionName : collectionNames(null)) {
+      deletedCount +=
+          mongoTemplate.remove(query, TransactionDocument.class, collectionName).getDeletedCount();
+    }
+    return deletedCount;
   }
 }
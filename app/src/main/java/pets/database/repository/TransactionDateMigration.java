@@ -0,0 +1,240 @@
+package pets.database.repository;
+
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_DETAILS;
+import static pets.database.utils.Constants.FIELD_NAME_DATE;
+import static pets.database.utils.Constants.FIELD_NAME_ID;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rewrites the string dates of transaction_details as BSON dates, online, in batches of ascending
+ * _id with a pause between batches. Only documents that still have a string date are read, so a
+ * restart picks up where the last run stopped. Each document is updated only if its dates are still
+ * the strings that were read, a transaction changed in between is left for the next pass.
+ *
+ * <p>Until no string dates are left, {@link TransactionDao} matches dates in both formats and
+ * orders pages by the normalized date. Once none are left, a marker in {@link MigrationMarkers}
+ * says so, instances read it before they serve and skip the scan for string dates.
+ */
+@Component
+public class TransactionDateMigration {
+  private static final Logger logger = LoggerFactory.getLogger(TransactionDateMigration.class);
+
+  private static final String MIGRATION_NAME = "transaction-dates";
+  private static final String FIELD_NAME_CREATION_DATE = "creationDate";
+  private static final String FIELD_NAME_LAST_MODIFIED = "lastModified";
+
+  private final MongoTemplate mongoTemplate;
+  private final MigrationMarkers migrationMarkers;
+  private final boolean enabled;
+  private final int batchSize;
+  private final Duration batchPause;
+
+  private final ExecutorService executorService =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "transaction-date-migration");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  // false until checked, reads stay on the path that handles both formats until then
+  private volatile boolean complete;
+
+  public TransactionDateMigration(
+      MongoTemplate mongoTemplate,
+      MigrationMarkers migrationMarkers,
+      @Value("${pets.transaction-date-migration.enabled:true}") boolean enabled,
+      @Value("${pets.transaction-date-migration.batch-size:500}") int batchSize,
+      @Value("${pets.transaction-date-migration.batch-pause:PT0.2S}") Duration batchPause) {
+    this.mongoTemplate = mongoTemplate;
+    this.migrationMarkers = migrationMarkers;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.batchPause = batchPause;
+  }
+
+  /** Reads the marker before the server accepts requests, one read by id. */
+  @PostConstruct
+  public void init() {
+    try {
+      complete = migrationMarkers.isCompleted(MIGRATION_NAME);
+    } catch (Exception ex) {
+      // the migration checks the collection after startup
+      logger.error("Transaction Date Migration Marker", ex);
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    executorService.submit(this::migrate);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executorService.shutdownNow();
+  }
+
+  /**
+   * @return true once no transaction has a string date left
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  void migrate() {
+    if (complete) {
+      logger.info("Migrate Transaction Dates Skipped, Completed Before");
+      return;
+    }
+
+    try {
+      complete = !hasStringDates();
+      logger.info("Before Migrate Transaction Dates: {} | {}", enabled, complete);
+
+      long migrated = 0;
+      long passMigrated = 1;
+      // a pass skips what changed under it or does not parse, repeat while passes make progress
+      while (enabled && !complete && passMigrated > 0) {
+        passMigrated = migratePass();
+        migrated += passMigrated;
+        complete = !hasStringDates();
+      }
+
+      if (complete) {
+        migrationMarkers.markCompleted(MIGRATION_NAME);
+      }
+      logger.info("After Migrate Transaction Dates: {} | {}", migrated, complete);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (Exception ex) {
+      logger.error("Migrate Transaction Dates", ex);
+    }
+  }
+
+  private long migratePass() throws InterruptedException {
+    long migrated = 0;
+    Object lastId = null;
+
+    while (!Thread.currentThread().isInterrupted()) {
+      Criteria criteria = stringDatesCriteria();
+      if (lastId != null) {
+        criteria = new Criteria().andOperator(criteria, Criteria.where(FIELD_NAME_ID).gt(lastId));
+      }
+      Query query =
+          Query.query(criteria).with(Sort.by(Sort.Direction.ASC, FIELD_NAME_ID)).limit(batchSize);
+      query
+          .fields()
+          .include(FIELD_NAME_DATE)
+          .include(FIELD_NAME_CREATION_DATE)
+          .include(FIELD_NAME_LAST_MODIFIED);
+
+      List<Document> documents =
+          mongoTemplate.find(query, Document.class, COLLECTION_NAME_TRANSACTION_DETAILS);
+      if (documents.isEmpty()) {
+        break;
+      }
+
+      BulkOperations bulkOperations =
+          mongoTemplate.bulkOps(
+              BulkOperations.BulkMode.UNORDERED, COLLECTION_NAME_TRANSACTION_DETAILS);
+      int updates = 0;
+      for (Document document : documents) {
+        if (addUpdate(bulkOperations, document)) {
+          updates++;
+        }
+      }
+      if (updates > 0) {
+        migrated += bulkOperations.execute().getModifiedCount();
+      }
+
+      lastId = documents.getLast().get(FIELD_NAME_ID);
+      logger.debug("Migrate Transaction Dates Batch: {} | {} | {}", lastId, updates, migrated);
+      Thread.sleep(batchPause.toMillis());
+    }
+
+    return migrated;
+  }
+
+  private boolean addUpdate(BulkOperations bulkOperations, Document document) {
+    Criteria criteria = Criteria.where(FIELD_NAME_ID).is(document.get(FIELD_NAME_ID));
+    Update update = new Update();
+
+    try {
+      setDate(document, FIELD_NAME_DATE, TransactionDateMigration::parseDate, criteria, update);
+      setDate(
+          document,
+          FIELD_NAME_CREATION_DATE,
+          TransactionDateMigration::parseDate,
+          criteria,
+          update);
+      setDate(
+          document,
+          FIELD_NAME_LAST_MODIFIED,
+          TransactionDateMigration::parseDateTime,
+          criteria,
+          update);
+    } catch (Exception ex) {
+      // left as it is, the read path still handles it
+      logger.warn("Migrate Transaction Dates, Not Parsed: {}", document, ex);
+      return false;
+    }
+
+    bulkOperations.updateOne(Query.query(criteria), update);
+    return true;
+  }
+
+  private static void setDate(
+      Document document,
+      String field,
+      Function<String, Date> parser,
+      Criteria criteria,
+      Update update) {
+    if (document.get(field) instanceof String value) {
+      update.set(field, parser.apply(value));
+      criteria.and(field).is(value);
+    }
+  }
+
+  private static Date parseDate(String value) {
+    return TransactionDates.toDate(TransactionDates.toLocalDate(value));
+  }
+
+  private static Date parseDateTime(String value) {
+    return TransactionDates.toDate(TransactionDates.toLocalDateTime(value));
+  }
+
+  private boolean hasStringDates() {
+    return mongoTemplate.exists(
+        Query.query(stringDatesCriteria()), COLLECTION_NAME_TRANSACTION_DETAILS);
+  }
+
+  private static Criteria stringDatesCriteria() {
+    return new Criteria()
+        .orOperator(
+            Criteria.where(FIELD_NAME_DATE).type(BsonType.STRING.getValue()),
+            Criteria.where(FIELD_NAME_CREATION_DATE).type(BsonType.STRING.getValue()),
+            Criteria.where(FIELD_NAME_LAST_MODIFIED).type(BsonType.STRING.getValue()));
+  }
+}
@@ -0,0 +1,74 @@
+package pets.database.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+/**
+ * Transaction dates are stored as BSON dates at UTC, the way the driver's java.time codecs write
+ * them. Transactions written before that have ISO strings, which are still read until {@link
+ * TransactionDateMigration} has rewritten all of them.
+ */
+public final class TransactionDates {
+
+  private TransactionDates() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  public static List<Converter<?, ?>> readingConverters() {
+    return List.of(StringToLocalDateConverter.INSTANCE, StringToLocalDateTimeConverter.INSTANCE);
+  }
+
+  /**
+   * @throws java.time.format.DateTimeParseException when the value is not an ISO date
+   */
+  static LocalDate toLocalDate(String value) {
+    // a few old rows have the time of day as well
+    return LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value);
+  }
+
+  static LocalDate toLocalDate(Date date) {
+    return LocalDate.ofInstant(date.toInstant(), ZoneOffset.UTC);
+  }
+
+  /**
+   * @throws java.time.format.DateTimeParseException when the value is not an ISO date or date time
+   */
+  static LocalDateTime toLocalDateTime(String value) {
+    return value.length() == 10
+        ? LocalDate.parse(value).atStartOfDay()
+        : LocalDateTime.parse(value);
+  }
+
+  static Date toDate(LocalDate localDate) {
+    return Date.from(localDate.atStartOfDay(ZoneOffset.UTC).toInstant());
+  }
+
+  static Date toDate(LocalDateTime localDateTime) {
+    return Date.from(localDateTime.toInstant(ZoneOffset.UTC));
+  }
+
+  @ReadingConverter
+  private enum StringToLocalDateConverter implements Converter<String, LocalDate> {
+    INSTANCE;
+
+    @Override
+    public LocalDate convert(String source) {
+      return toLocalDate(source);
+    }
+  }
+
+  @ReadingConverter
+  private enum StringToLocalDateTimeConverter implements Converter<String, LocalDateTime> {
+    INSTANCE;
+
+    @Override
+    public LocalDateTime convert(String source) {
+      return toLocalDateTime(source);
+    }
+  }
+}
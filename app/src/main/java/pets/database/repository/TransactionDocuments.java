@@ -0,0 +1,165 @@
+package pets.database.repository;
+
+import static pets.database.utils.Constants.FIELD_NAME_USERNAME;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import pets.database.model.Account;
+import pets.database.model.RefCategory;
+import pets.database.model.RefMerchant;
+import pets.database.model.RefTransactionType;
+import pets.database.model.Transaction;
+import pets.database.model.TransactionDocument;
+import pets.database.model.User;
+
+/**
+ * Maps between the stored {@link TransactionDocument} and the {@link Transaction} the api returns.
+ * The references are read back as stubs that carry only the id, or the username of the user, the
+ * same as they were saved, {@link pets.database.service.TransactionHydrationService} fills in the
+ * rest when asked to.
+ */
+final class TransactionDocuments {
+
+  private TransactionDocuments() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * A referenced document: the transaction property, the document property and stored field its id
+   * is kept in, and the path of its id in the embedded layout.
+   */
+  enum Reference {
+    USER("user", FIELD_NAME_USERNAME, "u", "user." + FIELD_NAME_USERNAME),
+    ACCOUNT("account", "accountId", "a", "account.id"),
+    TRF_ACCOUNT("trfAccount", "trfAccountId", "ta", "trfAccount.id"),
+    TYPE("refTransactionType", "typeId", "t", "refTransactionType.id"),
+    CATEGORY("refCategory", "categoryId", "c", "refCategory.id"),
+    MERCHANT("refMerchant", "merchantId", "m", "refMerchant.id");
+
+    final String transactionProperty;
+    final String property;
+    final String field;
+    final String embeddedPath;
+
+    Reference(String transactionProperty, String property, String field, String embeddedPath) {
+      this.transactionProperty = transactionProperty;
+      this.property = property;
+      this.field = field;
+      this.embeddedPath = embeddedPath;
+    }
+
+    /** The stored path of the embedded id, the id of an embedded document is stored as _id. */
+    String embeddedField() {
+      return this == USER ? embeddedPath : transactionProperty + "._id";
+    }
+
+    static Reference of(String property) {
+      for (Reference reference : values()) {
+        if (reference.property.equals(property)) {
+          return reference;
+        }
+      }
+      return null;
+    }
+  }
+
+  static TransactionDocument toDocument(Transaction transaction) {
+    return TransactionDocument.builder()
+        .id(transaction.getId())
+        .username(transaction.getUser() == null ? null : transaction.getUser().getUsername())
+        .accountId(id(transaction.getAccount(), Account::getId))
+        .trfAccountId(id(transaction.getTrfAccount(), Account::getId))
+        .typeId(id(transaction.getRefTransactionType(), RefTransactionType::getId))
+        .categoryId(id(transaction.getRefCategory(), RefCategory::getId))
+        .merchantId(id(transaction.getRefMerchant(), RefMerchant::getId))
+        .description(transaction.getDescription())
+        .date(transaction.getDate())
+        .amount(transaction.getAmount())
+        .regular(transaction.getRegular())
+        .necessary(transaction.getNecessary())
+        .creationDate(transaction.getCreationDate())
+        .lastModified(transaction.getLastModified())
+        .build();
+  }
+
+  static Transaction toTransaction(TransactionDocument document) {
+    if (document == null) {
+      return null;
+    }
+
+    String username =
+        document.getUsername() != null
+            ? document.getUsername()
+            : document.getUser() == null ? null : document.getUser().getUsername();
+    String accountId = id(document.getAccountId(), document.getAccount());
+    String trfAccountId = id(document.getTrfAccountId(), document.getTrfAccount());
+    String typeId = id(document.getTypeId(), document.getRefTransactionType());
+    String categoryId = id(document.getCategoryId(), document.getRefCategory());
+    String merchantId = id(document.getMerchantId(), document.getRefMerchant());
+
+    return Transaction.builder()
+        .id(document.getId())
+        .user(username == null ? null : User.builder().username(username).build())
+        .account(accountId == null ? null : Account.builder().id(accountId).build())
+        .trfAccount(trfAccountId == null ? null : Account.builder().id(trfAccountId).build())
+        .refTransactionType(typeId == null ? null : RefTransactionType.builder().id(typeId).build())
+        .refCategory(categoryId == null ? null : RefCategory.builder().id(categoryId).build())
+        .refMerchant(merchantId == null ? null : RefMerchant.builder().id(merchantId).build())
+        .description(document.getDescription())
+        .date(document.getDate())
+        .amount(document.getAmount())
+        .regular(document.getRegular())
+        .necessary(document.getNecessary())
+        .creationDate(document.getCreationDate())
+        .lastModified(document.getLastModified())
+        .build();
+  }
+
+  static List<Transaction> toTransactions(List<TransactionDocument> documents) {
+    return new ArrayList<>(documents.stream().map(TransactionDocuments::toTransaction).toList());
+  }
+
+  /**
+   * @param fields transaction properties, like refMerchant or refMerchant.id
+   * @return the document properties they are stored in, a reference is read whole either way, in
+   *     both the id and the embedded layout
+   */
+  static List<String> toDocumentFields(List<String> fields) {
+    if (fields == null) {
+      return null;
+    }
+
+    Set<String> documentFields = new LinkedHashSet<>();
+    for (String field : fields) {
+      String root = field.split("\\.", 2)[0];
+      Reference reference = referenceOf(root);
+      if (reference == null) {
+        documentFields.add(field);
+      } else {
+        documentFields.add(reference.property);
+        documentFields.add(reference.embeddedPath);
+      }
+    }
+    return new ArrayList<>(documentFields);
+  }
+
+  private static Reference referenceOf(String transactionProperty) {
+    for (Reference reference : Reference.values()) {
+      if (reference.transactionProperty.equals(transactionProperty)) {
+        return reference;
+      }
+    }
+    return null;
+  }
+
+  private static <T> String id(T reference, Function<T, String> idFunction) {
+    return reference == null ? null : idFunction.apply(reference);
+  }
+
+  private static String id(String id, TransactionDocument.Reference embedded) {
+    return id != null ? id : embedded == null ? null : embedded.getId();
+  }
+}
@@ -0,0 +1,228 @@
+package pets.database.repository;
+
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_DETAILS;
+import static pets.database.utils.Constants.FIELD_NAME_ID;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import pets.database.model.TransactionDocument;
+
+/**
+ * Rewrites the transactions saved with embedded references to the id layout of {@link
+ * TransactionDocument}, online, in batches of ascending _id with a pause between batches. Each
+ * batch is one pipeline update on the server that moves the embedded ids to the short fields and
+ * removes the embedded documents, ids already set by a newer write are kept. Only transactions that
+ * still have an embedded reference are read, so a restart picks up where the last run stopped.
+ *
+ * <p>The storage stats of the collection are logged before and after, the data size is what the
+ * working set of the collection shrinks by. Once no embedded reference is left, a marker in {@link
+ * MigrationMarkers} says so, instances read it before they serve and skip the scan for them.
+ */
+@Component
+public class TransactionLayoutMigration {
+  private static final Logger logger = LoggerFactory.getLogger(TransactionLayoutMigration.class);
+
+  private static final String MIGRATION_NAME = "transaction-layout";
+
+  private final MongoTemplate mongoTemplate;
+  private final MigrationMarkers migrationMarkers;
+  private final boolean enabled;
+  private final int batchSize;
+  private final Duration batchPause;
+
+  private final ExecutorService executorService =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "transaction-layout-migration");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  // false until checked, queries match both layouts until then
+  private volatile boolean complete;
+
+  public TransactionLayoutMigration(
+      MongoTemplate mongoTemplate,
+      MigrationMarkers migrationMarkers,
+      @Value("${pets.transaction-layout-migration.enabled:true}") boolean enabled,
+      @Value("${pets.transaction-layout-migration.batch-size:1000}") int batchSize,
+      @Value("${pets.transaction-layout-migration.batch-pause:PT0.2S}") Duration batchPause) {
+    this.mongoTemplate = mongoTemplate;
+    this.migrationMarkers = migrationMarkers;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.batchPause = batchPause;
+  }
+
+  /** Reads the marker before the server accepts requests, one read by id. */
+  @PostConstruct
+  public void init() {
+    try {
+      complete = migrationMarkers.isCompleted(MIGRATION_NAME);
+    } catch (Exception ex) {
+      // the migration checks the collection after startup
+      logger.error("Transaction Layout Migration Marker", ex);
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    executorService.submit(this::migrateAll);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executorService.shutdownNow();
+  }
+
+  /**
+   * @return true once no transaction has an embedded reference left
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  void migrateAll() {
+    if (complete) {
+      logger.info("Migrate Transaction Layout Skipped, Completed Before");
+      return;
+    }
+
+    try {
+      complete = !hasEmbeddedReferences();
+      logger.info(
+          "Before Migrate Transaction Layout: {} | {} | {}", enabled, complete, storageStats());
+
+      if (enabled && !complete) {
+        long migrated = migrate();
+        complete = !hasEmbeddedReferences();
+        logger.info(
+            "After Migrate Transaction Layout: {} | {} | {}", migrated, complete, storageStats());
+      }
+      if (complete) {
+        migrationMarkers.markCompleted(MIGRATION_NAME);
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (Exception ex) {
+      logger.error("Migrate Transaction Layout", ex);
+    }
+  }
+
+  private long migrate() throws InterruptedException {
+    long migrated = 0;
+    Object lastId = null;
+
+    while (!Thread.currentThread().isInterrupted()) {
+      Criteria criteria = embeddedReferencesCriteria();
+      if (lastId != null) {
+        criteria = new Criteria().andOperator(criteria, Criteria.where(FIELD_NAME_ID).gt(lastId));
+      }
+      Query query =
+          Query.query(criteria).with(Sort.by(Sort.Direction.ASC, FIELD_NAME_ID)).limit(batchSize);
+      query.fields().include(FIELD_NAME_ID);
+
+      List<Object> ids =
+          mongoTemplate.find(query, Document.class, COLLECTION_NAME_TRANSACTION_DETAILS).stream()
+              .map(document -> document.get(FIELD_NAME_ID))
+              .toList();
+      if (ids.isEmpty()) {
+        break;
+      }
+
+      migrated +=
+          mongoTemplate
+              .updateMulti(
+                  Query.query(
+                      new Criteria()
+                          .andOperator(
+                              embeddedReferencesCriteria(), Criteria.where(FIELD_NAME_ID).in(ids))),
+                  toIdLayout(),
+                  COLLECTION_NAME_TRANSACTION_DETAILS)
+              .getModifiedCount();
+
+      lastId = ids.getLast();
+      logger.debug("Migrate Transaction Layout Batch: {} | {}", lastId, migrated);
+      Thread.sleep(batchPause.toMillis());
+    }
+
+    return migrated;
+  }
+
+  /** Keeps an id already in the short field, takes the embedded one otherwise, or leaves it out. */
+  private static AggregationUpdate toIdLayout() {
+    Document set = new Document();
+    List<String> embeddedFields = new ArrayList<>();
+
+    for (TransactionDocuments.Reference reference : TransactionDocuments.Reference.values()) {
+      set.append(
+          reference.field,
+          new Document(
+              "$ifNull",
+              Arrays.asList("$" + reference.field, "$" + reference.embeddedField(), "$$REMOVE")));
+      embeddedFields.add(reference.transactionProperty);
+    }
+
+    return AggregationUpdate.from(
+        List.of(
+            context -> new Document("$set", set),
+            context -> new Document("$unset", embeddedFields)));
+  }
+
+  private boolean hasEmbeddedReferences() {
+    return mongoTemplate.exists(
+        Query.query(embeddedReferencesCriteria()), COLLECTION_NAME_TRANSACTION_DETAILS);
+  }
+
+  private static Criteria embeddedReferencesCriteria() {
+    return new Criteria()
+        .orOperator(
+            Arrays.stream(TransactionDocuments.Reference.values())
+                .map(reference -> Criteria.where(reference.transactionProperty).exists(true))
+                .toList());
+  }
+
+  private Document storageStats() {
+    try {
+      Document collStats =
+          mongoTemplate
+              .getCollection(COLLECTION_NAME_TRANSACTION_DETAILS)
+              .aggregate(
+                  List.of(new Document("$collStats", new Document("storageStats", new Document()))))
+              .first();
+      Document storageStats =
+          collStats == null ? null : collStats.get("storageStats", Document.class);
+      if (storageStats == null) {
+        return null;
+      }
+
+      Document stats = new Document();
+      for (String key : List.of("count", "avgObjSize", "size", "storageSize", "totalIndexSize")) {
+        stats.append(key, storageStats.get(key));
+      }
+      return stats;
+    } catch (Exception ex) {
+      // reported only, needs the collStats privilege
+      logger.warn("Transaction Layout Storage Stats: {}", ex.getMessage());
+      return null;
+    }
+  }
+}
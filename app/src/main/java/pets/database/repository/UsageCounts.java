@@ -0,0 +1,102 @@
+package pets.database.repository;
+
+import static pets.database.utils.Constants.FIELD_NAME_ID;
+import static pets.database.utils.Constants.FIELD_NAME_USAGE_COUNT;
+import static pets.database.utils.Constants.FIELD_NAME_USAGE_VERSION;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Usage counts kept on the documents that transactions refer to. Every write of a count moves the
+ * usageVersion of the document, so the rebuild only sets the counts that did not move while it
+ * counted.
+ */
+final class UsageCounts {
+
+  private UsageCounts() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  /**
+   * Documents whose count has never been computed are left untouched, counting from there would
+   * miss the transactions written before. The rebuild computes them.
+   */
+  static long increment(
+      MongoTemplate mongoTemplate,
+      String id,
+      Update update,
+      Class<?> entityClass,
+      String collectionName) {
+    return mongoTemplate
+        .updateFirst(
+            Query.query(
+                Criteria.where(FIELD_NAME_ID).is(id).and(FIELD_NAME_USAGE_COUNT).exists(true)),
+            update.inc(FIELD_NAME_USAGE_VERSION, 1),
+            entityClass,
+            collectionName)
+        .getModifiedCount();
+  }
+
+  /**
+   * @return the usage version of every document by id, null for documents never written, read
+   *     before the transactions are counted
+   */
+  static Map<String, Long> versions(MongoTemplate mongoTemplate, String collectionName) {
+    Map<String, Long> versions = new HashMap<>();
+    Query query = new Query();
+    query.fields().include(FIELD_NAME_USAGE_VERSION);
+
+    try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, collectionName)) {
+      documents.forEach(
+          document -> {
+            Number version = document.get(FIELD_NAME_USAGE_VERSION, Number.class);
+            versions.put(
+                document.get("_id").toString(), version == null ? null : version.longValue());
+          });
+    }
+    return versions;
+  }
+
+  /**
+   * Sets the counts of the documents in one bulk write, documents missing from the counts are set
+   * to 0. A document is only set while its version is the one read before counting, a count moved
+   * by a concurrent $inc is left for the next rebuild, and documents created since are left alone.
+   *
+   * @return number of documents set
+   */
+  static long replace(
+      MongoTemplate mongoTemplate,
+      Map<String, Long> versions,
+      Map<String, Long> usageCounts,
+      LongFunction<Update> update,
+      Class<?> entityClass,
+      String collectionName) {
+    if (versions.isEmpty()) {
+      return 0;
+    }
+
+    BulkOperations bulkOperations =
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass, collectionName);
+    versions.forEach(
+        (id, version) ->
+            bulkOperations.updateOne(
+                Query.query(
+                    Criteria.where(FIELD_NAME_ID).is(id).and(FIELD_NAME_USAGE_VERSION).is(version)),
+                update.apply(usageCounts.getOrDefault(id, 0L)).inc(FIELD_NAME_USAGE_VERSION, 1)));
+    return bulkOperations.execute().getMatchedCount();
+  }
+
+  /** Matches documents that no transaction refers to, documents never counted do not match. */
+  static Criteria unused() {
+    return Criteria.where(FIELD_NAME_USAGE_COUNT).is(0L);
+  }
+}
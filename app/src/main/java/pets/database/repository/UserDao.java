@@ -5,6 +5,8 @@ import static pets.database.utils.Constants.COLLECTION_NAME_USER_DETAILS;
 import static pets.database.utils.Constants.FIELD_NAME_ID;
 
 import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -20,8 +22,20 @@ public class UserDao {
     this.mongoTemplate = mongoTemplate;
   }
 
-  public List<User> getAllUsers() {
-    return mongoTemplate.findAll(User.class);
+  public List<User> getAllUsers(String afterId, int limit) {
+    return Listings.page(
+        mongoTemplate,
+        Sort.Direction.ASC,
+        afterId,
+        limit,
+        null,
+        User.class,
+        COLLECTION_NAME_USER_DETAILS);
+  }
+
+  public Stream<User> streamAllUsers() {
+    return Listings.stream(
+        mongoTemplate, Sort.Direction.ASC, User.class, COLLECTION_NAME_USER_DETAILS);
   }
 
   public User findUserById(String id) {
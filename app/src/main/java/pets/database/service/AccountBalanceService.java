@@ -0,0 +1,270 @@
+package pets.database.service;
+
+import static java.util.Collections.emptyList;
+import static org.springframework.util.StringUtils.hasText;
+import static pets.database.utils.Constants.ACCOUNT_BALANCE_BATCH_SIZE;
+import static pets.database.utils.Constants.TRANSACTION_TYPE_EXPENSE;
+import static pets.database.utils.Constants.TRANSACTION_TYPE_INCOME;
+import static pets.database.utils.Constants.TRANSACTION_TYPE_TRANSFER;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pets.database.cache.ReferenceDataCache;
+import pets.database.cache.UserDataCache;
+import pets.database.model.Account;
+import pets.database.model.AccountResponse;
+import pets.database.model.AccountTotal;
+import pets.database.model.RefTransactionType;
+import pets.database.model.Status;
+import pets.database.model.Transaction;
+import pets.database.repository.AccountDao;
+import pets.database.repository.TransactionDao;
+
+/**
+ * Keeps {@link Account#getCurrentBalance()} equal to the opening balance plus the effect of all
+ * transactions of the account. Transaction writes move the balance with $inc, and the reconciler
+ * recomputes all balances from scratch in batches to correct any drift.
+ *
+ * <p>Income adds to the account and expense subtracts from it. A transfer subtracts from the
+ * account and adds to the transfer account.
+ */
+@Service
+public class AccountBalanceService {
+  private static final Logger logger = LoggerFactory.getLogger(AccountBalanceService.class);
+
+  // the reconciler walks every account, it only needs the balances
+  private static final List<String> ACCOUNT_BALANCE_FIELDS =
+      List.of("id", "openingBalance", "currentBalance", "balanceVersion");
+
+  private final AccountDao accountDao;
+  private final TransactionDao transactionDao;
+  private final ReferenceDataCache referenceDataCache;
+  private final UserDataCache userDataCache;
+
+  public AccountBalanceService(
+      AccountDao accountDao,
+      TransactionDao transactionDao,
+      ReferenceDataCache referenceDataCache,
+      UserDataCache userDataCache) {
+    this.accountDao = accountDao;
+    this.transactionDao = transactionDao;
+    this.referenceDataCache = referenceDataCache;
+    this.userDataCache = userDataCache;
+  }
+
+  /**
+   * @param oldTransaction transaction before the write, null for new transactions
+   * @param newTransaction transaction after the write, null for deleted transactions
+   * @apiNote failures are logged and left for the reconciler, the transaction write is not undone
+   */
+  public void applyTransaction(Transaction oldTransaction, Transaction newTransaction) {
+    try {
+      Map<String, Integer> typeSigns = getTransactionTypeSigns();
+      Map<String, BigDecimal> deltas = new HashMap<>();
+
+      if (oldTransaction != null) {
+        addDeltas(deltas, toAccountTotal(oldTransaction, true), typeSigns);
+      }
+      if (newTransaction != null) {
+        addDeltas(deltas, toAccountTotal(newTransaction, false), typeSigns);
+      }
+
+      applyDeltas(deltas);
+    } catch (Exception ex) {
+      logger.error("Apply Transaction To Balances: {} | {}", oldTransaction, newTransaction, ex);
+    }
+  }
+
+  /** Applies the transactions as one $inc per account instead of one per transaction. */
+  public void applyNewTransactions(List<Transaction> newTransactions) {
+    try {
+      Map<String, Integer> typeSigns = getTransactionTypeSigns();
+      Map<String, BigDecimal> deltas = new HashMap<>();
+      newTransactions.forEach(
+          newTransaction -> addDeltas(deltas, toAccountTotal(newTransaction, false), typeSigns));
+      applyDeltas(deltas);
+    } catch (Exception ex) {
+      logger.error("Apply New Transactions To Balances: {}", newTransactions.size(), ex);
+    }
+  }
+
+  public void applyDeltas(Map<String, BigDecimal> deltas) {
+    List<String> uncomputedAccountIds = new ArrayList<>();
+
+    deltas.forEach(
+        (accountId, delta) -> {
+          if (delta.signum() != 0 && accountDao.incrementBalance(accountId, delta) == 0) {
+            uncomputedAccountIds.add(accountId);
+          }
+        });
+
+    userDataCache.accounts().invalidateIds(deltas.keySet());
+    if (!uncomputedAccountIds.isEmpty()) {
+      reconcileAccounts(uncomputedAccountIds);
+    }
+  }
+
+  public Map<String, Integer> getTransactionTypeSigns() {
+    Map<String, Integer> typeSigns = new HashMap<>();
+
+    for (RefTransactionType refTransactionType :
+        referenceDataCache.refTransactionTypes().getAll()) {
+      String description =
+          refTransactionType.getDescription() == null
+              ? ""
+              : refTransactionType.getDescription().toUpperCase();
+
+      if (description.contains(TRANSACTION_TYPE_INCOME)) {
+        typeSigns.put(refTransactionType.getId(), 1);
+      } else if (description.contains(TRANSACTION_TYPE_EXPENSE)
+          || description.contains(TRANSACTION_TYPE_TRANSFER)) {
+        typeSigns.put(refTransactionType.getId(), -1);
+      }
+    }
+
+    return typeSigns;
+  }
+
+  public void addDeltas(
+      Map<String, BigDecimal> deltas, AccountTotal accountTotal, Map<String, Integer> typeSigns) {
+    BigDecimal amount = accountTotal.getTotal();
+    if (amount == null || amount.signum() == 0) {
+      return;
+    }
+
+    if (hasText(accountTotal.getTrfAccountId())) {
+      deltas.merge(accountTotal.getAccountId(), amount.negate(), BigDecimal::add);
+      deltas.merge(accountTotal.getTrfAccountId(), amount, BigDecimal::add);
+    } else if (typeSigns.containsKey(accountTotal.getTypeId())) {
+      BigDecimal signedAmount =
+          typeSigns.get(accountTotal.getTypeId()) > 0 ? amount : amount.negate();
+      deltas.merge(accountTotal.getAccountId(), signedAmount, BigDecimal::add);
+    } else {
+      logger.warn("Unknown Transaction Type For Balance: {}", accountTotal);
+    }
+  }
+
+  public AccountResponse reconcileBalances() {
+    logger.info("Before Reconcile Account Balances");
+    List<Account> driftedAccounts = new ArrayList<>();
+    Status status = null;
+    int reconciled = 0;
+
+    try {
+      Map<String, Integer> typeSigns = getTransactionTypeSigns();
+      String afterId = null;
+      List<Account> accounts;
+
+      do {
+        accounts =
+            accountDao.getAllAccounts(afterId, ACCOUNT_BALANCE_BATCH_SIZE, ACCOUNT_BALANCE_FIELDS);
+        driftedAccounts.addAll(reconcile(accounts, typeSigns));
+        reconciled += accounts.size();
+        afterId = accounts.isEmpty() ? null : accounts.get(accounts.size() - 1).getId();
+      } while (accounts.size() == ACCOUNT_BALANCE_BATCH_SIZE);
+    } catch (Exception ex) {
+      logger.error("Reconcile Account Balances", ex);
+      status =
+          Status.builder()
+              .errMsg("Error Reconciling Account Balances, Please Try Again!!!")
+              .message(ex.toString())
+              .build();
+    }
+
+    logger.info("After Reconcile Account Balances: {} | drifted: {}", reconciled, driftedAccounts);
+    return AccountResponse.builder().accounts(driftedAccounts).status(status).build();
+  }
+
+  @Scheduled(
+      initialDelayString = "${pets.account-balance.reconcile.initial-delay:PT1M}",
+      fixedDelayString = "${pets.account-balance.reconcile.fixed-delay:PT6H}")
+  public void scheduledReconcileBalances() {
+    reconcileBalances();
+  }
+
+  /**
+   * @apiNote failures are logged and left for the scheduled reconciler
+   */
+  public List<Account> reconcileAccounts(Collection<String> accountIds) {
+    if (accountIds.isEmpty()) {
+      return emptyList();
+    }
+
+    try {
+      return reconcile(accountDao.getAccountsByIds(accountIds), getTransactionTypeSigns());
+    } catch (Exception ex) {
+      logger.error("Reconcile Account Balances: {}", accountIds, ex);
+      return emptyList();
+    }
+  }
+
+  private List<Account> reconcile(List<Account> accounts, Map<String, Integer> typeSigns) {
+    if (accounts.isEmpty()) {
+      return emptyList();
+    }
+
+    Map<String, BigDecimal> balances = new HashMap<>();
+    accounts.forEach(
+        account ->
+            balances.put(
+                account.getId(),
+                account.getOpeningBalance() == null
+                    ? BigDecimal.ZERO
+                    : account.getOpeningBalance()));
+
+    Map<String, BigDecimal> deltas = new HashMap<>();
+    transactionDao
+        .getAccountTotals(balances.keySet())
+        .forEach(accountTotal -> addDeltas(deltas, accountTotal, typeSigns));
+    deltas.forEach(
+        (accountId, delta) ->
+            balances.computeIfPresent(accountId, (id, balance) -> balance.add(delta)));
+
+    List<Account> driftedAccounts = new ArrayList<>();
+    for (Account account : accounts) {
+      BigDecimal expectedBalance = balances.get(account.getId());
+      BigDecimal currentBalance = account.getCurrentBalance();
+
+      if (currentBalance == null || currentBalance.compareTo(expectedBalance) != 0) {
+        logger.warn(
+            "Account Balance Drift: {} | current: {} | expected: {}",
+            account.getId(),
+            currentBalance,
+            expectedBalance);
+
+        // a concurrent $inc moves the version and makes this a no-op, and a write already in the
+        // totals whose $inc lands after this is counted twice, the next run corrects both
+        if (accountDao.updateBalance(account.getId(), account.getBalanceVersion(), expectedBalance)
+            > 0) {
+          account.setCurrentBalance(expectedBalance);
+          driftedAccounts.add(account);
+        }
+      }
+    }
+
+    userDataCache.accounts().invalidateIds(driftedAccounts.stream().map(Account::getId).toList());
+    return driftedAccounts;
+  }
+
+  private AccountTotal toAccountTotal(Transaction transaction, boolean reverse) {
+    BigDecimal amount = transaction.getAmount();
+    return AccountTotal.builder()
+        .accountId(transaction.getAccount() == null ? null : transaction.getAccount().getId())
+        .trfAccountId(
+            transaction.getTrfAccount() == null ? null : transaction.getTrfAccount().getId())
+        .typeId(
+            transaction.getRefTransactionType() == null
+                ? null
+                : transaction.getRefTransactionType().getId())
+        .total(amount == null || !reverse ? amount : amount.negate())
+        .build();
+  }
+}
@@ -0,0 +1,320 @@
+package pets.database.service;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static pets.database.utils.Constants.ACCOUNT_STATUS_DELETING;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pets.database.cache.TransactionSummaryCache;
+import pets.database.cache.UserDataCache;
+import pets.database.model.Account;
+import pets.database.model.AccountDeletionJob;
+import pets.database.model.AccountDeletionJobResponse;
+import pets.database.model.Status;
+import pets.database.model.UsageTotal;
+import pets.database.repository.AccountDao;
+import pets.database.repository.AccountDeletionJobDao;
+import pets.database.repository.JobLeases;
+import pets.database.repository.TransactionDao;
+
+/**
+ * Deletes the transactions of an account, and then the account itself, on a background thread.
+ * Transactions are deleted in batches of consecutive _ids with a pause between batches, so a long
+ * history never holds a request thread or a large delete on the database.
+ *
+ * <p>Before an account is deleted its status is set to DELETING and the account is deleted last. If
+ * the application stops midway, the job is started again for all DELETING accounts, so no
+ * transactions are left without their account. A job holds a lease in {@link JobLeases} for its
+ * account, so only one instance deletes an account, and the lease of an instance that stopped
+ * expires and lets another take the job over. Jobs and their progress are stored by {@link
+ * AccountDeletionJobDao}, so every instance reports them and a job taken over keeps its id.
+ */
+@Service
+public class AccountDeletionService {
+  private static final Logger logger = LoggerFactory.getLogger(AccountDeletionService.class);
+
+  private static final String STATE_QUEUED = "QUEUED";
+  private static final String STATE_RUNNING = "RUNNING";
+  private static final String STATE_COMPLETED = "COMPLETED";
+  private static final String STATE_FAILED = "FAILED";
+  private static final String LEASE_NAME_PREFIX = "account-deletion:";
+
+  private final AccountDao accountDao;
+  private final AccountDeletionJobDao accountDeletionJobDao;
+  private final TransactionDao transactionDao;
+  private final AccountBalanceService accountBalanceService;
+  private final UsageCountService usageCountService;
+  private final TransactionSummaryCache transactionSummaryCache;
+  private final UserDataCache userDataCache;
+  private final JobLeases jobLeases;
+  private final int batchSize;
+  private final Duration batchPause;
+  private final Duration leaseDuration;
+
+  // one job at a time, deletes are not urgent and should not compete with each other
+  private final ExecutorService executorService =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "account-deletion");
+            thread.setDaemon(true);
+            return thread;
+          });
+  // accounts whose job is queued or running on this instance
+  private final Set<String> accountIds = ConcurrentHashMap.newKeySet();
+
+  public AccountDeletionService(
+      AccountDao accountDao,
+      AccountDeletionJobDao accountDeletionJobDao,
+      TransactionDao transactionDao,
+      AccountBalanceService accountBalanceService,
+      UsageCountService usageCountService,
+      TransactionSummaryCache transactionSummaryCache,
+      UserDataCache userDataCache,
+      JobLeases jobLeases,
+      @Value("${pets.account-deletion.batch-size:1000}") int batchSize,
+      @Value("${pets.account-deletion.batch-pause:PT0.2S}") Duration batchPause,
+      @Value("${pets.account-deletion.lease:PT5M}") Duration leaseDuration) {
+    this.accountDao = accountDao;
+    this.accountDeletionJobDao = accountDeletionJobDao;
+    this.transactionDao = transactionDao;
+    this.accountBalanceService = accountBalanceService;
+    this.usageCountService = usageCountService;
+    this.transactionSummaryCache = transactionSummaryCache;
+    this.userDataCache = userDataCache;
+    this.jobLeases = jobLeases;
+    this.batchSize = batchSize;
+    this.batchPause = batchPause;
+    this.leaseDuration = leaseDuration;
+  }
+
+  /**
+   * @param deleteAccount true to delete the account after its transactions
+   * @return the queued job, or the job already running for the account
+   */
+  public AccountDeletionJobResponse startDeletion(String accountId, boolean deleteAccount) {
+    logger.info("Before Start Account Deletion: {} | {}", accountId, deleteAccount);
+    AccountDeletionJob accountDeletionJob = null;
+    Status status = null;
+
+    try {
+      accountDeletionJob = accountDeletionJobDao.getUnfinishedJobByAccountId(accountId);
+
+      if (accountDeletionJob == null) {
+        if (!jobLeases.acquire(LEASE_NAME_PREFIX + accountId, leaseDuration)) {
+          status =
+              Status.builder()
+                  .errMsg(
+                      "Error Deleting Account, Deletion Running On Another Instance: " + accountId)
+                  .build();
+        } else if (deleteAccount
+            && accountDao.updateAccountStatus(accountId, ACCOUNT_STATUS_DELETING) == 0) {
+          jobLeases.release(LEASE_NAME_PREFIX + accountId);
+          status =
+              Status.builder()
+                  .errMsg("Error Deleting Account, Account Not Found: " + accountId)
+                  .build();
+        } else {
+          // the account leaves the lists as soon as it is marked deleting
+          userDataCache.accounts().invalidateIds(singletonList(accountId));
+          accountDeletionJob = submit(newJob(accountId, deleteAccount));
+        }
+      }
+    } catch (Exception ex) {
+      logger.error("Start Account Deletion: {} | {}", accountId, deleteAccount, ex);
+      status =
+          Status.builder()
+              .errMsg("Error Deleting Account, Please Try Again!!!")
+              .message(ex.toString())
+              .build();
+    }
+
+    logger.info("After Start Account Deletion: {} | {}", accountId, accountDeletionJob);
+    return AccountDeletionJobResponse.builder()
+        .accountDeletionJobs(
+            accountDeletionJob == null ? emptyList() : singletonList(accountDeletionJob))
+        .status(status)
+        .build();
+  }
+
+  public AccountDeletionJobResponse getDeletionJob(String jobId) {
+    AccountDeletionJob accountDeletionJob = accountDeletionJobDao.getJobById(jobId);
+    return AccountDeletionJobResponse.builder()
+        .accountDeletionJobs(
+            accountDeletionJob == null ? emptyList() : singletonList(accountDeletionJob))
+        .build();
+  }
+
+  /**
+   * Takes over the unfinished jobs, and the DELETING accounts without one, that are not running on
+   * this or any other instance.
+   */
+  @Scheduled(
+      initialDelayString = "${pets.account-deletion.resume.initial-delay:PT1M}",
+      fixedDelayString = "${pets.account-deletion.resume.fixed-delay:PT10M}")
+  public void resumeDeletions() {
+    try {
+      Map<String, AccountDeletionJob> jobs = new LinkedHashMap<>();
+      for (AccountDeletionJob job : accountDeletionJobDao.getUnfinishedJobs()) {
+        jobs.put(job.getAccountId(), job);
+      }
+      for (Account account : accountDao.getAccountsByStatus(ACCOUNT_STATUS_DELETING)) {
+        jobs.computeIfAbsent(account.getId(), accountId -> newJob(accountId, true));
+      }
+
+      for (AccountDeletionJob job : jobs.values()) {
+        if (!accountIds.contains(job.getAccountId())
+            && jobLeases.acquire(LEASE_NAME_PREFIX + job.getAccountId(), leaseDuration)) {
+          logger.info("Resume Account Deletion: {} | {}", job.getAccountId(), job.getId());
+          submit(job);
+        }
+      }
+    } catch (Exception ex) {
+      logger.error("Resume Account Deletions", ex);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executorService.shutdownNow();
+  }
+
+  private static AccountDeletionJob newJob(String accountId, boolean deleteAccount) {
+    return AccountDeletionJob.builder()
+        .id(UUID.randomUUID().toString())
+        .accountId(accountId)
+        .deleteAccount(deleteAccount)
+        .batches(0L)
+        .deletedTransactions(0L)
+        .accountDeleted(false)
+        .build();
+  }
+
+  /** The caller holds the lease of the account, a job taken over continues from its progress. */
+  private AccountDeletionJob submit(AccountDeletionJob job) {
+    accountDeletionJobDao.deleteJobsEndedBefore(LocalDateTime.now().minusDays(1).toString());
+
+    AccountDeletionJob accountDeletionJob = update(job.toBuilder().state(STATE_QUEUED).build());
+    accountIds.add(accountDeletionJob.getAccountId());
+    executorService.submit(() -> run(accountDeletionJob));
+    return accountDeletionJob;
+  }
+
+  private void run(AccountDeletionJob queuedJob) {
+    String accountId = queuedJob.getAccountId();
+    AccountDeletionJob job = queuedJob;
+
+    try {
+      if (!renewLease(job)) {
+        return;
+      }
+      // jobs are replaced rather than changed, so readers always see a consistent copy
+      job =
+          update(
+              job.toBuilder()
+                  .state(STATE_RUNNING)
+                  .startTime(
+                      job.getStartTime() == null
+                          ? LocalDateTime.now().toString()
+                          : job.getStartTime())
+                  .build());
+
+      Set<String> linkedAccountIds = new HashSet<>(transactionDao.getLinkedAccountIds(accountId));
+      String endId = transactionDao.getTransactionsBatchEndId(accountId, batchSize);
+
+      while (endId != null) {
+        if (!renewLease(job)) {
+          return;
+        }
+        List<UsageTotal> usageTotals = transactionDao.getUsageTotalsByAccountId(accountId, endId);
+        long deleted = transactionDao.deleteTransactionsByAccountId(accountId, endId);
+        usageCountService.applyRemovedTransactions(usageTotals);
+        job =
+            update(
+                job.toBuilder()
+                    .batches(job.getBatches() + 1)
+                    .deletedTransactions(job.getDeletedTransactions() + deleted)
+                    .build());
+
+        Thread.sleep(batchPause.toMillis());
+        endId = transactionDao.getTransactionsBatchEndId(accountId, batchSize);
+      }
+
+      if (Boolean.TRUE.equals(job.getDeleteAccount())) {
+        job =
+            update(
+                job.toBuilder()
+                    .accountDeleted(accountDao.deleteAccountById(accountId) > 0)
+                    .build());
+      } else {
+        linkedAccountIds.add(accountId);
+      }
+
+      transactionSummaryCache.invalidateAll();
+      userDataCache.accounts().invalidateIds(singletonList(accountId));
+      accountBalanceService.reconcileAccounts(linkedAccountIds);
+
+      job =
+          update(
+              job.toBuilder()
+                  .state(STATE_COMPLETED)
+                  .endTime(LocalDateTime.now().toString())
+                  .build());
+      logger.info("Account Deletion Completed: {}", job);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      failed(job, ex);
+    } catch (Exception ex) {
+      failed(job, ex);
+    } finally {
+      jobLeases.release(LEASE_NAME_PREFIX + accountId);
+      accountIds.remove(accountId);
+    }
+  }
+
+  /**
+   * A job queued behind a long one may find its lease taken over by another instance, which then
+   * continues the stored job, so this instance stops without updating it.
+   */
+  private boolean renewLease(AccountDeletionJob job) {
+    if (jobLeases.acquire(LEASE_NAME_PREFIX + job.getAccountId(), leaseDuration)) {
+      return true;
+    }
+    logger.info("Account Deletion Taken Over By Another Instance: {}", job);
+    return false;
+  }
+
+  private void failed(AccountDeletionJob job, Exception ex) {
+    logger.error("Account Deletion Failed: {}", job, ex);
+    update(
+        job.toBuilder()
+            .state(STATE_FAILED)
+            .endTime(LocalDateTime.now().toString())
+            .status(
+                Status.builder()
+                    .errMsg("Error Deleting Account, Please Try Again!!!")
+                    .message(ex.toString())
+                    .build())
+            .build());
+  }
+
+  private AccountDeletionJob update(AccountDeletionJob job) {
+    accountDeletionJobDao.saveJob(job);
+    return job;
+  }
+}
@@ -9,12 +9,16 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import pets.database.cache.UserDataCache;
 import pets.database.model.*;
 import pets.database.repository.AccountDao;
+import pets.database.repository.Listings;
+import pets.database.utils.CursorUtils;
 
 @Service
 public class AccountService {
@@ -24,20 +28,35 @@ public class AccountService {
       "Error Updating Account, Please Try Again!!!";
 
   private final AccountDao accountDao;
+  private final AccountBalanceService accountBalanceService;
+  private final UserDataCache userDataCache;
 
-  public AccountService(AccountDao accountDao) {
+  public AccountService(
+      AccountDao accountDao,
+      AccountBalanceService accountBalanceService,
+      UserDataCache userDataCache) {
     this.accountDao = accountDao;
+    this.accountBalanceService = accountBalanceService;
+    this.userDataCache = userDataCache;
   }
 
-  public AccountResponse getAllAccounts() {
-    logger.info("Before Get All Accounts");
-    List<Account> allAccounts = new ArrayList<>();
+  public AccountResponse getAllAccounts(int limit, String after, List<String> fields) {
+    logger.info("Before Get All Accounts: {} | {}", limit, after);
+    List<Account> accounts = new ArrayList<>();
+    String nextCursor = null;
     Status status = null;
 
     try {
-      allAccounts = accountDao.getAllAccounts();
+      String afterId = hasText(after) ? CursorUtils.decode(after, 1)[0] : null;
+      // one extra row tells if there is a next page without running a count
+      accounts = accountDao.getAllAccounts(afterId, limit + 1, fields);
+
+      if (accounts.size() > limit) {
+        accounts = new ArrayList<>(accounts.subList(0, limit));
+        nextCursor = CursorUtils.encode(accounts.get(limit - 1).getId());
+      }
     } catch (Exception ex) {
-      logger.error("Get All Accounts", ex);
+      logger.error("Get All Accounts: {} | {}", limit, after, ex);
       status =
           Status.builder()
               .errMsg("Error Retrieving All Accounts, Please Try Again!!!")
@@ -45,8 +64,20 @@ public class AccountService {
               .build();
     }
 
-    logger.info("After Get All Accounts: {}", allAccounts.size());
-    return AccountResponse.builder().accounts(allAccounts).status(status).build();
+    logger.info("After Get All Accounts: {} | {}", accounts.size(), nextCursor);
+    return AccountResponse.builder()
+        .accounts(accounts)
+        .nextCursor(nextCursor)
+        .status(status)
+        .build();
+  }
+
+  /**
+   * Hands each account to the consumer as it is read from the cursor. Errors are rethrown after
+   * logging because the response is already committed by the time they happen.
+   */
+  public long streamAllAccounts(Consumer<Account> consumer) {
+    return Listings.forEach(logger, "Stream All Accounts", accountDao::streamAllAccounts, consumer);
   }
 
   public AccountResponse getAccountById(String id) {
@@ -72,13 +103,17 @@ public class AccountService {
         .build();
   }
 
-  public AccountResponse getAccountsByUsername(String username) {
+  public AccountResponse getAccountsByUsername(String username, List<String> fields) {
     logger.info("Before Get Accounts By User Name: {}", username);
     List<Account> accounts = new ArrayList<>();
     Status status = null;
 
     try {
-      accounts = accountDao.getAllAccountsByUsername(username);
+      // only the full documents are cached, projections are read from the database
+      accounts =
+          fields == null || fields.isEmpty()
+              ? userDataCache.accounts().get(username, () -> loadAccounts(username))
+              : accountDao.getAllAccountsByUsername(username, fields);
     } catch (Exception ex) {
       logger.error("Get Account By User Name: {}", username, ex);
       status =
@@ -92,6 +127,17 @@ public class AccountService {
     return AccountResponse.builder().accounts(accounts).status(status).build();
   }
 
+  /**
+   * @return etag of the full accounts of the user, from the cache unless the list is not cached
+   */
+  public String getAccountsETagByUsername(String username) {
+    return userDataCache.accounts().getETag(username, () -> loadAccounts(username));
+  }
+
+  private List<Account> loadAccounts(String username) {
+    return accountDao.getAllAccountsByUsername(username, null);
+  }
+
   public AccountResponse saveNewAccount(AccountRequest accountRequest) {
     logger.info("Before Save New Account: {}", accountRequest);
     Account newAccount;
@@ -105,7 +151,9 @@ public class AccountService {
               .user(User.builder().username(accountRequest.getUsername()).build())
               .description(accountRequest.getDescription())
               .openingBalance(accountRequest.getOpeningBalance())
+              .currentBalance(accountRequest.getOpeningBalance())
               .status(accountRequest.getStatus())
+              .usageCount(0L)
               .creationDate(LocalDate.now().toString())
               .lastModified(LocalDateTime.now().toString())
               .build();
@@ -115,6 +163,8 @@ public class AccountService {
       if (!hasText(newAccount.getId())) {
         newAccount = null;
         status = Status.builder().errMsg("Error Saving Account, Please Try Again!!!").build();
+      } else {
+        userDataCache.accounts().invalidate(accountRequest.getUsername());
       }
     } catch (Exception ex) {
       logger.error("Save New Account: {}", accountRequest, ex);
@@ -159,6 +209,9 @@ public class AccountService {
       long modifiedCount = accountDao.updateAccountById(id, update);
 
       if (modifiedCount > 0) {
+        userDataCache.accounts().invalidateIds(singletonList(id));
+        // the opening balance may have changed
+        accountBalanceService.reconcileAccounts(singletonList(id));
         accountResponse = getAccountById(id);
       } else {
         status = Status.builder().errMsg(ERROR_UPDATING_ACCOUNT).build();
@@ -174,27 +227,7 @@ public class AccountService {
     return accountResponse;
   }
 
-  public AccountResponse deleteAccountById(String id) {
-    logger.info("Before Delete Account By Id: {}", id);
-    long deleteCount = 0;
-    Status status = null;
-
-    try {
-      deleteCount = accountDao.deleteAccountById(id);
-    } catch (Exception ex) {
-      logger.error("Delete Account By Id: {}", id, ex);
-      status =
-          Status.builder()
-              .errMsg("Error Deleting Account, Please Try Again!!!")
-              .message(ex.toString())
-              .build();
-    }
-
-    logger.info("After Delete Account By Id: {} | deleteCount: {}", id, deleteCount);
-    return AccountResponse.builder()
-        .accounts(emptyList())
-        .deleteCount(deleteCount)
-        .status(status)
-        .build();
+  public AccountResponse reconcileBalances() {
+    return accountBalanceService.reconcileBalances();
   }
 }
@@ -0,0 +1,135 @@
+package pets.database.service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import pets.database.cache.ReferenceDataCache;
+import pets.database.model.AccountResponse;
+import pets.database.model.BootstrapResponse;
+import pets.database.model.RefAccountType;
+import pets.database.model.RefBank;
+import pets.database.model.RefCategory;
+import pets.database.model.RefCategoryType;
+import pets.database.model.RefMerchantResponse;
+import pets.database.model.RefTransactionType;
+import pets.database.model.Status;
+import pets.database.utils.ETags;
+
+/**
+ * Everything the client reads at launch in one response: the reference tables and the merchants and
+ * accounts of the user. The parts are read concurrently, reference tables usually come straight
+ * from the cache.
+ */
+@Service
+public class BootstrapService {
+  private static final Logger logger = LoggerFactory.getLogger(BootstrapService.class);
+
+  private final ReferenceDataCache referenceDataCache;
+  private final RefMerchantService refMerchantService;
+  private final AccountService accountService;
+
+  // the tasks wait on mongo, a virtual thread each keeps them off the request threads
+  private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+
+  public BootstrapService(
+      ReferenceDataCache referenceDataCache,
+      RefMerchantService refMerchantService,
+      AccountService accountService) {
+    this.referenceDataCache = referenceDataCache;
+    this.refMerchantService = refMerchantService;
+    this.accountService = accountService;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executorService.shutdownNow();
+  }
+
+  public BootstrapResponse getBootstrapByUsername(String username) {
+    logger.info("Before Get Bootstrap By Username: {}", username);
+    BootstrapResponse bootstrapResponse;
+
+    try {
+      CompletableFuture<RefMerchantResponse> refMerchantResponse =
+          async(() -> refMerchantService.getAllRefMerchantsByUsername(username));
+      CompletableFuture<AccountResponse> accountResponse =
+          async(() -> accountService.getAccountsByUsername(username, null));
+      CompletableFuture<List<RefAccountType>> refAccountTypes =
+          async(() -> referenceDataCache.refAccountTypes().getAll());
+      CompletableFuture<List<RefBank>> refBanks =
+          async(() -> referenceDataCache.refBanks().getAll());
+      CompletableFuture<List<RefCategoryType>> refCategoryTypes =
+          async(() -> referenceDataCache.refCategoryTypes().getAll());
+      CompletableFuture<List<RefCategory>> refCategories =
+          async(() -> referenceDataCache.refCategories().getAll());
+      CompletableFuture<List<RefTransactionType>> refTransactionTypes =
+          async(() -> referenceDataCache.refTransactionTypes().getAll());
+
+      Status status =
+          refMerchantResponse.join().getStatus() != null
+              ? refMerchantResponse.join().getStatus()
+              : accountResponse.join().getStatus();
+
+      bootstrapResponse =
+          status != null
+              ? BootstrapResponse.builder().status(status).build()
+              : BootstrapResponse.builder()
+                  .refAccountTypes(refAccountTypes.join())
+                  .refBanks(refBanks.join())
+                  .refCategoryTypes(refCategoryTypes.join())
+                  .refCategories(refCategories.join())
+                  .refTransactionTypes(refTransactionTypes.join())
+                  .refMerchants(refMerchantResponse.join().getRefMerchants())
+                  .accounts(accountResponse.join().getAccounts())
+                  .build();
+    } catch (Exception ex) {
+      logger.error("Get Bootstrap By Username: {}", username, ex);
+      bootstrapResponse =
+          BootstrapResponse.builder()
+              .status(
+                  Status.builder()
+                      .errMsg("Error Retrieving Bootstrap By Username, Please Try Again!!!")
+                      .message(ex.toString())
+                      .build())
+              .build();
+    }
+
+    logger.info(
+        "After Get Bootstrap By Username: {} | {}",
+        username,
+        bootstrapResponse.getStatus() == null);
+    return bootstrapResponse;
+  }
+
+  /**
+   * @return one etag over the etags of every part, which the caches keep, so a request the client
+   *     is current for is answered without building the response; null if any part fails
+   * @apiNote read it before the response, so it is never newer than the response
+   */
+  public String getBootstrapETag(String username) {
+    try {
+      return ETags.of(
+          List.of(
+              referenceDataCache.refAccountTypes().getETag(),
+              referenceDataCache.refBanks().getETag(),
+              referenceDataCache.refCategoryTypes().getETag(),
+              referenceDataCache.refCategories().getETag(),
+              referenceDataCache.refTransactionTypes().getETag(),
+              refMerchantService.getRefMerchantsETagByUsername(username),
+              accountService.getAccountsETagByUsername(username)));
+    } catch (Exception ex) {
+      logger.error("Get Bootstrap ETag: {}", username, ex);
+      return null;
+    }
+  }
+
+  private <T> CompletableFuture<T> async(Supplier<T> supplier) {
+    return CompletableFuture.supplyAsync(supplier, executorService);
+  }
+}
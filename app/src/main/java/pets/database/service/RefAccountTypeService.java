@@ -13,6 +13,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import pets.database.cache.ReferenceDataCache;
 import pets.database.model.RefAccountType;
 import pets.database.model.RefAccountTypeRequest;
 import pets.database.model.RefAccountTypeResponse;
@@ -24,9 +25,12 @@ public class RefAccountTypeService {
   private static final Logger logger = LoggerFactory.getLogger(RefAccountTypeService.class);
 
   private final RefAccountTypeDao refAccountTypeDao;
+  private final ReferenceDataCache referenceDataCache;
 
-  public RefAccountTypeService(RefAccountTypeDao refAccountTypeDao) {
+  public RefAccountTypeService(
+      RefAccountTypeDao refAccountTypeDao, ReferenceDataCache referenceDataCache) {
     this.refAccountTypeDao = refAccountTypeDao;
+    this.referenceDataCache = referenceDataCache;
   }
 
   public RefAccountTypeResponse getAllRefAccountTypes() {
@@ -35,7 +39,7 @@ public class RefAccountTypeService {
     Status status = null;
 
     try {
-      refAccountTypes = refAccountTypeDao.getAllRefAccountTypes();
+      refAccountTypes = referenceDataCache.refAccountTypes().getAll();
     } catch (Exception ex) {
       logger.error("Get All Ref Account Types");
       status =
@@ -49,13 +53,25 @@ public class RefAccountTypeService {
     return RefAccountTypeResponse.builder().refAccountTypes(refAccountTypes).status(status).build();
   }
 
+  /**
+   * @return etag of all account types, null if they cannot be loaded
+   */
+  public String getRefAccountTypesETag() {
+    try {
+      return referenceDataCache.refAccountTypes().getETag();
+    } catch (Exception ex) {
+      logger.error("Get Ref Account Types ETag", ex);
+      return null;
+    }
+  }
+
   public RefAccountTypeResponse getRefAccountTypeById(String id) {
     logger.info("Before Get Ref Account Type By Id: {}", id);
     RefAccountType refAccountType = null;
     Status status = null;
 
     try {
-      refAccountType = refAccountTypeDao.getRefAccountTypeById(id);
+      refAccountType = referenceDataCache.refAccountTypes().getById(id);
     } catch (Exception ex) {
       logger.error("Get Ref Account Type By Id: {}", id, ex);
       status =
@@ -86,6 +102,7 @@ public class RefAccountTypeService {
               .build();
 
       newRefAccountType = refAccountTypeDao.saveNewRefAccountType(newRefAccountType);
+      referenceDataCache.refAccountTypes().invalidate();
 
       if (!hasText(newRefAccountType.getId())) {
         newRefAccountType = null;
@@ -122,6 +139,7 @@ public class RefAccountTypeService {
       update.set("lastModified", LocalDateTime.now().toString());
 
       long modifiedCount = refAccountTypeDao.updateRefAccountTypeById(id, update);
+      referenceDataCache.refAccountTypes().invalidate();
 
       if (modifiedCount > 0) {
         refAccountTypeResponse = getRefAccountTypeById(id);
@@ -153,6 +171,7 @@ public class RefAccountTypeService {
 
     try {
       deleteCount = refAccountTypeDao.deleteRefAccountTypeById(id);
+      referenceDataCache.refAccountTypes().invalidate();
     } catch (Exception ex) {
       logger.error("Delete Ref Account Type By Id: {}", id, ex);
       status =
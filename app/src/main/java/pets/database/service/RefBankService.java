@@ -13,6 +13,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import pets.database.cache.ReferenceDataCache;
 import pets.database.model.RefBank;
 import pets.database.model.RefBankRequest;
 import pets.database.model.RefBankResponse;
@@ -24,9 +25,11 @@ public class RefBankService {
   private static final Logger logger = LoggerFactory.getLogger(RefBankService.class);
 
   private final RefBankDao refBankDao;
+  private final ReferenceDataCache referenceDataCache;
 
-  public RefBankService(RefBankDao refBankDao) {
+  public RefBankService(RefBankDao refBankDao, ReferenceDataCache referenceDataCache) {
     this.refBankDao = refBankDao;
+    this.referenceDataCache = referenceDataCache;
   }
 
   public RefBankResponse getAllRefBanks() {
@@ -35,7 +38,7 @@ public class RefBankService {
     Status status = null;
 
     try {
-      refBanks = refBankDao.getAllRefBanks();
+      refBanks = referenceDataCache.refBanks().getAll();
     } catch (Exception ex) {
       logger.error("Get All Ref Banks");
       status =
@@ -49,13 +52,25 @@ public class RefBankService {
     return RefBankResponse.builder().refBanks(refBanks).status(status).build();
   }
 
+  /**
+   * @return etag of all banks, null if they cannot be loaded
+   */
+  public String getRefBanksETag() {
+    try {
+      return referenceDataCache.refBanks().getETag();
+    } catch (Exception ex) {
+      logger.error("Get Ref Banks ETag", ex);
+      return null;
+    }
+  }
+
   public RefBankResponse getRefBankById(String id) {
     logger.info("Before Get Ref Bank By Id: {}", id);
     RefBank refBank = null;
     Status status = null;
 
     try {
-      refBank = refBankDao.getRefBankById(id);
+      refBank = referenceDataCache.refBanks().getById(id);
     } catch (Exception ex) {
       logger.error("Get Ref Bank By Id: {}", id, ex);
       status =
@@ -86,6 +101,7 @@ public class RefBankService {
               .build();
 
       newRefBank = refBankDao.saveNewRefBank(newRefBank);
+      referenceDataCache.refBanks().invalidate();
 
       if (!hasText(newRefBank.getId())) {
         newRefBank = null;
@@ -121,6 +137,7 @@ public class RefBankService {
       update.set("lastModified", LocalDateTime.now().toString());
 
       long modifiedCount = refBankDao.updateRefBankById(id, update);
+      referenceDataCache.refBanks().invalidate();
 
       if (modifiedCount > 0) {
         refBankResponse = getRefBankById(id);
@@ -149,6 +166,7 @@ public class RefBankService {
 
     try {
       deleteCount = refBankDao.deleteRefBankById(id);
+      referenceDataCache.refBanks().invalidate();
     } catch (Exception ex) {
       logger.error("Delete Ref Bank By Id: {}", id, ex);
       status =
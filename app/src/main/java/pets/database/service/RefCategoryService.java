@@ -5,6 +5,8 @@ import static java.util.Collections.singletonList;
 import static org.springframework.util.StringUtils.hasText;
 import static pets.database.utils.Constants.FIELD_NAME_DESCRIPTION;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -13,6 +15,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import pets.database.cache.RefCategoryTreeCache;
+import pets.database.cache.RefCategoryTreeCache.SerializedTree;
+import pets.database.cache.ReferenceDataCache;
 import pets.database.model.*;
 import pets.database.repository.RefCategoryDao;
 
@@ -21,9 +26,19 @@ public class RefCategoryService {
   private static final Logger logger = LoggerFactory.getLogger(RefCategoryService.class);
 
   private final RefCategoryDao refCategoryDao;
-
-  public RefCategoryService(RefCategoryDao refCategoryDao) {
+  private final ReferenceDataCache referenceDataCache;
+  private final RefCategoryTreeCache refCategoryTreeCache;
+  private final ObjectMapper objectMapper;
+
+  public RefCategoryService(
+      RefCategoryDao refCategoryDao,
+      ReferenceDataCache referenceDataCache,
+      RefCategoryTreeCache refCategoryTreeCache,
+      ObjectMapper objectMapper) {
     this.refCategoryDao = refCategoryDao;
+    this.referenceDataCache = referenceDataCache;
+    this.refCategoryTreeCache = refCategoryTreeCache;
+    this.objectMapper = objectMapper;
   }
 
   public RefCategoryResponse getAllRefCategories() {
@@ -32,7 +47,7 @@ public class RefCategoryService {
     Status status = null;
 
     try {
-      refCategories = refCategoryDao.getAllRefCategories();
+      refCategories = referenceDataCache.refCategories().getAll();
     } catch (Exception ex) {
       logger.error("Get All Ref Categories");
       status =
@@ -46,13 +61,53 @@ public class RefCategoryService {
     return RefCategoryResponse.builder().refCategories(refCategories).status(status).build();
   }
 
+  /**
+   * @return etag of all categories, null if they cannot be loaded
+   */
+  public String getRefCategoriesETag() {
+    try {
+      return referenceDataCache.refCategories().getETag();
+    } catch (Exception ex) {
+      logger.error("Get Ref Categories ETag", ex);
+      return null;
+    }
+  }
+
+  /**
+   * @return the serialized tree response, or the serialized error response without an etag
+   * @apiNote not logged before and after like the other reads, it is served without building
+   *     anything per request
+   */
+  public SerializedTree getRefCategoryTree() {
+    try {
+      return refCategoryTreeCache.get();
+    } catch (Exception ex) {
+      logger.error("Get Ref Category Tree", ex);
+      RefCategoryTreeResponse refCategoryTreeResponse =
+          RefCategoryTreeResponse.builder()
+              .refCategoryTrees(emptyList())
+              .status(
+                  Status.builder()
+                      .errMsg("Error Retrieving Category Tree, Please Try Again!!!")
+                      .message(ex.toString())
+                      .build())
+              .build();
+      try {
+        return new SerializedTree(
+            objectMapper.writeValueAsBytes(refCategoryTreeResponse), null, null, null);
+      } catch (JsonProcessingException jsonProcessingException) {
+        throw new IllegalStateException(jsonProcessingException);
+      }
+    }
+  }
+
   public RefCategoryResponse getRefCategoryById(String id) {
     logger.info("Before Get Ref Category By Id: {}", id);
     RefCategory refCategory = null;
     Status status = null;
 
     try {
-      refCategory = refCategoryDao.getRefCategoryById(id);
+      refCategory = referenceDataCache.refCategories().getById(id);
     } catch (Exception ex) {
       logger.error("Get Ref Category By Id: {}", id, ex);
       status =
@@ -80,11 +135,13 @@ public class RefCategoryService {
               .description(refCategoryRequest.getDescription())
               .refCategoryType(
                   RefCategoryType.builder().id(refCategoryRequest.getCategoryTypeId()).build())
+              .usageCount(0L)
               .creationDate(LocalDate.now().toString())
               .lastModified(LocalDateTime.now().toString())
               .build();
 
       newRefCategory = refCategoryDao.saveNewRefCategory(newRefCategory);
+      referenceDataCache.refCategories().invalidate();
 
       if (!hasText(newRefCategory.getId())) {
         newRefCategory = null;
@@ -121,6 +178,7 @@ public class RefCategoryService {
       update.set("lastModified", LocalDateTime.now().toString());
 
       long modifiedCount = refCategoryDao.updateRefCategoryById(id, update);
+      referenceDataCache.refCategories().invalidate();
 
       if (modifiedCount > 0) {
         refCategoryResponse = getRefCategoryById(id);
@@ -147,10 +205,28 @@ public class RefCategoryService {
   public RefCategoryResponse deleteRefCategoryById(String id) {
     logger.info("Before Delete Ref Category By Id: {}", id);
     long deleteCount = 0;
+    RefCategory refCategoryInUse = null;
     Status status = null;
 
     try {
       deleteCount = refCategoryDao.deleteRefCategoryById(id);
+
+      if (deleteCount == 0) {
+        // only unused category documents are deleted, read it to tell why nothing was
+        refCategoryInUse = refCategoryDao.getRefCategoryById(id);
+        if (refCategoryInUse != null) {
+          status =
+              Status.builder()
+                  .errMsg(
+                      refCategoryInUse.getUsageCount() == null
+                          ? "Error Deleting Category, Usage Not Counted Yet, Please Try Again Later!!!"
+                          : "Error Deleting Category, Used In "
+                              + refCategoryInUse.getUsageCount()
+                              + " Transactions!!!")
+                  .build();
+        }
+      }
+      referenceDataCache.refCategories().invalidate();
     } catch (Exception ex) {
       logger.error("Delete Ref Category By Id: {}", id, ex);
       status =
@@ -162,7 +238,7 @@ public class RefCategoryService {
 
     logger.info("After Delete Ref Category By Id: {} | {}", id, deleteCount);
     return RefCategoryResponse.builder()
-        .refCategories(emptyList())
+        .refCategories(refCategoryInUse == null ? emptyList() : singletonList(refCategoryInUse))
         .deleteCount(deleteCount)
         .status(status)
         .build();
@@ -13,6 +13,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import pets.database.cache.RefCategoryTreeCache;
+import pets.database.cache.ReferenceDataCache;
 import pets.database.model.RefCategoryType;
 import pets.database.model.RefCategoryTypeRequest;
 import pets.database.model.RefCategoryTypeResponse;
@@ -24,9 +26,16 @@ public class RefCategoryTypeService {
   private static final Logger logger = LoggerFactory.getLogger(RefCategoryTypeService.class);
 
   private final RefCategoryTypeDao refCategoryTypeDao;
+  private final ReferenceDataCache referenceDataCache;
+  private final RefCategoryTreeCache refCategoryTreeCache;
 
-  public RefCategoryTypeService(RefCategoryTypeDao refCategoryTypeDao) {
+  public RefCategoryTypeService(
+      RefCategoryTypeDao refCategoryTypeDao,
+      ReferenceDataCache referenceDataCache,
+      RefCategoryTreeCache refCategoryTreeCache) {
     this.refCategoryTypeDao = refCategoryTypeDao;
+    this.referenceDataCache = referenceDataCache;
+    this.refCategoryTreeCache = refCategoryTreeCache;
   }
 
   public RefCategoryTypeResponse getAllRefCategoryTypes() {
@@ -35,7 +44,7 @@ public class RefCategoryTypeService {
     Status status = null;
 
     try {
-      refCategoryTypes = refCategoryTypeDao.getAllRefCategoryTypes();
+      refCategoryTypes = referenceDataCache.refCategoryTypes().getAll();
     } catch (Exception ex) {
       logger.error("Get All Ref Category Types");
       status =
@@ -52,13 +61,25 @@ public class RefCategoryTypeService {
         .build();
   }
 
+  /**
+   * @return etag of all category types, null if they cannot be loaded
+   */
+  public String getRefCategoryTypesETag() {
+    try {
+      return referenceDataCache.refCategoryTypes().getETag();
+    } catch (Exception ex) {
+      logger.error("Get Ref Category Types ETag", ex);
+      return null;
+    }
+  }
+
   public RefCategoryTypeResponse getRefCategoryTypeById(String id) {
     logger.info("Before Get Ref Category Type By Id: {}", id);
     RefCategoryType refCategoryType = null;
     Status status = null;
 
     try {
-      refCategoryType = refCategoryTypeDao.getRefCategoryTypeById(id);
+      refCategoryType = referenceDataCache.refCategoryTypes().getById(id);
     } catch (Exception ex) {
       logger.error("Get Ref Category Type By Id: {}", id, ex);
       status =
@@ -90,6 +111,7 @@ public class RefCategoryTypeService {
               .build();
 
       newRefCategoryType = refCategoryTypeDao.saveNewRefCategoryType(newRefCategoryType);
+      invalidateCaches();
 
       if (!hasText(newRefCategoryType.getId())) {
         newRefCategoryType = null;
@@ -127,6 +149,7 @@ public class RefCategoryTypeService {
       update.set("lastModified", LocalDateTime.now().toString());
 
       long modifiedCount = refCategoryTypeDao.updateRefCategoryTypeById(id, update);
+      invalidateCaches();
 
       if (modifiedCount > 0) {
         refCategoryTypeResponse = getRefCategoryTypeById(id);
@@ -158,6 +181,7 @@ public class RefCategoryTypeService {
 
     try {
       deleteCount = refCategoryTypeDao.deleteRefCategoryTypeById(id);
+      invalidateCaches();
     } catch (Exception ex) {
       logger.error("Delete Ref Category Type By Id: {}", id, ex);
       status =
@@ -174,4 +198,11 @@ public class RefCategoryTypeService {
         .status(status)
         .build();
   }
+
+  /** Categories carry their category type, so they and the tree are reloaded with the types. */
+  private void invalidateCaches() {
+    referenceDataCache.refCategoryTypes().invalidate();
+    referenceDataCache.refCategories().invalidate();
+    refCategoryTreeCache.invalidate();
+  }
 }
@@ -9,32 +9,52 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import pets.database.cache.MerchantPrefixIndex;
+import pets.database.cache.UserDataCache;
 import pets.database.model.*;
+import pets.database.repository.Listings;
 import pets.database.repository.RefMerchantDao;
+import pets.database.utils.CursorUtils;
 
 @Service
 public class RefMerchantService {
   private static final Logger logger = LoggerFactory.getLogger(RefMerchantService.class);
 
   private final RefMerchantDao refMerchantDao;
+  private final MerchantPrefixIndex merchantPrefixIndex;
+  private final UserDataCache userDataCache;
 
-  public RefMerchantService(RefMerchantDao refMerchantDao) {
+  public RefMerchantService(
+      RefMerchantDao refMerchantDao,
+      MerchantPrefixIndex merchantPrefixIndex,
+      UserDataCache userDataCache) {
     this.refMerchantDao = refMerchantDao;
+    this.merchantPrefixIndex = merchantPrefixIndex;
+    this.userDataCache = userDataCache;
   }
 
-  public RefMerchantResponse getAllRefMerchants() {
-    logger.info("Before Get All Ref Merchants");
+  public RefMerchantResponse getAllRefMerchants(int limit, String after) {
+    logger.info("Before Get All Ref Merchants: {} | {}", limit, after);
     List<RefMerchant> refMerchants = new ArrayList<>();
+    String nextCursor = null;
     Status status = null;
 
     try {
-      refMerchants = refMerchantDao.getAllRefMerchants();
+      String afterId = hasText(after) ? CursorUtils.decode(after, 1)[0] : null;
+      // one extra row tells if there is a next page without running a count
+      refMerchants = refMerchantDao.getAllRefMerchants(afterId, limit + 1);
+
+      if (refMerchants.size() > limit) {
+        refMerchants = new ArrayList<>(refMerchants.subList(0, limit));
+        nextCursor = CursorUtils.encode(refMerchants.get(limit - 1).getId());
+      }
     } catch (Exception ex) {
-      logger.error("Get All Ref Merchants");
+      logger.error("Get All Ref Merchants: {} | {}", limit, after, ex);
       status =
           Status.builder()
               .errMsg("Error Retrieving All Merchants, Please Try Again!!!")
@@ -42,8 +62,21 @@ public class RefMerchantService {
               .build();
     }
 
-    logger.info("After Get All Ref Merchants: {}", refMerchants.size());
-    return RefMerchantResponse.builder().refMerchants(refMerchants).status(status).build();
+    logger.info("After Get All Ref Merchants: {} | {}", refMerchants.size(), nextCursor);
+    return RefMerchantResponse.builder()
+        .refMerchants(refMerchants)
+        .nextCursor(nextCursor)
+        .status(status)
+        .build();
+  }
+
+  /**
+   * Hands each merchant to the consumer as it is read from the cursor. Errors are rethrown after
+   * logging because the response is already committed by the time they happen.
+   */
+  public long streamAllRefMerchants(Consumer<RefMerchant> consumer) {
+    return Listings.forEach(
+        logger, "Stream All Ref Merchants", refMerchantDao::streamAllRefMerchants, consumer);
   }
 
   public RefMerchantResponse getAllRefMerchantsByUsername(String username) {
@@ -52,7 +85,7 @@ public class RefMerchantService {
     Status status = null;
 
     try {
-      refMerchants = refMerchantDao.getAllRefMerchantsByUsername(username);
+      refMerchants = userDataCache.refMerchants().get(username, () -> loadRefMerchants(username));
     } catch (Exception ex) {
       logger.error("Get All Ref Merchants By Username: {}", username, ex);
       status =
@@ -66,6 +99,38 @@ public class RefMerchantService {
     return RefMerchantResponse.builder().refMerchants(refMerchants).status(status).build();
   }
 
+  /**
+   * @return etag of the merchants of the user, from the cache unless the list is not cached
+   */
+  public String getRefMerchantsETagByUsername(String username) {
+    return userDataCache.refMerchants().getETag(username, () -> loadRefMerchants(username));
+  }
+
+  private List<RefMerchant> loadRefMerchants(String username) {
+    return refMerchantDao.getAllRefMerchantsByUsername(username);
+  }
+
+  public RefMerchantResponse searchRefMerchantsByUsername(
+      String username, String prefix, int limit) {
+    logger.info("Before Search Ref Merchants By Username: {} | {} | {}", username, prefix, limit);
+    List<RefMerchant> refMerchants = new ArrayList<>();
+    Status status = null;
+
+    try {
+      refMerchants = merchantPrefixIndex.search(username, prefix, limit);
+    } catch (Exception ex) {
+      logger.error("Search Ref Merchants By Username: {} | {}", username, prefix, ex);
+      status =
+          Status.builder()
+              .errMsg("Error Searching Merchants By Username, Please Try Again!!!")
+              .message(ex.toString())
+              .build();
+    }
+
+    logger.info("After Search Ref Merchants By Username: {}", refMerchants.size());
+    return RefMerchantResponse.builder().refMerchants(refMerchants).status(status).build();
+  }
+
   public RefMerchantResponse getRefMerchantById(String id) {
     logger.info("Before Get Ref Merchant By Id: {}", id);
     RefMerchant refMerchant = null;
@@ -99,6 +164,7 @@ public class RefMerchantService {
           RefMerchant.builder()
               .description(refMerchantRequest.getDescription())
               .user(User.builder().username(refMerchantRequest.getUsername()).build())
+              .usageCount(0L)
               .creationDate(LocalDate.now().toString())
               .lastModified(LocalDateTime.now().toString())
               .build();
@@ -108,6 +174,9 @@ public class RefMerchantService {
       if (!hasText(newRefMerchant.getId())) {
         newRefMerchant = null;
         status = Status.builder().errMsg("Error Saving Merchant, Please Try Again!!!").build();
+      } else {
+        merchantPrefixIndex.put(newRefMerchant);
+        userDataCache.refMerchants().invalidate(refMerchantRequest.getUsername());
       }
     } catch (Exception ex) {
       logger.error("Save New Ref Merchant: {}", refMerchantRequest, ex);
@@ -142,7 +211,9 @@ public class RefMerchantService {
       long modifiedCount = refMerchantDao.updateRefMerchantById(id, update);
 
       if (modifiedCount > 0) {
+        userDataCache.refMerchants().invalidateIds(singletonList(id));
         refMerchantResponse = getRefMerchantById(id);
+        refMerchantResponse.getRefMerchants().forEach(merchantPrefixIndex::put);
       } else {
         status = Status.builder().errMsg("Error Updating Merchant, Please Try Again!!!").build();
         refMerchantResponse =
@@ -166,10 +237,30 @@ public class RefMerchantService {
   public RefMerchantResponse deleteRefMerchantById(String id) {
     logger.info("Before Delete Ref Merchant By Id: {}", id);
     long deleteCount = 0;
+    RefMerchant refMerchantInUse = null;
     Status status = null;
 
     try {
       deleteCount = refMerchantDao.deleteRefMerchantById(id);
+
+      if (deleteCount > 0) {
+        merchantPrefixIndex.remove(id);
+        userDataCache.refMerchants().invalidateIds(singletonList(id));
+      } else {
+        // only unused merchant documents are deleted, read it to tell why nothing was
+        refMerchantInUse = refMerchantDao.getRefMerchantById(id);
+        if (refMerchantInUse != null) {
+          status =
+              Status.builder()
+                  .errMsg(
+                      refMerchantInUse.getUsageCount() == null
+                          ? "Error Deleting Merchant, Usage Not Counted Yet, Please Try Again Later!!!"
+                          : "Error Deleting Merchant, Used In "
+                              + refMerchantInUse.getUsageCount()
+                              + " Transactions!!!")
+                  .build();
+        }
+      }
     } catch (Exception ex) {
       logger.error("Delete Ref Merchant By Id: {}", id, ex);
       status =
@@ -181,7 +272,7 @@ public class RefMerchantService {
 
     logger.info("After Delete Ref Merchant By Id: {} | {}", id, deleteCount);
     return RefMerchantResponse.builder()
-        .refMerchants(emptyList())
+        .refMerchants(refMerchantInUse == null ? emptyList() : singletonList(refMerchantInUse))
         .deleteCount(deleteCount)
         .status(status)
         .build();
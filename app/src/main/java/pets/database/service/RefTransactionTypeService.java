@@ -13,6 +13,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import pets.database.cache.ReferenceDataCache;
 import pets.database.model.RefTransactionType;
 import pets.database.model.RefTransactionTypeRequest;
 import pets.database.model.RefTransactionTypeResponse;
@@ -24,9 +25,12 @@ public class RefTransactionTypeService {
   private static final Logger logger = LoggerFactory.getLogger(RefTransactionTypeService.class);
 
   private final RefTransactionTypeDao refTransactionTypeDao;
+  private final ReferenceDataCache referenceDataCache;
 
-  public RefTransactionTypeService(RefTransactionTypeDao refTransactionTypeDao) {
+  public RefTransactionTypeService(
+      RefTransactionTypeDao refTransactionTypeDao, ReferenceDataCache referenceDataCache) {
     this.refTransactionTypeDao = refTransactionTypeDao;
+    this.referenceDataCache = referenceDataCache;
   }
 
   public RefTransactionTypeResponse getAllRefTransactionTypes() {
@@ -35,7 +39,7 @@ public class RefTransactionTypeService {
     Status status = null;
 
     try {
-      refTransactionTypes = refTransactionTypeDao.getAllRefTransactionTypes();
+      refTransactionTypes = referenceDataCache.refTransactionTypes().getAll();
     } catch (Exception ex) {
       logger.error("Get All Ref Transaction Types");
       status =
@@ -52,13 +56,25 @@ public class RefTransactionTypeService {
         .build();
   }
 
+  /**
+   * @return etag of all transaction types, null if they cannot be loaded
+   */
+  public String getRefTransactionTypesETag() {
+    try {
+      return referenceDataCache.refTransactionTypes().getETag();
+    } catch (Exception ex) {
+      logger.error("Get Ref Transaction Types ETag", ex);
+      return null;
+    }
+  }
+
   public RefTransactionTypeResponse getRefTransactionTypeById(String id) {
     logger.info("Before Get Ref Transaction Type By Id: {}", id);
     RefTransactionType refTransactionType = null;
     Status status = null;
 
     try {
-      refTransactionType = refTransactionTypeDao.getRefTransactionTypeById(id);
+      refTransactionType = referenceDataCache.refTransactionTypes().getById(id);
     } catch (Exception ex) {
       logger.error("Get Ref Transaction Type By Id: {}", id, ex);
       status =
@@ -92,6 +108,7 @@ public class RefTransactionTypeService {
 
       newRefTransactionType =
           refTransactionTypeDao.saveNewRefTransactionType(newRefTransactionType);
+      referenceDataCache.refTransactionTypes().invalidate();
 
       if (!hasText(newRefTransactionType.getId())) {
         newRefTransactionType = null;
@@ -130,6 +147,7 @@ public class RefTransactionTypeService {
       update.set("lastModified", LocalDateTime.now().toString());
 
       long modifiedCount = refTransactionTypeDao.updateRefTransactionTypeById(id, update);
+      referenceDataCache.refTransactionTypes().invalidate();
 
       if (modifiedCount > 0) {
         refTransactionTypeResponse = getRefTransactionTypeById(id);
@@ -167,6 +185,7 @@ public class RefTransactionTypeService {
 
     try {
       deleteCount = refTransactionTypeDao.deleteRefTransactionTypeById(id);
+      referenceDataCache.refTransactionTypes().invalidate();
     } catch (Exception ex) {
       logger.error("Delete Ref Transaction Type By Id: {}", id, ex);
       status =
@@ -0,0 +1,101 @@
+package pets.database.service;
+
+import static java.util.Collections.emptyMap;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static org.springframework.util.StringUtils.hasText;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.springframework.stereotype.Service;
+import pets.database.cache.ReferenceDataCache;
+import pets.database.model.Account;
+import pets.database.model.RefCategory;
+import pets.database.model.RefMerchant;
+import pets.database.model.RefTransactionType;
+import pets.database.model.Transaction;
+import pets.database.repository.AccountDao;
+import pets.database.repository.RefMerchantDao;
+
+/**
+ * Replaces the id only references stored in transactions with the full documents. Categories and
+ * transaction types come from the reference data cache, accounts and merchants are read with one
+ * query each for the whole page.
+ */
+@Service
+public class TransactionHydrationService {
+
+  private final AccountDao accountDao;
+  private final RefMerchantDao refMerchantDao;
+  private final ReferenceDataCache referenceDataCache;
+
+  public TransactionHydrationService(
+      AccountDao accountDao, RefMerchantDao refMerchantDao, ReferenceDataCache referenceDataCache) {
+    this.accountDao = accountDao;
+    this.refMerchantDao = refMerchantDao;
+    this.referenceDataCache = referenceDataCache;
+  }
+
+  /**
+   * @apiNote references that were not projected, or no longer exist, are left as they are
+   */
+  public void hydrate(List<Transaction> transactions) {
+    if (transactions.isEmpty()) {
+      return;
+    }
+
+    Set<String> accountIds = new HashSet<>();
+    Set<String> merchantIds = new HashSet<>();
+    for (Transaction transaction : transactions) {
+      addId(accountIds, transaction.getAccount(), Account::getId);
+      addId(accountIds, transaction.getTrfAccount(), Account::getId);
+      addId(merchantIds, transaction.getRefMerchant(), RefMerchant::getId);
+    }
+
+    Map<String, Account> accounts =
+        accountIds.isEmpty()
+            ? emptyMap()
+            : accountDao.getAccountsByIds(accountIds).stream()
+                .collect(toMap(Account::getId, identity()));
+    Map<String, RefMerchant> refMerchants =
+        merchantIds.isEmpty()
+            ? emptyMap()
+            : refMerchantDao.getRefMerchantsByIds(merchantIds).stream()
+                .collect(toMap(RefMerchant::getId, identity()));
+
+    for (Transaction transaction : transactions) {
+      transaction.setAccount(resolve(transaction.getAccount(), Account::getId, accounts::get));
+      transaction.setTrfAccount(
+          resolve(transaction.getTrfAccount(), Account::getId, accounts::get));
+      transaction.setRefMerchant(
+          resolve(transaction.getRefMerchant(), RefMerchant::getId, refMerchants::get));
+      transaction.setRefCategory(
+          resolve(
+              transaction.getRefCategory(),
+              RefCategory::getId,
+              referenceDataCache.refCategories()::getById));
+      transaction.setRefTransactionType(
+          resolve(
+              transaction.getRefTransactionType(),
+              RefTransactionType::getId,
+              referenceDataCache.refTransactionTypes()::getById));
+    }
+  }
+
+  private <T> void addId(Set<String> ids, T reference, Function<T, String> idFunction) {
+    if (reference != null && hasText(idFunction.apply(reference))) {
+      ids.add(idFunction.apply(reference));
+    }
+  }
+
+  private <T> T resolve(T reference, Function<T, String> idFunction, Function<String, T> lookup) {
+    if (reference == null) {
+      return null;
+    }
+    T resolved = lookup.apply(idFunction.apply(reference));
+    return resolved == null ? reference : resolved;
+  }
+}
@@ -4,36 +4,73 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.springframework.util.StringUtils.hasText;
 
+import com.mongodb.client.result.UpdateResult;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import pets.database.cache.TransactionSummaryCache;
 import pets.database.model.*;
+import pets.database.repository.Listings;
 import pets.database.repository.TransactionDao;
+import pets.database.utils.CursorUtils;
 
 @Service
 public class TransactionService {
   private static final Logger logger = LoggerFactory.getLogger(TransactionService.class);
 
   private final TransactionDao transactionDao;
-
-  public TransactionService(TransactionDao transactionDao) {
+  private final TransactionSummaryCache transactionSummaryCache;
+  private final AccountBalanceService accountBalanceService;
+  private final TransactionHydrationService transactionHydrationService;
+  private final UsageCountService usageCountService;
+  private final int bulkChunkSize;
+
+  public TransactionService(
+      TransactionDao transactionDao,
+      TransactionSummaryCache transactionSummaryCache,
+      AccountBalanceService accountBalanceService,
+      TransactionHydrationService transactionHydrationService,
+      UsageCountService usageCountService,
+      @Value("${pets.transactions.bulk.chunk-size:500}") int bulkChunkSize) {
     this.transactionDao = transactionDao;
+    this.transactionSummaryCache = transactionSummaryCache;
+    this.accountBalanceService = accountBalanceService;
+    this.transactionHydrationService = transactionHydrationService;
+    this.usageCountService = usageCountService;
+    this.bulkChunkSize = bulkChunkSize;
   }
 
-  public TransactionResponse getAllTransactions() {
-    logger.info("Before Get All Transactions");
+  public TransactionResponse getAllTransactions(int limit, String after, List<String> fields) {
+    logger.info("Before Get All Transactions: {} | {}", limit, after);
     List<Transaction> transactions = new ArrayList<>();
+    String nextCursor = null;
     Status status = null;
 
     try {
-      transactions = transactionDao.getAllTransactions();
+      String afterId = hasText(after) ? CursorUtils.decode(after, 1)[0] : null;
+      // one extra row tells if there is a next page without running a count
+      transactions = transactionDao.getAllTransactions(afterId, limit + 1, fields);
+
+      if (transactions.size() > limit) {
+        transactions = new ArrayList<>(transactions.subList(0, limit));
+        nextCursor = CursorUtils.encode(transactions.get(limit - 1).getId());
+      }
     } catch (Exception ex) {
-      logger.error("Get All Transactions", ex);
+      logger.error("Get All Transactions: {} | {}", limit, after, ex);
       status =
           Status.builder()
               .errMsg("Error Retrieving All Transactions, Please Try Again!!!")
@@ -41,8 +78,21 @@ public class TransactionService {
               .build();
     }
 
-    logger.info("After Get All Transactions: {}", transactions.size());
-    return TransactionResponse.builder().transactions(transactions).status(status).build();
+    logger.info("After Get All Transactions: {} | {}", transactions.size(), nextCursor);
+    return TransactionResponse.builder()
+        .transactions(transactions)
+        .nextCursor(nextCursor)
+        .status(status)
+        .build();
+  }
+
+  /**
+   * Hands each transaction to the consumer as it is read from the cursor. Errors are rethrown after
+   * logging because the response is already committed by the time they happen.
+   */
+  public long streamAllTransactions(Consumer<Transaction> consumer) {
+    return Listings.forEach(
+        logger, "Stream All Transactions", transactionDao::streamAllTransactions, consumer);
   }
 
   public TransactionResponse getTransactionById(String id) {
@@ -68,13 +118,18 @@ public class TransactionService {
         .build();
   }
 
-  public TransactionResponse getTransactionsByUser(String username) {
+  public TransactionResponse getTransactionsByUser(
+      String username, List<String> fields, boolean hydrate) {
     logger.info("Before Get Transactions By User: {}", username);
     List<Transaction> transactions = new ArrayList<>();
     Status status = null;
 
     try {
-      transactions = transactionDao.getTransactionsByUser(username);
+      transactions = transactionDao.getTransactionsByUser(username, fields);
+
+      if (hydrate) {
+        transactionHydrationService.hydrate(transactions);
+      }
     } catch (Exception ex) {
       logger.error("Get Transaction By User: {}", username, ex);
       status =
@@ -88,39 +143,108 @@ public class TransactionService {
     return TransactionResponse.builder().transactions(transactions).status(status).build();
   }
 
-  public TransactionResponse saveNewTransaction(TransactionRequest transactionRequest) {
-    logger.info("Before Save New Transaction: {}", transactionRequest);
-    Transaction newTransaction;
+  public TransactionResponse getTransactionsByUser(
+      String username, int limit, String after, List<String> fields, boolean hydrate) {
+    return getTransactionsByFilter(
+        username, new TransactionFilter(), limit, after, false, fields, hydrate);
+  }
+
+  public TransactionResponse getTransactionsByFilter(
+      String username,
+      TransactionFilter filter,
+      int limit,
+      String after,
+      boolean explain,
+      List<String> fields,
+      boolean hydrate) {
+    logger.info(
+        "Before Get Transactions By Filter: {} | {} | {} | {}", username, filter, limit, after);
+    List<Transaction> transactions = new ArrayList<>();
+    String nextCursor = null;
+    QueryStats queryStats = null;
     Status status = null;
 
     try {
-      newTransaction =
-          Transaction.builder()
-              .description(transactionRequest.getDescription())
-              .account(Account.builder().id(transactionRequest.getAccountId()).build())
-              .refTransactionType(
-                  RefTransactionType.builder().id(transactionRequest.getTypeId()).build())
-              .refCategory(RefCategory.builder().id(transactionRequest.getCategoryId()).build())
-              .refMerchant(RefMerchant.builder().id(transactionRequest.getMerchantId()).build())
-              .user(User.builder().username(transactionRequest.getUsername()).build())
-              .date(transactionRequest.getDate())
-              .amount(transactionRequest.getAmount())
-              .regular(transactionRequest.getRegular())
-              .necessary(transactionRequest.getNecessary())
-              .creationDate(LocalDate.now().toString())
-              .lastModified(LocalDateTime.now().toString())
-              .build();
+      LocalDate afterDate = null;
+      String afterId = null;
 
-      if (hasText(transactionRequest.getTrfAccountId())) {
-        newTransaction =
-            newTransaction.toBuilder()
-                .trfAccount(Account.builder().id(transactionRequest.getTrfAccountId()).build())
-                .build();
+      if (hasText(after)) {
+        String[] cursor = CursorUtils.decode(after, 2);
+        afterDate = LocalDate.parse(cursor[0]);
+        afterId = cursor[1];
+      }
+
+      // one extra row tells if there is a next page without running a count
+      transactions =
+          transactionDao.getTransactionsByFilter(
+              username, filter, afterDate, afterId, limit + 1, fields);
+
+      if (transactions.size() > limit) {
+        transactions = new ArrayList<>(transactions.subList(0, limit));
+        Transaction lastTransaction = transactions.get(limit - 1);
+        nextCursor =
+            CursorUtils.encode(lastTransaction.getDate().toString(), lastTransaction.getId());
+      }
+
+      if (hydrate) {
+        transactionHydrationService.hydrate(transactions);
       }
 
-      newTransaction = transactionDao.saveNewTransaction(newTransaction);
+      if (explain) {
+        queryStats =
+            transactionDao.explainTransactionsByFilter(
+                username, filter, afterDate, afterId, limit + 1);
+      }
+    } catch (Exception ex) {
+      logger.error(
+          "Get Transactions By Filter: {} | {} | {} | {}", username, filter, limit, after, ex);
+      status =
+          Status.builder()
+              .errMsg("Error Retrieving Transactions, Please Try Again!!!")
+              .message(ex.toString())
+              .build();
+    }
 
-      if (!hasText(newTransaction.getId())) {
+    logger.info(
+        "After Get Transactions By Filter: {} | {} | {} | {}",
+        username,
+        transactions.size(),
+        nextCursor,
+        queryStats);
+    return TransactionResponse.builder()
+        .transactions(transactions)
+        .nextCursor(nextCursor)
+        .queryStats(queryStats)
+        .status(status)
+        .build();
+  }
+
+  /**
+   * Hands each transaction of the user to the consumer as it is read from the cursor, so the
+   * transactions are never collected in memory. Errors are rethrown after logging because the
+   * response is already committed by the time they happen.
+   */
+  public long streamTransactionsByUser(String username, Consumer<Transaction> consumer) {
+    return Listings.forEach(
+        logger,
+        "Stream Transactions By User: " + username,
+        () -> transactionDao.streamTransactionsByUser(username),
+        consumer);
+  }
+
+  public TransactionResponse saveNewTransaction(TransactionRequest transactionRequest) {
+    logger.info("Before Save New Transaction: {}", transactionRequest);
+    Transaction newTransaction;
+    Status status = null;
+
+    try {
+      newTransaction = transactionDao.saveNewTransaction(toTransaction(transactionRequest));
+      invalidateSummaries(newTransaction);
+
+      if (hasText(newTransaction.getId())) {
+        accountBalanceService.applyTransaction(null, newTransaction);
+        usageCountService.applyTransaction(null, newTransaction);
+      } else {
         newTransaction = null;
         status = Status.builder().errMsg("Error Saving Transaction, Please Try Again!!!").build();
       }
@@ -141,6 +265,175 @@ public class TransactionService {
         .build();
   }
 
+  /**
+   * Inserts the transactions in chunks of unordered bulk writes. Every item gets its own result,
+   * invalid items and items the database rejects are reported without failing the others.
+   */
+  public TransactionBulkResponse saveNewTransactions(List<TransactionRequest> transactionRequests) {
+    logger.info("Before Save New Transactions: {}", transactionRequests.size());
+    TransactionResult[] transactionResults = new TransactionResult[transactionRequests.size()];
+    List<Transaction> insertedTransactions = new ArrayList<>();
+    Status status = null;
+
+    try {
+      List<Transaction> chunk = new ArrayList<>();
+      List<Integer> chunkIndexes = new ArrayList<>();
+
+      for (int i = 0; i < transactionRequests.size(); i++) {
+        TransactionRequest transactionRequest = transactionRequests.get(i);
+
+        if (!isValid(transactionRequest)) {
+          transactionResults[i] =
+              TransactionResult.builder()
+                  .index(i)
+                  .status(
+                      Status.builder()
+                          .errMsg("Error Saving Transaction by Invalid Request!!!")
+                          .build())
+                  .build();
+          continue;
+        }
+
+        // ids are assigned here so results can be matched to items without reading them back
+        chunk.add(
+            toTransaction(transactionRequest).toBuilder().id(new ObjectId().toHexString()).build());
+        chunkIndexes.add(i);
+
+        if (chunk.size() == bulkChunkSize) {
+          insertChunk(chunk, chunkIndexes, transactionResults, insertedTransactions);
+          chunk = new ArrayList<>();
+          chunkIndexes = new ArrayList<>();
+        }
+      }
+
+      if (!chunk.isEmpty()) {
+        insertChunk(chunk, chunkIndexes, transactionResults, insertedTransactions);
+      }
+    } catch (Exception ex) {
+      logger.error("Save New Transactions: {}", transactionRequests.size(), ex);
+      status =
+          Status.builder()
+              .errMsg("Error Saving Transactions, Please Try Again!!!")
+              .message(ex.toString())
+              .build();
+    }
+
+    insertedTransactions.forEach(this::invalidateSummaries);
+    accountBalanceService.applyNewTransactions(insertedTransactions);
+    usageCountService.applyNewTransactions(insertedTransactions);
+
+    long insertedCount = insertedTransactions.size();
+    logger.info(
+        "After Save New Transactions: {} | inserted: {}",
+        transactionRequests.size(),
+        insertedCount);
+    return TransactionBulkResponse.builder()
+        .transactionResults(
+            Arrays.stream(transactionResults)
+                .map(
+                    transactionResult ->
+                        transactionResult == null
+                            ? TransactionResult.builder()
+                                .status(
+                                    Status.builder()
+                                        .errMsg("Transaction Not Saved, Please Try Again!!!")
+                                        .build())
+                                .build()
+                            : transactionResult)
+                .toList())
+        .insertedCount(insertedCount)
+        .failedCount(transactionRequests.size() - insertedCount)
+        .status(status)
+        .build();
+  }
+
+  private void insertChunk(
+      List<Transaction> chunk,
+      List<Integer> chunkIndexes,
+      TransactionResult[] transactionResults,
+      List<Transaction> insertedTransactions) {
+    Map<Integer, String> errors;
+
+    try {
+      errors = transactionDao.insertTransactions(chunk);
+    } catch (Exception ex) {
+      logger.error("Insert Transactions Chunk: {}", chunkIndexes, ex);
+      errors = new HashMap<>();
+      for (int i = 0; i < chunk.size(); i++) {
+        errors.put(i, ex.toString());
+      }
+    }
+
+    for (int i = 0; i < chunk.size(); i++) {
+      int index = chunkIndexes.get(i);
+
+      if (errors.containsKey(i)) {
+        transactionResults[index] =
+            TransactionResult.builder()
+                .index(index)
+                .status(
+                    Status.builder()
+                        .errMsg("Error Saving Transaction, Please Try Again!!!")
+                        .message(errors.get(i))
+                        .build())
+                .build();
+      } else {
+        transactionResults[index] =
+            TransactionResult.builder().index(index).id(chunk.get(i).getId()).build();
+        insertedTransactions.add(chunk.get(i));
+      }
+    }
+  }
+
+  private boolean isValid(TransactionRequest transactionRequest) {
+    return transactionRequest != null
+        && hasText(transactionRequest.getAccountId())
+        && hasText(transactionRequest.getTypeId())
+        && hasText(transactionRequest.getCategoryId())
+        && hasText(transactionRequest.getMerchantId())
+        && hasText(transactionRequest.getUsername())
+        && isValidDate(transactionRequest.getDate())
+        && transactionRequest.getAmount() != null
+        && transactionRequest.getRegular() != null
+        && transactionRequest.getNecessary() != null;
+  }
+
+  private boolean isValidDate(String date) {
+    try {
+      return hasText(date) && LocalDate.parse(date) != null;
+    } catch (DateTimeParseException ex) {
+      return false;
+    }
+  }
+
+  private Transaction toTransaction(TransactionRequest transactionRequest) {
+    Transaction transaction =
+        Transaction.builder()
+            .description(transactionRequest.getDescription())
+            .account(Account.builder().id(transactionRequest.getAccountId()).build())
+            .refTransactionType(
+                RefTransactionType.builder().id(transactionRequest.getTypeId()).build())
+            .refCategory(RefCategory.builder().id(transactionRequest.getCategoryId()).build())
+            .refMerchant(RefMerchant.builder().id(transactionRequest.getMerchantId()).build())
+            .user(User.builder().username(transactionRequest.getUsername()).build())
+            .date(LocalDate.parse(transactionRequest.getDate()))
+            .amount(transactionRequest.getAmount())
+            .regular(transactionRequest.getRegular())
+            .necessary(transactionRequest.getNecessary())
+            .creationDate(LocalDate.now())
+            .lastModified(LocalDateTime.now())
+            .build();
+
+    if (hasText(transactionRequest.getTrfAccountId())) {
+      transaction =
+          transaction.toBuilder()
+              .trfAccount(Account.builder().id(transactionRequest.getTrfAccountId()).build())
+              .build();
+    }
+
+    return transaction;
+  }
+
   public TransactionResponse updateTransactionById(
       String id, TransactionRequest transactionRequest) {
     logger.info("Before Update Transaction By Id: {} | {}", id, transactionRequest);
@@ -155,34 +448,41 @@ public class TransactionService {
       }
 
       if (hasText(transactionRequest.getAccountId())) {
-        update.set("account.id", transactionRequest.getAccountId());
+        update.set("accountId", transactionRequest.getAccountId());
       }
       if (hasText(transactionRequest.getTrfAccountId())) {
-        update.set("trfAccount.id", transactionRequest.getTrfAccountId());
+        update.set("trfAccountId", transactionRequest.getTrfAccountId());
       }
       if (hasText(transactionRequest.getTypeId())) {
-        update.set("refTransactionType.id", transactionRequest.getTypeId());
+        update.set("typeId", transactionRequest.getTypeId());
       }
       if (hasText(transactionRequest.getCategoryId())) {
-        update.set("refCategory.id", transactionRequest.getCategoryId());
+        update.set("categoryId", transactionRequest.getCategoryId());
       }
       if (hasText(transactionRequest.getMerchantId())) {
-        update.set("refMerchant.id", transactionRequest.getMerchantId());
+        update.set("merchantId", transactionRequest.getMerchantId());
       }
       if (hasText(transactionRequest.getDate())) {
-        update.set("date", transactionRequest.getDate());
+        update.set("date", LocalDate.parse(transactionRequest.getDate()));
       }
 
       update.set("amount", transactionRequest.getAmount());
       update.set("regular", transactionRequest.getRegular());
       update.set("necessary", transactionRequest.getNecessary());
 
-      update.set("lastModified", LocalDateTime.now().toString());
+      update.set("lastModified", LocalDateTime.now());
 
-      long modifiedCount = transactionDao.updateTransactionById(id, update);
+      Transaction oldTransaction = transactionDao.updateTransactionById(id, update);
 
-      if (modifiedCount > 0) {
-        transactionResponse = getTransactionById(id);
+      if (oldTransaction != null) {
+        invalidateSummaries(oldTransaction);
+        Transaction newTransaction = transactionDao.getTransactionById(id);
+        accountBalanceService.applyTransaction(oldTransaction, newTransaction);
+        usageCountService.applyTransaction(oldTransaction, newTransaction);
+        transactionResponse =
+            TransactionResponse.builder()
+                .transactions(newTransaction == null ? emptyList() : singletonList(newTransaction))
+                .build();
       } else {
         status = Status.builder().errMsg("Error Updating Transaction, Please Try Again!!!").build();
         transactionResponse =
@@ -209,7 +509,14 @@ public class TransactionService {
     Status status = null;
 
     try {
-      deleteCount = transactionDao.deleteTransactionById(id);
+      Transaction deletedTransaction = transactionDao.deleteTransactionById(id);
+
+      if (deletedTransaction != null) {
+        deleteCount = 1;
+        invalidateSummaries(deletedTransaction);
+        accountBalanceService.applyTransaction(deletedTransaction, null);
+        usageCountService.applyTransaction(deletedTransaction, null);
+      }
     } catch (Exception ex) {
       logger.error("Delete Transaction By Id: {}", id, ex);
       status =
@@ -227,15 +534,123 @@ public class TransactionService {
         .build();
   }
 
-  public TransactionResponse deleteTransactionsByAccountId(String accountId) {
-    logger.info("Before Delete Transactions By Account Id: {}", accountId);
+  /**
+   * Sets the new values on all of the user's transactions matching the filter with one updateMulti
+   * instead of an update and a read per transaction.
+   */
+  public TransactionResponse updateTransactionsByFilter(
+      String username, TransactionBulkUpdateRequest transactionBulkUpdateRequest) {
+    logger.info(
+        "Before Update Transactions By Filter: {} | {}", username, transactionBulkUpdateRequest);
+    long matchedCount = 0;
+    long modifiedCount = 0;
+    Status status = null;
+
+    try {
+      TransactionFilter filter = transactionBulkUpdateRequest.getFilter();
+      Update update = new Update();
+
+      if (hasText(transactionBulkUpdateRequest.getAccountId())) {
+        update.set("accountId", transactionBulkUpdateRequest.getAccountId());
+      }
+      if (hasText(transactionBulkUpdateRequest.getTypeId())) {
+        update.set("typeId", transactionBulkUpdateRequest.getTypeId());
+      }
+      if (hasText(transactionBulkUpdateRequest.getCategoryId())) {
+        update.set("categoryId", transactionBulkUpdateRequest.getCategoryId());
+      }
+      if (hasText(transactionBulkUpdateRequest.getMerchantId())) {
+        update.set("merchantId", transactionBulkUpdateRequest.getMerchantId());
+      }
+      if (transactionBulkUpdateRequest.getRegular() != null) {
+        update.set("regular", transactionBulkUpdateRequest.getRegular());
+      }
+      if (transactionBulkUpdateRequest.getNecessary() != null) {
+        update.set("necessary", transactionBulkUpdateRequest.getNecessary());
+      }
+
+      update.set("lastModified", LocalDateTime.now());
+
+      // a new account replaces the account transactions are from, transfers to the account of the
+      // filter are left alone, setting their source to the new account would move their money
+      boolean fromAccountOnly = hasText(transactionBulkUpdateRequest.getAccountId());
+      // only a new account or type moves money, the affected accounts are read before the update
+      boolean changesBalances =
+          hasText(transactionBulkUpdateRequest.getAccountId())
+              || hasText(transactionBulkUpdateRequest.getTypeId());
+      Set<String> accountIds =
+          changesBalances
+              ? transactionDao.getAccountIdsByFilter(username, filter, fromAccountOnly)
+              : Set.of();
+      boolean changesUsages =
+          hasText(transactionBulkUpdateRequest.getAccountId())
+              || hasText(transactionBulkUpdateRequest.getCategoryId())
+              || hasText(transactionBulkUpdateRequest.getMerchantId());
+      List<UsageTotal> usageTotals =
+          changesUsages
+              ? transactionDao.getUsageTotalsByFilter(username, filter, fromAccountOnly)
+              : List.of();
+
+      UpdateResult updateResult =
+          transactionDao.updateTransactionsByFilter(username, filter, update, fromAccountOnly);
+      matchedCount = updateResult.getMatchedCount();
+      modifiedCount = updateResult.getModifiedCount();
+      transactionSummaryCache.invalidate(username);
+
+      if (changesBalances && modifiedCount > 0) {
+        Set<String> affectedAccountIds = new HashSet<>(accountIds);
+        if (hasText(transactionBulkUpdateRequest.getAccountId())) {
+          affectedAccountIds.add(transactionBulkUpdateRequest.getAccountId());
+        }
+        accountBalanceService.reconcileAccounts(affectedAccountIds);
+      }
+      if (changesUsages && modifiedCount > 0) {
+        usageCountService.applyMovedTransactions(
+            usageTotals,
+            usageTotals.stream()
+                .map(usageTotal -> toUpdatedUsageTotal(usageTotal, transactionBulkUpdateRequest))
+                .toList());
+      }
+    } catch (Exception ex) {
+      logger.error(
+          "Update Transactions By Filter: {} | {}", username, transactionBulkUpdateRequest, ex);
+      status =
+          Status.builder()
+              .errMsg("Error Updating Transactions, Please Try Again!!!")
+              .message(ex.toString())
+              .build();
+    }
+
+    logger.info(
+        "After Update Transactions By Filter: {} | matchedCount: {} | modifiedCount: {}",
+        username,
+        matchedCount,
+        modifiedCount);
+    return TransactionResponse.builder()
+        .transactions(emptyList())
+        .matchedCount(matchedCount)
+        .modifiedCount(modifiedCount)
+        .status(status)
+        .build();
+  }
+
+  public TransactionResponse deleteTransactionsByFilter(String username, TransactionFilter filter) {
+    logger.info("Before Delete Transactions By Filter: {} | {}", username, filter);
     long deleteCount = 0;
     Status status = null;
 
     try {
-      deleteCount = transactionDao.deleteTransactionsByAccountId(accountId);
+      Set<String> accountIds = transactionDao.getAccountIdsByFilter(username, filter);
+      List<UsageTotal> usageTotals = transactionDao.getUsageTotalsByFilter(username, filter);
+      deleteCount = transactionDao.deleteTransactionsByFilter(username, filter);
+      transactionSummaryCache.invalidate(username);
+
+      if (deleteCount > 0) {
+        accountBalanceService.reconcileAccounts(accountIds);
+        usageCountService.applyRemovedTransactions(usageTotals);
+      }
     } catch (Exception ex) {
-      logger.error("Delete Transaction By Id: {}", accountId, ex);
+      logger.error("Delete Transactions By Filter: {} | {}", username, filter, ex);
       status =
           Status.builder()
               .errMsg("Error Deleting Transactions, Please Try Again!!!")
@@ -244,11 +659,36 @@ public class TransactionService {
     }
 
     logger.info(
-        "After Delete Transactions By Account Id: {} | deleteCount: {}", accountId, deleteCount);
+        "After Delete Transactions By Filter: {} | {} | deleteCount: {}",
+        username,
+        filter,
+        deleteCount);
     return TransactionResponse.builder()
         .transactions(emptyList())
         .deleteCount(deleteCount)
         .status(status)
         .build();
   }
+
+  private UsageTotal toUpdatedUsageTotal(
+      UsageTotal usageTotal, TransactionBulkUpdateRequest transactionBulkUpdateRequest) {
+    UsageTotal.UsageTotalBuilder usageTotalBuilder = usageTotal.toBuilder();
+    if (hasText(transactionBulkUpdateRequest.getAccountId())) {
+      usageTotalBuilder.accountId(transactionBulkUpdateRequest.getAccountId());
+    }
+    if (hasText(transactionBulkUpdateRequest.getCategoryId())) {
+      usageTotalBuilder.categoryId(transactionBulkUpdateRequest.getCategoryId());
+    }
+    if (hasText(transactionBulkUpdateRequest.getMerchantId())) {
+      usageTotalBuilder.merchantId(transactionBulkUpdateRequest.getMerchantId());
+    }
+    return usageTotalBuilder.build();
+  }
+
+  /** The username of the request is optional, the summaries are those of the stored owner. */
+  private void invalidateSummaries(Transaction transaction) {
+    if (transaction != null && transaction.getUser() != null) {
+      transactionSummaryCache.invalidate(transaction.getUser().getUsername());
+    }
+  }
 }
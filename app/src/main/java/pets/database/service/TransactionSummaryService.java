@@ -0,0 +1,120 @@
+package pets.database.service;
+
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toMap;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import pets.database.cache.ReferenceDataCache;
+import pets.database.cache.TransactionSummaryCache;
+import pets.database.model.RefCategory;
+import pets.database.model.Status;
+import pets.database.model.SummaryDimension;
+import pets.database.model.SummaryPeriod;
+import pets.database.model.TransactionSummary;
+import pets.database.model.TransactionSummaryResponse;
+import pets.database.repository.TransactionDao;
+
+@Service
+public class TransactionSummaryService {
+  private static final Logger logger = LoggerFactory.getLogger(TransactionSummaryService.class);
+
+  private final TransactionDao transactionDao;
+  private final ReferenceDataCache referenceDataCache;
+  private final TransactionSummaryCache transactionSummaryCache;
+
+  public TransactionSummaryService(
+      TransactionDao transactionDao,
+      ReferenceDataCache referenceDataCache,
+      TransactionSummaryCache transactionSummaryCache) {
+    this.transactionDao = transactionDao;
+    this.referenceDataCache = referenceDataCache;
+    this.transactionSummaryCache = transactionSummaryCache;
+  }
+
+  public TransactionSummaryResponse getTransactionSummaries(
+      String username, SummaryPeriod period, SummaryDimension dimension) {
+    logger.info("Before Get Transaction Summaries: {} | {} | {}", username, period, dimension);
+    List<TransactionSummary> transactionSummaries = new ArrayList<>();
+    Status status = null;
+
+    try {
+      transactionSummaries =
+          transactionSummaryCache.get(
+              username, period, dimension, () -> aggregate(username, period, dimension));
+    } catch (Exception ex) {
+      logger.error("Get Transaction Summaries: {} | {} | {}", username, period, dimension, ex);
+      status =
+          Status.builder()
+              .errMsg("Error Retrieving Transaction Summaries, Please Try Again!!!")
+              .message(ex.toString())
+              .build();
+    }
+
+    logger.info(
+        "After Get Transaction Summaries: {} | {} | {} | {}",
+        username,
+        period,
+        dimension,
+        transactionSummaries.size());
+    return TransactionSummaryResponse.builder()
+        .transactionSummaries(transactionSummaries)
+        .status(status)
+        .build();
+  }
+
+  private List<TransactionSummary> aggregate(
+      String username, SummaryPeriod period, SummaryDimension dimension) {
+    List<TransactionSummary> transactionSummaries =
+        transactionDao.getTransactionSummaries(username, period, dimension.getField());
+
+    if (dimension == SummaryDimension.CATEGORY_TYPE) {
+      return rollUpToCategoryTypes(transactionSummaries);
+    }
+    return transactionSummaries;
+  }
+
+  private List<TransactionSummary> rollUpToCategoryTypes(
+      List<TransactionSummary> categorySummaries) {
+    if (categorySummaries.isEmpty()) {
+      return emptyList();
+    }
+
+    Map<String, String> categoryTypeIds =
+        referenceDataCache.refCategories().getAll().stream()
+            .filter(refCategory -> refCategory.getRefCategoryType() != null)
+            .collect(
+                toMap(
+                    RefCategory::getId,
+                    refCategory -> refCategory.getRefCategoryType().getId(),
+                    (first, second) -> first));
+
+    // category summaries are sorted by period, so the rolled up summaries stay sorted by period
+    Map<String, TransactionSummary> categoryTypeSummaries = new LinkedHashMap<>();
+    for (TransactionSummary categorySummary : categorySummaries) {
+      String categoryTypeId = categoryTypeIds.get(categorySummary.getKey());
+      categoryTypeSummaries.merge(
+          categorySummary.getPeriod() + "|" + categoryTypeId,
+          categorySummary.toBuilder().key(categoryTypeId).build(),
+          (first, second) ->
+              first.toBuilder()
+                  .total(add(first.getTotal(), second.getTotal()))
+                  .count(first.getCount() + second.getCount())
+                  .build());
+    }
+    return new ArrayList<>(categoryTypeSummaries.values());
+  }
+
+  private BigDecimal add(BigDecimal first, BigDecimal second) {
+    if (first == null) {
+      return second;
+    }
+    return second == null ? first : first.add(second);
+  }
+}
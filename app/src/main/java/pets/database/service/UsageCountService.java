@@ -0,0 +1,252 @@
+package pets.database.service;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pets.database.cache.MerchantPrefixIndex;
+import pets.database.cache.UserDataCache;
+import pets.database.model.Status;
+import pets.database.model.Transaction;
+import pets.database.model.UsageCountResponse;
+import pets.database.model.UsageTotal;
+import pets.database.repository.AccountDao;
+import pets.database.repository.JobLeases;
+import pets.database.repository.RefCategoryDao;
+import pets.database.repository.RefMerchantDao;
+import pets.database.repository.TransactionDao;
+
+/**
+ * Keeps the number of transactions that refer to each account, category and merchant on the
+ * account, category and merchant itself, so deciding if one can be deleted is a single document
+ * read. Transaction writes move the counts with $inc, and the rebuild recomputes all counts with
+ * one aggregation to correct any drift. A transfer from an account to itself counts once.
+ *
+ * <p>The scheduled rebuild runs on the instance that holds its lease in {@link JobLeases}, the
+ * lease is kept for most of the schedule so the other instances skip their runs.
+ */
+@Service
+public class UsageCountService {
+  private static final Logger logger = LoggerFactory.getLogger(UsageCountService.class);
+  private static final String LEASE_NAME = "usage-count-rebuild";
+
+  private record UsageDeltas(
+      Map<String, Long> accounts, Map<String, Long> refCategories, Map<String, Long> refMerchants) {
+
+    UsageDeltas() {
+      this(new HashMap<>(), new HashMap<>(), new HashMap<>());
+    }
+
+    void add(UsageTotal usageTotal, long sign) {
+      long delta = sign * usageTotal.getCount();
+      merge(accounts, usageTotal.getAccountId(), delta);
+      if (!Objects.equals(usageTotal.getTrfAccountId(), usageTotal.getAccountId())) {
+        merge(accounts, usageTotal.getTrfAccountId(), delta);
+      }
+      merge(refCategories, usageTotal.getCategoryId(), delta);
+      merge(refMerchants, usageTotal.getMerchantId(), delta);
+    }
+
+    private static void merge(Map<String, Long> deltas, String id, long delta) {
+      if (hasText(id)) {
+        deltas.merge(id, delta, Long::sum);
+      }
+    }
+  }
+
+  private final TransactionDao transactionDao;
+  private final AccountDao accountDao;
+  private final RefCategoryDao refCategoryDao;
+  private final RefMerchantDao refMerchantDao;
+  private final MerchantPrefixIndex merchantPrefixIndex;
+  private final UserDataCache userDataCache;
+  private final JobLeases jobLeases;
+  private final Duration leaseDuration;
+
+  public UsageCountService(
+      TransactionDao transactionDao,
+      AccountDao accountDao,
+      RefCategoryDao refCategoryDao,
+      RefMerchantDao refMerchantDao,
+      MerchantPrefixIndex merchantPrefixIndex,
+      UserDataCache userDataCache,
+      JobLeases jobLeases,
+      @Value("${pets.usage-count.rebuild.lease:PT23H}") Duration leaseDuration) {
+    this.transactionDao = transactionDao;
+    this.accountDao = accountDao;
+    this.refCategoryDao = refCategoryDao;
+    this.refMerchantDao = refMerchantDao;
+    this.merchantPrefixIndex = merchantPrefixIndex;
+    this.userDataCache = userDataCache;
+    this.jobLeases = jobLeases;
+    this.leaseDuration = leaseDuration;
+  }
+
+  /**
+   * @param oldTransaction transaction before the write, null for new transactions
+   * @param newTransaction transaction after the write, null for deleted transactions
+   * @apiNote failures are logged and left for the rebuild, the transaction write is not undone
+   */
+  public void applyTransaction(Transaction oldTransaction, Transaction newTransaction) {
+    try {
+      UsageDeltas usageDeltas = new UsageDeltas();
+      if (oldTransaction != null) {
+        usageDeltas.add(toUsageTotal(oldTransaction), -1);
+      }
+      if (newTransaction != null) {
+        usageDeltas.add(toUsageTotal(newTransaction), 1);
+      }
+      apply(usageDeltas);
+    } catch (Exception ex) {
+      logger.error(
+          "Apply Transaction To Usage Counts: {} | {}", oldTransaction, newTransaction, ex);
+    }
+  }
+
+  public void applyNewTransactions(List<Transaction> newTransactions) {
+    try {
+      UsageDeltas usageDeltas = new UsageDeltas();
+      newTransactions.forEach(newTransaction -> usageDeltas.add(toUsageTotal(newTransaction), 1));
+      apply(usageDeltas);
+    } catch (Exception ex) {
+      logger.error("Apply New Transactions To Usage Counts: {}", newTransactions.size(), ex);
+    }
+  }
+
+  /**
+   * @param usageTotals usage totals of transactions that were removed, read before the delete
+   */
+  public void applyRemovedTransactions(List<UsageTotal> usageTotals) {
+    applyMovedTransactions(usageTotals, List.of());
+  }
+
+  /**
+   * @param oldUsageTotals usage totals of the transactions before a bulk write
+   * @param newUsageTotals usage totals of the same transactions after it
+   */
+  public void applyMovedTransactions(
+      List<UsageTotal> oldUsageTotals, List<UsageTotal> newUsageTotals) {
+    try {
+      UsageDeltas usageDeltas = new UsageDeltas();
+      oldUsageTotals.forEach(usageTotal -> usageDeltas.add(usageTotal, -1));
+      newUsageTotals.forEach(usageTotal -> usageDeltas.add(usageTotal, 1));
+      apply(usageDeltas);
+    } catch (Exception ex) {
+      logger.error("Apply Moved Transactions To Usage Counts: {}", oldUsageTotals.size(), ex);
+    }
+  }
+
+  public UsageCountResponse rebuildUsageCounts() {
+    logger.info("Before Rebuild Usage Counts");
+    UsageCountResponse usageCountResponse;
+
+    try {
+      // read before counting, a count moved by an $inc after this is left for the next rebuild
+      Map<String, Long> accountVersions = accountDao.getUsageVersions();
+      Map<String, Long> refCategoryVersions = refCategoryDao.getUsageVersions();
+      Map<String, Long> refMerchantVersions = refMerchantDao.getUsageVersions();
+
+      UsageDeltas usageCounts = new UsageDeltas();
+      transactionDao.getUsageTotals().forEach(usageTotal -> usageCounts.add(usageTotal, 1));
+
+      long replaced =
+          accountDao.replaceUsageCounts(accountVersions, usageCounts.accounts())
+              + refCategoryDao.replaceUsageCounts(refCategoryVersions, usageCounts.refCategories())
+              + refMerchantDao.replaceUsageCounts(refMerchantVersions, usageCounts.refMerchants());
+      logger.info(
+          "Rebuild Usage Counts Replaced: {} | skipped: {}",
+          replaced,
+          accountVersions.size()
+              + refCategoryVersions.size()
+              + refMerchantVersions.size()
+              - replaced);
+      // merchant search ranks by usage count
+      merchantPrefixIndex.invalidateAll();
+      userDataCache.accounts().invalidateAll();
+      userDataCache.refMerchants().invalidateAll();
+
+      usageCountResponse =
+          UsageCountResponse.builder()
+              .usedAccounts(usageCounts.accounts().size())
+              .usedRefCategories(usageCounts.refCategories().size())
+              .usedRefMerchants(usageCounts.refMerchants().size())
+              .build();
+    } catch (Exception ex) {
+      logger.error("Rebuild Usage Counts", ex);
+      usageCountResponse =
+          UsageCountResponse.builder()
+              .status(
+                  Status.builder()
+                      .errMsg("Error Rebuilding Usage Counts, Please Try Again!!!")
+                      .message(ex.toString())
+                      .build())
+              .build();
+    }
+
+    logger.info("After Rebuild Usage Counts: {}", usageCountResponse);
+    return usageCountResponse;
+  }
+
+  @Scheduled(
+      initialDelayString = "${pets.usage-count.rebuild.initial-delay:PT2M}",
+      fixedDelayString = "${pets.usage-count.rebuild.fixed-delay:PT24H}")
+  public void scheduledRebuildUsageCounts() {
+    if (jobLeases.acquire(LEASE_NAME, leaseDuration)) {
+      rebuildUsageCounts();
+    } else {
+      logger.info("Rebuild Usage Counts Skipped, Running On Another Instance");
+    }
+  }
+
+  /**
+   * Moves the counts in the database only, cached lists keep the counts they were loaded with until
+   * their ttl, dropping them on every transaction write would leave nothing cached.
+   */
+  private void apply(UsageDeltas usageDeltas) {
+    usageDeltas
+        .accounts()
+        .forEach(
+            (id, delta) -> {
+              if (delta != 0) {
+                accountDao.incrementUsageCount(id, delta);
+              }
+            });
+    usageDeltas
+        .refCategories()
+        .forEach(
+            (id, delta) -> {
+              if (delta != 0) {
+                refCategoryDao.incrementUsageCount(id, delta);
+              }
+            });
+    usageDeltas
+        .refMerchants()
+        .forEach(
+            (id, delta) -> {
+              if (delta != 0) {
+                refMerchantDao.incrementUsageCount(id, delta);
+              }
+            });
+  }
+
+  private UsageTotal toUsageTotal(Transaction transaction) {
+    return UsageTotal.builder()
+        .accountId(transaction.getAccount() == null ? null : transaction.getAccount().getId())
+        .trfAccountId(
+            transaction.getTrfAccount() == null ? null : transaction.getTrfAccount().getId())
+        .categoryId(
+            transaction.getRefCategory() == null ? null : transaction.getRefCategory().getId())
+        .merchantId(
+            transaction.getRefMerchant() == null ? null : transaction.getRefMerchant().getId())
+        .count(1L)
+        .build();
+  }
+}
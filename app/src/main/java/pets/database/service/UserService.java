@@ -9,15 +9,20 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import pets.database.cache.UserETagCache;
+import pets.database.cache.UserETagCache.UserETag;
 import pets.database.model.Status;
 import pets.database.model.User;
 import pets.database.model.UserRequest;
 import pets.database.model.UserResponse;
+import pets.database.repository.Listings;
 import pets.database.repository.UserDao;
+import pets.database.utils.CursorUtils;
 
 @Service
 public class UserService {
@@ -27,20 +32,30 @@ public class UserService {
   private static final String ERROR_UPDATING_USER = "Error Updating User, Please Try Again!!!";
 
   private final UserDao userDao;
+  private final UserETagCache userETagCache;
 
-  public UserService(UserDao userDao) {
+  public UserService(UserDao userDao, UserETagCache userETagCache) {
     this.userDao = userDao;
+    this.userETagCache = userETagCache;
   }
 
-  public UserResponse getAllUsers() {
-    logger.info("Before Get All Users");
-    List<User> allUsers = new ArrayList<>();
+  public UserResponse getAllUsers(int limit, String after) {
+    logger.info("Before Get All Users: {} | {}", limit, after);
+    List<User> users = new ArrayList<>();
+    String nextCursor = null;
     Status status = null;
 
     try {
-      allUsers = userDao.getAllUsers();
+      String afterId = hasText(after) ? CursorUtils.decode(after, 1)[0] : null;
+      // one extra row tells if there is a next page without running a count
+      users = userDao.getAllUsers(afterId, limit + 1);
+
+      if (users.size() > limit) {
+        users = new ArrayList<>(users.subList(0, limit));
+        nextCursor = CursorUtils.encode(users.get(limit - 1).getId());
+      }
     } catch (Exception ex) {
-      logger.error("Get All Users", ex);
+      logger.error("Get All Users: {} | {}", limit, after, ex);
       status =
           Status.builder()
               .errMsg("Error Retrieving All Users, Please Try Again!!!")
@@ -48,8 +63,16 @@ public class UserService {
               .build();
     }
 
-    logger.info("After Get All Users: {}", allUsers.size());
-    return UserResponse.builder().users(allUsers).status(status).build();
+    logger.info("After Get All Users: {} | {}", users.size(), nextCursor);
+    return UserResponse.builder().users(users).nextCursor(nextCursor).status(status).build();
+  }
+
+  /**
+   * Hands each user to the consumer as it is read from the cursor. Errors are rethrown after
+   * logging because the response is already committed by the time they happen.
+   */
+  public long streamAllUsers(Consumer<User> consumer) {
+    return Listings.forEach(logger, "Stream All Users", userDao::streamAllUsers, consumer);
   }
 
   public UserResponse getUserById(String id) {
@@ -71,6 +94,15 @@ public class UserService {
         .build();
   }
 
+  /**
+   * @return etag of the user as last read by username, null if it has to be read again
+   * @apiNote served from the cache alone, writes on any instance drop the entry
+   */
+  public String getUserETag(String username) {
+    UserETag userETag = userETagCache.get(username);
+    return userETag == null ? null : userETag.eTag();
+  }
+
   public UserResponse getUserByUsername(String username) {
     logger.info("Before Get User By User Name: {}", username);
     User user = null;
@@ -78,6 +110,9 @@ public class UserService {
 
     try {
       user = userDao.findUserByUsername(username);
+      if (user != null) {
+        userETagCache.put(user);
+      }
     } catch (Exception ex) {
       logger.error("Get User By User Name: {}", username, ex);
       status = Status.builder().errMsg(ERROR_RETRIEVING_USER).message(ex.toString()).build();
@@ -183,6 +218,7 @@ public class UserService {
       update.set("lastModified", LocalDateTime.now().toString());
 
       long modifiedCount = userDao.updateUserById(id, update);
+      userETagCache.invalidate(id);
 
       if (modifiedCount > 0) {
         userResponse = getUserById(id);
@@ -211,6 +247,7 @@ public class UserService {
       update.set("lastModified", LocalDateTime.now().toString());
 
       long modifiedCount = userDao.updateUserById(id, update);
+      userETagCache.invalidate(id);
 
       if (modifiedCount > 0) {
         userResponse = getUserById(id);
@@ -235,6 +272,7 @@ public class UserService {
 
     try {
       deleteCount = userDao.deleteUserById(id);
+      userETagCache.invalidate(id);
     } catch (Exception ex) {
       logger.error("Delete User By Id: {}", id, ex);
       status =
@@ -6,7 +6,11 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class Constants {
 
+  public static final String COLLECTION_NAME_ACCOUNT_DELETION_JOBS = "account_deletion_jobs";
   public static final String COLLECTION_NAME_ACCOUNT_DETAILS = "account_details";
+  public static final String COLLECTION_NAME_JOB_LEASES = "job_leases";
+  public static final String COLLECTION_NAME_JOB_STATES = "job_states";
+  public static final String COLLECTION_NAME_MIGRATIONS = "migrations";
   public static final String COLLECTION_NAME_REF_ACCOUNT_TYPE_DETAILS = "ref_account_type_details";
   public static final String COLLECTION_NAME_REF_BANK_DETAILS = "ref_bank_details";
   public static final String COLLECTION_NAME_REF_CATEGORY_DETAILS = "ref_category_details";
@@ -15,13 +19,35 @@ public class Constants {
   public static final String COLLECTION_NAME_REF_MERCHANT_DETAILS = "ref_merchant_details";
   public static final String COLLECTION_NAME_REF_TRANSACTION_TYPE_DETAILS =
       "ref_transaction_type_details";
+  public static final String COLLECTION_NAME_TRANSACTION_ARCHIVE = "transaction_archive";
   public static final String COLLECTION_NAME_TRANSACTION_DETAILS = "transaction_details";
   public static final String COLLECTION_NAME_USER_DETAILS = "user_details";
 
+  public static final String FIELD_NAME_DATE = "date";
   public static final String FIELD_NAME_DESCRIPTION = "description";
   public static final String FIELD_NAME_ID = "id";
+  public static final String FIELD_NAME_STATUS = "status";
+  public static final String FIELD_NAME_USAGE_COUNT = "usageCount";
+  public static final String FIELD_NAME_USAGE_VERSION = "usageVersion";
   public static final String FIELD_NAME_USERNAME = "username";
 
+  public static final String ACCOUNT_STATUS_DELETING = "DELETING";
+
+  public static final String TRANSACTION_TYPE_INCOME = "INCOME";
+  public static final String TRANSACTION_TYPE_EXPENSE = "EXPENSE";
+  public static final String TRANSACTION_TYPE_TRANSFER = "TRANSFER";
+
+  public static final int ACCOUNT_BALANCE_BATCH_SIZE = 100;
+  public static final int LISTING_PAGE_LIMIT_DEFAULT = 100;
+  public static final int LISTING_PAGE_LIMIT_MAX = 1000;
+  public static final int LISTING_STREAM_BATCH_SIZE = 500;
+  public static final int MERCHANT_SEARCH_LIMIT_DEFAULT = 10;
+  public static final int MERCHANT_SEARCH_LIMIT_MAX = 100;
+  public static final int TRANSACTIONS_BULK_LIMIT_MAX = 10000;
+  public static final int TRANSACTIONS_PAGE_LIMIT_DEFAULT = 50;
+  public static final int TRANSACTIONS_PAGE_LIMIT_MAX = 500;
+  public static final int TRANSACTIONS_STREAM_BATCH_SIZE = 500;
+
   public static final String BASIC_AUTH_USR = "BASIC_AUTH_USR";
   public static final String BASIC_AUTH_PWD = "BASIC_AUTH_PWD";
 
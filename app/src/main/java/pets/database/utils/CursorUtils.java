@@ -0,0 +1,48 @@
+package pets.database.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Base64;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Opaque continuation tokens for keyset pagination. A cursor is the url-safe base64 encoding of the
+ * sort key values of the last returned document, so clients can only hand it back and never depend
+ * on its contents.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class CursorUtils {
+
+  private static final String SEPARATOR = "\u001F";
+
+  public static String encode(String... values) {
+    String joined = String.join(SEPARATOR, values);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(UTF_8));
+  }
+
+  public static String[] decode(String cursor, int expectedValues) {
+    String joined;
+
+    try {
+      joined = new String(Base64.getUrlDecoder().decode(cursor), UTF_8);
+    } catch (IllegalArgumentException ex) {
+      throw new IllegalArgumentException("Invalid Cursor: " + cursor, ex);
+    }
+
+    String[] values = joined.split(SEPARATOR, -1);
+    if (values.length != expectedValues) {
+      throw new IllegalArgumentException("Invalid Cursor: " + cursor);
+    }
+    return values;
+  }
+
+  public static boolean isValid(String cursor, int expectedValues) {
+    try {
+      decode(cursor, expectedValues);
+      return true;
+    } catch (IllegalArgumentException ex) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package pets.database.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.util.StringUtils.hasText;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Strong entity tags derived from the content of the documents in a response, so the same data gets
+ * the same tag across restarts and instances.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ETags {
+
+  public static String of(Collection<?> values) {
+    MessageDigest messageDigest;
+    try {
+      messageDigest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 Not Available", ex);
+    }
+
+    // toString of the models includes every field
+    for (Object value : values) {
+      messageDigest.update(String.valueOf(value).getBytes(UTF_8));
+      messageDigest.update((byte) '\n');
+    }
+
+    byte[] digest = Arrays.copyOf(messageDigest.digest(), 16);
+    return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+  }
+
+  /**
+   * @return true if the If-None-Match header lists the tag, compared weakly as If-None-Match
+   *     requires
+   */
+  public static boolean matches(String ifNoneMatch, String eTag) {
+    if (!hasText(ifNoneMatch) || !hasText(eTag)) {
+      return false;
+    }
+
+    for (String candidate : ifNoneMatch.split(",")) {
+      String trimmed = candidate.trim();
+      if (trimmed.startsWith("W/")) {
+        trimmed = trimmed.substring(2);
+      }
+      if (trimmed.equals("*") || trimmed.equals(eTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,103 @@
+package pets.database.utils;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import pets.database.model.Account;
+import pets.database.model.Transaction;
+
+/**
+ * Resolves the view / fields request parameters to the list of properties to read from the
+ * database. Embedded documents can be requested whole, like refMerchant, or by id only, like
+ * refMerchant.id. A null field list means the full document.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class FieldSets {
+
+  public static final String VIEW_SUMMARY = "summary";
+  public static final String VIEW_FULL = "full";
+
+  public static final List<String> TRANSACTION_SUMMARY =
+      List.of(
+          "id",
+          "description",
+          "date",
+          "amount",
+          "account.id",
+          "trfAccount.id",
+          "refTransactionType.id",
+          "refCategory.id",
+          "refMerchant.id");
+
+  public static final List<String> ACCOUNT_SUMMARY =
+      List.of("id", "description", "refAccountType.id", "refBank.id", "currentBalance", "status");
+
+  public static List<String> resolve(
+      Class<?> entityClass, List<String> summaryFields, String view, String fields) {
+    if (hasText(fields)) {
+      Set<String> fieldSet = new LinkedHashSet<>();
+      fieldSet.add("id");
+
+      for (String field : fields.split(",")) {
+        String trimmed = field.trim();
+        if (!isField(entityClass, trimmed)) {
+          throw new IllegalArgumentException("Invalid Field: " + trimmed);
+        }
+        fieldSet.add(trimmed);
+      }
+
+      return new ArrayList<>(fieldSet);
+    } else if (!hasText(view) || VIEW_FULL.equalsIgnoreCase(view)) {
+      return null;
+    } else if (VIEW_SUMMARY.equalsIgnoreCase(view)) {
+      return summaryFields;
+    } else {
+      throw new IllegalArgumentException("Invalid View: " + view);
+    }
+  }
+
+  public static List<String> resolveTransaction(String view, String fields) {
+    return resolve(Transaction.class, TRANSACTION_SUMMARY, view, fields);
+  }
+
+  public static List<String> resolveAccount(String view, String fields) {
+    return resolve(Account.class, ACCOUNT_SUMMARY, view, fields);
+  }
+
+  public static boolean isValid(Class<?> entityClass, String view, String fields) {
+    try {
+      resolve(entityClass, List.of(), view, fields);
+      return true;
+    } catch (IllegalArgumentException ex) {
+      return false;
+    }
+  }
+
+  private static boolean isField(Class<?> entityClass, String path) {
+    String[] parts = path.split("\\.", -1);
+    Field field = declaredField(entityClass, parts[0]);
+
+    if (field == null || parts.length > 2) {
+      return false;
+    }
+    // only the id of an embedded document can be picked, other nested fields are all or nothing
+    return parts.length == 1
+        || ("id".equals(parts[1]) && declaredField(field.getType(), "id") != null);
+  }
+
+  private static Field declaredField(Class<?> entityClass, String name) {
+    return Arrays.stream(entityClass.getDeclaredFields())
+        .filter(field -> !Modifier.isStatic(field.getModifiers()))
+        .filter(field -> field.getName().equals(name))
+        .findFirst()
+        .orElse(null);
+  }
+}
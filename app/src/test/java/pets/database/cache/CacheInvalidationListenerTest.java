@@ -0,0 +1,151 @@
+package pets.database.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static pets.database.utils.Constants.COLLECTION_NAME_REF_CATEGORY_DETAILS;
+import static pets.database.utils.Constants.COLLECTION_NAME_REF_MERCHANT_DETAILS;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_ARCHIVE;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_DETAILS;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import java.time.Duration;
+import java.util.List;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import pets.database.model.RefCategory;
+import pets.database.model.RefMerchant;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationListenerTest {
+  private static final ObjectId ID = new ObjectId();
+
+  @Mock private MongoTemplate mongoTemplate;
+  @Mock private ReferenceDataCache referenceDataCache;
+  @Mock private ReferenceTableCache<RefCategory> refCategories;
+  @Mock private UserDataCache userDataCache;
+  @Mock private UserListCache<RefMerchant> refMerchants;
+  @Mock private MerchantPrefixIndex merchantPrefixIndex;
+  @Mock private UserETagCache userETagCache;
+  @Mock private TransactionSummaryCache transactionSummaryCache;
+
+  private CacheInvalidationListener cacheInvalidationListener;
+
+  @BeforeEach
+  void init() {
+    cacheInvalidationListener =
+        new CacheInvalidationListener(
+            mongoTemplate,
+            referenceDataCache,
+            userDataCache,
+            merchantPrefixIndex,
+            userETagCache,
+            transactionSummaryCache,
+            true,
+            Duration.ofSeconds(5));
+  }
+
+  @Test
+  void invalidate_usageCountUpdate_keepsTheCaches() {
+    cacheInvalidationListener.invalidate(
+        update(
+            COLLECTION_NAME_REF_CATEGORY_DETAILS,
+            new BsonDocument("usageCount", new BsonInt64(8))
+                .append("usageVersion", new BsonInt64(3))));
+    cacheInvalidationListener.invalidate(
+        update(
+            COLLECTION_NAME_REF_MERCHANT_DETAILS,
+            new BsonDocument("usageCount", new BsonInt64(1))
+                .append("usageVersion", new BsonInt64(1))
+                .append("usedInUserTransaction", BsonBoolean.TRUE)));
+
+    verifyNoInteractions(referenceDataCache, userDataCache, merchantPrefixIndex);
+  }
+
+  @Test
+  void invalidate_updateOfOtherFields_invalidatesTheTable() {
+    when(referenceDataCache.refCategories()).thenReturn(refCategories);
+
+    cacheInvalidationListener.invalidate(
+        update(
+            COLLECTION_NAME_REF_CATEGORY_DETAILS,
+            new BsonDocument("description", new BsonString("groceries"))
+                .append("usageVersion", new BsonInt64(3))));
+
+    verify(refCategories).invalidate();
+  }
+
+  @Test
+  void invalidate_merchantUpdate_invalidatesTheListsHoldingIt() {
+    when(userDataCache.refMerchants()).thenReturn(refMerchants);
+
+    cacheInvalidationListener.invalidate(
+        update(
+            COLLECTION_NAME_REF_MERCHANT_DETAILS,
+            new BsonDocument("description", new BsonString("grocer"))));
+
+    verify(refMerchants).invalidateIds(List.of(ID.toHexString()));
+    verify(merchantPrefixIndex).invalidateId(ID.toHexString());
+  }
+
+  @Test
+  void pipeline_leavesOutTransactionsAndFullDocuments() {
+    BsonDocument match = CacheInvalidationListener.pipeline().get(0).toBsonDocument();
+    BsonDocument project = CacheInvalidationListener.pipeline().get(1).toBsonDocument();
+
+    List<BsonValue> collectionNames =
+        match
+            .getDocument("$match")
+            .getArray("$and")
+            .get(0)
+            .asDocument()
+            .getDocument("ns.coll")
+            .getArray("$in")
+            .getValues();
+    assertFalse(collectionNames.contains(new BsonString(COLLECTION_NAME_TRANSACTION_DETAILS)));
+    assertFalse(collectionNames.contains(new BsonString(COLLECTION_NAME_TRANSACTION_ARCHIVE)));
+    assertEquals(
+        List.of(
+            "operationType",
+            "ns",
+            "documentKey",
+            "updateDescription",
+            "fullDocument.user.username"),
+        List.copyOf(project.getDocument("$project").keySet()));
+  }
+
+  private static ChangeStreamDocument<Document> update(
+      String collectionName, BsonDocument updatedFields) {
+    return new ChangeStreamDocument<>(
+        "update",
+        new BsonDocument(),
+        new BsonDocument("db", new BsonString("pets_database"))
+            .append("coll", new BsonString(collectionName)),
+        null,
+        null,
+        null,
+        new BsonDocument("_id", new BsonObjectId(ID)),
+        null,
+        new UpdateDescription(List.of(), updatedFields),
+        null,
+        null,
+        null,
+        null,
+        null);
+  }
+}
@@ -0,0 +1,124 @@
+package pets.database.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pets.database.model.RefMerchant;
+import pets.database.model.User;
+import pets.database.repository.RefMerchantDao;
+
+@ExtendWith(MockitoExtension.class)
+class MerchantPrefixIndexTest {
+  @Mock private RefMerchantDao refMerchantDao;
+
+  private MerchantPrefixIndex merchantPrefixIndex;
+
+  @BeforeEach
+  void init() {
+    merchantPrefixIndex = new MerchantPrefixIndex(refMerchantDao, Duration.ofMinutes(15));
+    when(refMerchantDao.getAllRefMerchantsByUsername("user"))
+        .thenReturn(
+            List.of(
+                refMerchant("id-1", "Café Rouge", 2L),
+                refMerchant("id-2", "Costco Wholesale", 9L),
+                refMerchant("id-3", "Whole Foods", 5L)));
+  }
+
+  @Test
+  void search_ignoresCaseAndAccents_ranksByUsage() {
+    assertEquals(List.of("id-2", "id-1"), ids(merchantPrefixIndex.search("user", "C", 10)));
+    assertEquals(List.of("id-1"), ids(merchantPrefixIndex.search("user", "cafe r", 10)));
+    assertEquals(List.of("id-2", "id-3"), ids(merchantPrefixIndex.search("user", "WHOLE", 10)));
+    assertEquals(List.of("id-2"), ids(merchantPrefixIndex.search("user", "whole", 1)));
+    assertTrue(merchantPrefixIndex.search("user", "target", 10).isEmpty());
+
+    verify(refMerchantDao, times(1)).getAllRefMerchantsByUsername("user");
+  }
+
+  @Test
+  void put_remove_updateIndexInPlace() {
+    merchantPrefixIndex.search("user", "c", 10);
+
+    merchantPrefixIndex.put(refMerchant("id-4", "Corner Store", 0L));
+    merchantPrefixIndex.put(refMerchant("id-1", "Bistro Rouge", 2L));
+    merchantPrefixIndex.remove("id-2");
+
+    assertEquals(List.of("id-4"), ids(merchantPrefixIndex.search("user", "c", 10)));
+    assertEquals(List.of("id-1"), ids(merchantPrefixIndex.search("user", "rouge", 10)));
+    verify(refMerchantDao, times(1)).getAllRefMerchantsByUsername("user");
+  }
+
+  @Test
+  void remove_unknownIdOrUser_changesNothing() {
+    merchantPrefixIndex.search("user", "c", 10);
+
+    merchantPrefixIndex.remove("id-9");
+    merchantPrefixIndex.put(
+        RefMerchant.builder().id("id-9").description("Corner Store").usageCount(0L).build());
+
+    assertEquals(List.of("id-2", "id-1"), ids(merchantPrefixIndex.search("user", "c", 10)));
+    verify(refMerchantDao, times(1)).getAllRefMerchantsByUsername("user");
+  }
+
+  @Test
+  void invalidateId_dropsTheIndexOfTheUserOfTheMerchant() {
+    merchantPrefixIndex.search("user", "c", 10);
+
+    merchantPrefixIndex.invalidateId("id-9");
+    assertEquals(1, merchantPrefixIndex.size());
+    merchantPrefixIndex.invalidateId("id-3");
+    assertEquals(0, merchantPrefixIndex.size());
+
+    merchantPrefixIndex.search("user", "c", 10);
+    verify(refMerchantDao, times(2)).getAllRefMerchantsByUsername("user");
+  }
+
+  @Test
+  void search_writeDuringLoad_doesNotIndexTheLoad() {
+    when(refMerchantDao.getAllRefMerchantsByUsername("user"))
+        .thenAnswer(
+            invocation -> {
+              merchantPrefixIndex.remove("id-2");
+              return List.of(refMerchant("id-2", "Costco Wholesale", 9L));
+            })
+        .thenReturn(List.of());
+
+    assertEquals(List.of("id-2"), ids(merchantPrefixIndex.search("user", "c", 10)));
+    assertEquals(0, merchantPrefixIndex.size());
+    assertTrue(merchantPrefixIndex.search("user", "c", 10).isEmpty());
+  }
+
+  @Test
+  void search_dropsExpiredIndexesOfOtherUsers() {
+    merchantPrefixIndex = new MerchantPrefixIndex(refMerchantDao, Duration.ofMillis(-1));
+    when(refMerchantDao.getAllRefMerchantsByUsername("other")).thenReturn(List.of());
+
+    merchantPrefixIndex.search("user", "c", 10);
+    merchantPrefixIndex.search("other", "c", 10);
+
+    assertEquals(1, merchantPrefixIndex.size());
+  }
+
+  private List<String> ids(List<RefMerchant> refMerchants) {
+    return refMerchants.stream().map(RefMerchant::getId).toList();
+  }
+
+  private RefMerchant refMerchant(String id, String description, Long usageCount) {
+    return RefMerchant.builder()
+        .id(id)
+        .description(description)
+        .user(User.builder().username("user").build())
+        .usageCount(usageCount)
+        .build();
+  }
+}
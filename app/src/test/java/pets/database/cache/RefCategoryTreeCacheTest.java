@@ -0,0 +1,110 @@
+package pets.database.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pets.database.model.RefCategory;
+import pets.database.model.RefCategoryTreeResponse;
+import pets.database.model.RefCategoryType;
+import pets.database.repository.RefAccountTypeDao;
+import pets.database.repository.RefBankDao;
+import pets.database.repository.RefCategoryDao;
+import pets.database.repository.RefCategoryTypeDao;
+import pets.database.repository.RefTransactionTypeDao;
+
+@ExtendWith(MockitoExtension.class)
+class RefCategoryTreeCacheTest {
+  @Mock private RefAccountTypeDao refAccountTypeDao;
+  @Mock private RefBankDao refBankDao;
+  @Mock private RefCategoryTypeDao refCategoryTypeDao;
+  @Mock private RefCategoryDao refCategoryDao;
+  @Mock private RefTransactionTypeDao refTransactionTypeDao;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private ReferenceDataCache referenceDataCache;
+  private RefCategoryTreeCache refCategoryTreeCache;
+
+  @BeforeEach
+  void init() {
+    referenceDataCache =
+        new ReferenceDataCache(
+            refAccountTypeDao,
+            refBankDao,
+            refCategoryTypeDao,
+            refCategoryDao,
+            refTransactionTypeDao,
+            Duration.ofMinutes(15));
+    refCategoryTreeCache = new RefCategoryTreeCache(referenceDataCache, objectMapper);
+
+    RefCategoryType bills = RefCategoryType.builder().id("type-1").description("bills").build();
+    RefCategoryType food = RefCategoryType.builder().id("type-2").description("food").build();
+    when(refCategoryTypeDao.getAllRefCategoryTypes()).thenReturn(List.of(bills, food));
+    when(refCategoryDao.getAllRefCategories())
+        .thenReturn(
+            List.of(
+                RefCategory.builder()
+                    .id("category-1")
+                    .description("rent")
+                    .refCategoryType(bills)
+                    .build(),
+                RefCategory.builder()
+                    .id("category-2")
+                    .description("lunch")
+                    .refCategoryType(food)
+                    .build(),
+                RefCategory.builder()
+                    .id("category-3")
+                    .description("power")
+                    .refCategoryType(bills)
+                    .build()));
+  }
+
+  @Test
+  void get_groupsCategoriesByType() throws Exception {
+    RefCategoryTreeResponse refCategoryTreeResponse =
+        objectMapper.readValue(refCategoryTreeCache.get().body(), RefCategoryTreeResponse.class);
+
+    assertEquals(2, refCategoryTreeResponse.getRefCategoryTrees().size());
+    assertEquals(
+        "bills",
+        refCategoryTreeResponse.getRefCategoryTrees().get(0).getRefCategoryType().getDescription());
+    assertEquals(2, refCategoryTreeResponse.getRefCategoryTrees().get(0).getRefCategories().size());
+    assertEquals(1, refCategoryTreeResponse.getRefCategoryTrees().get(1).getRefCategories().size());
+  }
+
+  @Test
+  void get_rebuildsOnlyAfterCategoriesChange() throws Exception {
+    RefCategoryTreeCache.SerializedTree serializedTree = refCategoryTreeCache.get();
+    assertSame(serializedTree, refCategoryTreeCache.get());
+
+    // reloaded with the same content keeps the tree
+    referenceDataCache.refCategories().invalidate();
+    assertSame(serializedTree, refCategoryTreeCache.get());
+
+    when(refCategoryDao.getAllRefCategories())
+        .thenReturn(List.of(RefCategory.builder().id("category-4").description("gas").build()));
+    referenceDataCache.refCategories().invalidate();
+    assertNotEquals(serializedTree.eTag(), refCategoryTreeCache.get().eTag());
+  }
+
+  @Test
+  void invalidate_rebuildsWithTheSameETags() throws Exception {
+    RefCategoryTreeCache.SerializedTree serializedTree = refCategoryTreeCache.get();
+
+    refCategoryTreeCache.invalidate();
+
+    assertNotSame(serializedTree, refCategoryTreeCache.get());
+    assertEquals(serializedTree.eTag(), refCategoryTreeCache.get().eTag());
+  }
+}
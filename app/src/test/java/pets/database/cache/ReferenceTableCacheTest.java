@@ -0,0 +1,73 @@
+package pets.database.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pets.database.model.RefBank;
+
+class ReferenceTableCacheTest {
+  private AtomicInteger loads;
+  private ReferenceTableCache<RefBank> refBanks;
+
+  @BeforeEach
+  void init() {
+    loads = new AtomicInteger();
+    refBanks = refBanks(Duration.ofMinutes(15));
+  }
+
+  @Test
+  void getAll_getById_loadOnce() {
+    assertEquals(2, refBanks.getAll().size());
+    assertEquals("bank-two", refBanks.getById("id-2").getDescription());
+    assertNull(refBanks.getById("id-3"));
+
+    assertEquals(1, loads.get());
+    assertEquals(2, refBanks.getStats().hits());
+  }
+
+  @Test
+  void getAll_isUnmodifiable() {
+    List<RefBank> rows = refBanks.getAll();
+
+    assertThrows(UnsupportedOperationException.class, () -> rows.add(new RefBank()));
+  }
+
+  @Test
+  void invalidate_reloads() {
+    refBanks.getAll();
+    refBanks.invalidate();
+    refBanks.getAll();
+
+    assertEquals(2, loads.get());
+    assertEquals(1, refBanks.getStats().invalidations());
+  }
+
+  @Test
+  void expired_reloads() {
+    refBanks = refBanks(Duration.ZERO);
+
+    refBanks.getAll();
+    refBanks.getAll();
+
+    assertEquals(2, loads.get());
+  }
+
+  private ReferenceTableCache<RefBank> refBanks(Duration ttl) {
+    return new ReferenceTableCache<>(
+        "refBanks",
+        () -> {
+          loads.incrementAndGet();
+          return List.of(
+              RefBank.builder().id("id-1").description("bank-one").build(),
+              RefBank.builder().id("id-2").description("bank-two").build());
+        },
+        RefBank::getId,
+        ttl);
+  }
+}
@@ -0,0 +1,101 @@
+package pets.database.cache;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pets.database.model.SummaryDimension;
+import pets.database.model.SummaryPeriod;
+import pets.database.model.TransactionSummary;
+
+class TransactionSummaryCacheTest {
+  private TransactionSummaryCache transactionSummaryCache;
+  private AtomicInteger loads;
+  private Supplier<List<TransactionSummary>> loader;
+
+  @BeforeEach
+  void init() {
+    transactionSummaryCache = new TransactionSummaryCache(Duration.ofMinutes(15));
+    loads = new AtomicInteger();
+    loader =
+        () ->
+            singletonList(
+                TransactionSummary.builder()
+                    .period("2021-12")
+                    .key("category-id")
+                    .total(BigDecimal.valueOf(loads.incrementAndGet()))
+                    .count(1L)
+                    .build());
+  }
+
+  @Test
+  void get_loadsOncePerKey() {
+    transactionSummaryCache.get(
+        "user-name", SummaryPeriod.MONTH, SummaryDimension.CATEGORY, loader);
+    transactionSummaryCache.get(
+        "user-name", SummaryPeriod.MONTH, SummaryDimension.CATEGORY, loader);
+    transactionSummaryCache.get("user-name", SummaryPeriod.YEAR, SummaryDimension.CATEGORY, loader);
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void invalidate_reloadsOnlyThatUser() {
+    transactionSummaryCache.get(
+        "user-name", SummaryPeriod.MONTH, SummaryDimension.CATEGORY, loader);
+    transactionSummaryCache.get(
+        "other-user", SummaryPeriod.MONTH, SummaryDimension.CATEGORY, loader);
+
+    transactionSummaryCache.invalidate("user-name");
+    List<TransactionSummary> transactionSummaries =
+        transactionSummaryCache.get(
+            "user-name", SummaryPeriod.MONTH, SummaryDimension.CATEGORY, loader);
+    transactionSummaryCache.get(
+        "other-user", SummaryPeriod.MONTH, SummaryDimension.CATEGORY, loader);
+
+    assertEquals(3, loads.get());
+    assertEquals(BigDecimal.valueOf(3), transactionSummaries.get(0).getTotal());
+  }
+
+  @Test
+  void invalidateAll_reloadsAllUsers() {
+    transactionSummaryCache.get(
+        "user-name", SummaryPeriod.MONTH, SummaryDimension.CATEGORY, loader);
+
+    transactionSummaryCache.invalidateAll();
+    transactionSummaryCache.get(
+        "user-name", SummaryPeriod.MONTH, SummaryDimension.CATEGORY, loader);
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void get_afterTtl_reloads() {
+    transactionSummaryCache = new TransactionSummaryCache(Duration.ofMillis(-1));
+
+    transactionSummaryCache.get(
+        "user-name", SummaryPeriod.MONTH, SummaryDimension.CATEGORY, loader);
+    transactionSummaryCache.get(
+        "user-name", SummaryPeriod.MONTH, SummaryDimension.CATEGORY, loader);
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void invalidate_withoutUsername_keepsTheCache() {
+    transactionSummaryCache.get(
+        "user-name", SummaryPeriod.MONTH, SummaryDimension.CATEGORY, loader);
+
+    transactionSummaryCache.invalidate(null);
+    transactionSummaryCache.get(
+        "user-name", SummaryPeriod.MONTH, SummaryDimension.CATEGORY, loader);
+
+    assertEquals(1, loads.get());
+  }
+}
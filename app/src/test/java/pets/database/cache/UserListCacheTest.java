@@ -0,0 +1,107 @@
+package pets.database.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pets.database.model.RefMerchant;
+
+class UserListCacheTest {
+  private static final Duration TTL = Duration.ofMinutes(5);
+
+  private AtomicInteger loads;
+  private MeterRegistry meterRegistry;
+
+  @BeforeEach
+  void init() {
+    loads = new AtomicInteger();
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void get_loadsOnce_countsHitsAndMisses() {
+    UserListCache<RefMerchant> refMerchants = refMerchants(1024 * 1024);
+
+    refMerchants.get("user", () -> load("user"));
+    refMerchants.get("user", () -> load("user"));
+
+    assertEquals(1, loads.get());
+    assertEquals(1.0, count("cache.gets", "hit"));
+    assertEquals(1.0, count("cache.gets", "miss"));
+  }
+
+  @Test
+  void invalidateIds_dropsListOfTheRow() {
+    UserListCache<RefMerchant> refMerchants = refMerchants(1024 * 1024);
+    refMerchants.get("user-1", () -> load("user-1"));
+    refMerchants.get("user-2", () -> load("user-2"));
+
+    refMerchants.invalidateIds(List.of("user-1-merchant"));
+    refMerchants.get("user-1", () -> load("user-1"));
+    refMerchants.get("user-2", () -> load("user-2"));
+
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  void get_overMaxSize_evictsLeastRecentlyUsed() {
+    // every user has one merchant of the same size
+    UserListCache<RefMerchant> refMerchants = refMerchants(2 * weightOf("user-1"));
+
+    refMerchants.get("user-1", () -> load("user-1"));
+    refMerchants.get("user-2", () -> load("user-2"));
+    refMerchants.get("user-1", () -> load("user-1"));
+    refMerchants.get("user-3", () -> load("user-3"));
+    refMerchants.get("user-1", () -> load("user-1"));
+
+    assertEquals(2, refMerchants.size());
+    assertEquals(3, loads.get());
+    assertEquals(1.0, meterRegistry.get("cache.evictions").tag("cache", "test").counter().count());
+  }
+
+  @Test
+  void getETag_isComputedOnLoad_andFollowsTheRows() {
+    UserListCache<RefMerchant> refMerchants = refMerchants(1024 * 1024);
+
+    String eTag = refMerchants.getETag("user", () -> load("user"));
+    refMerchants.get("user", () -> load("user"));
+    assertEquals(eTag, refMerchants.getETag("user", () -> load("user")));
+    assertEquals(1, loads.get());
+
+    refMerchants.invalidate("user");
+    assertNotEquals(
+        eTag,
+        refMerchants.getETag(
+            "user",
+            () ->
+                List.of(RefMerchant.builder().id("user-merchant").description("shop 2").build())));
+  }
+
+  private long weightOf(String username) {
+    UserListCache<RefMerchant> probe =
+        new UserListCache<>(
+            "probe", RefMerchant::getId, Long.MAX_VALUE, TTL, new SimpleMeterRegistry());
+    probe.get(username, () -> load(username));
+    loads.set(0);
+    return probe.weight();
+  }
+
+  private double count(String name, String result) {
+    return meterRegistry.get(name).tag("cache", "test").tag("result", result).counter().count();
+  }
+
+  private UserListCache<RefMerchant> refMerchants(long maxWeight) {
+    return new UserListCache<>("test", RefMerchant::getId, maxWeight, TTL, meterRegistry);
+  }
+
+  private List<RefMerchant> load(String username) {
+    loads.incrementAndGet();
+    return List.of(RefMerchant.builder().id(username + "-merchant").description("shop").build());
+  }
+}
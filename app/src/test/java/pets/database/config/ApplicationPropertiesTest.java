@@ -0,0 +1,122 @@
+package pets.database.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Executable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Loads application.yml the way Spring Boot does at startup, which rejects duplicate keys, and
+ * checks every pets property it sets is read by a component, so a misplaced key fails the build.
+ */
+class ApplicationPropertiesTest {
+  private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([^:}]+)");
+
+  private static List<PropertySource<?>> propertySources;
+
+  @BeforeAll
+  static void init() throws IOException {
+    propertySources =
+        new YamlPropertySourceLoader()
+            .load("application", new ClassPathResource("application.yml"));
+  }
+
+  @Test
+  void applicationYml_bindsTheCacheTtls() {
+    StandardEnvironment environment = new StandardEnvironment();
+    propertySources.forEach(environment.getPropertySources()::addLast);
+    Binder binder = Binder.get(environment);
+
+    assertEquals(Duration.ofMinutes(5), binder.bind("pets.user-cache.ttl", Duration.class).get());
+    assertEquals(
+        Duration.ofMinutes(5), binder.bind("pets.user-etag-cache.ttl", Duration.class).get());
+  }
+
+  @Test
+  void applicationYml_setsOnlyPropertiesTheComponentsRead() {
+    Set<String> read = readProperties();
+    Set<String> unread = new TreeSet<>();
+    for (PropertySource<?> propertySource : propertySources) {
+      for (String name : ((EnumerablePropertySource<?>) propertySource).getPropertyNames()) {
+        if (name.startsWith("pets.") && !read.contains(name)) {
+          unread.add(name);
+        }
+      }
+    }
+
+    assertTrue(unread.isEmpty(), "not read by any component: " + unread);
+  }
+
+  /** The pets properties named in @Value and @Scheduled placeholders of the components. */
+  private static Set<String> readProperties() {
+    ClassPathScanningCandidateComponentProvider scanner =
+        new ClassPathScanningCandidateComponentProvider(true);
+    Set<String> properties = new TreeSet<>();
+    for (BeanDefinition beanDefinition : scanner.findCandidateComponents("pets.database")) {
+      Class<?> type =
+          ClassUtils.resolveClassName(
+              beanDefinition.getBeanClassName(), ApplicationPropertiesTest.class.getClassLoader());
+      List<AnnotatedElement> elements = new ArrayList<>(List.of(type.getDeclaredFields()));
+      for (Executable executable : type.getDeclaredConstructors()) {
+        elements.addAll(List.of(executable.getParameters()));
+      }
+      for (Executable executable : type.getDeclaredMethods()) {
+        elements.add(executable);
+        elements.addAll(List.of(executable.getParameters()));
+      }
+
+      elements.stream()
+          .flatMap(ApplicationPropertiesTest::placeholders)
+          .filter(property -> property.startsWith("pets."))
+          .forEach(properties::add);
+    }
+    return properties;
+  }
+
+  private static Stream<String> placeholders(AnnotatedElement element) {
+    Stream.Builder<String> values = Stream.builder();
+    Value value = element.getAnnotation(Value.class);
+    if (value != null) {
+      values.add(value.value());
+    }
+    for (Scheduled scheduled : element.getAnnotationsByType(Scheduled.class)) {
+      values.add(scheduled.initialDelayString()).add(scheduled.fixedDelayString());
+      values.add(scheduled.fixedRateString()).add(scheduled.cron());
+    }
+
+    return values
+        .build()
+        .flatMap(
+            text -> {
+              Matcher matcher = PLACEHOLDER.matcher(text);
+              Stream.Builder<String> properties = Stream.builder();
+              while (matcher.find()) {
+                properties.add(matcher.group(1));
+              }
+              return properties.build();
+            });
+  }
+}
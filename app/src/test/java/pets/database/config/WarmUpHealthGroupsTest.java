@@ -0,0 +1,36 @@
+package pets.database.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.HealthEndpointGroup;
+import org.springframework.boot.actuate.health.HealthEndpointGroups;
+
+@ExtendWith(MockitoExtension.class)
+class WarmUpHealthGroupsTest {
+  @Mock private HealthEndpointGroups groups;
+  @Mock private HealthEndpointGroup primary;
+  @Mock private HealthEndpointGroup readiness;
+
+  @Test
+  void postProcess_leavesWarmUpOutOfOverallHealthOnly() {
+    when(groups.getPrimary()).thenReturn(primary);
+    when(groups.getNames()).thenReturn(Set.of("readiness"));
+    when(groups.get("readiness")).thenReturn(readiness);
+    when(primary.isMember("mongo")).thenReturn(true);
+
+    HealthEndpointGroups processed =
+        new WarmUpHealthGroups().postProcessHealthEndpointGroups(groups);
+
+    assertFalse(processed.getPrimary().isMember(WarmUp.HEALTH_INDICATOR_NAME));
+    assertTrue(processed.getPrimary().isMember("mongo"));
+    assertSame(readiness, processed.get("readiness"));
+  }
+}
@@ -0,0 +1,73 @@
+package pets.database.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import pets.database.cache.ReferenceDataCache;
+import pets.database.cache.ReferenceTableCache;
+
+@ExtendWith(MockitoExtension.class)
+class WarmUpTest {
+  @Mock private MongoTemplate mongoTemplate;
+  @Mock private ReferenceDataCache referenceDataCache;
+  @Mock private ReferenceTableCache<?> referenceTableCache;
+  @Mock private Environment environment;
+
+  @Test
+  void warmUp_pingsFromItsOwnThreads_thenReportsUp() {
+    WarmUp warmUp = new WarmUp(mongoTemplate, referenceDataCache, environment, true, 4, 1);
+    Set<String> threadNames = ConcurrentHashMap.newKeySet();
+    when(mongoTemplate.executeCommand(any(Document.class)))
+        .thenAnswer(
+            invocation -> {
+              threadNames.add(Thread.currentThread().getName());
+              return new Document("ok", 1);
+            });
+    when(referenceDataCache.getAll()).thenReturn(List.of(referenceTableCache));
+
+    assertEquals(Status.OUT_OF_SERVICE, warmUp.health().getStatus());
+    warmUp.warmUp();
+
+    verify(mongoTemplate, times(4)).executeCommand(any(Document.class));
+    verify(referenceTableCache).getAll();
+    assertEquals(Set.of("warm-up"), threadNames);
+    assertEquals(Status.UP, warmUp.health().getStatus());
+  }
+
+  @Test
+  void warmUp_failures_stillReportUp() {
+    WarmUp warmUp = new WarmUp(mongoTemplate, referenceDataCache, environment, true, 2, 1);
+    when(mongoTemplate.executeCommand(any(Document.class)))
+        .thenThrow(new IllegalStateException("no connection"));
+    when(referenceDataCache.getAll()).thenThrow(new IllegalStateException("no connection"));
+
+    warmUp.warmUp();
+
+    assertEquals(Status.UP, warmUp.health().getStatus());
+  }
+
+  @Test
+  void warmUp_disabled_onlyReportsUp() {
+    WarmUp warmUp = new WarmUp(mongoTemplate, referenceDataCache, environment, false, 4, 1);
+
+    warmUp.warmUp();
+
+    verifyNoInteractions(mongoTemplate, referenceDataCache, environment);
+    assertEquals(Status.UP, warmUp.health().getStatus());
+  }
+}
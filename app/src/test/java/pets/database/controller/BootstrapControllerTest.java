@@ -0,0 +1,58 @@
+package pets.database.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+import static org.springframework.http.HttpStatus.OK;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import pets.database.model.BootstrapResponse;
+import pets.database.service.BootstrapService;
+
+@ExtendWith(MockitoExtension.class)
+class BootstrapControllerTest {
+  private static final String USER_NAME = "user-name";
+  private static final String ETAG = "\"bootstrap\"";
+
+  @Mock private BootstrapService bootstrapService;
+
+  private BootstrapController bootstrapController;
+
+  @BeforeEach
+  void init() {
+    bootstrapController = new BootstrapController(bootstrapService);
+    when(bootstrapService.getBootstrapETag(USER_NAME)).thenReturn(ETAG);
+  }
+
+  @Test
+  void getBootstrapByUsername_currentETag_notModifiedWithoutBuildingTheResponse() {
+    ResponseEntity<BootstrapResponse> response =
+        bootstrapController.getBootstrapByUsername(USER_NAME, ETAG);
+
+    assertEquals(NOT_MODIFIED, response.getStatusCode());
+    assertEquals(ETAG, response.getHeaders().getETag());
+    verify(bootstrapService, never()).getBootstrapByUsername(USER_NAME);
+  }
+
+  @Test
+  void getBootstrapByUsername_staleETag_returnsTheResponseWithTheETag() {
+    BootstrapResponse bootstrapResponse = BootstrapResponse.builder().accounts(List.of()).build();
+    when(bootstrapService.getBootstrapByUsername(USER_NAME)).thenReturn(bootstrapResponse);
+
+    ResponseEntity<BootstrapResponse> response =
+        bootstrapController.getBootstrapByUsername(USER_NAME, "\"stale\"");
+
+    assertEquals(OK, response.getStatusCode());
+    assertEquals(ETAG, response.getHeaders().getETag());
+    assertSame(bootstrapResponse, response.getBody());
+  }
+}
@@ -6,6 +6,8 @@ import static java.util.Collections.singletonList;
 import static java.util.Objects.requireNonNull;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpStatus.*;
 import static support.FixtureReader.readFixture;
@@ -25,6 +27,7 @@ import pets.database.model.User;
 import pets.database.model.UserRequest;
 import pets.database.model.UserResponse;
 import pets.database.service.UserService;
+import pets.database.utils.ETags;
 
 @ExtendWith(MockitoExtension.class)
 class UserControllerTest {
@@ -44,7 +47,7 @@ class UserControllerTest {
 
   @BeforeEach
   void init() throws JsonProcessingException {
-    userController = new UserController(userService);
+    userController = new UserController(userService, objectMapper());
 
     userRequest =
         new UserRequest(USER_NAME, "pass-word", "first-name", "last-name", EMAIL, PHONE, "status");
@@ -67,15 +70,25 @@ class UserControllerTest {
                 Status.builder().errMsg("Error Retrieving All Users, Please Try Again!!!").build())
             .build();
 
-    when(userService.getAllUsers()).thenReturn(expectedUserResponseError);
+    when(userService.getAllUsers(100, null)).thenReturn(expectedUserResponseError);
 
-    ResponseEntity<UserResponse> actualUserResponse = userController.getAllUsers();
+    ResponseEntity<UserResponse> actualUserResponse = userController.getAllUsers(100, null);
 
     assertEquals(expectedUserResponseError, actualUserResponse.getBody());
     assertNotNull(requireNonNull(actualUserResponse.getBody()).getStatus());
     assertEquals(INTERNAL_SERVER_ERROR, actualUserResponse.getStatusCode());
   }
 
+  @Test
+  void getAllUsers_invalidLimit_returnsError_400() {
+    ResponseEntity<UserResponse> actualUserResponse = userController.getAllUsers(1001, null);
+
+    assertEquals(
+        "Error Retrieving All Users by Invalid Limit: 1001",
+        requireNonNull(actualUserResponse.getBody()).getStatus().getErrMsg());
+    assertEquals(BAD_REQUEST, actualUserResponse.getStatusCode());
+  }
+
   @Test
   void getAllUsers_returnsResponse() {
     expectedUserResponse =
@@ -86,9 +99,9 @@ class UserControllerTest {
                     User.builder().username("user-name-02").build()))
             .build();
 
-    when(userService.getAllUsers()).thenReturn(expectedUserResponse);
+    when(userService.getAllUsers(100, null)).thenReturn(expectedUserResponse);
 
-    ResponseEntity<UserResponse> actualUserResponse = userController.getAllUsers();
+    ResponseEntity<UserResponse> actualUserResponse = userController.getAllUsers(100, null);
 
     assertEquals(expectedUserResponse, actualUserResponse.getBody());
     assertNull(requireNonNull(actualUserResponse.getBody()).getStatus());
@@ -150,7 +163,7 @@ class UserControllerTest {
             .build();
 
     ResponseEntity<UserResponse> actualUserResponse =
-        userController.getUserByUserName("", "user-header");
+        userController.getUserByUserName("", "user-header", null);
 
     assertEquals(expectedUserResponseError, actualUserResponse.getBody());
     assertNotNull(requireNonNull(actualUserResponse.getBody()).getStatus());
@@ -171,7 +184,7 @@ class UserControllerTest {
             .build();
 
     ResponseEntity<UserResponse> actualUserResponse =
-        userController.getUserByUserName(USER_NAME, "user-header");
+        userController.getUserByUserName(USER_NAME, "user-header", null);
 
     assertEquals(expectedUserResponseError, actualUserResponse.getBody());
     assertNotNull(requireNonNull(actualUserResponse.getBody()).getStatus());
@@ -190,7 +203,7 @@ class UserControllerTest {
     when(userService.getUserByUsername(any())).thenReturn(expectedUserResponseError);
 
     ResponseEntity<UserResponse> actualUserResponse =
-        userController.getUserByUserName(USER_NAME, USER_NAME);
+        userController.getUserByUserName(USER_NAME, USER_NAME, null);
 
     assertEquals(expectedUserResponseError, actualUserResponse.getBody());
     assertNotNull(requireNonNull(actualUserResponse.getBody()).getStatus());
@@ -202,13 +215,36 @@ class UserControllerTest {
     when(userService.getUserByUsername(any())).thenReturn(expectedUserResponse);
 
     ResponseEntity<UserResponse> actualUserResponse =
-        userController.getUserByUserName(USER_NAME, USER_NAME);
+        userController.getUserByUserName(USER_NAME, USER_NAME, null);
 
     assertEquals(expectedUserResponse, actualUserResponse.getBody());
     assertNull(requireNonNull(actualUserResponse.getBody()).getStatus());
     assertEquals(OK, actualUserResponse.getStatusCode());
   }
 
+  @Test
+  void getUserByUsername_returnsETag() {
+    when(userService.getUserByUsername(any())).thenReturn(expectedUserResponse);
+
+    ResponseEntity<UserResponse> actualUserResponse =
+        userController.getUserByUserName(USER_NAME, USER_NAME, null);
+
+    assertEquals(
+        ETags.of(expectedUserResponse.getUsers()), actualUserResponse.getHeaders().getETag());
+  }
+
+  @Test
+  void getUserByUsername_unchanged_returns304() {
+    when(userService.getUserETag(USER_NAME)).thenReturn("\"user-etag\"");
+
+    ResponseEntity<UserResponse> actualUserResponse =
+        userController.getUserByUserName(USER_NAME, USER_NAME, "\"user-etag\"");
+
+    assertEquals(NOT_MODIFIED, actualUserResponse.getStatusCode());
+    assertNull(actualUserResponse.getBody());
+    verify(userService, never()).getUserByUsername(any());
+  }
+
   @Test
   void getUserByEmail_returnsError_400() {
     expectedUserResponseError =
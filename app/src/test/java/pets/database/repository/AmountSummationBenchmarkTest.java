@@ -0,0 +1,207 @@
+package pets.database.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_DETAILS;
+
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import pets.database.model.Account;
+import pets.database.model.AccountTotal;
+import pets.database.model.RefCategory;
+import pets.database.model.RefMerchant;
+import pets.database.model.RefTransactionType;
+import pets.database.model.Transaction;
+import pets.database.model.TransactionDocument;
+import pets.database.model.User;
+import support.BenchmarkMongo;
+
+/**
+ * Compares summing the amounts of a user with 100k transactions in the application, which has to
+ * read and map every transaction, with the $sum of {@link TransactionDao#getAccountTotals} on the
+ * server, which sends back one total per account and type. Runs against a MongoDB with gradle
+ * benchmark.
+ */
+@Tag("benchmark")
+class AmountSummationBenchmarkTest {
+  private static final int TRANSACTIONS = 100_000;
+  private static final int ACCOUNTS = 4;
+  private static final int ROUNDS = 5;
+  private static final String TYPE_ID = "64b5f1a2c3d4e5f6a7b8c9e0";
+
+  private static BenchmarkMongo benchmarkMongo;
+  private static MongoTemplate mongoTemplate;
+  private static TransactionDao transactionDao;
+
+  @BeforeAll
+  static void init() {
+    benchmarkMongo = BenchmarkMongo.connect("pets_benchmark_amount_summation");
+    mongoTemplate = benchmarkMongo.mongoTemplate();
+
+    List<TransactionDocument> transactionDocuments = new ArrayList<>();
+    for (int i = 0; i < TRANSACTIONS; i++) {
+      transactionDocuments.add(TransactionDocuments.toDocument(transaction(i)));
+      if (transactionDocuments.size() == 1000) {
+        mongoTemplate.insert(transactionDocuments, COLLECTION_NAME_TRANSACTION_DETAILS);
+        transactionDocuments.clear();
+      }
+    }
+    // the indexes IndexRegistry declares for the account matches
+    mongoTemplate
+        .getCollection(COLLECTION_NAME_TRANSACTION_DETAILS)
+        .createIndex(Indexes.compoundIndex(Indexes.ascending("a"), Indexes.descending("date")));
+    mongoTemplate
+        .getCollection(COLLECTION_NAME_TRANSACTION_DETAILS)
+        .createIndex(Indexes.compoundIndex(Indexes.ascending("ta"), Indexes.descending("date")));
+
+    TransactionDateMigration transactionDateMigration = mock(TransactionDateMigration.class);
+    when(transactionDateMigration.isComplete()).thenReturn(true);
+    TransactionLayoutMigration transactionLayoutMigration = mock(TransactionLayoutMigration.class);
+    when(transactionLayoutMigration.isComplete()).thenReturn(true);
+    transactionDao =
+        new TransactionDao(
+            mongoTemplate,
+            transactionDateMigration,
+            transactionLayoutMigration,
+            mock(TransactionArchive.class));
+  }
+
+  @AfterAll
+  static void shutdown() {
+    if (benchmarkMongo != null) {
+      benchmarkMongo.close();
+    }
+  }
+
+  @Test
+  void amounts_areStoredAsDecimal128() {
+    Document stored =
+        mongoTemplate.getCollection(COLLECTION_NAME_TRANSACTION_DETAILS).find().first();
+
+    assertInstanceOf(Decimal128.class, stored.get("amount"));
+  }
+
+  @Test
+  void serverSideSum_againstSummingInTheApplication() {
+    List<String> accountIds = new ArrayList<>();
+    for (int account = 0; account < ACCOUNTS; account++) {
+      accountIds.add(accountId(account));
+    }
+
+    // the first round warms up the connections and the cache of the server
+    BigDecimal clientTotal = sumInTheApplication(accountIds);
+    BigDecimal serverTotal = sumOnTheServer(accountIds);
+
+    long clientNanos = 0;
+    long serverNanos = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      long clientStarted = System.nanoTime();
+      sumInTheApplication(accountIds);
+      clientNanos += System.nanoTime() - clientStarted;
+
+      long serverStarted = System.nanoTime();
+      sumOnTheServer(accountIds);
+      serverNanos += System.nanoTime() - serverStarted;
+    }
+
+    System.out.printf(
+        "Sum of %d transactions: in the application %d bytes %d ms, on the server %d ms%n",
+        TRANSACTIONS,
+        clientBytes(accountIds),
+        clientNanos / ROUNDS / 1_000_000,
+        serverNanos / ROUNDS / 1_000_000);
+
+    assertEquals(0, clientTotal.compareTo(serverTotal));
+  }
+
+  /** Every transaction crosses the wire and is mapped before it can be added up. */
+  private static BigDecimal sumInTheApplication(List<String> accountIds) {
+    BigDecimal total = BigDecimal.ZERO;
+    try (MongoCursor<Document> cursor =
+        mongoTemplate
+            .getCollection(COLLECTION_NAME_TRANSACTION_DETAILS)
+            .find(accountFilter(accountIds))
+            .cursor()) {
+      while (cursor.hasNext()) {
+        total =
+            total.add(
+                mongoTemplate
+                    .getConverter()
+                    .read(TransactionDocument.class, cursor.next())
+                    .getAmount());
+      }
+    }
+    return total;
+  }
+
+  private static BigDecimal sumOnTheServer(List<String> accountIds) {
+    BigDecimal total = BigDecimal.ZERO;
+    for (AccountTotal accountTotal : transactionDao.getAccountTotals(accountIds)) {
+      total = total.add(accountTotal.getTotal());
+    }
+    return total;
+  }
+
+  private static long clientBytes(List<String> accountIds) {
+    long bytes = 0;
+    try (MongoCursor<RawBsonDocument> cursor =
+        mongoTemplate
+            .getCollection(COLLECTION_NAME_TRANSACTION_DETAILS)
+            .withDocumentClass(RawBsonDocument.class)
+            .find(accountFilter(accountIds))
+            .cursor()) {
+      while (cursor.hasNext()) {
+        bytes += cursor.next().getByteBuffer().remaining();
+      }
+    }
+    return bytes;
+  }
+
+  private static Bson accountFilter(List<String> accountIds) {
+    return Filters.in("a", accountIds.stream().map(ObjectId::new).toList());
+  }
+
+  private static String accountId(int account) {
+    return String.format("64b5f1a2c3d4e5f6a7b8c9%02x", account);
+  }
+
+  private static BigDecimal amount(int i) {
+    return BigDecimal.valueOf(1025 + i % 1000, 2);
+  }
+
+  private static Transaction transaction(int i) {
+    User user = User.builder().username("user-name").build();
+    return Transaction.builder()
+        .description("transaction description " + i)
+        .account(Account.builder().id(accountId(i % ACCOUNTS)).build())
+        .refTransactionType(RefTransactionType.builder().id(TYPE_ID).build())
+        .refCategory(RefCategory.builder().id("64b5f1a2c3d4e5f6a7b8c9e1").build())
+        .refMerchant(RefMerchant.builder().id("64b5f1a2c3d4e5f6a7b8c9e2").build())
+        .user(user)
+        .date(LocalDate.of(2021, 12, 31).minusDays(i % 3650))
+        .amount(amount(i))
+        .regular(false)
+        .necessary(true)
+        .creationDate(LocalDate.of(2021, 12, 31))
+        .lastModified(LocalDateTime.of(2021, 12, 31, 10, 15, 30))
+        .build();
+  }
+}
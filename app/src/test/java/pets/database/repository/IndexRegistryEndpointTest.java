@@ -0,0 +1,49 @@
+package pets.database.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pets.database.model.QueryStats;
+
+@ExtendWith(MockitoExtension.class)
+class IndexRegistryEndpointTest {
+  @Mock private IndexRegistry indexRegistry;
+
+  @Test
+  void report_listsStatesUsageAndShapes_flagsCollectionScans() {
+    List<IndexRegistry.IndexState> indexStates =
+        List.of(
+            new IndexRegistry.IndexState("user_details", "email", "{'email': 1}", "PRESENT", null));
+    List<IndexRegistry.IndexUsage> indexUsages =
+        List.of(new IndexRegistry.IndexUsage("user_details", "email", true, 12L, null));
+    List<IndexRegistry.QueryShapeReport> queryShapes =
+        List.of(
+            new IndexRegistry.QueryShapeReport(
+                "userByEmail",
+                "user_details",
+                "{}",
+                QueryStats.builder().indexName("email").collectionScan(false).build()),
+            new IndexRegistry.QueryShapeReport(
+                "userByPhone",
+                "user_details",
+                "{}",
+                QueryStats.builder().collectionScan(true).build()),
+            new IndexRegistry.QueryShapeReport("userByUsername", "user_details", "{}", null));
+    when(indexRegistry.getIndexStates()).thenReturn(indexStates);
+    when(indexRegistry.getIndexUsages()).thenReturn(indexUsages);
+    when(indexRegistry.getQueryShapes()).thenReturn(queryShapes);
+
+    Map<String, Object> report = new IndexRegistryEndpoint(indexRegistry).report();
+
+    assertEquals(indexStates, report.get("declared"));
+    assertEquals(indexUsages, report.get("usage"));
+    assertEquals(queryShapes, report.get("queryShapes"));
+    assertEquals(List.of("userByPhone"), report.get("collectionScans"));
+  }
+}
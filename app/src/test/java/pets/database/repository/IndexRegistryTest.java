@@ -0,0 +1,149 @@
+package pets.database.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_DETAILS;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+@ExtendWith(MockitoExtension.class)
+class IndexRegistryTest {
+  private static final Duration LEASE = Duration.ofHours(1);
+
+  @Mock private MongoTemplate mongoTemplate;
+  @Mock private JobLeases jobLeases;
+  @Mock private TransactionLayoutMigration transactionLayoutMigration;
+  @Mock private IndexOperations transactionIndexOperations;
+  @Mock private IndexOperations otherIndexOperations;
+
+  private IndexRegistry indexRegistry;
+
+  @BeforeEach
+  void init() {
+    indexRegistry = new IndexRegistry(mongoTemplate, jobLeases, transactionLayoutMigration, LEASE);
+    when(mongoTemplate.indexOps(anyString()))
+        .thenAnswer(
+            invocation ->
+                COLLECTION_NAME_TRANSACTION_DETAILS.equals(invocation.getArgument(0))
+                    ? transactionIndexOperations
+                    : otherIndexOperations);
+    when(transactionIndexOperations.getIndexInfo())
+        .thenReturn(
+            List.of(
+                indexInfo("_id_", "{'_id': 1}"),
+                indexInfo("u_date_id", "{'u': 1, 'date': -1, '_id': -1}"),
+                indexInfo("u_c_date", "{'u': 1, 'c': 1}"),
+                indexInfo("user.username_1", "{'user.username': 1}")));
+  }
+
+  @Test
+  void reconcile_createsMissing_replacesDifferent_reportsUndeclared() {
+    when(transactionLayoutMigration.isComplete()).thenReturn(true);
+    when(jobLeases.acquire("index-reconcile", LEASE)).thenReturn(true);
+
+    indexRegistry.reconcile();
+
+    Map<String, IndexRegistry.IndexState> indexStates = indexStates();
+    assertEquals("PRESENT", indexStates.get("transaction_details.u_date_id").state());
+    assertEquals("CREATED", indexStates.get("transaction_details.u_c_date").state());
+    assertEquals("CREATED", indexStates.get("transaction_details.a_id").state());
+    assertEquals("CREATED", indexStates.get("user_details.username").state());
+    IndexRegistry.IndexState undeclared = indexStates.get("transaction_details.user.username_1");
+    assertEquals("UNDECLARED", undeclared.state());
+    assertEquals("{'user.username': 1}", undeclared.keys());
+
+    verify(transactionIndexOperations).dropIndex("u_c_date");
+    verify(transactionIndexOperations, never()).dropIndex("u_date_id");
+    verify(transactionIndexOperations, never()).dropIndex("user.username_1");
+    ArgumentCaptor<IndexDefinition> created = ArgumentCaptor.forClass(IndexDefinition.class);
+    verify(transactionIndexOperations, times(5)).createIndex(created.capture());
+    assertTrue(
+        created.getAllValues().stream()
+            .noneMatch(indexDefinition -> "u_date_id".equals(name(indexDefinition))));
+    verify(jobLeases).release("index-reconcile");
+  }
+
+  @Test
+  void reconcile_layoutMigrationRunning_createsEmbeddedPathIndexes() {
+    when(transactionLayoutMigration.isComplete()).thenReturn(false);
+    when(jobLeases.acquire("index-reconcile", LEASE)).thenReturn(true);
+
+    indexRegistry.reconcile();
+
+    Map<String, IndexRegistry.IndexState> indexStates = indexStates();
+    assertEquals("CREATED", indexStates.get("transaction_details.embedded_user_date_id").state());
+    assertEquals("CREATED", indexStates.get("transaction_details.embedded_account_id").state());
+    assertEquals(
+        "CREATED", indexStates.get("transaction_details.embedded_trf_account_date").state());
+    verify(transactionIndexOperations, times(8)).createIndex(any());
+  }
+
+  @Test
+  void reconcile_withoutLease_onlyReports() {
+    when(transactionLayoutMigration.isComplete()).thenReturn(true);
+    when(jobLeases.acquire("index-reconcile", LEASE)).thenReturn(false);
+
+    indexRegistry.reconcile();
+
+    Map<String, IndexRegistry.IndexState> indexStates = indexStates();
+    assertEquals("PRESENT", indexStates.get("transaction_details.u_date_id").state());
+    assertEquals("DIFFERENT", indexStates.get("transaction_details.u_c_date").state());
+    assertEquals("MISSING", indexStates.get("user_details.username").state());
+    assertEquals("UNDECLARED", indexStates.get("transaction_details.user.username_1").state());
+
+    verify(transactionIndexOperations, never()).dropIndex(anyString());
+    verify(transactionIndexOperations, never()).createIndex(any());
+    verify(otherIndexOperations, never()).createIndex(any());
+    verify(jobLeases, never()).release(anyString());
+  }
+
+  @Test
+  void reconcile_leaseTakenOverMidway_stopsBuilding() {
+    when(transactionLayoutMigration.isComplete()).thenReturn(true);
+    when(jobLeases.acquire("index-reconcile", LEASE)).thenReturn(true, true, false);
+
+    indexRegistry.reconcile();
+
+    // the first acquire starts the run, the second renews it for u_c_date
+    verify(transactionIndexOperations, times(1)).createIndex(any());
+    verify(otherIndexOperations, never()).createIndex(any());
+    assertEquals("MISSING", indexStates().get("user_details.username").state());
+    verify(jobLeases, never()).release(anyString());
+  }
+
+  private Map<String, IndexRegistry.IndexState> indexStates() {
+    return indexRegistry.getIndexStates().stream()
+        .collect(
+            Collectors.toMap(
+                indexState -> indexState.collection() + "." + indexState.name(),
+                indexState -> indexState));
+  }
+
+  private static String name(IndexDefinition indexDefinition) {
+    return indexDefinition.getIndexOptions().getString("name");
+  }
+
+  private static IndexInfo indexInfo(String name, String keys) {
+    return IndexInfo.indexInfoOf(new Document("name", name).append("key", Document.parse(keys)));
+  }
+}
@@ -0,0 +1,70 @@
+package pets.database.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static pets.database.utils.Constants.COLLECTION_NAME_JOB_LEASES;
+
+import java.time.Duration;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+@ExtendWith(MockitoExtension.class)
+class JobLeasesTest {
+  @Mock private MongoTemplate mongoTemplate;
+
+  private JobLeases jobLeases;
+
+  @BeforeEach
+  void init() {
+    jobLeases = new JobLeases(mongoTemplate);
+  }
+
+  @Test
+  void acquire_freeOrOwnLease_isHeld() {
+    when(mongoTemplate.findAndModify(
+            any(Query.class),
+            any(Update.class),
+            any(FindAndModifyOptions.class),
+            eq(Document.class),
+            eq(COLLECTION_NAME_JOB_LEASES)))
+        .thenReturn(new Document("_id", "job-name"));
+
+    assertTrue(jobLeases.acquire("job-name", Duration.ofMinutes(5)));
+  }
+
+  @Test
+  void acquire_leaseOfAnotherInstance_isNotHeld() {
+    when(mongoTemplate.findAndModify(
+            any(Query.class),
+            any(Update.class),
+            any(FindAndModifyOptions.class),
+            eq(Document.class),
+            eq(COLLECTION_NAME_JOB_LEASES)))
+        .thenThrow(new DuplicateKeyException("E11000 duplicate key error"));
+
+    assertFalse(jobLeases.acquire("job-name", Duration.ofMinutes(5)));
+  }
+
+  @Test
+  void release_removesOnlyTheLeaseOfThisInstance() {
+    jobLeases.release("job-name");
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).remove(query.capture(), eq(COLLECTION_NAME_JOB_LEASES));
+    assertTrue(query.getValue().getQueryObject().containsKey("owner"));
+  }
+}
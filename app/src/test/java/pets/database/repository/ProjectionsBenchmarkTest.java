@@ -0,0 +1,153 @@
+package pets.database.repository;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_DETAILS;
+
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.Query;
+import pets.database.model.Account;
+import pets.database.model.RefCategory;
+import pets.database.model.RefMerchant;
+import pets.database.model.RefTransactionType;
+import pets.database.model.Transaction;
+import pets.database.model.TransactionDocument;
+import pets.database.model.User;
+import pets.database.utils.FieldSets;
+import support.BenchmarkMongo;
+
+/**
+ * Measures the bytes per page of transactions, stored with their references as ids, read with all
+ * fields and with the summary view. The pages are read from the server in the order of the
+ * transaction list, so the numbers are what goes over the wire. Runs against a MongoDB with gradle
+ * benchmark.
+ */
+@Tag("benchmark")
+class ProjectionsBenchmarkTest {
+  private static final int PAGE_SIZE = 50;
+  private static final int PAGES = 20;
+
+  private static BenchmarkMongo benchmarkMongo;
+  private static MongoTemplate mongoTemplate;
+
+  @BeforeAll
+  static void init() {
+    benchmarkMongo = BenchmarkMongo.connect("pets_benchmark_projections");
+    mongoTemplate = benchmarkMongo.mongoTemplate();
+
+    List<TransactionDocument> transactionDocuments = new ArrayList<>();
+    for (int i = 0; i < PAGE_SIZE * PAGES; i++) {
+      transactionDocuments.add(TransactionDocuments.toDocument(transaction(i)));
+    }
+    mongoTemplate.insert(transactionDocuments, COLLECTION_NAME_TRANSACTION_DETAILS);
+    // the index IndexRegistry declares for the pages of a user
+    mongoTemplate
+        .getCollection(COLLECTION_NAME_TRANSACTION_DETAILS)
+        .createIndex(
+            Indexes.compoundIndex(
+                Indexes.ascending("u"), Indexes.descending("date"), Indexes.descending("_id")));
+  }
+
+  @AfterAll
+  static void shutdown() {
+    if (benchmarkMongo != null) {
+      benchmarkMongo.close();
+    }
+  }
+
+  @Test
+  void summaryView_bytesPerPage() {
+    Document summaryProjection =
+        new QueryMapper(mongoTemplate.getConverter())
+            .getMappedFields(
+                Projections.include(
+                        new Query(),
+                        TransactionDocuments.toDocumentFields(FieldSets.TRANSACTION_SUMMARY))
+                    .getFieldsObject(),
+                mongoTemplate
+                    .getConverter()
+                    .getMappingContext()
+                    .getPersistentEntity(TransactionDocument.class));
+
+    // the first round warms up the connections and the cache of the server
+    readPages(null);
+    readPages(summaryProjection);
+
+    long fullStarted = System.nanoTime();
+    long fullBytes = readPages(null);
+    long fullNanos = System.nanoTime() - fullStarted;
+    long summaryStarted = System.nanoTime();
+    long summaryBytes = readPages(summaryProjection);
+    long summaryNanos = System.nanoTime() - summaryStarted;
+
+    System.out.printf(
+        "Transactions page of %d: full %d bytes %d us, summary %d bytes %d us, saved %d%%%n",
+        PAGE_SIZE,
+        fullBytes / PAGES,
+        fullNanos / PAGES / 1000,
+        summaryBytes / PAGES,
+        summaryNanos / PAGES / 1000,
+        100 * (fullBytes - summaryBytes) / fullBytes);
+
+    assertTrue(summaryBytes < fullBytes);
+  }
+
+  /** Reads every page and maps it the way the repository does, returns the bytes read. */
+  private static long readPages(Document projection) {
+    long bytes = 0;
+    for (int page = 0; page < PAGES; page++) {
+      try (MongoCursor<RawBsonDocument> cursor =
+          mongoTemplate
+              .getCollection(COLLECTION_NAME_TRANSACTION_DETAILS)
+              .withDocumentClass(RawBsonDocument.class)
+              .find(Filters.eq("u", "user-name"))
+              .projection(projection)
+              .sort(Sorts.descending("date", "_id"))
+              .skip(page * PAGE_SIZE)
+              .limit(PAGE_SIZE)
+              .cursor()) {
+        while (cursor.hasNext()) {
+          RawBsonDocument raw = cursor.next();
+          bytes += raw.getByteBuffer().remaining();
+          TransactionDocuments.toTransaction(
+              mongoTemplate.getConverter().read(TransactionDocument.class, raw));
+        }
+      }
+    }
+    return bytes;
+  }
+
+  /** A transaction the way it is saved, its references carry only the id or the username. */
+  private static Transaction transaction(int i) {
+    return Transaction.builder()
+        .description("transaction description " + i)
+        .account(Account.builder().id("64b5f1a2c3d4e5f6a7b8c9d1").build())
+        .refTransactionType(RefTransactionType.builder().id("64b5f1a2c3d4e5f6a7b8c9d4").build())
+        .refCategory(RefCategory.builder().id("64b5f1a2c3d4e5f6a7b8c9d5").build())
+        .refMerchant(
+            RefMerchant.builder().id(String.format("64b5f1a2c3d4e5f6a7b8%04x", i % 100)).build())
+        .user(User.builder().username("user-name").build())
+        .date(LocalDate.parse("2021-12-31").minusDays(i))
+        .amount(BigDecimal.valueOf(1025 + i % 1000, 2))
+        .regular(false)
+        .necessary(true)
+        .creationDate(LocalDate.parse("2021-12-31"))
+        .lastModified(LocalDateTime.parse("2021-12-31T10:15:30"))
+        .build();
+  }
+}
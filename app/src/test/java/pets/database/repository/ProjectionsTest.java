@@ -0,0 +1,128 @@
+package pets.database.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mongodb.MongoClientSettings;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import pets.database.model.Account;
+import pets.database.model.RefCategory;
+import pets.database.model.RefMerchant;
+import pets.database.model.RefTransactionType;
+import pets.database.model.Transaction;
+import pets.database.model.TransactionDocument;
+import pets.database.model.User;
+import pets.database.utils.FieldSets;
+
+/**
+ * Applies the summary projection to a transaction the way it is stored, with its references as ids,
+ * the same way the server applies it, and reads the result back.
+ */
+class ProjectionsTest {
+  private static final DocumentCodec DOCUMENT_CODEC =
+      new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+
+  private static MappingMongoConverter mongoConverter;
+  private static MongoMappingContext mappingContext;
+
+  @BeforeAll
+  static void init() {
+    MongoCustomConversions customConversions =
+        MongoCustomConversions.create(
+            converterConfigurationAdapter ->
+                converterConfigurationAdapter.useNativeDriverJavaTimeCodecs());
+    mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(customConversions.getSimpleTypeHolder());
+    mongoConverter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    mongoConverter.setCustomConversions(customConversions);
+    mongoConverter.afterPropertiesSet();
+  }
+
+  @Test
+  void summaryView_readsTheReferenceIdsOnly() {
+    Document projection =
+        new QueryMapper(mongoConverter)
+            .getMappedFields(
+                Projections.include(
+                        new Query(),
+                        TransactionDocuments.toDocumentFields(FieldSets.TRANSACTION_SUMMARY))
+                    .getFieldsObject(),
+                mappingContext.getPersistentEntity(TransactionDocument.class));
+
+    Document document = new Document();
+    mongoConverter.write(TransactionDocuments.toDocument(transaction()), document);
+    Document projected = project(document, projection);
+
+    assertTrue(bsonSize(projected) < bsonSize(document));
+    assertFalse(projected.containsKey("u"));
+    assertFalse(projected.containsKey("lastModified"));
+
+    Transaction summaryTransaction =
+        TransactionDocuments.toTransaction(
+            mongoConverter.read(TransactionDocument.class, projected));
+    assertEquals(new BigDecimal("10.25"), summaryTransaction.getAmount());
+    assertEquals("64b5f1a2c3d4e5f6a7b8c9d7", summaryTransaction.getRefMerchant().getId());
+    assertEquals("64b5f1a2c3d4e5f6a7b8c9d1", summaryTransaction.getAccount().getId());
+    assertNull(summaryTransaction.getUser());
+    assertNull(summaryTransaction.getRegular());
+  }
+
+  private static Document project(Document document, Document projection) {
+    Document projected = new Document();
+
+    for (String path : projection.keySet()) {
+      String[] parts = path.split("\\.");
+      Object value = document.get(parts[0]);
+
+      if (parts.length == 1) {
+        if (value != null) {
+          projected.put(parts[0], value);
+        }
+      } else if (value instanceof Map<?, ?> embedded && embedded.get(parts[1]) != null) {
+        ((Document) projected.computeIfAbsent(parts[0], key -> new Document()))
+            .put(parts[1], embedded.get(parts[1]));
+      }
+    }
+
+    return projected;
+  }
+
+  private static int bsonSize(Document document) {
+    return new RawBsonDocument(document, DOCUMENT_CODEC).getByteBuffer().remaining();
+  }
+
+  /** A transaction the way it is saved, its references carry only the id or the username. */
+  private static Transaction transaction() {
+    return Transaction.builder()
+        .id("64b5f1a2c3d4e5f6a7b80000")
+        .description("transaction description")
+        .account(Account.builder().id("64b5f1a2c3d4e5f6a7b8c9d1").build())
+        .refTransactionType(RefTransactionType.builder().id("64b5f1a2c3d4e5f6a7b8c9d4").build())
+        .refCategory(RefCategory.builder().id("64b5f1a2c3d4e5f6a7b8c9d5").build())
+        .refMerchant(RefMerchant.builder().id("64b5f1a2c3d4e5f6a7b8c9d7").build())
+        .user(User.builder().username("user-name").build())
+        .date(LocalDate.parse("2021-12-31"))
+        .amount(new BigDecimal("10.25"))
+        .regular(false)
+        .necessary(true)
+        .creationDate(LocalDate.parse("2021-12-31"))
+        .lastModified(LocalDateTime.parse("2021-12-31T10:15:30"))
+        .build();
+  }
+}
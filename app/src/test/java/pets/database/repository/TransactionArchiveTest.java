@@ -0,0 +1,228 @@
+package pets.database.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static pets.database.utils.Constants.COLLECTION_NAME_JOB_STATES;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_ARCHIVE;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_DETAILS;
+
+import com.mongodb.client.result.DeleteResult;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import pets.database.model.TransactionDocument;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionArchiveTest {
+  private static final LocalDate ARCHIVED_BEFORE = LocalDate.parse("2022-01-01");
+
+  @Mock private MongoTemplate mongoTemplate;
+  @Mock private JobLeases jobLeases;
+  @Mock private TransactionDateMigration transactionDateMigration;
+  @Mock private TransactionLayoutMigration transactionLayoutMigration;
+
+  private TransactionArchive transactionArchive;
+
+  @BeforeEach
+  void init() {
+    transactionArchive =
+        new TransactionArchive(
+            mongoTemplate,
+            jobLeases,
+            transactionDateMigration,
+            transactionLayoutMigration,
+            true,
+            24,
+            1000,
+            Duration.ZERO,
+            Duration.ofHours(23),
+            Duration.ZERO);
+  }
+
+  @Test
+  void isArchived_beforeTheSharedDateIsRead_readsTheArchive() {
+    assertTrue(transactionArchive.isArchived(null));
+    assertTrue(transactionArchive.isArchived(LocalDate.parse("2999-01-01")));
+  }
+
+  @Test
+  void isArchived_fromTheSharedDateOn_skipsTheArchive() {
+    whenSharedArchivedBefore(ARCHIVED_BEFORE);
+
+    transactionArchive.init();
+
+    assertEquals(ARCHIVED_BEFORE, transactionArchive.archivedBefore());
+    assertTrue(transactionArchive.isArchived(null));
+    assertTrue(transactionArchive.isArchived(ARCHIVED_BEFORE.minusDays(1)));
+    assertFalse(transactionArchive.isArchived(ARCHIVED_BEFORE));
+    assertFalse(transactionArchive.isArchived(ARCHIVED_BEFORE.plusDays(1)));
+  }
+
+  @Test
+  void isArchived_nothingSharedAndNothingArchived_skipsTheArchive() {
+    transactionArchive.init();
+
+    assertNull(transactionArchive.archivedBefore());
+    assertFalse(transactionArchive.isArchived(null));
+  }
+
+  @Test
+  void refresh_failedRead_keepsTheDateReadBefore() {
+    whenSharedArchivedBefore(ARCHIVED_BEFORE);
+    transactionArchive.init();
+    when(mongoTemplate.findById("transaction-archive", Document.class, COLLECTION_NAME_JOB_STATES))
+        .thenThrow(new IllegalStateException("unavailable"));
+
+    transactionArchive.refresh();
+
+    assertEquals(ARCHIVED_BEFORE, transactionArchive.archivedBefore());
+  }
+
+  @Test
+  void scheduledArchive_leaseHeldElsewhere_movesNothing() {
+    when(transactionDateMigration.isComplete()).thenReturn(true);
+    when(transactionLayoutMigration.isComplete()).thenReturn(true);
+    when(jobLeases.acquire("transaction-archive", Duration.ofHours(23))).thenReturn(false);
+
+    transactionArchive.scheduledArchive();
+
+    verifyNoInteractions(mongoTemplate);
+  }
+
+  @Test
+  void scheduledArchive_raisesTheSharedDateBeforeMoving() {
+    LocalDate cutoff = LocalDate.now().minusMonths(24);
+    when(transactionDateMigration.isComplete()).thenReturn(true);
+    when(transactionLayoutMigration.isComplete()).thenReturn(true);
+    when(jobLeases.acquire("transaction-archive", Duration.ofHours(23))).thenReturn(true);
+    whenSharedArchivedBefore(cutoff);
+
+    transactionArchive.scheduledArchive();
+
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate)
+        .findAndModify(
+            any(Query.class),
+            update.capture(),
+            any(FindAndModifyOptions.class),
+            eq(Document.class),
+            eq(COLLECTION_NAME_JOB_STATES));
+    assertEquals(
+        new Document("archivedBefore", TransactionDates.toDate(cutoff)),
+        update.getValue().getUpdateObject().get("$max"));
+    assertEquals(cutoff, transactionArchive.archivedBefore());
+  }
+
+  @Test
+  void archive_leavesTransactionsModifiedWithinTheMarginHot() throws InterruptedException {
+    when(jobLeases.acquire("transaction-archive", Duration.ofHours(23))).thenReturn(true);
+    whenHotIds(List.of("id-1"), List.of("id-1"), List.of());
+    when(mongoTemplate.remove(
+            any(Query.class),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS)))
+        .thenReturn(DeleteResult.acknowledged(1));
+
+    LocalDateTime before = LocalDateTime.now().minusMinutes(1);
+    assertEquals(1, transactionArchive.archive(ARCHIVED_BEFORE));
+    LocalDateTime after = LocalDateTime.now().minusMinutes(1);
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate)
+        .remove(
+            query.capture(),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS));
+    Document queryObject = query.getValue().getQueryObject();
+    assertEquals(ARCHIVED_BEFORE, queryObject.get("date", Document.class).get("$lt"));
+    LocalDateTime modifiedBefore =
+        (LocalDateTime)
+            queryObject.get("lastModified", Document.class).get("$not", Document.class).get("$gte");
+    assertFalse(modifiedBefore.isBefore(before));
+    assertFalse(modifiedBefore.isAfter(after));
+  }
+
+  @Test
+  void archive_transactionDeletedWhileCopied_removesItsCopy() throws InterruptedException {
+    when(jobLeases.acquire("transaction-archive", Duration.ofHours(23))).thenReturn(true);
+    // id-2 is deleted after the copy and before it is found again
+    whenHotIds(List.of("id-1", "id-2"), List.of("id-1"), List.of());
+    when(mongoTemplate.remove(
+            any(Query.class),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS)))
+        .thenReturn(DeleteResult.acknowledged(1));
+
+    assertEquals(1, transactionArchive.archive(ARCHIVED_BEFORE));
+
+    assertEquals(List.of("id-2"), removedCopies());
+  }
+
+  @Test
+  void archive_transactionModifiedAfterItWasFoundAgain_removesItsCopy()
+      throws InterruptedException {
+    when(jobLeases.acquire("transaction-archive", Duration.ofHours(23))).thenReturn(true);
+    whenHotIds(List.of("id-1", "id-2"), List.of("id-1", "id-2"), List.of("id-2"));
+    when(mongoTemplate.remove(
+            any(Query.class),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS)))
+        .thenReturn(DeleteResult.acknowledged(1));
+
+    assertEquals(1, transactionArchive.archive(ARCHIVED_BEFORE));
+
+    assertEquals(List.of("id-2"), removedCopies());
+  }
+
+  private void whenSharedArchivedBefore(LocalDate archivedBefore) {
+    when(mongoTemplate.findById("transaction-archive", Document.class, COLLECTION_NAME_JOB_STATES))
+        .thenReturn(new Document("archivedBefore", TransactionDates.toDate(archivedBefore)));
+  }
+
+  /** The batch, the batch found again after the copy, what stayed hot, then no further batch. */
+  private void whenHotIds(List<String> batch, List<String> foundAgain, List<String> stillHot) {
+    when(mongoTemplate.find(
+            any(Query.class),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS)))
+        .thenReturn(documents(batch))
+        .thenReturn(documents(foundAgain))
+        .thenReturn(documents(stillHot))
+        .thenReturn(List.of());
+  }
+
+  private List<?> removedCopies() {
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate)
+        .remove(
+            query.capture(),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_ARCHIVE));
+    return List.copyOf(
+        (Collection<?>) query.getValue().getQueryObject().get("id", Document.class).get("$in"));
+  }
+
+  private static List<TransactionDocument> documents(List<String> ids) {
+    return ids.stream().map(id -> TransactionDocument.builder().id(id).build()).toList();
+  }
+}
@@ -0,0 +1,319 @@
+package pets.database.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_ARCHIVE;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_DETAILS;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import pets.database.model.Transaction;
+import pets.database.model.TransactionDocument;
+import pets.database.model.TransactionFilter;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionDaoTest {
+  @Mock private MongoTemplate mongoTemplate;
+  @Mock private TransactionDateMigration transactionDateMigration;
+  @Mock private TransactionLayoutMigration transactionLayoutMigration;
+  @Mock private TransactionArchive transactionArchive;
+
+  private TransactionDao transactionDao;
+
+  @BeforeEach
+  void init() {
+    transactionDao =
+        new TransactionDao(
+            mongoTemplate,
+            transactionDateMigration,
+            transactionLayoutMigration,
+            transactionArchive);
+    // only the filter reads and writes look at the layout
+    lenient().when(transactionLayoutMigration.isComplete()).thenReturn(true);
+  }
+
+  @Test
+  void getAccountIdsByFilter_readsBothReferencesWithOneAggregation() {
+    when(mongoTemplate.aggregate(
+            any(TypedAggregation.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS),
+            eq(Document.class)))
+        .thenReturn(
+            new AggregationResults<>(
+                List.of(
+                    new Document("accountId", List.of("account-id"))
+                        .append("trfAccountId", Arrays.asList("trf-account-id", null))),
+                new Document()));
+
+    Set<String> accountIds =
+        transactionDao.getAccountIdsByFilter(
+            "user-name", TransactionFilter.builder().categoryId("category-id").build());
+
+    assertEquals(Set.of("account-id", "trf-account-id"), accountIds);
+    List<Document> pipeline = capturePipeline();
+    assertEquals(2, pipeline.size());
+    assertTrue(pipeline.get(0).toJson().contains("category-id"));
+    assertTrue(pipeline.get(1).containsKey("$group"));
+  }
+
+  @Test
+  void getAccountIdsByFilter_fromArchivedDate_readsTheArchiveInTheSameAggregation() {
+    when(transactionArchive.isArchived(LocalDate.parse("2020-01-01"))).thenReturn(true);
+    when(mongoTemplate.aggregate(
+            any(TypedAggregation.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS),
+            eq(Document.class)))
+        .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+    Set<String> accountIds =
+        transactionDao.getAccountIdsByFilter(
+            "user-name", TransactionFilter.builder().from("2020-01-01").build());
+
+    assertTrue(accountIds.isEmpty());
+    List<Document> pipeline = capturePipeline();
+    assertEquals(3, pipeline.size());
+    assertTrue(pipeline.get(1).containsKey("$unionWith"));
+  }
+
+  @Test
+  void getTransactionsByFilter_sendsAllFiltersAsOneQuery() {
+    when(transactionDateMigration.isComplete()).thenReturn(true);
+    when(mongoTemplate.find(
+            any(Query.class),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS)))
+        .thenReturn(List.of());
+
+    transactionDao.getTransactionsByFilter(
+        "user-name",
+        TransactionFilter.builder()
+            .from("2021-01-01")
+            .categoryId("category-id")
+            .accountId("account-id")
+            .build(),
+        LocalDate.parse("2021-06-30"),
+        "after-id",
+        50,
+        null);
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate)
+        .find(
+            query.capture(),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS));
+    String queryObject = query.getValue().getQueryObject().toString();
+    assertTrue(queryObject.contains("category-id"));
+    assertTrue(queryObject.contains("trfAccountId"));
+    assertTrue(queryObject.contains("after-id"));
+    assertEquals(50, query.getValue().getLimit());
+    assertFalse(query.getValue().getSortObject().isEmpty());
+  }
+
+  @Test
+  void getTransactionsByFilter_pageFilledFromTheArchivedDate_skipsTheArchive() {
+    whenArchivedBefore(LocalDate.parse("2022-01-01"));
+    whenPage(
+        COLLECTION_NAME_TRANSACTION_DETAILS,
+        document("id-2", "2022-03-01"),
+        document("id-1", "2022-01-01"));
+
+    transactionDao.getTransactionsByFilter(
+        "user-name", TransactionFilter.builder().build(), null, null, 2, null);
+
+    verify(mongoTemplate, never())
+        .find(
+            any(Query.class),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_ARCHIVE));
+  }
+
+  @Test
+  void getTransactionsByFilter_pageReachingBeforeTheArchivedDate_readsTheArchive() {
+    whenArchivedBefore(LocalDate.parse("2022-01-01"));
+    whenPage(
+        COLLECTION_NAME_TRANSACTION_DETAILS,
+        document("id-2", "2022-03-01"),
+        document("id-1", "2021-12-31"));
+
+    transactionDao.getTransactionsByFilter(
+        "user-name", TransactionFilter.builder().build(), null, null, 2, null);
+
+    verify(mongoTemplate)
+        .find(
+            any(Query.class),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_ARCHIVE));
+  }
+
+  @Test
+  void getTransactionsByFilter_withArchivedPage_mergesInPageOrder() {
+    whenArchivedBefore(LocalDate.parse("2022-01-01"));
+    whenPage(
+        COLLECTION_NAME_TRANSACTION_DETAILS,
+        document("id-5", "2022-03-01"),
+        document("id-3", "2021-12-15"));
+    whenPage(
+        COLLECTION_NAME_TRANSACTION_ARCHIVE,
+        document("id-4", "2021-12-15"),
+        document("id-2", "2021-12-15"),
+        document("id-1", "2021-06-01"));
+
+    List<Transaction> transactions =
+        transactionDao.getTransactionsByFilter(
+            "user-name", TransactionFilter.builder().build(), null, null, 3, null);
+
+    assertEquals(
+        List.of("id-5", "id-4", "id-3"), transactions.stream().map(Transaction::getId).toList());
+  }
+
+  @Test
+  void updateTransactionById_archived_restoresAndUpdatesIt() {
+    TransactionDocument updated = document("id-1", "2020-01-01");
+    when(mongoTemplate.findAndModify(
+            any(Query.class),
+            any(Update.class),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS)))
+        .thenReturn(null, updated);
+    when(transactionArchive.restore("id-1")).thenReturn(true);
+
+    Transaction transaction =
+        transactionDao.updateTransactionById("id-1", new Update().set("description", "changed"));
+
+    assertEquals("id-1", transaction.getId());
+    InOrder order = inOrder(mongoTemplate, transactionArchive);
+    order
+        .verify(mongoTemplate)
+        .findAndModify(
+            any(Query.class),
+            any(Update.class),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS));
+    order.verify(transactionArchive).restore("id-1");
+    order
+        .verify(mongoTemplate)
+        .findAndModify(
+            any(Query.class),
+            any(Update.class),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS));
+  }
+
+  @Test
+  void deleteTransactionById_hot_removesTheArchivedCopyToo() {
+    when(transactionArchive.isArchived(null)).thenReturn(true);
+    TransactionDocument deleted = document("id-1", "2020-01-01");
+    when(mongoTemplate.findAndRemove(
+            any(Query.class),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS)))
+        .thenReturn(deleted);
+
+    assertEquals("id-1", transactionDao.deleteTransactionById("id-1").getId());
+
+    verify(mongoTemplate)
+        .findAndRemove(
+            any(Query.class),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_ARCHIVE));
+  }
+
+  @Test
+  void updateTransactionsByFilter_fromAccountOnly_leavesTheTransfersToTheAccount() {
+    when(mongoTemplate.updateMulti(
+            any(Query.class),
+            any(Update.class),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS)))
+        .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+    transactionDao.updateTransactionsByFilter(
+        "user-name",
+        TransactionFilter.builder().accountId("account-x").build(),
+        new Update().set("accountId", "account-y"),
+        true);
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate)
+        .updateMulti(
+            query.capture(),
+            any(Update.class),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS));
+    String queryObject = query.getValue().getQueryObject().toString();
+    assertTrue(queryObject.contains("accountId=account-x"));
+    assertFalse(queryObject.contains("trfAccountId"));
+  }
+
+  @Test
+  void deleteTransactionsByAccountId_deletesTheTransfersToTheAccountToo() {
+    when(mongoTemplate.remove(
+            any(Query.class),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS)))
+        .thenReturn(DeleteResult.acknowledged(2));
+
+    assertEquals(2, transactionDao.deleteTransactionsByAccountId("account-id", "end-id"));
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate)
+        .remove(
+            query.capture(),
+            eq(TransactionDocument.class),
+            eq(COLLECTION_NAME_TRANSACTION_DETAILS));
+    String queryObject = query.getValue().getQueryObject().toString();
+    assertTrue(queryObject.contains("accountId=account-id"));
+    assertTrue(queryObject.contains("trfAccountId=account-id"));
+  }
+
+  private void whenArchivedBefore(LocalDate archivedBefore) {
+    when(transactionDateMigration.isComplete()).thenReturn(true);
+    when(transactionArchive.isArchived(null)).thenReturn(true);
+    when(transactionArchive.archivedBefore()).thenReturn(archivedBefore);
+  }
+
+  private void whenPage(String collectionName, TransactionDocument... documents) {
+    when(mongoTemplate.find(any(Query.class), eq(TransactionDocument.class), eq(collectionName)))
+        .thenReturn(List.of(documents));
+  }
+
+  private static TransactionDocument document(String id, String date) {
+    return TransactionDocument.builder().id(id).date(LocalDate.parse(date)).build();
+  }
+
+  private List<Document> capturePipeline() {
+    ArgumentCaptor<TypedAggregation<?>> aggregation =
+        ArgumentCaptor.forClass(TypedAggregation.class);
+    verify(mongoTemplate)
+        .aggregate(
+            aggregation.capture(), eq(COLLECTION_NAME_TRANSACTION_DETAILS), eq(Document.class));
+    return aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+  }
+}
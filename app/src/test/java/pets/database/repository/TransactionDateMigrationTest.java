@@ -0,0 +1,78 @@
+package pets.database.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_DETAILS;
+
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionDateMigrationTest {
+  @Mock private MongoTemplate mongoTemplate;
+  @Mock private MigrationMarkers migrationMarkers;
+
+  private TransactionDateMigration transactionDateMigration;
+
+  @BeforeEach
+  void init() {
+    transactionDateMigration =
+        new TransactionDateMigration(
+            mongoTemplate, migrationMarkers, true, 500, Duration.ofMillis(0));
+  }
+
+  @AfterEach
+  void shutdown() {
+    transactionDateMigration.shutdown();
+  }
+
+  @Test
+  void init_withMarker_isCompleteWithoutScanning() {
+    when(migrationMarkers.isCompleted("transaction-dates")).thenReturn(true);
+
+    transactionDateMigration.init();
+    transactionDateMigration.migrate();
+
+    assertTrue(transactionDateMigration.isComplete());
+    verifyNoInteractions(mongoTemplate);
+  }
+
+  @Test
+  void migrate_noStringDatesLeft_writesTheMarker() {
+    when(migrationMarkers.isCompleted("transaction-dates")).thenReturn(false);
+    when(mongoTemplate.exists(any(Query.class), eq(COLLECTION_NAME_TRANSACTION_DETAILS)))
+        .thenReturn(false);
+
+    transactionDateMigration.init();
+    assertFalse(transactionDateMigration.isComplete());
+    transactionDateMigration.migrate();
+
+    assertTrue(transactionDateMigration.isComplete());
+    verify(migrationMarkers).markCompleted("transaction-dates");
+  }
+
+  @Test
+  void init_markerNotReadable_staysIncomplete() {
+    when(migrationMarkers.isCompleted("transaction-dates"))
+        .thenThrow(new IllegalStateException("no connection"));
+
+    transactionDateMigration.init();
+
+    assertFalse(transactionDateMigration.isComplete());
+    verify(migrationMarkers, never()).markCompleted(anyString());
+  }
+}
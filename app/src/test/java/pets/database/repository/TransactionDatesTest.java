@@ -0,0 +1,39 @@
+package pets.database.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import org.junit.jupiter.api.Test;
+
+class TransactionDatesTest {
+
+  @Test
+  void toLocalDate_readsDateAndDateTimeStrings() {
+    assertEquals(LocalDate.of(2021, 12, 31), TransactionDates.toLocalDate("2021-12-31"));
+    assertEquals(LocalDate.of(2021, 12, 31), TransactionDates.toLocalDate("2021-12-31T10:15:30"));
+  }
+
+  @Test
+  void toLocalDateTime_readsDateAndDateTimeStrings() {
+    assertEquals(
+        LocalDateTime.of(2021, 12, 31, 0, 0), TransactionDates.toLocalDateTime("2021-12-31"));
+    assertEquals(
+        LocalDateTime.of(2021, 12, 31, 10, 15, 30, 123456000),
+        TransactionDates.toLocalDateTime("2021-12-31T10:15:30.123456"));
+  }
+
+  @Test
+  void toLocalDate_invalidString_throwsException() {
+    assertThrows(DateTimeParseException.class, () -> TransactionDates.toLocalDate("12/31/2021"));
+  }
+
+  @Test
+  void toDate_isMidnightUtc() {
+    assertEquals(
+        Instant.parse("2021-12-31T00:00:00Z"),
+        TransactionDates.toDate(LocalDate.of(2021, 12, 31)).toInstant());
+  }
+}
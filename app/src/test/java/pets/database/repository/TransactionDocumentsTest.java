@@ -0,0 +1,123 @@
+package pets.database.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mongodb.MongoClientSettings;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import pets.database.model.Account;
+import pets.database.model.RefCategory;
+import pets.database.model.RefMerchant;
+import pets.database.model.RefTransactionType;
+import pets.database.model.Transaction;
+import pets.database.model.TransactionDocument;
+import pets.database.model.User;
+
+/** Maps transactions to and from both stored layouts. */
+class TransactionDocumentsTest {
+
+  private static final DocumentCodec DOCUMENT_CODEC =
+      new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+
+  private static MappingMongoConverter mongoConverter;
+
+  @BeforeAll
+  static void init() {
+    MongoCustomConversions customConversions =
+        MongoCustomConversions.create(
+            converterConfigurationAdapter -> {
+              converterConfigurationAdapter.useNativeDriverJavaTimeCodecs();
+              converterConfigurationAdapter.registerConverters(
+                  TransactionDates.readingConverters());
+            });
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(customConversions.getSimpleTypeHolder());
+    mongoConverter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    mongoConverter.setCustomConversions(customConversions);
+    mongoConverter.afterPropertiesSet();
+  }
+
+  @Test
+  void toDocument_storesReferenceIdsUnderShortFields() {
+    Document document = new Document();
+    mongoConverter.write(TransactionDocuments.toDocument(transaction(0)), document);
+
+    assertEquals("user-name", document.get("u"));
+    assertInstanceOf(ObjectId.class, document.get("a"));
+    assertInstanceOf(ObjectId.class, document.get("m"));
+    assertFalse(document.containsKey("account"));
+    assertFalse(document.containsKey("ta"));
+
+    Transaction transaction =
+        TransactionDocuments.toTransaction(
+            mongoConverter.read(TransactionDocument.class, document));
+    assertEquals(transaction(0), transaction);
+  }
+
+  @Test
+  void toTransaction_readsTheEmbeddedLayout() {
+    Document legacy = new Document();
+    mongoConverter.write(transaction(0), legacy);
+
+    Transaction transaction =
+        TransactionDocuments.toTransaction(mongoConverter.read(TransactionDocument.class, legacy));
+    assertEquals(transaction(0), transaction);
+  }
+
+  @Test
+  void toDocumentFields_readsBothLayoutsOfAReference() {
+    assertEquals(
+        List.of("amount", "merchantId", "refMerchant.id", "accountId", "account.id"),
+        TransactionDocuments.toDocumentFields(
+            List.of("amount", "refMerchant.id", "refMerchant", "account.id")));
+  }
+
+  @Test
+  void idLayout_storesFewerBytesThanTheEmbeddedLayout() {
+    Document embedded = new Document();
+    mongoConverter.write(transaction(0), embedded);
+    Document document = new Document();
+    mongoConverter.write(TransactionDocuments.toDocument(transaction(0)), document);
+
+    assertTrue(bsonSize(document) < bsonSize(embedded));
+  }
+
+  private static int bsonSize(Document document) {
+    return new RawBsonDocument(document, DOCUMENT_CODEC).getByteBuffer().remaining();
+  }
+
+  /** A transaction the way it is saved, its references carry only the id or the username. */
+  private static Transaction transaction(int i) {
+    return Transaction.builder()
+        .id(String.format("64b5f1a2c3d4e5f6a7%06x", i))
+        .description("transaction description " + i)
+        .account(Account.builder().id(String.format("64b5f1a2c3d4e5f6a7b8c9%02x", i % 4)).build())
+        .refTransactionType(RefTransactionType.builder().id("64b5f1a2c3d4e5f6a7b8c9e0").build())
+        .refCategory(RefCategory.builder().id("64b5f1a2c3d4e5f6a7b8c9e1").build())
+        .refMerchant(
+            RefMerchant.builder().id(String.format("64b5f1a2c3d4e5f6a7c0%04x", i % 500)).build())
+        .user(User.builder().username("user-name").build())
+        .date(LocalDate.of(2021, 12, 31).minusDays(i % 3650))
+        .amount(BigDecimal.valueOf(1025 + i % 1000, 2))
+        .regular(false)
+        .necessary(true)
+        .creationDate(LocalDate.of(2021, 12, 31))
+        .lastModified(LocalDateTime.of(2021, 12, 31, 10, 15, 30))
+        .build();
+  }
+}
@@ -0,0 +1,65 @@
+package pets.database.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static pets.database.utils.Constants.COLLECTION_NAME_TRANSACTION_DETAILS;
+
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionLayoutMigrationTest {
+  @Mock private MongoTemplate mongoTemplate;
+  @Mock private MigrationMarkers migrationMarkers;
+
+  private TransactionLayoutMigration transactionLayoutMigration;
+
+  @BeforeEach
+  void init() {
+    transactionLayoutMigration =
+        new TransactionLayoutMigration(
+            mongoTemplate, migrationMarkers, true, 1000, Duration.ofMillis(0));
+  }
+
+  @AfterEach
+  void shutdown() {
+    transactionLayoutMigration.shutdown();
+  }
+
+  @Test
+  void init_withMarker_isCompleteWithoutScanning() {
+    when(migrationMarkers.isCompleted("transaction-layout")).thenReturn(true);
+
+    transactionLayoutMigration.init();
+    transactionLayoutMigration.migrateAll();
+
+    assertTrue(transactionLayoutMigration.isComplete());
+    verifyNoInteractions(mongoTemplate);
+  }
+
+  @Test
+  void migrateAll_noEmbeddedReferencesLeft_writesTheMarker() {
+    when(migrationMarkers.isCompleted("transaction-layout")).thenReturn(false);
+    when(mongoTemplate.exists(any(Query.class), eq(COLLECTION_NAME_TRANSACTION_DETAILS)))
+        .thenReturn(false);
+
+    transactionLayoutMigration.init();
+    assertFalse(transactionLayoutMigration.isComplete());
+    transactionLayoutMigration.migrateAll();
+
+    assertTrue(transactionLayoutMigration.isComplete());
+    verify(migrationMarkers).markCompleted("transaction-layout");
+  }
+}
@@ -6,6 +6,8 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
+import static pets.database.utils.Constants.COLLECTION_NAME_USER_DETAILS;
+import static pets.database.utils.Constants.LISTING_PAGE_LIMIT_MAX;
 import static support.FixtureReader.readFixture;
 import static support.ObjectMapperProvider.objectMapper;
 
@@ -14,12 +16,15 @@ import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
 import java.util.List;
 import org.bson.BsonValue;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import pets.database.model.User;
 
@@ -45,12 +50,27 @@ class UserDaoTest {
             User.builder().username("user-name-01").build(),
             User.builder().username("user-name-02").build());
 
-    when(mongoTemplate.findAll(User.class)).thenReturn(expectedUserList);
+    when(mongoTemplate.find(any(), eq(User.class), eq(COLLECTION_NAME_USER_DETAILS)))
+        .thenReturn(expectedUserList);
 
-    List<User> actualUserList = userDao.getAllUsers();
+    List<User> actualUserList = userDao.getAllUsers("61cf5d2c5b8f0a6b3c1e2d4f", 2);
 
     assertEquals(expectedUserList, actualUserList);
-    verify(mongoTemplate, times(1)).findAll(User.class);
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate, times(1))
+        .find(query.capture(), eq(User.class), eq(COLLECTION_NAME_USER_DETAILS));
+    assertEquals(2, query.getValue().getLimit());
+    assertEquals(new Document("id", 1), query.getValue().getSortObject());
+  }
+
+  @Test
+  void getAllUsers_capsLimit() {
+    userDao.getAllUsers(null, Integer.MAX_VALUE);
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate, times(1))
+        .find(query.capture(), eq(User.class), eq(COLLECTION_NAME_USER_DETAILS));
+    assertEquals(LISTING_PAGE_LIMIT_MAX + 1, query.getValue().getLimit());
   }
 
   @Test
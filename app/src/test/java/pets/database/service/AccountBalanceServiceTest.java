@@ -0,0 +1,132 @@
+package pets.database.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import pets.database.cache.ReferenceDataCache;
+import pets.database.cache.UserDataCache;
+import pets.database.model.Account;
+import pets.database.model.AccountTotal;
+import pets.database.model.RefTransactionType;
+import pets.database.model.Transaction;
+import pets.database.repository.AccountDao;
+import pets.database.repository.RefAccountTypeDao;
+import pets.database.repository.RefBankDao;
+import pets.database.repository.RefCategoryDao;
+import pets.database.repository.RefCategoryTypeDao;
+import pets.database.repository.RefTransactionTypeDao;
+import pets.database.repository.TransactionDao;
+
+@ExtendWith(MockitoExtension.class)
+class AccountBalanceServiceTest {
+  @Mock private AccountDao accountDao;
+  @Mock private TransactionDao transactionDao;
+  @Mock private RefAccountTypeDao refAccountTypeDao;
+  @Mock private RefBankDao refBankDao;
+  @Mock private RefCategoryTypeDao refCategoryTypeDao;
+  @Mock private RefCategoryDao refCategoryDao;
+  @Mock private RefTransactionTypeDao refTransactionTypeDao;
+
+  private AccountBalanceService accountBalanceService;
+
+  @BeforeEach
+  void init() {
+    accountBalanceService =
+        new AccountBalanceService(
+            accountDao,
+            transactionDao,
+            new ReferenceDataCache(
+                refAccountTypeDao,
+                refBankDao,
+                refCategoryTypeDao,
+                refCategoryDao,
+                refTransactionTypeDao,
+                Duration.ofMinutes(15)),
+            new UserDataCache(
+                new SimpleMeterRegistry(),
+                DataSize.ofMegabytes(1),
+                DataSize.ofMegabytes(1),
+                Duration.ofMinutes(5)));
+
+    when(refTransactionTypeDao.getAllRefTransactionTypes())
+        .thenReturn(
+            List.of(
+                RefTransactionType.builder().id("income-id").description("Income").build(),
+                RefTransactionType.builder().id("expense-id").description("Expense").build(),
+                RefTransactionType.builder().id("transfer-id").description("Transfer").build()));
+  }
+
+  @Test
+  void reconcileAccounts_setsTheBalanceAtTheVersionItWasReadWith() {
+    when(accountDao.getAccountsByIds(Set.of("account-id"))).thenReturn(List.of(account(90, 7L)));
+    when(transactionDao.getAccountTotals(Set.of("account-id")))
+        .thenReturn(List.of(accountTotal("account-id", null, "expense-id", 20)));
+    when(accountDao.updateBalance("account-id", 7L, BigDecimal.valueOf(80))).thenReturn(1L);
+
+    List<Account> driftedAccounts = accountBalanceService.reconcileAccounts(Set.of("account-id"));
+
+    assertEquals(1, driftedAccounts.size());
+    assertEquals(BigDecimal.valueOf(80), driftedAccounts.getFirst().getCurrentBalance());
+  }
+
+  @Test
+  void reconcileAccounts_withConcurrentIncrement_leavesTheBalance() {
+    when(accountDao.getAccountsByIds(Set.of("account-id"))).thenReturn(List.of(account(90, 7L)));
+    when(transactionDao.getAccountTotals(Set.of("account-id")))
+        .thenReturn(List.of(accountTotal("account-id", null, "expense-id", 20)));
+    // an $inc moved the version after the account was read
+    when(accountDao.updateBalance("account-id", 7L, BigDecimal.valueOf(80))).thenReturn(0L);
+
+    assertTrue(accountBalanceService.reconcileAccounts(Set.of("account-id")).isEmpty());
+  }
+
+  @Test
+  void applyTransaction_transfer_movesBothAccounts() {
+    when(accountDao.incrementBalance("account-id", BigDecimal.valueOf(-10))).thenReturn(1L);
+    when(accountDao.incrementBalance("trf-account-id", BigDecimal.valueOf(10))).thenReturn(1L);
+
+    accountBalanceService.applyTransaction(
+        null,
+        Transaction.builder()
+            .account(Account.builder().id("account-id").build())
+            .trfAccount(Account.builder().id("trf-account-id").build())
+            .refTransactionType(RefTransactionType.builder().id("transfer-id").build())
+            .amount(BigDecimal.TEN)
+            .build());
+
+    verify(accountDao).incrementBalance("account-id", BigDecimal.valueOf(-10));
+    verify(accountDao).incrementBalance("trf-account-id", BigDecimal.valueOf(10));
+  }
+
+  private static Account account(long currentBalance, Long balanceVersion) {
+    return Account.builder()
+        .id("account-id")
+        .openingBalance(BigDecimal.valueOf(100))
+        .currentBalance(BigDecimal.valueOf(currentBalance))
+        .balanceVersion(balanceVersion)
+        .build();
+  }
+
+  private static AccountTotal accountTotal(
+      String accountId, String trfAccountId, String typeId, long total) {
+    return AccountTotal.builder()
+        .accountId(accountId)
+        .trfAccountId(trfAccountId)
+        .typeId(typeId)
+        .total(BigDecimal.valueOf(total))
+        .build();
+  }
+}
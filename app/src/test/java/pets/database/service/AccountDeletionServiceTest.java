@@ -0,0 +1,196 @@
+package pets.database.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static pets.database.utils.Constants.ACCOUNT_STATUS_DELETING;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import pets.database.cache.TransactionSummaryCache;
+import pets.database.cache.UserDataCache;
+import pets.database.model.Account;
+import pets.database.model.AccountDeletionJob;
+import pets.database.model.AccountDeletionJobResponse;
+import pets.database.model.UsageTotal;
+import pets.database.repository.AccountDao;
+import pets.database.repository.AccountDeletionJobDao;
+import pets.database.repository.JobLeases;
+import pets.database.repository.TransactionDao;
+
+@ExtendWith(MockitoExtension.class)
+class AccountDeletionServiceTest {
+  private static final Duration LEASE = Duration.ofMinutes(5);
+
+  @Mock private AccountDao accountDao;
+  @Mock private AccountDeletionJobDao accountDeletionJobDao;
+  @Mock private TransactionDao transactionDao;
+  @Mock private AccountBalanceService accountBalanceService;
+  @Mock private UsageCountService usageCountService;
+  @Mock private TransactionSummaryCache transactionSummaryCache;
+  @Mock private JobLeases jobLeases;
+
+  private final Map<String, AccountDeletionJob> accountDeletionJobs = new ConcurrentHashMap<>();
+  private AccountDeletionService accountDeletionService;
+
+  @BeforeEach
+  void init() {
+    accountDeletionService =
+        new AccountDeletionService(
+            accountDao,
+            accountDeletionJobDao,
+            transactionDao,
+            accountBalanceService,
+            usageCountService,
+            transactionSummaryCache,
+            new UserDataCache(
+                new SimpleMeterRegistry(),
+                DataSize.ofMegabytes(1),
+                DataSize.ofMegabytes(1),
+                Duration.ofMinutes(5)),
+            jobLeases,
+            1000,
+            Duration.ZERO,
+            LEASE);
+  }
+
+  @AfterEach
+  void shutdown() {
+    accountDeletionService.shutdown();
+  }
+
+  @Test
+  void startDeletion_deletesTheTransactionsAndReconcilesTheLinkedAccounts()
+      throws InterruptedException {
+    storeJobs();
+    List<UsageTotal> usageTotals = List.of(UsageTotal.builder().accountId("account-id").build());
+    when(jobLeases.acquire("account-deletion:account-id", LEASE)).thenReturn(true);
+    when(accountDao.updateAccountStatus("account-id", ACCOUNT_STATUS_DELETING)).thenReturn(1L);
+    when(transactionDao.getLinkedAccountIds("account-id")).thenReturn(Set.of("other-account-id"));
+    when(transactionDao.getTransactionsBatchEndId("account-id", 1000))
+        .thenReturn("end-id")
+        .thenReturn(null);
+    when(transactionDao.getUsageTotalsByAccountId("account-id", "end-id")).thenReturn(usageTotals);
+    when(transactionDao.deleteTransactionsByAccountId("account-id", "end-id")).thenReturn(3L);
+    when(accountDao.deleteAccountById("account-id")).thenReturn(1L);
+
+    AccountDeletionJobResponse accountDeletionJobResponse =
+        accountDeletionService.startDeletion("account-id", true);
+    AccountDeletionJob accountDeletionJob =
+        awaitFinished(accountDeletionJobResponse.getAccountDeletionJobs().getFirst().getId());
+
+    assertEquals("COMPLETED", accountDeletionJob.getState());
+    assertEquals(3L, accountDeletionJob.getDeletedTransactions());
+    assertTrue(accountDeletionJob.getAccountDeleted());
+    verify(usageCountService).applyRemovedTransactions(usageTotals);
+    verify(accountBalanceService).reconcileAccounts(Set.of("other-account-id"));
+    verify(jobLeases).release("account-deletion:account-id");
+  }
+
+  @Test
+  void startDeletion_leasedByAnotherInstance_leavesTheAccount() {
+    when(jobLeases.acquire("account-deletion:account-id", LEASE)).thenReturn(false);
+
+    AccountDeletionJobResponse accountDeletionJobResponse =
+        accountDeletionService.startDeletion("account-id", true);
+
+    assertNotNull(accountDeletionJobResponse.getStatus());
+    assertTrue(accountDeletionJobResponse.getAccountDeletionJobs().isEmpty());
+    verify(accountDao, never()).updateAccountStatus(any(), any());
+    verifyNoInteractions(transactionDao);
+  }
+
+  @Test
+  void resumeDeletions_leasedByAnotherInstance_isSkipped() {
+    when(accountDao.getAccountsByStatus(ACCOUNT_STATUS_DELETING))
+        .thenReturn(List.of(Account.builder().id("account-id").build()));
+    when(jobLeases.acquire("account-deletion:account-id", LEASE)).thenReturn(false);
+
+    accountDeletionService.resumeDeletions();
+
+    verifyNoInteractions(transactionDao);
+  }
+
+  @Test
+  void getDeletionJob_startedOnAnotherInstance_readsTheStoredJob() {
+    AccountDeletionJob accountDeletionJob =
+        AccountDeletionJob.builder().id("job-id").accountId("account-id").state("RUNNING").build();
+    when(accountDeletionJobDao.getJobById("job-id")).thenReturn(accountDeletionJob);
+
+    assertEquals(
+        List.of(accountDeletionJob),
+        accountDeletionService.getDeletionJob("job-id").getAccountDeletionJobs());
+  }
+
+  @Test
+  void resumeDeletions_jobOfAStoppedInstance_continuesUnderTheSameId() throws InterruptedException {
+    storeJobs();
+    AccountDeletionJob accountDeletionJob =
+        AccountDeletionJob.builder()
+            .id("job-id")
+            .accountId("account-id")
+            .deleteAccount(false)
+            .state("RUNNING")
+            .startTime("2026-01-01T00:00")
+            .batches(2L)
+            .deletedTransactions(2000L)
+            .accountDeleted(false)
+            .build();
+    when(accountDeletionJobDao.getUnfinishedJobs()).thenReturn(List.of(accountDeletionJob));
+    when(jobLeases.acquire("account-deletion:account-id", LEASE)).thenReturn(true);
+    when(transactionDao.getLinkedAccountIds("account-id")).thenReturn(Set.of());
+    when(transactionDao.getTransactionsBatchEndId("account-id", 1000)).thenReturn(null);
+
+    accountDeletionService.resumeDeletions();
+    AccountDeletionJob resumedJob = awaitFinished("job-id");
+
+    assertEquals("COMPLETED", resumedJob.getState());
+    assertEquals("2026-01-01T00:00", resumedJob.getStartTime());
+    assertEquals(2000L, resumedJob.getDeletedTransactions());
+    verify(accountDao, never()).deleteAccountById(any());
+  }
+
+  /** Stores the saved jobs the way the collection does, so any read sees the last progress. */
+  private void storeJobs() {
+    doAnswer(
+            invocation -> {
+              AccountDeletionJob accountDeletionJob = invocation.getArgument(0);
+              accountDeletionJobs.put(accountDeletionJob.getId(), accountDeletionJob);
+              return null;
+            })
+        .when(accountDeletionJobDao)
+        .saveJob(any());
+    when(accountDeletionJobDao.getJobById(anyString()))
+        .thenAnswer(invocation -> accountDeletionJobs.get(invocation.<String>getArgument(0)));
+  }
+
+  private AccountDeletionJob awaitFinished(String jobId) throws InterruptedException {
+    for (int i = 0; i < 500; i++) {
+      AccountDeletionJob accountDeletionJob =
+          accountDeletionService.getDeletionJob(jobId).getAccountDeletionJobs().getFirst();
+      if (accountDeletionJob.getEndTime() != null) {
+        return accountDeletionJob;
+      }
+      Thread.sleep(10);
+    }
+    throw new AssertionError("Account Deletion Not Finished: " + jobId);
+  }
+}
@@ -0,0 +1,87 @@
+package pets.database.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pets.database.cache.ReferenceDataCache;
+import pets.database.model.RefBank;
+import pets.database.repository.RefAccountTypeDao;
+import pets.database.repository.RefBankDao;
+import pets.database.repository.RefCategoryDao;
+import pets.database.repository.RefCategoryTypeDao;
+import pets.database.repository.RefTransactionTypeDao;
+
+@ExtendWith(MockitoExtension.class)
+class BootstrapServiceTest {
+  private static final String USER_NAME = "user-name";
+
+  @Mock private RefAccountTypeDao refAccountTypeDao;
+  @Mock private RefBankDao refBankDao;
+  @Mock private RefCategoryTypeDao refCategoryTypeDao;
+  @Mock private RefCategoryDao refCategoryDao;
+  @Mock private RefTransactionTypeDao refTransactionTypeDao;
+  @Mock private RefMerchantService refMerchantService;
+  @Mock private AccountService accountService;
+
+  private BootstrapService bootstrapService;
+
+  @BeforeEach
+  void init() {
+    bootstrapService =
+        new BootstrapService(
+            new ReferenceDataCache(
+                refAccountTypeDao,
+                refBankDao,
+                refCategoryTypeDao,
+                refCategoryDao,
+                refTransactionTypeDao,
+                Duration.ofMinutes(15)),
+            refMerchantService,
+            accountService);
+  }
+
+  @AfterEach
+  void shutdown() {
+    bootstrapService.shutdown();
+  }
+
+  @Test
+  void getBootstrapETag_combinesCachedETags_withoutReadingTheParts() {
+    when(refBankDao.getAllRefBanks())
+        .thenReturn(List.of(RefBank.builder().id("bank-id").description("bank").build()));
+    when(refMerchantService.getRefMerchantsETagByUsername(USER_NAME))
+        .thenReturn("\"merchants-1\"", "\"merchants-1\"", "\"merchants-2\"");
+    when(accountService.getAccountsETagByUsername(USER_NAME)).thenReturn("\"accounts-1\"");
+
+    String eTag = bootstrapService.getBootstrapETag(USER_NAME);
+    assertEquals(eTag, bootstrapService.getBootstrapETag(USER_NAME));
+    assertNotEquals(eTag, bootstrapService.getBootstrapETag(USER_NAME));
+
+    // reference tables are loaded once into their caches, the user parts are never read
+    verify(refBankDao, times(1)).getAllRefBanks();
+    verify(refMerchantService, times(3)).getRefMerchantsETagByUsername(USER_NAME);
+    verify(accountService, times(3)).getAccountsETagByUsername(USER_NAME);
+    verifyNoMoreInteractions(refMerchantService, accountService);
+  }
+
+  @Test
+  void getBootstrapETag_partFails_returnsNull() {
+    when(refMerchantService.getRefMerchantsETagByUsername(USER_NAME))
+        .thenThrow(new IllegalStateException("no connection"));
+
+    assertNull(bootstrapService.getBootstrapETag(USER_NAME));
+  }
+}
@@ -0,0 +1,85 @@
+package pets.database.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import pets.database.cache.MerchantPrefixIndex;
+import pets.database.cache.UserDataCache;
+import pets.database.model.RefMerchant;
+import pets.database.model.RefMerchantResponse;
+import pets.database.repository.RefMerchantDao;
+
+@ExtendWith(MockitoExtension.class)
+class RefMerchantServiceTest {
+  @Mock private RefMerchantDao refMerchantDao;
+  @Mock private MerchantPrefixIndex merchantPrefixIndex;
+
+  private RefMerchantService refMerchantService;
+
+  @BeforeEach
+  void init() {
+    refMerchantService =
+        new RefMerchantService(
+            refMerchantDao,
+            merchantPrefixIndex,
+            new UserDataCache(
+                new SimpleMeterRegistry(),
+                DataSize.ofMegabytes(1),
+                DataSize.ofMegabytes(1),
+                Duration.ofMinutes(5)));
+  }
+
+  @Test
+  void deleteRefMerchantById_unused_deletes() {
+    when(refMerchantDao.deleteRefMerchantById("merchant-id")).thenReturn(1L);
+
+    RefMerchantResponse refMerchantResponse =
+        refMerchantService.deleteRefMerchantById("merchant-id");
+
+    assertEquals(1, refMerchantResponse.getDeleteCount());
+    assertNull(refMerchantResponse.getStatus());
+    verify(merchantPrefixIndex).remove("merchant-id");
+  }
+
+  @Test
+  void deleteRefMerchantById_inUse_returnsTheUsageCount() {
+    when(refMerchantDao.deleteRefMerchantById("merchant-id")).thenReturn(0L);
+    when(refMerchantDao.getRefMerchantById("merchant-id"))
+        .thenReturn(RefMerchant.builder().id("merchant-id").usageCount(3L).build());
+
+    RefMerchantResponse refMerchantResponse =
+        refMerchantService.deleteRefMerchantById("merchant-id");
+
+    assertEquals(0, refMerchantResponse.getDeleteCount());
+    assertEquals(
+        "Error Deleting Merchant, Used In 3 Transactions!!!",
+        refMerchantResponse.getStatus().getErrMsg());
+    verify(merchantPrefixIndex, never()).remove(any());
+  }
+
+  @Test
+  void deleteRefMerchantById_notCountedYet_asksToRetry() {
+    when(refMerchantDao.deleteRefMerchantById("merchant-id")).thenReturn(0L);
+    when(refMerchantDao.getRefMerchantById("merchant-id"))
+        .thenReturn(RefMerchant.builder().id("merchant-id").build());
+
+    RefMerchantResponse refMerchantResponse =
+        refMerchantService.deleteRefMerchantById("merchant-id");
+
+    assertEquals(
+        "Error Deleting Merchant, Usage Not Counted Yet, Please Try Again Later!!!",
+        refMerchantResponse.getStatus().getErrMsg());
+  }
+}
@@ -0,0 +1,107 @@
+package pets.database.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pets.database.cache.ReferenceDataCache;
+import pets.database.model.Account;
+import pets.database.model.RefCategory;
+import pets.database.model.RefMerchant;
+import pets.database.model.RefTransactionType;
+import pets.database.model.Transaction;
+import pets.database.repository.AccountDao;
+import pets.database.repository.RefAccountTypeDao;
+import pets.database.repository.RefBankDao;
+import pets.database.repository.RefCategoryDao;
+import pets.database.repository.RefCategoryTypeDao;
+import pets.database.repository.RefMerchantDao;
+import pets.database.repository.RefTransactionTypeDao;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionHydrationServiceTest {
+  @Mock private AccountDao accountDao;
+  @Mock private RefMerchantDao refMerchantDao;
+  @Mock private RefAccountTypeDao refAccountTypeDao;
+  @Mock private RefBankDao refBankDao;
+  @Mock private RefCategoryTypeDao refCategoryTypeDao;
+  @Mock private RefCategoryDao refCategoryDao;
+  @Mock private RefTransactionTypeDao refTransactionTypeDao;
+
+  private TransactionHydrationService transactionHydrationService;
+
+  @BeforeEach
+  void init() {
+    transactionHydrationService =
+        new TransactionHydrationService(
+            accountDao,
+            refMerchantDao,
+            new ReferenceDataCache(
+                refAccountTypeDao,
+                refBankDao,
+                refCategoryTypeDao,
+                refCategoryDao,
+                refTransactionTypeDao,
+                Duration.ofMinutes(15)));
+  }
+
+  @Test
+  void hydrate_resolvesReferencesWithOneQueryPerCollection() {
+    when(accountDao.getAccountsByIds(any()))
+        .thenReturn(
+            List.of(
+                Account.builder().id("account-1").description("checking").build(),
+                Account.builder().id("account-2").description("savings").build()));
+    when(refMerchantDao.getRefMerchantsByIds(any()))
+        .thenReturn(List.of(RefMerchant.builder().id("merchant-1").description("shop").build()));
+    when(refCategoryDao.getAllRefCategories())
+        .thenReturn(List.of(RefCategory.builder().id("category-1").description("food").build()));
+    when(refTransactionTypeDao.getAllRefTransactionTypes())
+        .thenReturn(
+            List.of(RefTransactionType.builder().id("type-1").description("expense").build()));
+
+    List<Transaction> transactions =
+        List.of(transaction("account-1", null), transaction("account-1", "account-2"));
+
+    transactionHydrationService.hydrate(transactions);
+
+    verify(accountDao, times(1)).getAccountsByIds(any());
+    verify(refMerchantDao, times(1)).getRefMerchantsByIds(any());
+    assertEquals("checking", transactions.get(0).getAccount().getDescription());
+    assertEquals("savings", transactions.get(1).getTrfAccount().getDescription());
+    assertEquals("shop", transactions.get(1).getRefMerchant().getDescription());
+    assertEquals("food", transactions.get(1).getRefCategory().getDescription());
+    assertEquals("expense", transactions.get(1).getRefTransactionType().getDescription());
+  }
+
+  @Test
+  void hydrate_unknownReference_keepsId() {
+    when(accountDao.getAccountsByIds(any())).thenReturn(List.of());
+    when(refMerchantDao.getRefMerchantsByIds(any())).thenReturn(List.of());
+
+    List<Transaction> transactions = List.of(transaction("account-3", null));
+
+    transactionHydrationService.hydrate(transactions);
+
+    assertEquals("account-3", transactions.get(0).getAccount().getId());
+  }
+
+  private Transaction transaction(String accountId, String trfAccountId) {
+    return Transaction.builder()
+        .account(Account.builder().id(accountId).build())
+        .trfAccount(trfAccountId == null ? null : Account.builder().id(trfAccountId).build())
+        .refMerchant(RefMerchant.builder().id("merchant-1").build())
+        .refCategory(RefCategory.builder().id("category-1").build())
+        .refTransactionType(RefTransactionType.builder().id("type-1").build())
+        .build();
+  }
+}
@@ -0,0 +1,124 @@
+package pets.database.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.client.result.UpdateResult;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pets.database.cache.TransactionSummaryCache;
+import pets.database.model.Transaction;
+import pets.database.model.TransactionBulkUpdateRequest;
+import pets.database.model.TransactionFilter;
+import pets.database.model.TransactionRequest;
+import pets.database.model.TransactionResponse;
+import pets.database.model.UsageTotal;
+import pets.database.model.User;
+import pets.database.repository.TransactionDao;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionServiceTest {
+  @Mock private TransactionDao transactionDao;
+  @Mock private TransactionSummaryCache transactionSummaryCache;
+  @Mock private AccountBalanceService accountBalanceService;
+  @Mock private TransactionHydrationService transactionHydrationService;
+  @Mock private UsageCountService usageCountService;
+
+  private TransactionService transactionService;
+
+  @BeforeEach
+  void init() {
+    transactionService =
+        new TransactionService(
+            transactionDao,
+            transactionSummaryCache,
+            accountBalanceService,
+            transactionHydrationService,
+            usageCountService,
+            500);
+  }
+
+  @Test
+  void updateTransactionById_invalidatesTheStoredOwner() {
+    Transaction transaction =
+        Transaction.builder()
+            .id("id-01")
+            .user(User.builder().username("user-name").build())
+            .build();
+    when(transactionDao.updateTransactionById(eq("id-01"), any())).thenReturn(transaction);
+    when(transactionDao.getTransactionById("id-01")).thenReturn(transaction);
+
+    TransactionResponse transactionResponse =
+        transactionService.updateTransactionById("id-01", transactionRequest("other-user"));
+
+    assertNull(transactionResponse.getStatus());
+    verify(transactionSummaryCache).invalidate("user-name");
+    verify(transactionSummaryCache, never()).invalidate("other-user");
+  }
+
+  @Test
+  void deleteTransactionById_withoutUser_deletes() {
+    when(transactionDao.deleteTransactionById("id-01"))
+        .thenReturn(Transaction.builder().id("id-01").build());
+
+    TransactionResponse transactionResponse = transactionService.deleteTransactionById("id-01");
+
+    assertNull(transactionResponse.getStatus());
+    assertEquals(1, transactionResponse.getDeleteCount());
+    verify(transactionSummaryCache, never()).invalidate(any());
+  }
+
+  @Test
+  void updateTransactionsByFilter_newAccount_leavesTransfersToTheFilteredAccount() {
+    TransactionFilter filter = TransactionFilter.builder().accountId("account-x").build();
+    // a transfer from account-x to account-c, the transfers to account-x are not matched
+    UsageTotal usageTotal =
+        UsageTotal.builder()
+            .accountId("account-x")
+            .trfAccountId("account-c")
+            .categoryId("category-id")
+            .count(2L)
+            .build();
+    when(transactionDao.getAccountIdsByFilter("user-name", filter, true))
+        .thenReturn(Set.of("account-x", "account-c"));
+    when(transactionDao.getUsageTotalsByFilter("user-name", filter, true))
+        .thenReturn(List.of(usageTotal));
+    when(transactionDao.updateTransactionsByFilter(eq("user-name"), eq(filter), any(), eq(true)))
+        .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+    TransactionResponse transactionResponse =
+        transactionService.updateTransactionsByFilter(
+            "user-name",
+            TransactionBulkUpdateRequest.builder().filter(filter).accountId("account-y").build());
+
+    assertNull(transactionResponse.getStatus());
+    verify(accountBalanceService).reconcileAccounts(Set.of("account-x", "account-c", "account-y"));
+    verify(usageCountService)
+        .applyMovedTransactions(
+            List.of(usageTotal), List.of(usageTotal.toBuilder().accountId("account-y").build()));
+  }
+
+  private static TransactionRequest transactionRequest(String username) {
+    return new TransactionRequest(
+        "account-id",
+        "type-id",
+        "category-id",
+        "merchant-id",
+        username,
+        "2021-12-31",
+        new BigDecimal("10.25"),
+        false,
+        true);
+  }
+}
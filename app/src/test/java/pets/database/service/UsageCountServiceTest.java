@@ -0,0 +1,117 @@
+package pets.database.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import pets.database.cache.MerchantPrefixIndex;
+import pets.database.cache.UserDataCache;
+import pets.database.model.Account;
+import pets.database.model.Transaction;
+import pets.database.model.UsageCountResponse;
+import pets.database.model.UsageTotal;
+import pets.database.repository.AccountDao;
+import pets.database.repository.JobLeases;
+import pets.database.repository.RefCategoryDao;
+import pets.database.repository.RefMerchantDao;
+import pets.database.repository.TransactionDao;
+
+@ExtendWith(MockitoExtension.class)
+class UsageCountServiceTest {
+  private static final Duration LEASE = Duration.ofHours(23);
+
+  @Mock private TransactionDao transactionDao;
+  @Mock private AccountDao accountDao;
+  @Mock private RefCategoryDao refCategoryDao;
+  @Mock private RefMerchantDao refMerchantDao;
+  @Mock private MerchantPrefixIndex merchantPrefixIndex;
+  @Mock private JobLeases jobLeases;
+
+  private UsageCountService usageCountService;
+
+  @BeforeEach
+  void init() {
+    usageCountService =
+        new UsageCountService(
+            transactionDao,
+            accountDao,
+            refCategoryDao,
+            refMerchantDao,
+            merchantPrefixIndex,
+            new UserDataCache(
+                new SimpleMeterRegistry(),
+                DataSize.ofMegabytes(1),
+                DataSize.ofMegabytes(1),
+                Duration.ofMinutes(5)),
+            jobLeases,
+            LEASE);
+  }
+
+  @Test
+  void rebuildUsageCounts_setsTheCountsAtTheVersionsReadBeforeCounting() {
+    Map<String, Long> accountVersions = Map.of("account-id", 4L, "unused-account-id", 1L);
+    Map<String, Long> refCategoryVersions = Map.of("category-id", 2L);
+    Map<String, Long> refMerchantVersions = Map.of("merchant-id", 9L);
+    when(accountDao.getUsageVersions()).thenReturn(accountVersions);
+    when(refCategoryDao.getUsageVersions()).thenReturn(refCategoryVersions);
+    when(refMerchantDao.getUsageVersions()).thenReturn(refMerchantVersions);
+    when(transactionDao.getUsageTotals())
+        .thenReturn(
+            List.of(
+                UsageTotal.builder()
+                    .accountId("account-id")
+                    .trfAccountId("account-id")
+                    .categoryId("category-id")
+                    .merchantId("merchant-id")
+                    .count(3L)
+                    .build()));
+    when(accountDao.replaceUsageCounts(accountVersions, Map.of("account-id", 3L))).thenReturn(1L);
+    when(refCategoryDao.replaceUsageCounts(refCategoryVersions, Map.of("category-id", 3L)))
+        .thenReturn(1L);
+    when(refMerchantDao.replaceUsageCounts(refMerchantVersions, Map.of("merchant-id", 3L)))
+        .thenReturn(1L);
+
+    UsageCountResponse usageCountResponse = usageCountService.rebuildUsageCounts();
+
+    assertNull(usageCountResponse.getStatus());
+    assertEquals(1, usageCountResponse.getUsedAccounts());
+    InOrder inOrder = inOrder(accountDao, transactionDao);
+    inOrder.verify(accountDao).getUsageVersions();
+    inOrder.verify(transactionDao).getUsageTotals();
+    inOrder.verify(accountDao).replaceUsageCounts(accountVersions, Map.of("account-id", 3L));
+    verify(merchantPrefixIndex).invalidateAll();
+  }
+
+  @Test
+  void scheduledRebuildUsageCounts_leasedByAnotherInstance_isSkipped() {
+    when(jobLeases.acquire("usage-count-rebuild", LEASE)).thenReturn(false);
+
+    usageCountService.scheduledRebuildUsageCounts();
+
+    verifyNoInteractions(transactionDao, accountDao, refCategoryDao, refMerchantDao);
+  }
+
+  @Test
+  void applyTransaction_transferToTheSameAccount_countsOnce() {
+    Account account = Account.builder().id("account-id").build();
+
+    usageCountService.applyTransaction(
+        null, Transaction.builder().account(account).trfAccount(account).build());
+
+    verify(accountDao).incrementUsageCount("account-id", 1L);
+  }
+}
@@ -4,15 +4,18 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 import static support.FixtureReader.readFixture;
 import static support.ObjectMapperProvider.objectMapper;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import java.time.Duration;
 import java.util.HashMap;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,16 +23,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.exceptions.base.MockitoException;
 import org.mockito.junit.jupiter.MockitoExtension;
+import pets.database.cache.UserETagCache;
 import pets.database.model.Status;
 import pets.database.model.User;
 import pets.database.model.UserRequest;
 import pets.database.model.UserResponse;
 import pets.database.repository.UserDao;
+import pets.database.utils.CursorUtils;
+import pets.database.utils.ETags;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
   @Mock private UserDao userDao;
 
+  private UserETagCache userETagCache;
   private UserService userService;
   private User expectedUser;
   private UserRequest userRequest;
@@ -37,7 +44,8 @@ class UserServiceTest {
 
   @BeforeEach
   void init() throws JsonProcessingException {
-    userService = new UserService(userDao);
+    userETagCache = new UserETagCache(Duration.ofMinutes(5));
+    userService = new UserService(userDao, userETagCache);
 
     userRequest =
         new UserRequest(
@@ -57,12 +65,26 @@ class UserServiceTest {
                     User.builder().username("user-name-02").build()))
             .build();
 
-    when(userDao.getAllUsers()).thenReturn(expectedUserResponse.getUsers());
+    when(userDao.getAllUsers(null, 3)).thenReturn(expectedUserResponse.getUsers());
 
-    UserResponse actualUserResponse = userService.getAllUsers();
+    UserResponse actualUserResponse = userService.getAllUsers(2, null);
 
     assertEquals(expectedUserResponse, actualUserResponse);
-    verify(userDao, times(1)).getAllUsers();
+    verify(userDao, times(1)).getAllUsers(null, 3);
+  }
+
+  @Test
+  void getAllUsers_returnsNextCursor() {
+    when(userDao.getAllUsers("id-00", 2))
+        .thenReturn(
+            asList(
+                User.builder().id("id-01").username("user-name-01").build(),
+                User.builder().id("id-02").username("user-name-02").build()));
+
+    UserResponse actualUserResponse = userService.getAllUsers(1, CursorUtils.encode("id-00"));
+
+    assertEquals(1, actualUserResponse.getUsers().size());
+    assertEquals(CursorUtils.encode("id-01"), actualUserResponse.getNextCursor());
   }
 
   @Test
@@ -77,12 +99,12 @@ class UserServiceTest {
                     .build())
             .build();
 
-    when(userDao.getAllUsers()).thenThrow(new MockitoException("whatever-so-and-so"));
+    when(userDao.getAllUsers(null, 3)).thenThrow(new MockitoException("whatever-so-and-so"));
 
-    UserResponse actualUserResponse = userService.getAllUsers();
+    UserResponse actualUserResponse = userService.getAllUsers(2, null);
 
     assertEquals(expectedUserResponse, actualUserResponse);
-    verify(userDao, times(1)).getAllUsers();
+    verify(userDao, times(1)).getAllUsers(null, 3);
   }
 
   @Test
@@ -103,6 +125,27 @@ class UserServiceTest {
     assertEquals(expectedUserResponse, actualUserResponse);
   }
 
+  @Test
+  void getUserETag_readBefore_returnsETagWithoutReadingTheDatabase() {
+    when(userDao.findUserByUsername("user-name")).thenReturn(expectedUser);
+
+    userService.getUserByUsername("user-name");
+
+    assertEquals(ETags.of(singletonList(expectedUser)), userService.getUserETag("user-name"));
+    verify(userDao, times(1)).findUserByUsername("user-name");
+    verifyNoMoreInteractions(userDao);
+  }
+
+  @Test
+  void getUserETag_invalidatedByAWrite_returnsNull() {
+    when(userDao.findUserByUsername("user-name")).thenReturn(expectedUser);
+
+    userService.getUserByUsername("user-name");
+    userETagCache.invalidate(expectedUser.getId());
+
+    assertNull(userService.getUserETag("user-name"));
+  }
+
   @Test
   void getUsersByEmailOrPhone_findsByEmail_returnsResponse() {
     when(userDao.findByEmailOrPhone(anyString(), anyString())).thenReturn(expectedUser);
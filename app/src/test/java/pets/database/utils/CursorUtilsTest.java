@@ -0,0 +1,50 @@
+package pets.database.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class CursorUtilsTest {
+
+  @Test
+  void encode_decode_returnsValues() {
+    String cursor = CursorUtils.encode("2021-12-31", "61cf5d2c5b8f0a6b3c1e2d4f");
+
+    String[] values = CursorUtils.decode(cursor, 2);
+
+    assertArrayEquals(new String[] {"2021-12-31", "61cf5d2c5b8f0a6b3c1e2d4f"}, values);
+  }
+
+  @Test
+  void encode_isUrlSafe() {
+    String cursor = CursorUtils.encode("a/b+c?d", "e=f&g");
+
+    assertTrue(cursor.matches("[A-Za-z0-9_-]+"));
+  }
+
+  @Test
+  void decode_keepsEmptyValues() {
+    String cursor = CursorUtils.encode("", "id");
+
+    assertArrayEquals(new String[] {"", "id"}, CursorUtils.decode(cursor, 2));
+  }
+
+  @Test
+  void decode_invalidBase64_throwsException() {
+    assertThrows(IllegalArgumentException.class, () -> CursorUtils.decode("not*base64", 2));
+  }
+
+  @Test
+  void decode_wrongNumberOfValues_throwsException() {
+    String cursor = CursorUtils.encode("2021-12-31");
+
+    assertThrows(IllegalArgumentException.class, () -> CursorUtils.decode(cursor, 2));
+  }
+
+  @Test
+  void isValid_returnsResult() {
+    assertTrue(CursorUtils.isValid(CursorUtils.encode("2021-12-31", "id"), 2));
+    assertFalse(CursorUtils.isValid("not*base64", 2));
+    assertFalse(CursorUtils.isValid(CursorUtils.encode("2021-12-31", "id", "extra"), 2));
+  }
+}
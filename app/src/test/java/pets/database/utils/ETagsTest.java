@@ -0,0 +1,36 @@
+package pets.database.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import pets.database.model.RefBank;
+
+class ETagsTest {
+
+  @Test
+  void of_sameContent_returnsSameETag() {
+    String eTag = ETags.of(List.of(RefBank.builder().id("id").description("bank").build()));
+
+    assertEquals(eTag, ETags.of(List.of(RefBank.builder().id("id").description("bank").build())));
+    assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+  }
+
+  @Test
+  void of_changedContent_returnsNewETag() {
+    String eTag = ETags.of(List.of(RefBank.builder().id("id").description("bank").build()));
+
+    assertNotEquals(
+        eTag, ETags.of(List.of(RefBank.builder().id("id").description("new bank").build())));
+  }
+
+  @Test
+  void matches_returnsResult() {
+    assertTrue(ETags.matches("\"a\"", "\"a\""));
+    assertTrue(ETags.matches("\"b\", W/\"a\"", "\"a\""));
+    assertTrue(ETags.matches("*", "\"a\""));
+    assertFalse(ETags.matches("\"b\"", "\"a\""));
+    assertFalse(ETags.matches(null, "\"a\""));
+    assertFalse(ETags.matches("\"a\"", null));
+  }
+}
@@ -0,0 +1,86 @@
+package support;
+
+import static org.junit.jupiter.api.Assumptions.abort;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import pets.database.repository.TransactionDates;
+
+/**
+ * The MongoDB the benchmarks run against, at -Dbenchmark.mongodb.uri, a local server by default.
+ * Every benchmark gets a database of its own, dropped when it is closed. The benchmark is skipped
+ * when there is no server to reach.
+ */
+public class BenchmarkMongo implements AutoCloseable {
+  private final MongoClient mongoClient;
+  private final MongoTemplate mongoTemplate;
+
+  private BenchmarkMongo(MongoClient mongoClient, String databaseName) {
+    this.mongoClient = mongoClient;
+
+    // converted the way MongoDbConfig sets up the application
+    MongoCustomConversions customConversions =
+        MongoCustomConversions.create(
+            converterConfigurationAdapter -> {
+              converterConfigurationAdapter.useNativeDriverJavaTimeCodecs();
+              converterConfigurationAdapter.registerConverters(
+                  TransactionDates.readingConverters());
+            });
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(customConversions.getSimpleTypeHolder());
+    MappingMongoConverter mongoConverter =
+        new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    mongoConverter.setCustomConversions(customConversions);
+    mongoConverter.afterPropertiesSet();
+
+    this.mongoTemplate =
+        new MongoTemplate(
+            new SimpleMongoClientDatabaseFactory(mongoClient, databaseName), mongoConverter);
+  }
+
+  public static BenchmarkMongo connect(String databaseName) {
+    String uri = System.getProperty("benchmark.mongodb.uri", "mongodb://localhost:27017");
+    MongoClient mongoClient =
+        MongoClients.create(
+            MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .applyToClusterSettings(
+                    builder -> builder.serverSelectionTimeout(2, TimeUnit.SECONDS))
+                .build());
+
+    try {
+      mongoClient.getDatabase("admin").runCommand(new Document("ping", 1));
+    } catch (MongoException ex) {
+      mongoClient.close();
+      abort("No MongoDB At " + uri + ", Benchmark Skipped: " + ex.getMessage());
+    }
+
+    BenchmarkMongo benchmarkMongo = new BenchmarkMongo(mongoClient, databaseName);
+    benchmarkMongo.mongoTemplate.getDb().drop();
+    return benchmarkMongo;
+  }
+
+  public MongoTemplate mongoTemplate() {
+    return mongoTemplate;
+  }
+
+  @Override
+  public void close() {
+    try {
+      mongoTemplate.getDb().drop();
+    } finally {
+      mongoClient.close();
+    }
+  }
+}